@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Creates the archives used by the benchmarks.
+ */
+final class BenchmarkFiles {
+  private static final int BLOCK_SIZE = 1024 * 1024;
+
+  private BenchmarkFiles() {
+    // utility class
+  }
+
+  /**
+   * Create a temporary archive of the passed size. The content is random and therefore does not
+   * compress which matches real addon archives.
+   *
+   * @param sizeMb Size of the archive in megabytes
+   * @return The created archive
+   * @throws IOException If the archive cannot be written
+   */
+  static File createArchive(int sizeMb) throws IOException {
+    final File file = File.createTempFile("twitch-release-benchmark-", ".zip");
+    file.deleteOnExit();
+
+    final byte[] block = new byte[BLOCK_SIZE];
+    new Random(42).nextBytes(block);
+
+    try (OutputStream outputStream = Files.newOutputStream(file.toPath())) {
+      for (int i = 0; i < sizeMb; i++) {
+        outputStream.write(block);
+      }
+    }
+
+    return file;
+  }
+}
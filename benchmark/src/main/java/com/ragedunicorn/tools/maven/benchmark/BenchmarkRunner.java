@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the allocation profiler and writes the results as json so that they
+ * can be compared between versions of the plugin. All regular JMH command line options are
+ * supported.
+ */
+public final class BenchmarkRunner {
+  private static final String RESULT_FILE = "target/jmh-result.json";
+
+  private BenchmarkRunner() {
+    // main class
+  }
+
+  /**
+   * Run the benchmarks.
+   *
+   * @param args JMH command line options
+   * @throws CommandLineOptionException If the command line options are invalid
+   * @throws RunnerException            If a benchmark failed
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+    new Runner(new OptionsBuilder()
+        .parent(commandLineOptions)
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON)
+        .result(commandLineOptions.getResult().orElse(RESULT_FILE))
+        .build())
+        .run();
+  }
+}
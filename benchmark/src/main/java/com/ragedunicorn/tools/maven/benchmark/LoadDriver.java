@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import com.ragedunicorn.tools.maven.TwitchClient;
+import com.ragedunicorn.tools.maven.http.HttpClientRegistry;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.retry.RetryPolicy;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.ragedunicorn.tools.maven.service.UploadEngine;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many concurrent release operations against an embedded {@link StubServer} to simulate a
+ * large amount of CI jobs releasing at once. Every worker uses its own Twitch client and release
+ * service like separate executions of the plugin would.
+ *
+ * <p>Options are passed as {@code --name=value}:
+ * <ul>
+ *   <li>concurrency - concurrent release operations (default 50)</li>
+ *   <li>releases - total amount of releases, ignored if duration is set (default 500)</li>
+ *   <li>duration - soak mode, keep releasing for the amount of seconds (default 0)</li>
+ *   <li>sizeMb - size of the released archive (default 1)</li>
+ *   <li>latency - server processing time in milliseconds (default 0)</li>
+ *   <li>bandwidth - bandwidth per upload in KB/s, 0 for unlimited (default 0)</li>
+ *   <li>errorRate - share of uploads answered with 503 (default 0)</li>
+ *   <li>rateLimitRate - share of uploads answered with 429 (default 0)</li>
+ *   <li>retryAfter - Retry-After of injected 429 responses in seconds (default 1)</li>
+ *   <li>maxConnections - size of the shared connection pool (default concurrency)</li>
+ *   <li>reportInterval - interval of intermediate reports in seconds (default 10)</li>
+ * </ul>
+ */
+public final class LoadDriver {
+  private LoadDriver() {
+    // main class
+  }
+
+  /**
+   * Run the load test.
+   *
+   * @param args Options in the format {@code --name=value}
+   * @throws Exception If the load test cannot be set up
+   */
+  public static void main(String[] args) throws Exception {
+    final Map<String, String> options = parseOptions(args);
+    final int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "50"));
+    final int releases = Integer.parseInt(options.getOrDefault("releases", "500"));
+    final long durationSeconds = Long.parseLong(options.getOrDefault("duration", "0"));
+    final int sizeMb = Integer.parseInt(options.getOrDefault("sizeMb", "1"));
+    final long reportInterval = Long.parseLong(options.getOrDefault("reportInterval", "10"));
+    final int maxConnections = Integer.parseInt(
+        options.getOrDefault("maxConnections", String.valueOf(concurrency)));
+
+    final StubServerConfig config = new StubServerConfig();
+    config.setLatencyMillis(Long.parseLong(options.getOrDefault("latency", "0")));
+    config.setBandwidthBytesPerSecond(
+        Long.parseLong(options.getOrDefault("bandwidth", "0")) * 1024);
+    config.setErrorRate(Double.parseDouble(options.getOrDefault("errorRate", "0")));
+    config.setRateLimitRate(Double.parseDouble(options.getOrDefault("rateLimitRate", "0")));
+    config.setRetryAfterSeconds(Integer.parseInt(options.getOrDefault("retryAfter", "1")));
+
+    System.out.println("Load test with " + concurrency + " concurrent releases of " + sizeMb
+        + "MB against " + config);
+
+    HttpClientRegistry.getInstance().configure(maxConnections, maxConnections);
+
+    final File file = BenchmarkFiles.createArchive(sizeMb);
+    final LoadReport report = new LoadReport();
+    final AtomicInteger remaining = new AtomicInteger(releases);
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+    final ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+    final ExecutorService reporter = Executors.newSingleThreadExecutor();
+
+    try (StubServer server = new StubServer(config)) {
+      final List<Future<?>> futures = new ArrayList<>();
+
+      for (int i = 0; i < concurrency; i++) {
+        final ReleaseService releaseService = createReleaseService(server);
+
+        futures.add(workers.submit(() -> {
+          while (durationSeconds > 0 ? System.nanoTime() < deadline
+              : remaining.getAndDecrement() > 0) {
+            release(releaseService, file, report);
+          }
+        }));
+      }
+
+      reporter.submit(() -> {
+        while (!Thread.currentThread().isInterrupted()) {
+          try {
+            TimeUnit.SECONDS.sleep(reportInterval);
+          } catch (InterruptedException e) {
+            return;
+          }
+          System.out.print(report.format());
+        }
+      });
+
+      for (Future<?> future : futures) {
+        future.get();
+      }
+
+      reporter.shutdownNow();
+
+      System.out.println("=== Load test finished");
+      System.out.print(report.format());
+      System.out.println("server:   " + server.getRequests() + " requests, "
+          + server.getInjectedErrors() + " injected errors, " + server.getInjectedRateLimits()
+          + " injected rate limits");
+      System.out.println("pool:     " + HttpClientRegistry.getInstance().getStatistics());
+    } finally {
+      workers.shutdownNow();
+      reporter.shutdownNow();
+      HttpClientRegistry.getInstance().shutdown();
+      file.delete();
+    }
+  }
+
+  private static void release(ReleaseService releaseService, File file, LoadReport report) {
+    final Metadata metadata = new Metadata();
+    metadata.setChangelog("load test");
+    metadata.setChangelogType("text");
+    metadata.setDisplayName("addon");
+    metadata.setGameVersions(new int[] {7668});
+    metadata.setReleaseType("release");
+
+    final long start = System.nanoTime();
+
+    try {
+      releaseService.createReleaseOperation(metadata, file.getPath());
+      report.success(System.nanoTime() - start, file.length());
+    } catch (Exception e) {
+      report.failure(e);
+    }
+  }
+
+  private static ReleaseService createReleaseService(StubServer server) {
+    final TwitchClient twitchClient = new TwitchClient(server.getBaseUri(), "wow",
+        StubServer.PROJECT_ID, "load-test-token");
+
+    final RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setInitialBackoffMillis(100);
+    retryPolicy.setMaxBackoffMillis(TimeUnit.SECONDS.toMillis(5));
+
+    return new ReleaseService(twitchClient, ReleaseService.DEFAULT_UPLOAD_THREADS,
+        new UploadEngine(UploadEngine.DEFAULT_CHUNK_SIZE,
+            UploadEngine.DEFAULT_MAX_RETRANSMISSIONS, retryPolicy));
+  }
+
+  private static Map<String, String> parseOptions(String[] args) {
+    final Map<String, String> options = new HashMap<>();
+
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Invalid option " + arg + " - expected --name=value");
+      }
+
+      final int separator = arg.indexOf('=');
+      options.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+
+    return options;
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collects the outcome of all release operations of a load run.
+ */
+public class LoadReport {
+  private static final Pattern STATUS_PATTERN = Pattern.compile("with status (\\d+)");
+
+  private final List<Long> latenciesNanos = Collections.synchronizedList(new ArrayList<>());
+
+  private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+  private final LongAdder uploadedBytes = new LongAdder();
+
+  private final long startNanos = System.nanoTime();
+
+  /**
+   * Record a successful release.
+   *
+   * @param latencyNanos Duration of the release
+   * @param bytes        Size of the released archive
+   */
+  public void success(long latencyNanos, long bytes) {
+    latenciesNanos.add(latencyNanos);
+    uploadedBytes.add(bytes);
+  }
+
+  /**
+   * Record a failed release. Failures are grouped by the http status reported by the release
+   * service or by the type of the exception.
+   *
+   * @param error The error of the release
+   */
+  public void failure(Throwable error) {
+    failures.computeIfAbsent(classify(error), key -> new LongAdder()).increment();
+  }
+
+  private static String classify(Throwable error) {
+    final Matcher matcher = STATUS_PATTERN.matcher(String.valueOf(error.getMessage()));
+
+    if (matcher.find()) {
+      return "HTTP " + matcher.group(1);
+    }
+
+    final Throwable cause = error.getCause() == null ? error : error.getCause();
+
+    return cause.getClass().getSimpleName();
+  }
+
+  /**
+   * Format the report.
+   *
+   * @return Latency percentiles, throughput and failures
+   */
+  public String format() {
+    final List<Long> latencies;
+
+    synchronized (latenciesNanos) {
+      latencies = new ArrayList<>(latenciesNanos);
+    }
+
+    Collections.sort(latencies);
+
+    final double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+    final long failed = failures.values().stream().mapToLong(LongAdder::sum).sum();
+    final StringBuilder report = new StringBuilder();
+
+    report.append(String.format(Locale.ROOT, "releases: %d succeeded, %d failed in %.1fs%n",
+        latencies.size(), failed, elapsedSeconds));
+    report.append(String.format(Locale.ROOT,
+        "latency:  p50 %dms, p95 %dms, p99 %dms, max %dms%n",
+        percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99),
+        percentile(latencies, 100)));
+    report.append(String.format(Locale.ROOT, "throughput: %.2f releases/s, %.2f MB/s%n",
+        latencies.size() / elapsedSeconds, uploadedBytes.sum() / 1e6 / elapsedSeconds));
+
+    new TreeMap<>(failures).forEach((reason, count) ->
+        report.append(String.format(Locale.ROOT, "failure:  %s x%d%n", reason, count.sum())));
+
+    return report.toString();
+  }
+
+  private static long percentile(List<Long> sortedLatencies, int percentile) {
+    if (sortedLatencies.isEmpty()) {
+      return 0;
+    }
+
+    final int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.size()) - 1;
+
+    return TimeUnit.NANOSECONDS.toMillis(sortedLatencies.get(Math.max(0, index)));
+  }
+}
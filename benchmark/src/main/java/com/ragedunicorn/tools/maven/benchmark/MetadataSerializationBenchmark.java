@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Serialization of the release metadata as done for every upload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MetadataSerializationBenchmark {
+  private Metadata metadata;
+
+  private Gson gson;
+
+  /**
+   * Create metadata with a changelog of typical size.
+   */
+  @Setup
+  public void setUp() {
+    final StringBuilder changelog = new StringBuilder();
+
+    for (int i = 0; i < 50; i++) {
+      changelog.append("* Fixed issue #").append(i).append(" with the addon options\n");
+    }
+
+    metadata = new Metadata();
+    metadata.setChangelog(changelog.toString());
+    metadata.setChangelogType("markdown");
+    metadata.setDisplayName("addon-1.0.0");
+    metadata.setGameVersions(new int[] {7668, 7350});
+    metadata.setReleaseType("release");
+
+    gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+  }
+
+  @Benchmark
+  public String serialize() {
+    return gson.toJson(metadata);
+  }
+
+  /**
+   * Serialization including the creation of the Gson instance as done by the release service.
+   *
+   * @return The serialized metadata
+   */
+  @Benchmark
+  public String serializeWithNewGson() {
+    return new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create().toJson(metadata);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import com.ragedunicorn.tools.maven.TwitchClient;
+import com.ragedunicorn.tools.maven.http.HttpClientRegistry;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.TwitchApiRelease;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Complete release operation against an in-process stub of the Twitch Api.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReleaseOperationBenchmark {
+  @Param({"1", "16", "256", "1024"})
+  public int sizeMb;
+
+  private StubServer server;
+
+  private File file;
+
+  private ReleaseService releaseService;
+
+  private Metadata metadata;
+
+  /**
+   * Start the stub server and create the archive.
+   *
+   * @throws IOException If the server cannot be started or the archive cannot be written
+   */
+  @Setup
+  public void setUp() throws IOException {
+    server = new StubServer();
+    file = BenchmarkFiles.createArchive(sizeMb);
+
+    final TwitchClient twitchClient = new TwitchClient(server.getBaseUri(), "wow",
+        StubServer.PROJECT_ID, "benchmark-token");
+
+    releaseService = new ReleaseService(twitchClient);
+
+    metadata = new Metadata();
+    metadata.setChangelog("benchmark");
+    metadata.setChangelogType("text");
+    metadata.setDisplayName("addon");
+    metadata.setGameVersions(new int[] {7668});
+    metadata.setReleaseType("release");
+  }
+
+  /**
+   * Stop the stub server and release all pooled connections.
+   */
+  @TearDown
+  public void tearDown() {
+    HttpClientRegistry.getInstance().shutdown();
+    server.close();
+    file.delete();
+  }
+
+  @Benchmark
+  public TwitchApiRelease createReleaseOperation() throws MojoExecutionException {
+    return releaseService.createReleaseOperation(metadata, file.getPath());
+  }
+}
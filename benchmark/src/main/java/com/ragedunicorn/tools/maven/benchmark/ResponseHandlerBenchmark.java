@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import com.google.gson.Gson;
+import com.ragedunicorn.tools.maven.TwitchClient;
+import com.ragedunicorn.tools.maven.cassette.Cassette;
+import com.ragedunicorn.tools.maven.cassette.CassetteMode;
+import com.ragedunicorn.tools.maven.cassette.RecordedExchange;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.TwitchApiRelease;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Handling of the responses of the Twitch Api. The responses are replayed from a cassette and the
+ * released file is tiny so that the release operation is dominated by the response handling
+ * instead of the transmission.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResponseHandlerBenchmark {
+  private static final String ENDPOINT = "/api/projects/" + StubServer.PROJECT_ID
+      + "/upload-file";
+
+  private File file;
+
+  private Path successCassette;
+
+  private Path errorCassette;
+
+  private ReleaseService successService;
+
+  private ReleaseService errorService;
+
+  private Metadata metadata;
+
+  /**
+   * Create the release services replaying the responses to handle.
+   *
+   * @throws IOException If the cassettes or the released file cannot be written
+   */
+  @Setup
+  public void setUp() throws IOException {
+    file = File.createTempFile("addon", ".zip");
+    Files.write(file.toPath(), "addon".getBytes(StandardCharsets.UTF_8));
+
+    successCassette = createCassette(200, "{\"id\":20402}");
+    errorCassette = createCassette(400,
+        "{\"errorCode\":1000,\"errorMessage\":\"Invalid game version\"}");
+    successService = createReleaseService(successCassette);
+    errorService = createReleaseService(errorCassette);
+
+    metadata = new Metadata();
+    metadata.setChangelog("benchmark");
+    metadata.setChangelogType("text");
+    metadata.setDisplayName("addon");
+    metadata.setGameVersions(new int[] {7668});
+    metadata.setReleaseType("release");
+  }
+
+  /**
+   * Delete the cassettes and the released file.
+   *
+   * @throws IOException If a file cannot be deleted
+   */
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(successCassette);
+    Files.deleteIfExists(errorCassette);
+    Files.deleteIfExists(file.toPath());
+  }
+
+  @Benchmark
+  public TwitchApiRelease handleSuccess() throws MojoExecutionException {
+    return successService.createReleaseOperation(metadata, file.getPath());
+  }
+
+  /**
+   * Handle an error response which is reported as exception.
+   *
+   * @return The exception raised for the error response
+   */
+  @Benchmark
+  public MojoExecutionException handleError() {
+    try {
+      errorService.createReleaseOperation(metadata, file.getPath());
+      return null;
+    } catch (MojoExecutionException e) {
+      return e;
+    }
+  }
+
+  private static Path createCassette(int statusCode, String body) throws IOException {
+    final RecordedExchange exchange = new RecordedExchange();
+    exchange.setMethod("POST");
+    exchange.setUri(ENDPOINT);
+    exchange.setRequestHeaders(Collections.emptyMap());
+    exchange.setStatusCode(statusCode);
+    exchange.setResponseHeaders(
+        Collections.singletonMap("Content-Type", "application/json"));
+    exchange.setResponseBody(body);
+
+    final Path cassette = Files.createTempFile("cassette", ".json");
+    Files.write(cassette, new Gson().toJson(Collections.singletonList(exchange))
+        .getBytes(StandardCharsets.UTF_8));
+
+    return cassette;
+  }
+
+  private static ReleaseService createReleaseService(Path cassette) throws IOException {
+    return new ReleaseService(new TwitchClient(TwitchClient.DEFAULT_BASE_URI, "wow",
+        StubServer.PROJECT_ID, "benchmark-token", Cassette.open(cassette, CassetteMode.REPLAY)));
+  }
+}
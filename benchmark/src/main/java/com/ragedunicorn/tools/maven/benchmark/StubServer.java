@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for the upload endpoint of the Twitch Api. The request body is drained and
+ * every upload is answered with a new file id. Latency, bandwidth limits, server errors and rate
+ * limiting can be injected with a {@link StubServerConfig}.
+ */
+public class StubServer implements AutoCloseable {
+  public static final String PROJECT_ID = "111111";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final StubServerConfig config;
+
+  private final HttpServer server;
+
+  private final ExecutorService executor;
+
+  private final AtomicInteger fileIds = new AtomicInteger();
+
+  private final LongAdder requests = new LongAdder();
+
+  private final LongAdder injectedErrors = new LongAdder();
+
+  private final LongAdder injectedRateLimits = new LongAdder();
+
+  private final LongAdder receivedBytes = new LongAdder();
+
+  public StubServer() throws IOException {
+    this(new StubServerConfig());
+  }
+
+  /**
+   * Create and start a stub server on a random local port.
+   *
+   * @param config The behaviour of the server
+   * @throws IOException If the server cannot be started
+   */
+  public StubServer(StubServerConfig config) throws IOException {
+    this.config = config;
+    executor = Executors.newCachedThreadPool();
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(executor);
+    server.createContext("/api/projects/" + PROJECT_ID + "/upload-file", this::handle);
+    server.start();
+  }
+
+  public String getBaseUri() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  public long getInjectedErrors() {
+    return injectedErrors.sum();
+  }
+
+  public long getInjectedRateLimits() {
+    return injectedRateLimits.sum();
+  }
+
+  public long getReceivedBytes() {
+    return receivedBytes.sum();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requests.increment();
+
+    try (InputStream inputStream = exchange.getRequestBody()) {
+      drain(inputStream);
+      sleep(config.getLatencyMillis());
+    }
+
+    final double chance = ThreadLocalRandom.current().nextDouble();
+
+    if (chance < config.getRateLimitRate()) {
+      injectedRateLimits.increment();
+      exchange.getResponseHeaders().add("Retry-After",
+          String.valueOf(config.getRetryAfterSeconds()));
+      respond(exchange, 429, "{\"errorCode\":429,\"errorMessage\":\"Too many requests\"}");
+    } else if (chance < config.getRateLimitRate() + config.getErrorRate()) {
+      injectedErrors.increment();
+      respond(exchange, 503, "{\"errorCode\":503,\"errorMessage\":\"Service unavailable\"}");
+    } else {
+      respond(exchange, 200, "{\"id\":" + fileIds.incrementAndGet() + "}");
+    }
+  }
+
+  /**
+   * Read the complete body while keeping below the configured bandwidth.
+   *
+   * @param inputStream The request body
+   * @throws IOException If the body cannot be read
+   */
+  private void drain(InputStream inputStream) throws IOException {
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    final long start = System.nanoTime();
+    long total = 0;
+    int read;
+
+    while ((read = inputStream.read(buffer)) != -1) {
+      total += read;
+      receivedBytes.add(read);
+
+      if (config.getBandwidthBytesPerSecond() > 0) {
+        final long expectedNanos =
+            TimeUnit.SECONDS.toNanos(total) / config.getBandwidthBytesPerSecond();
+        sleep(TimeUnit.NANOSECONDS.toMillis(expectedNanos - (System.nanoTime() - start)));
+      }
+    }
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body)
+      throws IOException {
+    final byte[] response = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, response.length);
+
+    try (OutputStream outputStream = exchange.getResponseBody()) {
+      outputStream.write(response);
+    }
+  }
+
+  private static void sleep(long millis) throws InterruptedIOException {
+    if (millis <= 0) {
+      return;
+    }
+
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while simulating the Twitch Api");
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+/**
+ * Behaviour of the {@link StubServer}. The defaults answer every upload immediately and without
+ * any failure.
+ */
+public class StubServerConfig {
+  // delay in milliseconds between receiving the complete body and answering
+  private long latencyMillis;
+
+  // maximum amount of bytes per second a single upload is received with, 0 for unlimited
+  private long bandwidthBytesPerSecond;
+
+  // share of uploads that are answered with a server error
+  private double errorRate;
+
+  // share of uploads that are answered with 429 Too Many Requests
+  private double rateLimitRate;
+
+  // value of the Retry-After header of injected 429 responses
+  private int retryAfterSeconds = 1;
+
+  public long getLatencyMillis() {
+    return latencyMillis;
+  }
+
+  public void setLatencyMillis(long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+  public long getBandwidthBytesPerSecond() {
+    return bandwidthBytesPerSecond;
+  }
+
+  public void setBandwidthBytesPerSecond(long bandwidthBytesPerSecond) {
+    this.bandwidthBytesPerSecond = bandwidthBytesPerSecond;
+  }
+
+  public double getErrorRate() {
+    return errorRate;
+  }
+
+  public void setErrorRate(double errorRate) {
+    this.errorRate = errorRate;
+  }
+
+  public double getRateLimitRate() {
+    return rateLimitRate;
+  }
+
+  public void setRateLimitRate(double rateLimitRate) {
+    this.rateLimitRate = rateLimitRate;
+  }
+
+  public int getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+
+  public void setRetryAfterSeconds(int retryAfterSeconds) {
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  @Override
+  public String toString() {
+    return "StubServerConfig{"
+        + "latencyMillis=" + latencyMillis
+        + ", bandwidthBytesPerSecond=" + bandwidthBytesPerSecond
+        + ", errorRate=" + errorRate
+        + ", rateLimitRate=" + rateLimitRate
+        + ", retryAfterSeconds=" + retryAfterSeconds
+        + '}';
+  }
+}
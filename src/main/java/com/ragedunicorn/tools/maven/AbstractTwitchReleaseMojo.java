@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.model.AdditionalFile;
+import com.ragedunicorn.tools.maven.model.ReleaseTarget;
+import com.ragedunicorn.tools.maven.validation.ReleaseValidator;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Parameters describing a release that are shared by all goals of the plugin together with the
+ * offline validation of the release.
+ */
+public abstract class AbstractTwitchReleaseMojo extends AbstractMojo {
+  // A string containing the changelog
+  @Parameter(property = "changelog")
+  private String changelog;
+
+  // Optional path to a changelog file - will override changelog
+  @Parameter(property = "changelogFile")
+  private String changelogFile;
+
+  // Changelog type ["text", "html", "markdown"]
+  @Parameter(property = "changelogType", defaultValue = "text")
+  private String changelogType;
+
+  // A list of supported game versions. Either names such as 1.13.5 or ids
+  @Parameter(property = "gameVersions")
+  private String[] gameVersions;
+
+  // One of "alpha", "beta", "release"
+  @Parameter(property = "releaseType", defaultValue = "release")
+  private String releaseType;
+
+  // The path to the addon to upload. If addonDirectory is set the archive is created at this path
+  @Parameter(property = "file", required = true)
+  private String file;
+
+  // Optional directory that is packaged into the archive defined by file before uploading it
+  @Parameter(property = "addonDirectory")
+  private String addonDirectory;
+
+  // Optional additional files that are uploaded as children of the main file
+  @Parameter
+  private List<AdditionalFile> additionalFiles;
+
+  // Optional projects the file is released to instead of the configured project. Unset
+  // properties of a target are inherited from the plugin configuration
+  @Parameter
+  private List<ReleaseTarget> targets;
+
+  // Maximum size in bytes of every uploaded file. 0 disables the limit
+  @Parameter(property = "maxFileSize", defaultValue = "0")
+  private long maxFileSize;
+
+  protected String getChangelogType() {
+    return changelogType;
+  }
+
+  protected String[] getGameVersions() {
+    return gameVersions == null ? null : gameVersions.clone();
+  }
+
+  protected String getReleaseType() {
+    return releaseType;
+  }
+
+  protected String getFile() {
+    return file;
+  }
+
+  protected String getAddonDirectory() {
+    return addonDirectory;
+  }
+
+  protected List<AdditionalFile> getAdditionalFiles() {
+    return additionalFiles;
+  }
+
+  protected List<ReleaseTarget> getTargets() {
+    return targets;
+  }
+
+  /**
+   * Whether the file is released to a list of targets instead of a single project.
+   *
+   * @return True if release targets are configured
+   */
+  protected boolean hasTargets() {
+    return targets != null && !targets.isEmpty();
+  }
+
+  /**
+   * Validate the release without any network access. All checks are executed concurrently and
+   * every problem found is reported at once. If an addon directory is configured the directory is
+   * checked instead of the archive that is packaged from it.
+   *
+   * @throws MojoExecutionException If the release is invalid
+   */
+  protected void validateRelease() throws MojoExecutionException {
+    if (maxFileSize < 0) {
+      throw new MojoExecutionException("Parameter maxFileSize must not be negative");
+    }
+
+    final ReleaseValidator validator = new ReleaseValidator(maxFileSize,
+        Runtime.getRuntime().availableProcessors());
+
+    if (file == null || file.isEmpty()) {
+      validator.addProblem("Missing required parameter file");
+    } else if (isPackaged()) {
+      // the archive is created by the plugin
+      validator.checkDirectory(addonDirectory);
+    } else {
+      validator.checkFile(file);
+    }
+
+    if (additionalFiles != null) {
+      for (AdditionalFile additionalFile : additionalFiles) {
+        if (additionalFile.getFile() == null || additionalFile.getFile().isEmpty()) {
+          validator.addProblem("Missing required parameter file for additional file");
+        } else {
+          validator.checkFile(additionalFile.getFile());
+        }
+      }
+    }
+
+    if (changelogFile != null && !changelogFile.isEmpty()) {
+      validator.checkChangelogFile(changelogFile);
+    }
+
+    validator.checkChangelogType(changelogType);
+    validator.checkReleaseType(releaseType);
+
+    if (hasTargets()) {
+      checkTargets(validator);
+    } else if (gameVersions == null || gameVersions.length == 0) {
+      validator.addProblem("Missing required parameter gameVersions");
+    } else {
+      validator.checkGameVersions(gameVersions);
+    }
+
+    final List<String> problems = validator.validate();
+
+    if (!problems.isEmpty()) {
+      throw new MojoExecutionException("Release validation failed:" + System.lineSeparator()
+          + " - " + String.join(System.lineSeparator() + " - ", problems));
+    }
+  }
+
+  private void checkTargets(ReleaseValidator validator) {
+    for (ReleaseTarget target : targets) {
+      if (target.getProjectId() == null || target.getProjectId().isEmpty()) {
+        validator.addProblem("Missing required parameter projectId for target " + target);
+      }
+
+      if (target.getReleaseType() != null) {
+        validator.checkReleaseType(target.getReleaseType());
+      }
+
+      if (target.getGameVersions() != null && !target.getGameVersions().isEmpty()) {
+        validator.checkGameVersions(target.getGameVersions().toArray(new String[0]));
+      } else if (gameVersions == null || gameVersions.length == 0) {
+        validator.addProblem("Missing required parameter gameVersions for target "
+            + target.getProjectId());
+      }
+    }
+  }
+
+  /**
+   * Whether the archive is packaged from the addon directory.
+   *
+   * @return True if an addon directory is configured
+   */
+  protected boolean isPackaged() {
+    return addonDirectory != null && !addonDirectory.isEmpty();
+  }
+
+  /**
+   * Read the changelog. A changelog file takes precedence over the changelog parameter.
+   *
+   * @return The changelog or an empty string if none is configured
+   *
+   * @throws MojoExecutionException If the changelog file cannot be read
+   */
+  protected String getChangelog() throws MojoExecutionException {
+    if (changelogFile != null && !changelogFile.isEmpty()) {
+      if (getLog().isDebugEnabled()) {
+        getLog().debug("Changelog path: " + changelogFile);
+      }
+
+      try {
+        return new String(Files.readAllBytes(Paths.get(changelogFile)), StandardCharsets.UTF_8);
+      } catch (IOException e) {
+        throw new MojoExecutionException("Failed to read release notes", e);
+      }
+    } else if (changelog != null && !changelog.isEmpty()) {
+      return changelog;
+    }
+
+    return "";
+  }
+}
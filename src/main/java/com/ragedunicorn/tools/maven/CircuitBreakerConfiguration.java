@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import java.util.Objects;
+
+/**
+ * Configuration of the circuit breaker that stops sending releases once the Twitch Api is
+ * considered unavailable.
+ */
+public class CircuitBreakerConfiguration {
+  // Failures in a row after which the Twitch Api is considered unavailable and no further
+  // releases are sent
+  private int threshold = 3;
+
+  // Time in milliseconds no releases are sent once the Twitch Api is considered unavailable
+  private long openTime = 60000;
+
+  public int getThreshold() {
+    return threshold;
+  }
+
+  public void setThreshold(int threshold) {
+    this.threshold = threshold;
+  }
+
+  public long getOpenTime() {
+    return openTime;
+  }
+
+  public void setOpenTime(long openTime) {
+    this.openTime = openTime;
+  }
+
+  @Override
+  public String toString() {
+    return "CircuitBreakerConfiguration{"
+        + "threshold=" + threshold
+        + ", openTime=" + openTime
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    CircuitBreakerConfiguration that = (CircuitBreakerConfiguration) o;
+    return threshold == that.threshold
+        && openTime == that.openTime;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(threshold, openTime);
+  }
+}
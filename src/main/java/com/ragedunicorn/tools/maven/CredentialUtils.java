@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.settings.Server;
+import org.apache.maven.settings.Settings;
+
+/**
+ * Lookup of the Twitch Api token shared by all goals that call the Twitch Api.
+ */
+final class CredentialUtils {
+  private CredentialUtils() {
+    // utility class
+  }
+
+  /**
+   * Retrieve the token for the Twitch Api. A server configuration in the settings.xml is
+   * preferred over a token configured directly in the pom.
+   *
+   * @param settings The Maven settings
+   * @param server   Optional id of the server configuration holding the token
+   * @param token    Optional token configured in the pom
+   * @param log      The log of the goal
+   * @return The token
+   *
+   * @throws MojoExecutionException If no token is configured
+   */
+  static String getToken(Settings settings, String server, String token, Log log)
+      throws MojoExecutionException {
+    String resolvedToken = token;
+
+    // prefer settings parameter over direct configuration in pom
+    if (settings != null && server != null) {
+      final Server serverEntry = settings.getServer(server);
+      if (serverEntry != null) {
+        resolvedToken = serverEntry.getPassphrase();
+
+        if (resolvedToken == null || resolvedToken.isEmpty()) {
+          throw new MojoExecutionException("Found server entry in settings.xml "
+              + "but authToken parameter was missing or is empty");
+        }
+      } else {
+        log.warn("Unable to retrieve settings or server. Falling back to project settings");
+      }
+    }
+    // fallback to plugin configuration if credentials cannot be retrieved from maven settings.xml
+    if (resolvedToken == null) {
+      throw new MojoExecutionException("Unable to read authentication configuration make "
+          + "sure to set the authToken property");
+    }
+
+    return resolvedToken;
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.model.GitHubDestination;
+import com.ragedunicorn.tools.maven.model.WowInterfaceDestination;
+import com.ragedunicorn.tools.maven.publish.GitHubPublisher;
+import com.ragedunicorn.tools.maven.publish.Publisher;
+import com.ragedunicorn.tools.maven.publish.WowInterfacePublisher;
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import java.io.File;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.settings.Settings;
+
+/**
+ * Builds the publishers of the destinations the file is released to in addition to Twitch.
+ * Properties that are not set on a destination are inherited from the project.
+ */
+final class PublisherFactory {
+  private final Settings settings;
+
+  private final Log log;
+
+  // version of the project used if a destination configures no version
+  private final String projectVersion;
+
+  // timeouts shared with the Twitch releases of the execution
+  private final TimeoutPolicy timeoutPolicy;
+
+  /**
+   * Create a factory for the publishers of the configured destinations.
+   *
+   * @param settings       The Maven settings holding the tokens of the destinations
+   * @param log            The log of the goal
+   * @param projectVersion Optional version of the project
+   * @param timeoutPolicy  The timeouts of the requests
+   */
+  PublisherFactory(Settings settings, Log log, String projectVersion,
+      TimeoutPolicy timeoutPolicy) {
+    this.settings = settings;
+    this.log = log;
+    this.projectVersion = projectVersion;
+    this.timeoutPolicy = timeoutPolicy;
+  }
+
+  /**
+   * Create a publisher releasing the file to a WoWInterface addon.
+   *
+   * @param configured The configured destination
+   * @param file       The file that is released
+   * @param changelog  The changelog of the release
+   * @return The created publisher
+   * @throws MojoExecutionException If no token or version is configured
+   */
+  Publisher createWowInterfacePublisher(WowInterfaceDestination configured, String file,
+      String changelog) throws MojoExecutionException {
+    final WowInterfaceDestination destination = new WowInterfaceDestination();
+    destination.setAddonId(configured.getAddonId());
+    destination.setVersion(configured.getVersion() == null
+        ? projectVersion : configured.getVersion());
+    destination.setCompatible(configured.getCompatible());
+    destination.setBaseUri(configured.getBaseUri() == null
+        ? WowInterfacePublisher.DEFAULT_BASE_URI : configured.getBaseUri());
+    destination.setToken(CredentialUtils.getToken(settings, configured.getServer(),
+        configured.getToken(), log));
+
+    if (destination.getVersion() == null) {
+      throw new MojoExecutionException("Missing version of the WoWInterface release");
+    }
+
+    return new WowInterfacePublisher(destination, new File(file), changelog, timeoutPolicy);
+  }
+
+  /**
+   * Create a publisher releasing the file to a GitHub repository.
+   *
+   * @param configured The configured destination
+   * @param prerelease Whether the release is marked as pre-release unless configured otherwise
+   * @param file       The file that is released
+   * @param changelog  The changelog of the release
+   * @return The created publisher
+   * @throws MojoExecutionException If no token or tag is configured
+   */
+  Publisher createGitHubPublisher(GitHubDestination configured, boolean prerelease, String file,
+      String changelog) throws MojoExecutionException {
+    final GitHubDestination destination = new GitHubDestination();
+    destination.setOwner(configured.getOwner());
+    destination.setRepository(configured.getRepository());
+    destination.setTagName(configured.getTagName() == null
+        ? projectVersion : configured.getTagName());
+    destination.setName(configured.getName());
+    destination.setPrerelease(configured.getPrerelease() == null
+        ? prerelease : configured.getPrerelease());
+    destination.setBaseUri(configured.getBaseUri() == null
+        ? GitHubPublisher.DEFAULT_BASE_URI : configured.getBaseUri());
+    destination.setToken(CredentialUtils.getToken(settings, configured.getServer(),
+        configured.getToken(), log));
+
+    if (destination.getTagName() == null) {
+      throw new MojoExecutionException("Missing tagName of the GitHub release");
+    }
+
+    return new GitHubPublisher(destination, new File(file), changelog, timeoutPolicy);
+  }
+}
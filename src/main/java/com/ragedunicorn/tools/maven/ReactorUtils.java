@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inspection of the reactor build a goal is executed in.
+ */
+final class ReactorUtils {
+  // phases of the clean, default and site lifecycle in the order Maven runs them
+  private static final List<List<String>> LIFECYCLES = Arrays.asList(
+      Arrays.asList("pre-clean", "clean", "post-clean"),
+      Arrays.asList("validate", "initialize", "generate-sources", "process-sources",
+          "generate-resources", "process-resources", "compile", "process-classes",
+          "generate-test-sources", "process-test-sources", "generate-test-resources",
+          "process-test-resources", "test-compile", "process-test-classes", "test",
+          "prepare-package", "package", "pre-integration-test", "integration-test",
+          "post-integration-test", "verify", "install", "deploy"),
+      Arrays.asList("pre-site", "site", "post-site", "site-deploy"));
+
+  private ReactorUtils() {
+    // utility class
+  }
+
+  /**
+   * Count the executions of a goal the reactor build is going to run. A goal invoked from the
+   * command line runs once in every project of the reactor, otherwise every execution of the
+   * plugin that binds the goal to a phase of the requested lifecycles is counted. Executions
+   * without a session (e.g. in tests) are counted as the only execution.
+   *
+   * @param session       The session of the reactor build
+   * @param mojoExecution The execution of the goal
+   * @return The amount of executions of the goal in the reactor build
+   */
+  static int countExecutions(MavenSession session, MojoExecution mojoExecution) {
+    if (session == null || mojoExecution == null || session.getProjects() == null) {
+      return 1;
+    }
+
+    if (mojoExecution.getSource() == MojoExecution.Source.CLI) {
+      return Math.max(session.getProjects().size(), 1);
+    }
+
+    final String pluginKey = mojoExecution.getMojoDescriptor().getPluginDescriptor()
+        .getPluginLookupKey();
+    final List<String> goals = session.getGoals();
+    int executions = 0;
+
+    for (MavenProject reactorProject : session.getProjects()) {
+      final Plugin plugin = reactorProject.getPlugin(pluginKey);
+
+      if (plugin == null) {
+        continue;
+      }
+
+      for (PluginExecution execution : plugin.getExecutions()) {
+        if (execution.getGoals().contains(mojoExecution.getGoal())
+            && isPhaseRequested(goals, getPhase(execution, mojoExecution))) {
+          executions++;
+        }
+      }
+    }
+
+    return Math.max(executions, 1);
+  }
+
+  /**
+   * Get the phase an execution binds the goal to. Executions without a phase use the default
+   * phase of the goal.
+   *
+   * @param execution     The execution of the plugin
+   * @param mojoExecution The execution of the goal
+   * @return The phase of the execution or null if the goal is not bound to a phase
+   */
+  private static String getPhase(PluginExecution execution, MojoExecution mojoExecution) {
+    if (execution.getPhase() != null) {
+      return execution.getPhase();
+    }
+
+    return mojoExecution.getMojoDescriptor().getPhase();
+  }
+
+  /**
+   * Check whether the build runs a phase. A phase runs if a phase at or after it in the same
+   * lifecycle is requested. Without known goals (e.g. in tests) and for phases of custom
+   * lifecycles every phase is assumed to run.
+   *
+   * @param goals The goals and phases requested for the build
+   * @param phase The phase to check
+   * @return True if the phase runs in the build
+   */
+  private static boolean isPhaseRequested(List<String> goals, String phase) {
+    if (goals == null || goals.isEmpty()) {
+      return true;
+    }
+
+    if (phase == null) {
+      // an execution without a phase is never run by the lifecycle
+      return false;
+    }
+
+    for (List<String> lifecycle : LIFECYCLES) {
+      final int index = lifecycle.indexOf(phase);
+
+      if (index >= 0) {
+        return goals.stream().anyMatch(goal -> lifecycle.indexOf(goal) >= index);
+      }
+    }
+
+    return true;
+  }
+}
@@ -0,0 +1,498 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.cache.GameVersionCache;
+import com.ragedunicorn.tools.maven.cache.UploadCache;
+import com.ragedunicorn.tools.maven.cassette.Cassette;
+import com.ragedunicorn.tools.maven.cassette.CassetteMode;
+import com.ragedunicorn.tools.maven.history.ReleaseHistory;
+import com.ragedunicorn.tools.maven.http.BandwidthThrottle;
+import com.ragedunicorn.tools.maven.http.ConnectionStatistics;
+import com.ragedunicorn.tools.maven.http.ConnectionWarmer;
+import com.ragedunicorn.tools.maven.http.HttpClientRegistry;
+import com.ragedunicorn.tools.maven.http.SharedFile;
+import com.ragedunicorn.tools.maven.log.TwitchReleaseLogger;
+import com.ragedunicorn.tools.maven.model.ReleaseTarget;
+import com.ragedunicorn.tools.maven.retry.CircuitBreaker;
+import com.ragedunicorn.tools.maven.retry.RetryPolicy;
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import com.ragedunicorn.tools.maven.service.GameVersionService;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.ragedunicorn.tools.maven.service.UploadEngine;
+import com.ragedunicorn.tools.maven.timing.TimingReport;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Builds the Twitch clients and release services of the goals calling the Twitch Api from the
+ * configured retries, timeouts, throttling, circuit breaker and upload cache. All services of an
+ * execution share the same timeout policy, upload cache and cassette. While a cassette is open
+ * the services neither read nor write the upload cache, the game version cache, the release
+ * history and the checksum files, so recorded and replayed releases never mix with real ones.
+ */
+final class ReleaseServiceFactory {
+  private final RetryConfiguration retry;
+
+  private final ThrottleConfiguration throttle;
+
+  private final CircuitBreakerConfiguration circuitBreaker;
+
+  private final UploadCacheConfiguration uploadCache;
+
+  // the throughput measured by every upload of the execution sizes the socket timeouts
+  private final TimeoutPolicy timeoutPolicy;
+
+  // upload cache shared by all services, created with the first service
+  private UploadCache cache;
+
+  // token for the Twitch Api
+  private String credentials;
+
+  // optional cassette the requests of all clients are recorded to or replayed from
+  private Cassette cassette;
+
+  // optional file that is released to several projects
+  private SharedFile sharedFile;
+
+  // optional report of the timings of all uploads
+  private TimingReport timingReport;
+
+  // optional history the performance of every upload is appended to
+  private String historyFile;
+
+  // whether a checksum file is written next to every uploaded file
+  private boolean checksumFile;
+
+  private GameVersionCache gameVersionCache;
+
+  private long gameVersionCacheTtlMillis;
+
+  private TwitchReleaseLogger logger;
+
+  /**
+   * Create a factory for the configured release services. Unconfigured parameter groups use
+   * their defaults.
+   *
+   * @param retry          Optional retries of failed uploads
+   * @param timeout        Optional timeouts of the requests to the Twitch Api
+   * @param throttle       Optional concurrency and bandwidth of the uploads
+   * @param circuitBreaker Optional circuit breaker shared by all releases
+   * @param uploadCache    Optional cache of already published releases
+   * @throws MojoExecutionException If any parameter is out of range
+   */
+  ReleaseServiceFactory(RetryConfiguration retry, TimeoutConfiguration timeout,
+      ThrottleConfiguration throttle, CircuitBreakerConfiguration circuitBreaker,
+      UploadCacheConfiguration uploadCache) throws MojoExecutionException {
+    this.retry = retry == null ? new RetryConfiguration() : retry;
+    this.throttle = throttle == null ? new ThrottleConfiguration() : throttle;
+    this.circuitBreaker = circuitBreaker == null ? new CircuitBreakerConfiguration()
+        : circuitBreaker;
+    this.uploadCache = uploadCache == null ? new UploadCacheConfiguration() : uploadCache;
+
+    final TimeoutConfiguration timeoutConfiguration =
+        timeout == null ? new TimeoutConfiguration() : timeout;
+    validate(timeoutConfiguration);
+    this.timeoutPolicy = createTimeoutPolicy(timeoutConfiguration);
+  }
+
+  void setCredentials(String credentials) {
+    this.credentials = credentials;
+  }
+
+  void setTimingReport(TimingReport timingReport) {
+    this.timingReport = timingReport;
+  }
+
+  void setHistoryFile(String historyFile) {
+    this.historyFile = historyFile;
+  }
+
+  void setChecksumFile(boolean checksumFile) {
+    this.checksumFile = checksumFile;
+  }
+
+  void setLogger(TwitchReleaseLogger logger) {
+    this.logger = logger;
+  }
+
+  /**
+   * Set the cache of the game version tables used for resolving game version names.
+   *
+   * @param directory  Directory of the cached game version tables
+   * @param ttlMinutes Time in minutes a cached table is used without revalidating it
+   */
+  void setGameVersionCache(String directory, long ttlMinutes) {
+    this.gameVersionCache = new GameVersionCache(Paths.get(directory));
+    this.gameVersionCacheTtlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+  }
+
+  TimeoutPolicy getTimeoutPolicy() {
+    return timeoutPolicy;
+  }
+
+  /**
+   * Validate the configuration of the release services.
+   *
+   * @param timeout The timeouts of the requests to the Twitch Api
+   * @throws MojoExecutionException If any parameter is out of range
+   */
+  private void validate(TimeoutConfiguration timeout) throws MojoExecutionException {
+    checkPositive("throttle.uploadThreads", throttle.getUploadThreads());
+    checkPositive("throttle.uploadChunkSize", throttle.getUploadChunkSize());
+    checkNotNegative("throttle.maxUploadBandwidth", throttle.getMaxUploadBandwidth());
+
+    checkPositive("retry.maxAttempts", retry.getMaxAttempts());
+    checkNotNegative("retry.initialBackoff", retry.getInitialBackoff());
+    checkNotNegative("retry.maxBackoff", retry.getMaxBackoff());
+    checkPositive("retry.deadline", retry.getDeadline());
+    checkNotNegative("retry.maxRetransmissions", retry.getMaxRetransmissions());
+
+    checkPositive("timeout.connectTimeout", timeout.getConnectTimeout());
+    checkPositive("timeout.connectionRequestTimeout", timeout.getConnectionRequestTimeout());
+    checkPositive("timeout.socketTimeout", timeout.getSocketTimeout());
+    checkPositive("timeout.releaseDeadline", timeout.getReleaseDeadline());
+
+    if (timeout.getMaxSocketTimeout() < timeout.getSocketTimeout()) {
+      throw new MojoExecutionException("Parameter timeout.maxSocketTimeout must not be less than "
+          + "timeout.socketTimeout");
+    }
+
+    checkPositive("circuitBreaker.threshold", circuitBreaker.getThreshold());
+    checkNotNegative("circuitBreaker.openTime", circuitBreaker.getOpenTime());
+
+    if (uploadCache.isEnabled()) {
+      checkPositive("uploadCache.maxEntries", uploadCache.getMaxEntries());
+      checkPositive("uploadCache.maxAge", uploadCache.getMaxAge());
+    }
+  }
+
+  /**
+   * Configure the connection pool, the bandwidth limit and the circuit breaker that are shared by
+   * all executions of the plugin. The connection pool uses the configured timeouts for all
+   * requests that are not uploads.
+   *
+   * @param maxConnections         Maximum amount of pooled connections
+   * @param maxConnectionsPerRoute Maximum amount of pooled connections per host
+   */
+  void configureSharedServices(int maxConnections, int maxConnectionsPerRoute) {
+    HttpClientRegistry.getInstance().configure(maxConnections, maxConnectionsPerRoute,
+        timeoutPolicy);
+    BandwidthThrottle.getInstance().configure(throttle.getMaxUploadBandwidth(),
+        throttle.isPrioritizeReleases());
+    CircuitBreaker.getInstance().configure(circuitBreaker.getThreshold(),
+        circuitBreaker.getOpenTime());
+  }
+
+  /**
+   * Reset the circuit breaker and close the shared connection pool at the end of the Maven
+   * session. Logs how many connections could be reused.
+   *
+   * @param log The log of the goal
+   */
+  static void shutdownSharedServices(Log log) {
+    CircuitBreaker.getInstance().reset();
+
+    final HttpClientRegistry registry = HttpClientRegistry.getInstance();
+    final ConnectionStatistics statistics = registry.getStatistics();
+
+    if (log.isInfoEnabled()) {
+      log.info(String.format("Twitch Api requests: %d, opened connections: %d, "
+              + "reused connections: %d", statistics.getRequests(),
+          statistics.getOpenedConnections(), statistics.getReusedConnections()));
+    }
+
+    registry.shutdown();
+  }
+
+  /**
+   * Open the configured cassette. All clients created afterwards record to or replay from it.
+   *
+   * @param configuration The configured cassette
+   * @throws MojoExecutionException If the cassette to replay cannot be read
+   */
+  void openCassette(CassetteConfiguration configuration) throws MojoExecutionException {
+    if (!isConfigured(configuration)) {
+      return;
+    }
+
+    try {
+      cassette = Cassette.open(Paths.get(configuration.getFile()),
+          CassetteMode.fromName(configuration.getMode()));
+
+      if (logger != null && logger.isInfoEnabled()) {
+        logger.info((isReplaying() ? "Replaying" : "Recording")
+            + " requests to the Twitch Api with cassette " + configuration.getFile()
+            + " - upload cache, game version cache, release history and checksum files are "
+            + "disabled");
+      }
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to read cassette " + configuration.getFile(), e);
+    }
+  }
+
+  /**
+   * Whether the requests are replayed from a cassette instead of being sent.
+   *
+   * @return True if a cassette is replayed
+   */
+  boolean isReplaying() {
+    return cassette != null && cassette.getMode() == CassetteMode.REPLAY;
+  }
+
+  /**
+   * Whether a cassette file is configured.
+   *
+   * @param configuration The optional cassette configuration
+   * @return True if a cassette file is configured
+   */
+  static boolean isConfigured(CassetteConfiguration configuration) {
+    return configuration != null && configuration.getFile() != null
+        && !configuration.getFile().isEmpty();
+  }
+
+  /**
+   * Check that the mode of a configured cassette is valid.
+   *
+   * @param configuration The optional cassette configuration
+   * @throws MojoExecutionException If the mode is neither record nor replay
+   */
+  static void checkCassette(CassetteConfiguration configuration) throws MojoExecutionException {
+    if (!isConfigured(configuration)) {
+      return;
+    }
+
+    try {
+      CassetteMode.fromName(configuration.getMode());
+    } catch (IllegalArgumentException e) {
+      throw new MojoExecutionException("Parameter cassette.mode must be one of record, replay",
+          e);
+    }
+  }
+
+  /**
+   * Digest the file that is released to several projects. All services created afterwards reuse
+   * the digest.
+   *
+   * @param file The file that is released
+   * @throws MojoExecutionException If the file cannot be read
+   */
+  void shareFile(String file) throws MojoExecutionException {
+    try {
+      sharedFile = SharedFile.open(Paths.get(file));
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to read " + file, e);
+    }
+  }
+
+  /**
+   * Create a Twitch client for a project. Requests of the client go through the cassette if one
+   * is open.
+   *
+   * @param baseUri   Base uri of the Twitch Api
+   * @param game      The game of the project
+   * @param projectId The id of the project
+   * @return The created Twitch client
+   */
+  TwitchClient createTwitchClient(String baseUri, String game, String projectId) {
+    return new TwitchClient(baseUri, game, projectId, credentials, cassette);
+  }
+
+  /**
+   * Open connections to the hosts of all targets in the background. One connection is opened for
+   * every target of a host up to the connection limit per host.
+   *
+   * @param baseUri                Base uri of the Twitch Api
+   * @param targets                The targets of the release
+   * @param maxConnectionsPerRoute Maximum amount of pooled connections per host
+   * @throws MojoExecutionException If the endpoint of a target is invalid
+   */
+  void warmUpConnections(String baseUri, List<ReleaseTarget> targets, int maxConnectionsPerRoute)
+      throws MojoExecutionException {
+    final Map<URI, Integer> connections = new LinkedHashMap<>();
+
+    for (ReleaseTarget target : targets) {
+      connections.merge(createTwitchClient(baseUri, target.getGame(), target.getProjectId())
+          .prepareEndpointUri(""), 1, Integer::sum);
+    }
+
+    final ConnectionWarmer connectionWarmer =
+        new ConnectionWarmer(HttpClientRegistry.getInstance().getConnectionManager());
+
+    connections.forEach((uri, count) -> {
+      final long warmUpStart = System.nanoTime();
+
+      connectionWarmer.warmUp(uri, Math.min(count, maxConnectionsPerRoute))
+          .thenAccept(opened -> {
+            if (logger != null && logger.isDebugEnabled()) {
+              logger.debug("Warmed up " + opened + " connection(s) to " + uri.getHost() + " in "
+                  + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - warmUpStart) + "ms");
+            }
+          });
+    });
+  }
+
+  /**
+   * Resolve game version names to the ids of the game versions of a project.
+   *
+   * @param twitchClient The Twitch client of the project
+   * @param gameVersions Names or ids of the game versions
+   * @return The ids of the game versions
+   * @throws MojoExecutionException If a game version cannot be resolved
+   */
+  int[] resolveGameVersions(TwitchClient twitchClient, List<String> gameVersions)
+      throws MojoExecutionException {
+    // the game versions of a cassette are always recorded and replayed
+    final GameVersionService gameVersionService = new GameVersionService(twitchClient,
+        cassette == null ? gameVersionCache : null, gameVersionCacheTtlMillis);
+    gameVersionService.setLogger(logger);
+
+    final long phaseStart = System.nanoTime();
+    final int[] ids = gameVersionService.resolveGameVersions(gameVersions.toArray(new String[0]));
+
+    if (timingReport != null) {
+      timingReport.record(TimingReport.GAME_VERSION_RESOLUTION, System.nanoTime() - phaseStart);
+    }
+
+    return ids;
+  }
+
+  /**
+   * Create a release service sending its uploads with the configured engine. Services of an open
+   * cassette keep no state outside of the cassette.
+   *
+   * @param twitchClient The Twitch client of the project the release is created in
+   * @return The created release service
+   */
+  ReleaseService createReleaseService(TwitchClient twitchClient) {
+    final ReleaseService releaseService = new ReleaseService(twitchClient,
+        throttle.getUploadThreads(), new UploadEngine(throttle.getUploadChunkSize(),
+        retry.getMaxRetransmissions(), createRetryPolicy(), timeoutPolicy));
+
+    releaseService.setTimingReport(timingReport);
+    releaseService.setCircuitBreaker(CircuitBreaker.getInstance());
+    releaseService.setSharedFile(sharedFile);
+
+    if (cassette == null) {
+      releaseService.setUploadCache(getUploadCache());
+      releaseService.setChecksumFile(checksumFile);
+
+      if (historyFile != null) {
+        releaseService.setReleaseHistory(new ReleaseHistory(Paths.get(historyFile)));
+      }
+    }
+
+    if (logger != null) {
+      releaseService.setLogger(logger);
+    }
+
+    return releaseService;
+  }
+
+  private UploadCache getUploadCache() {
+    if (uploadCache.isEnabled() && cache == null) {
+      cache = new UploadCache(Paths.get(uploadCache.getDirectory()), uploadCache.getMaxEntries(),
+          uploadCache.getMaxAge());
+    }
+
+    return cache;
+  }
+
+  /**
+   * Create the retry policy for failed uploads.
+   *
+   * @return The configured retry policy
+   */
+  private RetryPolicy createRetryPolicy() {
+    final RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setMaxAttempts(retry.getMaxAttempts());
+    retryPolicy.setInitialBackoffMillis(retry.getInitialBackoff());
+    retryPolicy.setMaxBackoffMillis(retry.getMaxBackoff());
+    retryPolicy.setDeadlineMillis(retry.getDeadline());
+
+    if (retry.getRetryableStatusCodes() != null) {
+      retryPolicy.setRetryableStatusCodes(new HashSet<>(retry.getRetryableStatusCodes()));
+    }
+
+    if (retry.getRetryableErrorCodes() != null) {
+      retryPolicy.setRetryableErrorCodes(new HashSet<>(retry.getRetryableErrorCodes()));
+    }
+
+    if (retry.getFatalErrorCodes() != null) {
+      retryPolicy.setFatalErrorCodes(new HashSet<>(retry.getFatalErrorCodes()));
+    }
+
+    return retryPolicy;
+  }
+
+  /**
+   * Create the timeouts of the requests to the Twitch Api.
+   *
+   * @param timeout The configured timeouts
+   * @return The configured timeout policy
+   */
+  private static TimeoutPolicy createTimeoutPolicy(TimeoutConfiguration timeout) {
+    final TimeoutPolicy policy = new TimeoutPolicy();
+    policy.setConnectTimeoutMillis(timeout.getConnectTimeout());
+    policy.setConnectionRequestTimeoutMillis(timeout.getConnectionRequestTimeout());
+    policy.setMinSocketTimeoutMillis(timeout.getSocketTimeout());
+    policy.setMaxSocketTimeoutMillis(timeout.getMaxSocketTimeout());
+    policy.setReleaseDeadlineMillis(timeout.getReleaseDeadline());
+
+    return policy;
+  }
+
+  /**
+   * Check that a parameter is greater than zero.
+   *
+   * @param parameter The name of the parameter
+   * @param value     The configured value
+   * @throws MojoExecutionException If the value is zero or negative
+   */
+  static void checkPositive(String parameter, long value) throws MojoExecutionException {
+    if (value <= 0) {
+      throw new MojoExecutionException("Parameter " + parameter + " must be greater than zero");
+    }
+  }
+
+  /**
+   * Check that a parameter is not negative.
+   *
+   * @param parameter The name of the parameter
+   * @param value     The configured value
+   * @throws MojoExecutionException If the value is negative
+   */
+  static void checkNotNegative(String parameter, long value) throws MojoExecutionException {
+    if (value < 0) {
+      throw new MojoExecutionException("Parameter " + parameter + " must not be negative");
+    }
+  }
+}
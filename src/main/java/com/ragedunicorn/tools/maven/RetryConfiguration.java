@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Configuration of the retries of failed uploads to the Twitch Api.
+ */
+public class RetryConfiguration {
+  // Maximum amount of attempts for a single upload
+  private int maxAttempts = 5;
+
+  // Initial delay in milliseconds before a failed upload is retried. Doubles with every attempt
+  private long initialBackoff = 1000;
+
+  // Maximum delay in milliseconds between two attempts
+  private long maxBackoff = 60000;
+
+  // Total time budget in milliseconds for all attempts of a single upload
+  private long deadline = 600000;
+
+  // How often an upload is sent again if the connection dropped before the file was fully sent
+  private int maxRetransmissions = 3;
+
+  // Http status codes that are retried. Defaults to 429, 500, 502, 503 and 504
+  private List<Integer> retryableStatusCodes;
+
+  // Twitch Api error codes that are retried regardless of the http status code
+  private List<Integer> retryableErrorCodes;
+
+  // Twitch Api error codes that are never retried regardless of the http status code
+  private List<Integer> fatalErrorCodes;
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  public long getInitialBackoff() {
+    return initialBackoff;
+  }
+
+  public void setInitialBackoff(long initialBackoff) {
+    this.initialBackoff = initialBackoff;
+  }
+
+  public long getMaxBackoff() {
+    return maxBackoff;
+  }
+
+  public void setMaxBackoff(long maxBackoff) {
+    this.maxBackoff = maxBackoff;
+  }
+
+  public long getDeadline() {
+    return deadline;
+  }
+
+  public void setDeadline(long deadline) {
+    this.deadline = deadline;
+  }
+
+  public int getMaxRetransmissions() {
+    return maxRetransmissions;
+  }
+
+  public void setMaxRetransmissions(int maxRetransmissions) {
+    this.maxRetransmissions = maxRetransmissions;
+  }
+
+  public List<Integer> getRetryableStatusCodes() {
+    return retryableStatusCodes;
+  }
+
+  public void setRetryableStatusCodes(List<Integer> retryableStatusCodes) {
+    this.retryableStatusCodes = retryableStatusCodes;
+  }
+
+  public List<Integer> getRetryableErrorCodes() {
+    return retryableErrorCodes;
+  }
+
+  public void setRetryableErrorCodes(List<Integer> retryableErrorCodes) {
+    this.retryableErrorCodes = retryableErrorCodes;
+  }
+
+  public List<Integer> getFatalErrorCodes() {
+    return fatalErrorCodes;
+  }
+
+  public void setFatalErrorCodes(List<Integer> fatalErrorCodes) {
+    this.fatalErrorCodes = fatalErrorCodes;
+  }
+
+  @Override
+  public String toString() {
+    return "RetryConfiguration{"
+        + "maxAttempts=" + maxAttempts
+        + ", initialBackoff=" + initialBackoff
+        + ", maxBackoff=" + maxBackoff
+        + ", deadline=" + deadline
+        + ", maxRetransmissions=" + maxRetransmissions
+        + ", retryableStatusCodes=" + retryableStatusCodes
+        + ", retryableErrorCodes=" + retryableErrorCodes
+        + ", fatalErrorCodes=" + fatalErrorCodes
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    RetryConfiguration that = (RetryConfiguration) o;
+    return maxAttempts == that.maxAttempts
+        && initialBackoff == that.initialBackoff
+        && maxBackoff == that.maxBackoff
+        && deadline == that.deadline
+        && maxRetransmissions == that.maxRetransmissions
+        && Objects.equals(retryableStatusCodes, that.retryableStatusCodes)
+        && Objects.equals(retryableErrorCodes, that.retryableErrorCodes)
+        && Objects.equals(fatalErrorCodes, that.fatalErrorCodes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(maxAttempts, initialBackoff, maxBackoff, deadline, maxRetransmissions,
+        retryableStatusCodes, retryableErrorCodes, fatalErrorCodes);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import java.util.Objects;
+
+/**
+ * Configuration of how many uploads are sent concurrently and how fast they are sent.
+ */
+public class ThrottleConfiguration {
+  // Maximum amount of additional files that are uploaded concurrently
+  private int uploadThreads = 4;
+
+  // Size of the chunks in bytes that are transmitted and confirmed one after another
+  private int uploadChunkSize = 262144;
+
+  // Maximum bytes per second of all uploads within the JVM. 0 disables the limit
+  private long maxUploadBandwidth;
+
+  // Whether releases receive bandwidth before betas and betas before alphas if the bandwidth is
+  // limited
+  private boolean prioritizeReleases;
+
+  public int getUploadThreads() {
+    return uploadThreads;
+  }
+
+  public void setUploadThreads(int uploadThreads) {
+    this.uploadThreads = uploadThreads;
+  }
+
+  public int getUploadChunkSize() {
+    return uploadChunkSize;
+  }
+
+  public void setUploadChunkSize(int uploadChunkSize) {
+    this.uploadChunkSize = uploadChunkSize;
+  }
+
+  public long getMaxUploadBandwidth() {
+    return maxUploadBandwidth;
+  }
+
+  public void setMaxUploadBandwidth(long maxUploadBandwidth) {
+    this.maxUploadBandwidth = maxUploadBandwidth;
+  }
+
+  public boolean isPrioritizeReleases() {
+    return prioritizeReleases;
+  }
+
+  public void setPrioritizeReleases(boolean prioritizeReleases) {
+    this.prioritizeReleases = prioritizeReleases;
+  }
+
+  @Override
+  public String toString() {
+    return "ThrottleConfiguration{"
+        + "uploadThreads=" + uploadThreads
+        + ", uploadChunkSize=" + uploadChunkSize
+        + ", maxUploadBandwidth=" + maxUploadBandwidth
+        + ", prioritizeReleases=" + prioritizeReleases
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ThrottleConfiguration that = (ThrottleConfiguration) o;
+    return uploadThreads == that.uploadThreads
+        && uploadChunkSize == that.uploadChunkSize
+        && maxUploadBandwidth == that.maxUploadBandwidth
+        && prioritizeReleases == that.prioritizeReleases;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(uploadThreads, uploadChunkSize, maxUploadBandwidth, prioritizeReleases);
+  }
+}
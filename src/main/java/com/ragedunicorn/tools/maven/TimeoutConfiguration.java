@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import java.util.Objects;
+
+/**
+ * Configuration of the timeouts of the requests to the Twitch Api.
+ */
+public class TimeoutConfiguration {
+  // Maximum time in milliseconds for opening a connection to the Twitch Api
+  private int connectTimeout = 10000;
+
+  // Maximum time in milliseconds for leasing a connection from the connection pool
+  private int connectionRequestTimeout = 30000;
+
+  // Minimum time in milliseconds an upload may wait for data. Larger files and slower uploads
+  // receive a longer timeout up to maxSocketTimeout
+  private int socketTimeout = 30000;
+
+  // Maximum time in milliseconds an upload may wait for data
+  private int maxSocketTimeout = 1800000;
+
+  // Total time budget in milliseconds for a release including its additional files. The upload
+  // in flight is aborted once it ran out
+  private long releaseDeadline = 3600000;
+
+  public int getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  public void setConnectTimeout(int connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  public int getConnectionRequestTimeout() {
+    return connectionRequestTimeout;
+  }
+
+  public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+    this.connectionRequestTimeout = connectionRequestTimeout;
+  }
+
+  public int getSocketTimeout() {
+    return socketTimeout;
+  }
+
+  public void setSocketTimeout(int socketTimeout) {
+    this.socketTimeout = socketTimeout;
+  }
+
+  public int getMaxSocketTimeout() {
+    return maxSocketTimeout;
+  }
+
+  public void setMaxSocketTimeout(int maxSocketTimeout) {
+    this.maxSocketTimeout = maxSocketTimeout;
+  }
+
+  public long getReleaseDeadline() {
+    return releaseDeadline;
+  }
+
+  public void setReleaseDeadline(long releaseDeadline) {
+    this.releaseDeadline = releaseDeadline;
+  }
+
+  @Override
+  public String toString() {
+    return "TimeoutConfiguration{"
+        + "connectTimeout=" + connectTimeout
+        + ", connectionRequestTimeout=" + connectionRequestTimeout
+        + ", socketTimeout=" + socketTimeout
+        + ", maxSocketTimeout=" + maxSocketTimeout
+        + ", releaseDeadline=" + releaseDeadline
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TimeoutConfiguration that = (TimeoutConfiguration) o;
+    return connectTimeout == that.connectTimeout
+        && connectionRequestTimeout == that.connectionRequestTimeout
+        && socketTimeout == that.socketTimeout
+        && maxSocketTimeout == that.maxSocketTimeout
+        && releaseDeadline == that.releaseDeadline;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(connectTimeout, connectionRequestTimeout, socketTimeout, maxSocketTimeout,
+        releaseDeadline);
+  }
+}
@@ -23,63 +23,93 @@
 package com.ragedunicorn.tools.maven;
 
 import com.google.common.collect.Lists;
+import com.ragedunicorn.tools.maven.cassette.Cassette;
+import com.ragedunicorn.tools.maven.http.HttpClientRegistry;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import org.apache.http.Header;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.message.BasicHeader;
 import org.apache.maven.plugin.MojoExecutionException;
 
+/**
+ * Immutable configuration of the Twitch project a release is created in. A Twitch client can be
+ * shared by any amount of threads, the http clients it creates share the connection pool of the
+ * {@link HttpClientRegistry}.
+ */
+public final class TwitchClient {
+  public static final String DEFAULT_BASE_URI = "https://:game.curseforge.com";
 
-public class TwitchClient {
   private static final String USER_AGENT = "twitch-release-plugin";
 
-  private String baseUri = "https://:game.curseforge.com";
+  private final String baseUri;
 
   // targeted game such as wow, minecraft etc
-  private String game;
+  private final String game;
   // targeted project
-  private String projectId;
+  private final String projectId;
   // token
-  private String token;
+  private final String token;
+  // optional cassette the requests are recorded to or replayed from
+  private final Cassette cassette;
 
-  public String getGame() {
-    return game;
+  public TwitchClient(String game, String projectId, String token) {
+    this(DEFAULT_BASE_URI, game, projectId, token);
+  }
+
+  public TwitchClient(String baseUri, String game, String projectId, String token) {
+    this(baseUri, game, projectId, token, null);
   }
 
-  public void setGame(String game) {
+  /**
+   * Create a Twitch client. The configuration is validated once the client is used.
+   *
+   * @param baseUri   The base uri of the Twitch Api. The placeholder :game is replaced with the
+   *                  game
+   * @param game      The targeted game such as wow, minecraft etc
+   * @param projectId The targeted project
+   * @param token     The token for the Twitch Api
+   * @param cassette  Optional cassette the requests are recorded to or replayed from
+   */
+  public TwitchClient(String baseUri, String game, String projectId, String token,
+      Cassette cassette) {
+    this.baseUri = baseUri;
     this.game = game;
+    this.projectId = projectId;
+    this.token = token;
+    this.cassette = cassette;
   }
 
-  public String getBaseUri() {
-    return baseUri;
+  public String getGame() {
+    return game;
   }
 
-  public void setBaseUri(String baseUri) {
-    this.baseUri = baseUri;
+  public String getBaseUri() {
+    return baseUri;
   }
 
   public String getProjectId() {
     return projectId;
   }
 
-  public void setProjectId(String projectId) {
-    this.projectId = projectId;
-  }
-
   public String getToken() {
     return token;
   }
 
-  public void setToken(String token) {
-    this.token = token;
+  public Cassette getCassette() {
+    return cassette;
   }
 
   /**
-   * Create an http client.
+   * Create an http client. The client is backed by the connection pool of the
+   * {@link HttpClientRegistry} and closing it will not close the pooled connections. Requests use
+   * the timeouts configured in the registry. With a cassette the requests are recorded to or
+   * replayed from the cassette.
    *
    * @return The created http client
    */
@@ -90,14 +120,51 @@ public class TwitchClient {
           + "projectId, baseUri and the game");
     }
 
-    return HttpClientBuilder
-        .create()
+    final HttpClientRegistry registry = HttpClientRegistry.getInstance();
+
+    return (cassette == null ? HttpClientBuilder.create() : cassette.createHttpClientBuilder())
         .useSystemProperties()
+        .setConnectionManager(registry.getConnectionManager())
+        .setConnectionManagerShared(true)
+        .setKeepAliveStrategy(registry.getKeepAliveStrategy())
+        // uploads replace the socket timeout with one sized from the file
+        .setDefaultRequestConfig(registry.getTimeoutPolicy().createRequestConfig())
+        // retransmission of interrupted uploads is handled by the upload engine
+        .disableAutomaticRetries()
+        .addInterceptorFirst((HttpRequestInterceptor) (request, context) ->
+            registry.recordRequest())
         .setDefaultHeaders(getDefaultHeaders())
         .build();
   }
 
-  private List<Header> getDefaultHeaders() {
+  /**
+   * Retrieve the shared non-blocking http client. The client has no default headers, use
+   * {@link #getDefaultHeaders()} for every request. Clients with a cassette only support the
+   * blocking http client.
+   *
+   * @return The shared non-blocking http client
+   */
+  public CloseableHttpAsyncClient getAsyncHttpClient() {
+    if (token == null || token.isEmpty() || projectId == null || projectId.isEmpty()
+        || baseUri == null || baseUri.isEmpty() || game == null || game.isEmpty()) {
+      throw new IllegalStateException("Twitch client is in invalid state. Make sure to set token, "
+          + "projectId, baseUri and the game");
+    }
+
+    if (cassette != null) {
+      throw new IllegalStateException("Asynchronous uploads cannot be recorded to or replayed "
+          + "from a cassette");
+    }
+
+    return HttpClientRegistry.getInstance().getAsyncHttpClient();
+  }
+
+  /**
+   * Retrieve the headers that have to be sent with every request.
+   *
+   * @return The default headers
+   */
+  public List<Header> getDefaultHeaders() {
     return Lists.newArrayList(
         new BasicHeader(HttpHeaders.USER_AGENT, USER_AGENT),
         new BasicHeader("X-Api-Token", token)
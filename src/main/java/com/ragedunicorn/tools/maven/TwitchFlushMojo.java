@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import com.google.gson.Gson;
+import com.ragedunicorn.tools.maven.cache.DigestUtils;
+import com.ragedunicorn.tools.maven.log.AsyncMavenLog;
+import com.ragedunicorn.tools.maven.model.AdditionalFile;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.TwitchApiRelease;
+import com.ragedunicorn.tools.maven.outbox.OutboxEntry;
+import com.ragedunicorn.tools.maven.outbox.ReleaseOutbox;
+import com.ragedunicorn.tools.maven.service.DeferredRelease;
+import com.ragedunicorn.tools.maven.service.ReleaseExecutor;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.settings.Settings;
+
+/**
+ * Creates the releases that were spooled to the outbox while the Twitch Api was unavailable.
+ * Every release that is created is removed from the outbox. Releases that fail because the Twitch
+ * Api is still unavailable stay in the outbox for the next flush. The retries, timeouts,
+ * throttling, circuit breaker and upload cache are configured like those of the twitch-release
+ * goal.
+ */
+@Mojo(name = "flush", requiresProject = false, threadSafe = true)
+public class TwitchFlushMojo extends AbstractMojo {
+  // Directory of the releases waiting for the Twitch Api to become available
+  @Parameter(property = "outboxDirectory",
+      defaultValue = "${user.home}/.m2/twitch-release/outbox")
+  private String outboxDirectory;
+
+  // Maximum amount of spooled releases that are created concurrently
+  @Parameter(property = "flushThreads", defaultValue = "4")
+  private int flushThreads;
+
+  // Retries of failed uploads
+  @Parameter
+  private RetryConfiguration retry;
+
+  // Timeouts of the requests to the Twitch Api
+  @Parameter
+  private TimeoutConfiguration timeout;
+
+  // Concurrency and bandwidth of the uploads
+  @Parameter
+  private ThrottleConfiguration throttle;
+
+  // Failures after which the Twitch Api is considered unavailable and the remaining releases stay
+  // in the outbox
+  @Parameter
+  private CircuitBreakerConfiguration circuitBreaker;
+
+  // Skip uploads of releases that were already published with identical file, metadata and project
+  @Parameter
+  private UploadCacheConfiguration uploadCache;
+
+  // Maximum amount of pooled connections
+  @Parameter(property = "maxConnections", defaultValue = "20")
+  private int maxConnections;
+
+  // Maximum amount of pooled connections per host
+  @Parameter(property = "maxConnectionsPerRoute", defaultValue = "5")
+  private int maxConnectionsPerRoute;
+
+  // Alternative of using a server configuration. The token can directly be placed in the
+  // plugin configuration
+  @Parameter(property = "token")
+  private String token;
+
+  // References a server configuration in your .m2 settings.xml. This is the preferred way for
+  // using the generated twitch token
+  @Parameter(property = "server")
+  private String server;
+
+  @Parameter(defaultValue = "${settings}", readonly = true)
+  private Settings settings;
+
+  /**
+   * Plugin execution callback.
+   *
+   * @throws MojoExecutionException If any of the spooled releases could not be created
+   */
+  public void execute() throws MojoExecutionException {
+    ReleaseServiceFactory.checkPositive("flushThreads", flushThreads);
+
+    final ReleaseOutbox outbox = new ReleaseOutbox(Paths.get(outboxDirectory));
+    final List<OutboxEntry> entries = listEntries(outbox);
+
+    if (entries.isEmpty()) {
+      if (getLog().isInfoEnabled()) {
+        getLog().info("Outbox " + outboxDirectory + " is empty");
+      }
+      return;
+    }
+
+    final ReleaseServiceFactory serviceFactory = new ReleaseServiceFactory(retry, timeout,
+        throttle, circuitBreaker, uploadCache);
+    serviceFactory.setCredentials(CredentialUtils.getToken(settings, server, token, getLog()));
+    // once the Twitch Api failed repeatedly the queued releases stay in the outbox until the
+    // configured open time passed and a single release probes the Api again
+    serviceFactory.configureSharedServices(maxConnections, maxConnectionsPerRoute);
+    final AsyncMavenLog logger = new AsyncMavenLog(getLog());
+    serviceFactory.setLogger(logger);
+
+    try {
+      final List<String> changed = new ArrayList<>();
+      final List<DeferredRelease> releases = new ArrayList<>();
+
+      for (OutboxEntry entry : entries) {
+        if (isUnchanged(entry)) {
+          releases.add(restoreRelease(entry, serviceFactory));
+        } else {
+          changed.add(entry.getName());
+        }
+      }
+
+      final ReleaseExecutor executor = new ReleaseExecutor(flushThreads, "twitch-flush", logger);
+      executor.setOutbox(outbox);
+      final int created = executor.execute(releases, "spooled releases").size();
+
+      if (logger.isInfoEnabled()) {
+        logger.info("Created " + created + " of " + entries.size() + " spooled releases");
+      }
+
+      if (!changed.isEmpty()) {
+        throw new MojoExecutionException("Files of the spooled releases " + String.join(", ",
+            changed) + " changed since they were spooled. Remove the releases from the outbox "
+            + outboxDirectory + " or restore the files");
+      }
+
+      if (created < releases.size()) {
+        throw new MojoExecutionException((releases.size() - created)
+            + " spooled releases remain in the outbox because the Twitch Api is unavailable");
+      }
+    } finally {
+      logger.close();
+      ReleaseServiceFactory.shutdownSharedServices(getLog());
+    }
+  }
+
+  private List<OutboxEntry> listEntries(ReleaseOutbox outbox) throws MojoExecutionException {
+    try {
+      return outbox.list();
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to read outbox " + outboxDirectory, e);
+    }
+  }
+
+  /**
+   * Check that the files of a spooled release were not modified since the release was spooled.
+   * The main file is only checked if it was not created yet.
+   *
+   * @param entry The spooled release
+   * @return True if every spooled file still has the digest recorded when the release was spooled
+   */
+  private boolean isUnchanged(OutboxEntry entry) {
+    final Map<String, String> digests = new LinkedHashMap<>();
+
+    if (entry.getParentFileId() == null) {
+      digests.put(entry.getFile(), entry.getSha256());
+    }
+
+    if (entry.getAdditionalFiles() != null) {
+      for (AdditionalFile additionalFile : entry.getAdditionalFiles()) {
+        digests.put(additionalFile.getFile(), entry.getAdditionalFileSha256() == null
+            ? null : entry.getAdditionalFileSha256().get(additionalFile.getFile()));
+      }
+    }
+
+    for (Map.Entry<String, String> digest : digests.entrySet()) {
+      try {
+        if (!DigestUtils.sha256(new File(digest.getKey())).equals(digest.getValue())) {
+          return false;
+        }
+      } catch (IOException e) {
+        getLog().warn("Failed to read " + digest.getKey(), e);
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Restore the release of an outbox entry.
+   *
+   * @param entry          The spooled release
+   * @param serviceFactory The factory of the configured release services
+   * @return The release that is ready to be created
+   */
+  private DeferredRelease restoreRelease(OutboxEntry entry,
+      ReleaseServiceFactory serviceFactory) {
+    final TwitchClient twitchClient = serviceFactory.createTwitchClient(entry.getBaseUri(),
+        entry.getGame(), entry.getProjectId());
+
+    final DeferredRelease release = new DeferredRelease(entry.getName(),
+        serviceFactory.createReleaseService(twitchClient),
+        new Gson().fromJson(entry.getMetadata(), Metadata.class), entry.getFile(),
+        entry.getAdditionalFiles());
+    release.setOutboxId(entry.getId());
+
+    if (entry.getParentFileId() != null) {
+      // the main file was created before the release was spooled
+      final TwitchApiRelease parentRelease = new TwitchApiRelease();
+      parentRelease.setId(entry.getParentFileId());
+      release.getProgress().setParentRelease(parentRelease);
+    }
+
+    return release;
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.history.HistoryAnalysis;
+import com.ragedunicorn.tools.maven.history.ReleaseHistory;
+import com.ragedunicorn.tools.maven.history.ReleaseRecord;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Summarizes the release history and flags regressions of the latest releases against a rolling
+ * baseline of the releases before them.
+ */
+@Mojo(name = "history", requiresProject = false, threadSafe = true)
+public class TwitchHistoryMojo extends AbstractMojo {
+  // File of the release history shared by all builds on the machine
+  @Parameter(property = "historyFile",
+      defaultValue = "${user.home}/.m2/twitch-release/history/releases.bin")
+  private String historyFile;
+
+  // Amount of latest releases compared with the baseline
+  @Parameter(property = "historyWindow", defaultValue = "10")
+  private int historyWindow;
+
+  // Amount of releases before the latest releases the baseline is calculated from
+  @Parameter(property = "historyBaseline", defaultValue = "50")
+  private int historyBaseline;
+
+  // Change in percent of the latest releases against the baseline that is considered a regression
+  @Parameter(property = "regressionThreshold", defaultValue = "25")
+  private int regressionThreshold;
+
+  // Fail the build if a regression was detected
+  @Parameter(property = "failOnRegression", defaultValue = "false")
+  private boolean failOnRegression;
+
+  /**
+   * Plugin execution callback.
+   *
+   * @throws MojoExecutionException If the history cannot be read or a regression was detected
+   *                                while failOnRegression is enabled
+   */
+  public void execute() throws MojoExecutionException {
+    if (historyWindow <= 0 || historyBaseline <= 0 || regressionThreshold <= 0) {
+      throw new MojoExecutionException("Parameters historyWindow, historyBaseline and "
+          + "regressionThreshold must be greater than zero");
+    }
+
+    final List<ReleaseRecord> records = readRecords();
+    final Log log = getLog();
+
+    if (records.isEmpty()) {
+      if (log.isInfoEnabled()) {
+        log.info("Release history " + historyFile + " is empty");
+      }
+      return;
+    }
+
+    final HistoryAnalysis analysis =
+        HistoryAnalysis.analyze(records, historyWindow, regressionThreshold);
+
+    if (log.isInfoEnabled()) {
+      log.info("Release history " + historyFile);
+      log.info(String.format("%-10s %9s %9s %12s %11s %12s %12s %9s", "", "Releases", "Failed",
+          "Archive", "Duration", "Processing", "Throughput", "Attempts"));
+      log.info(formatStatistics("Latest", analysis.getRecent()));
+      log.info(formatStatistics("Baseline", analysis.getBaseline()));
+    }
+
+    if (analysis.getBaseline().getSuccessful() < HistoryAnalysis.MIN_BASELINE_RELEASES) {
+      if (log.isInfoEnabled()) {
+        log.info("Not enough releases for a baseline yet");
+      }
+      return;
+    }
+
+    if (!analysis.isRegressed()) {
+      if (log.isInfoEnabled()) {
+        log.info("No regression detected");
+      }
+      return;
+    }
+
+    if (log.isWarnEnabled()) {
+      for (String regression : analysis.getRegressions()) {
+        log.warn("Regression: " + regression);
+      }
+    }
+
+    if (failOnRegression) {
+      throw new MojoExecutionException("Detected " + analysis.getRegressions().size()
+          + " regression(s) of the latest " + analysis.getRecent().getReleases() + " releases");
+    }
+  }
+
+  private List<ReleaseRecord> readRecords() throws MojoExecutionException {
+    try {
+      return new ReleaseHistory(Paths.get(historyFile))
+          .readLatest(historyWindow + historyBaseline);
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to read release history " + historyFile, e);
+    }
+  }
+
+  private static String formatStatistics(String name, HistoryAnalysis.Statistics statistics) {
+    return String.format("%-10s %9d %8d%% %12s %9dms %10dms %12s %9.1f", name,
+        statistics.getReleases(), statistics.getFailurePercent(),
+        HistoryAnalysis.formatBytes(statistics.getFileLength()), statistics.getDurationMillis(),
+        statistics.getServerProcessingMillis(),
+        HistoryAnalysis.formatThroughput(statistics.getThroughput()),
+        statistics.getAverageAttempts());
+  }
+}
@@ -22,59 +22,89 @@
 
 package com.ragedunicorn.tools.maven;
 
+import com.ragedunicorn.tools.maven.archive.AddonPackager;
+import com.ragedunicorn.tools.maven.archive.PackageResult;
+import com.ragedunicorn.tools.maven.concurrent.ExecutionTracker;
+import com.ragedunicorn.tools.maven.log.AsyncMavenLog;
+import com.ragedunicorn.tools.maven.model.GitHubDestination;
 import com.ragedunicorn.tools.maven.model.Metadata;
-import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.ragedunicorn.tools.maven.model.ReleaseTarget;
+import com.ragedunicorn.tools.maven.model.WowInterfaceDestination;
+import com.ragedunicorn.tools.maven.outbox.ReleaseOutbox;
+import com.ragedunicorn.tools.maven.publish.Publisher;
+import com.ragedunicorn.tools.maven.service.DeferredRelease;
+import com.ragedunicorn.tools.maven.service.DeferredReleaseQueue;
+import com.ragedunicorn.tools.maven.service.ReleaseExecutor;
+import com.ragedunicorn.tools.maven.timing.TimingReport;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
-import org.apache.maven.plugin.AbstractMojo;
+import java.util.Collections;
+import java.util.List;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.apache.maven.settings.Server;
+import org.apache.maven.project.MavenProject;
 import org.apache.maven.settings.Settings;
 
 
-@Mojo(name = "twitch-release")
-public class TwitchReleaseMojo extends AbstractMojo {
+// every field except the service factory is a goal parameter injected by Maven
+@SuppressWarnings("PMD.TooManyFields")
+@Mojo(name = "twitch-release", threadSafe = true)
+public class TwitchReleaseMojo extends AbstractTwitchReleaseMojo {
+  // Base uri of the Twitch Api. The placeholder :game is replaced with the game
+  @Parameter(property = "baseUri", defaultValue = TwitchClient.DEFAULT_BASE_URI)
+  private String baseUri;
+
   // Type of game (currently only wow is supported)
   @Parameter(property = "game", defaultValue = "wow")
   private String game;
 
-  // The project id of the twitch project (can be found on the projects page)
-  @Parameter(property = "projectId", required = true)
+  // The project id of the twitch project (can be found on the projects page). Not required if
+  // targets are configured
+  @Parameter(property = "projectId")
   private String projectId;
 
   // An optional displayname for the uploaded file
   @Parameter(property = "displayName", defaultValue = "addon")
   private String displayName;
 
-  // A string containing the changelog
-  @Parameter(property = "changelog")
-  private String changelog;
+  // Directory of the cached game version tables used for resolving game version names
+  @Parameter(property = "gameVersionCacheDirectory",
+      defaultValue = "${user.home}/.m2/twitch-release/game-versions")
+  private String gameVersionCacheDirectory;
+
+  // Time in minutes the cached game version table is used without revalidating it
+  @Parameter(property = "gameVersionCacheTtl", defaultValue = "1440")
+  private long gameVersionCacheTtl;
+
+  // Timestamp recorded for all entries of a packaged archive. Either ISO-8601 or seconds since
+  // the epoch. Defaults to 1980-01-01T00:00:02Z
+  @Parameter(defaultValue = "${project.build.outputTimestamp}")
+  private String outputTimestamp;
 
-  // Optional path to a changelog file - will override changelog
-  @Parameter(property = "changelogFile")
-  private String changelogFile;
+  // Retries of failed uploads
+  @Parameter
+  private RetryConfiguration retry;
 
-  // Changelog type ["text", "html", "markdown"]
-  @Parameter(property = "changelogType", defaultValue = "text")
-  private String changelogType;
+  // Timeouts of the requests to the Twitch Api
+  @Parameter
+  private TimeoutConfiguration timeout;
 
-  // A list of supported game versions
-  @Parameter(property = "gameVersions", required = true)
-  private String[] gameVersions;
+  // Concurrency and bandwidth of the uploads
+  @Parameter
+  private ThrottleConfiguration throttle;
 
-  // One of "alpha", "beta", "release"
-  @Parameter(property = "releaseType", defaultValue = "release")
-  private String releaseType;
+  // Failures after which the Twitch Api is considered unavailable and no further releases are sent
+  @Parameter
+  private CircuitBreakerConfiguration circuitBreaker;
 
-  // The path to the addon to upload
-  @Parameter(property = "file", required = true)
-  private String file;
+  // Skip uploads of releases that were already published with identical file, metadata and project
+  @Parameter
+  private UploadCacheConfiguration uploadCache;
 
   // Alternative of using a server configuration. The token can directly be placed in the
   // plugin configuration
@@ -86,95 +116,459 @@ public class TwitchReleaseMojo extends AbstractMojo {
   @Parameter(property = "server")
   private String server;
 
+  // Maximum amount of pooled connections shared by all executions of the plugin
+  @Parameter(property = "maxConnections", defaultValue = "20")
+  private int maxConnections;
+
+  // Maximum amount of pooled connections per host shared by all executions of the plugin
+  @Parameter(property = "maxConnectionsPerRoute", defaultValue = "5")
+  private int maxConnectionsPerRoute;
+
+  // Spool releases to the outbox instead of failing if the Twitch Api is unavailable
+  @Parameter
+  private OutboxConfiguration outbox;
+
+  // Queue the release and create the releases of all modules at the end of the reactor build
+  // if every module was built successfully
+  @Parameter(property = "releaseAtEnd", defaultValue = "false")
+  private boolean releaseAtEnd;
+
+  // Maximum amount of queued releases that are created concurrently at the end of the build
+  @Parameter(property = "releaseAtEndThreads", defaultValue = "4")
+  private int releaseAtEndThreads;
+
+  // Open the connections to the Twitch Api in the background while the release is prepared
+  @Parameter(property = "connectionWarmUp", defaultValue = "true")
+  private boolean connectionWarmUp;
+
+  // Maximum amount of targets and destinations the file is released to concurrently
+  @Parameter(property = "targetThreads", defaultValue = "4")
+  private int targetThreads;
+
+  // Optional WoWInterface addon the file is released to concurrently with the Twitch releases
+  @Parameter
+  private WowInterfaceDestination wowInterface;
+
+  // Optional GitHub repository the file is released to concurrently with the Twitch releases
+  @Parameter
+  private GitHubDestination gitHub;
+
+  // Write a checksum file with the SHA-256 and MD5 of every uploaded file next to the file
+  @Parameter(property = "checksumFile", defaultValue = "false")
+  private boolean checksumFile;
+
+  // Append the performance of every upload to the release history
+  @Parameter(property = "history", defaultValue = "true")
+  private boolean history;
+
+  // File of the release history shared by all builds on the machine
+  @Parameter(property = "historyFile",
+      defaultValue = "${user.home}/.m2/twitch-release/history/releases.bin")
+  private String historyFile;
+
+  // Optional cassette the requests to the Twitch Api are recorded to or replayed from
+  @Parameter
+  private CassetteConfiguration cassette;
+
+  // Json report of the duration of every phase of the release
+  @Parameter(property = "timingReportFile",
+      defaultValue = "${project.build.directory}/twitch-release/timings.json")
+  private String timingReportFile;
+
   @Parameter(defaultValue = "${settings}", readonly = true)
   private Settings settings;
 
+  @Parameter(defaultValue = "${session}", readonly = true)
+  private MavenSession session;
+
+  @Parameter(defaultValue = "${project}", readonly = true)
+  private MavenProject project;
+
+  @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+  private MojoExecution mojoExecution;
+
+  private final TimingReport timingReport = new TimingReport();
+
+  // builds the Twitch clients and release services of this execution
+  private ReleaseServiceFactory serviceFactory;
+
   /**
    * Plugin execution callback.
    *
    * @throws MojoExecutionException If any exception happens during the execution of the plugin
    */
   public void execute() throws MojoExecutionException {
+    // the execution that finishes last creates the deferred releases of all modules
+    final ExecutionTracker executionTracker = ExecutionTracker.getInstance();
+    // executions are tracked before validation, an invalid module still finishes with --fail-at-end
+    // a parallel build clones the session for every module, the request is shared by all modules
+    if (executionTracker.start(session == null ? null : session.getRequest(),
+        ReactorUtils.countExecutions(session, mojoExecution))) {
+      discardAbandonedReleases();
+    }
+
+    // messages of the services are written by a background thread to the log of this execution
+    final AsyncMavenLog logger = new AsyncMavenLog(getLog());
+    boolean succeeded = false;
+
+    try {
+      configureServices(logger);
+      release(logger);
+      succeeded = true;
+    } finally {
+      final boolean lastExecution = executionTracker.finish(succeeded);
+
+      try {
+        if (lastExecution && succeeded) {
+          flushDeferredReleases(logger);
+        } else if (releaseAtEnd && !lastExecution && getLog().isInfoEnabled()) {
+          getLog().info(DeferredReleaseQueue.getInstance().size() + " deferred releases are "
+              + "created once the remaining " + executionTracker.getPendingExecutions()
+              + " executions of the reactor build finished");
+        }
+      } finally {
+        logger.close();
+        writeTimingReport();
+
+        if (lastExecution) {
+          discardDeferredReleases();
+          ReleaseServiceFactory.shutdownSharedServices(getLog());
+        }
+      }
+    }
+  }
+
+  /**
+   * Validate the parameters of the goal and configure the services of this execution.
+   *
+   * @param logger The logger of the release services
+   * @throws MojoExecutionException If a parameter is invalid
+   */
+  private void configureServices(AsyncMavenLog logger) throws MojoExecutionException {
     validateRequiredInputParameters();
+    serviceFactory.configureSharedServices(maxConnections, maxConnectionsPerRoute);
+    serviceFactory.setLogger(logger);
+    serviceFactory.setTimingReport(timingReport);
+    serviceFactory.setChecksumFile(checksumFile);
+    serviceFactory.setHistoryFile(history ? historyFile : null);
+    serviceFactory.setGameVersionCache(gameVersionCacheDirectory, gameVersionCacheTtl);
+  }
 
-    TwitchClient twitchClient = createTwitchClient();
-    createRelease(twitchClient);
+  /**
+   * Release the file or queue its releases until the end of the reactor build.
+   *
+   * @param logger The logger of the release services
+   * @throws MojoExecutionException If any exception happens while releasing the file
+   */
+  private void release(AsyncMavenLog logger) throws MojoExecutionException {
+    // inputs are validated before any file is packaged or sent
+    long phaseStart = System.nanoTime();
+    validateRelease();
+    timingReport.record(TimingReport.VALIDATION, System.nanoTime() - phaseStart);
+
+    phaseStart = System.nanoTime();
+    serviceFactory.setCredentials(getCredentials());
+    timingReport.record(TimingReport.CREDENTIAL_LOOKUP, System.nanoTime() - phaseStart);
+
+    final List<ReleaseTarget> releaseTargets = resolveTargets();
+    serviceFactory.openCassette(cassette);
+
+    // connections are opened while the release is prepared, deferred releases are only created
+    // by the last execution of the reactor build
+    if (connectionWarmUp
+        && (!releaseAtEnd || ExecutionTracker.getInstance().getPendingExecutions() == 1)
+        && !serviceFactory.isReplaying()) {
+      serviceFactory.warmUpConnections(baseUri, releaseTargets, maxConnectionsPerRoute);
+    }
+
+    if (isPackaged()) {
+      phaseStart = System.nanoTime();
+      packageAddon();
+      timingReport.record(TimingReport.PACKAGING, System.nanoTime() - phaseStart);
+    }
+
+    final List<Publisher> releases = prepareReleases(releaseTargets);
+
+    if (releaseAtEnd) {
+      for (Publisher release : releases) {
+        DeferredReleaseQueue.getInstance().add(release);
+
+        if (getLog().isInfoEnabled()) {
+          getLog().info("Release of " + release.getName()
+              + " is deferred until the end of the reactor build");
+        }
+      }
+    } else {
+      phaseStart = System.nanoTime();
+      createReleases(releases, logger);
+      timingReport.record(TimingReport.RELEASE, System.nanoTime() - phaseStart);
+    }
   }
 
   /**
-   * Create a new release on Twitch.
+   * Create the queued releases of all modules. Releases are only created if no module of the
+   * reactor build failed.
    *
-   * @param twitchClient The Twitch client
+   * @param logger The logger of the release services
+   * @throws MojoExecutionException If any of the queued releases failed
+   */
+  private void flushDeferredReleases(AsyncMavenLog logger) throws MojoExecutionException {
+    final DeferredReleaseQueue queue = DeferredReleaseQueue.getInstance();
+
+    if (queue.size() == 0) {
+      return;
+    }
+
+    if (ExecutionTracker.getInstance().hasFailedExecutions() || session != null
+        && session.getResult() != null && session.getResult().hasExceptions()) {
+      getLog().warn("Reactor build failed - skipping " + queue.discard() + " deferred releases");
+      return;
+    }
+
+    final long phaseStart = System.nanoTime();
+    queue.flush(releaseAtEndThreads, logger, timingReport, createOutbox());
+    timingReport.record(TimingReport.RELEASE, System.nanoTime() - phaseStart);
+  }
+
+  /**
+   * Discard the releases a previous reactor build of the same Maven process queued but never
+   * created because it ended before its last execution.
+   */
+  private void discardAbandonedReleases() {
+    final int discarded = DeferredReleaseQueue.getInstance().discard();
+
+    if (discarded > 0) {
+      getLog().error("Previous reactor build ended before its last execution - skipping "
+          + discarded + " deferred releases");
+    }
+  }
+
+  /**
+   * Make sure that releases queued in a failed build never leak into a later build of the same
+   * Maven process.
+   */
+  private void discardDeferredReleases() {
+    final int discarded = DeferredReleaseQueue.getInstance().discard();
+
+    if (discarded > 0) {
+      getLog().warn("Reactor build failed - skipping " + discarded
+          + " deferred releases");
+    }
+  }
+
+  /**
+   * Log the summary of the timing report and write the complete report. Failing to write the
+   * report never fails the release.
+   */
+  private void writeTimingReport() {
+    if (getLog().isInfoEnabled()) {
+      getLog().info(timingReport.getSummary());
+    }
+
+    if (timingReportFile == null || timingReportFile.isEmpty()) {
+      return;
+    }
+
+    try {
+      timingReport.write(Paths.get(timingReportFile));
+    } catch (IOException e) {
+      getLog().warn("Failed to write timing report " + timingReportFile, e);
+    }
+  }
+
+  /**
+   * Create the prepared releases. The releases of several targets and destinations are created
+   * concurrently and the result of every release is reported. Releases failing because the
+   * Twitch Api is unavailable are spooled to the outbox if enabled.
    *
-   * @throws MojoExecutionException If any exception happens during the execution of the release
-   *                                service
+   * @param releases The prepared releases
+   * @param logger   The logger the results are reported to
+   * @throws MojoExecutionException If any of the releases failed
    */
-  private void createRelease(TwitchClient twitchClient) throws MojoExecutionException {
-    final ReleaseService releaseService = new ReleaseService(twitchClient);
-    Metadata metadata = new Metadata();
+  private void createReleases(List<Publisher> releases, AsyncMavenLog logger)
+      throws MojoExecutionException {
+    if (releases.size() == 1 && !isSpooling()) {
+      releases.get(0).publish();
+      return;
+    }
 
-    metadata.setChangelog(getChangelog());
-    metadata.setChangelogType(changelogType);
-    metadata.setDisplayName(displayName);
+    final ReleaseExecutor executor =
+        new ReleaseExecutor(targetThreads, "twitch-release-target", logger);
+    executor.setOutbox(createOutbox());
+    executor.execute(releases, "releases");
+  }
 
-    int[] convertedGameVersions = Arrays.stream(gameVersions).mapToInt(Integer::parseInt).toArray();
-    metadata.setGameVersions(convertedGameVersions);
-    metadata.setReleaseType(releaseType);
+  private ReleaseOutbox createOutbox() {
+    return isSpooling() ? new ReleaseOutbox(Paths.get(outbox.getDirectory())) : null;
+  }
 
-    releaseService.createReleaseOperation(metadata, file);
+  /**
+   * Whether releases failing because the Twitch Api is unavailable are spooled. Releases of a
+   * cassette are never spooled because flushing them would send them to the real Twitch Api.
+   *
+   * @return True if the outbox is enabled and no cassette is configured
+   */
+  private boolean isSpooling() {
+    return outbox != null && outbox.isEnabled() && !ReleaseServiceFactory.isConfigured(cassette);
   }
 
   /**
-   * Retrieve the token for the Twitch Api.
+   * Prepare the releases of the file. Without targets a single release to the configured project
+   * is prepared. Otherwise the file is digested once and a release is prepared for every target.
+   * All releases of the targets reuse the digest of the shared file. Releases on the
+   * configured destinations other than Twitch are prepared last.
    *
-   * @return A property object containing the Twitch Api token
+   * @param targets The resolved targets of the release
+   * @return The releases that are ready to be created
    *
-   * @throws MojoExecutionException An exception occurring during the execution of a plugin
+   * @throws MojoExecutionException If any exception happens while preparing the releases
    */
-  private String getCredentials() throws MojoExecutionException {
-    // prefer settings parameter over direct configuration in pom
-    if (settings != null && server != null) {
-      final Server serverEntry = settings.getServer(server);
-      if (serverEntry != null) {
-        token = serverEntry.getPassphrase();
-
-        if (token == null || token.isEmpty()) {
-          throw new MojoExecutionException("Found server entry in settings.xml "
-              + "but authToken parameter was missing or is empty");
-        }
-      } else {
-        getLog().warn("Unable to retrieve settings or server. Falling back to project settings");
+  private List<Publisher> prepareReleases(List<ReleaseTarget> targets)
+      throws MojoExecutionException {
+    long phaseStart = System.nanoTime();
+    final String changelog = getChangelog();
+    timingReport.record(TimingReport.CHANGELOG_READ, System.nanoTime() - phaseStart);
+
+    final List<Publisher> releases = new ArrayList<>();
+
+    if (hasTargets()) {
+      phaseStart = System.nanoTime();
+      serviceFactory.shareFile(getFile());
+      timingReport.record(TimingReport.FILE_DIGEST, System.nanoTime() - phaseStart);
+
+      for (ReleaseTarget target : targets) {
+        releases.add(prepareRelease(target.getGame() + "/" + target.getProjectId(), target,
+            changelog));
       }
+    } else {
+      releases.add(prepareRelease(project == null ? getFile() : project.getArtifactId(),
+          targets.get(0), changelog));
     }
-    // fallback to plugin configuration if credentials cannot be retrieved from maven settings.xml
-    if (token == null) {
-      throw new MojoExecutionException("Unable to read authentication configuration make "
-          + "sure to set the authToken property");
+
+    // the throughput measured by every upload of this execution sizes the socket timeouts
+    final PublisherFactory publisherFactory = new PublisherFactory(settings, getLog(),
+        project == null ? null : project.getVersion(), serviceFactory.getTimeoutPolicy());
+
+    if (wowInterface != null) {
+      releases.add(publisherFactory.createWowInterfacePublisher(wowInterface, getFile(),
+          changelog));
     }
 
-    return token;
+    if (gitHub != null) {
+      // alphas and betas are released as pre-release unless configured otherwise
+      releases.add(publisherFactory.createGitHubPublisher(gitHub,
+          !"release".equals(getReleaseType()), getFile(), changelog));
+    }
+
+    return releases;
   }
 
-  private String getChangelog() throws MojoExecutionException {
-    if (!changelogFile.isEmpty()) {
-      byte[] changelogContent;
+  /**
+   * Resolve the targets of the release. Without configured targets the configured project is the
+   * only target.
+   *
+   * @return The targets with all properties set
+   */
+  private List<ReleaseTarget> resolveTargets() {
+    if (!hasTargets()) {
+      final ReleaseTarget target = new ReleaseTarget();
+      target.setProjectId(projectId);
 
-      try {
-        Path changelogPath = Paths.get(changelogFile);
-        if (getLog().isDebugEnabled()) {
-          getLog().debug("Changelog path: " + changelogFile);
-        }
-        changelogContent = Files.readAllBytes(changelogPath);
+      return Collections.singletonList(resolveTarget(target));
+    }
+
+    final List<ReleaseTarget> targets = new ArrayList<>();
+
+    for (ReleaseTarget target : getTargets()) {
+      targets.add(resolveTarget(target));
+    }
 
-        return new String(changelogContent, StandardCharsets.UTF_8);
-      } catch (IOException e) {
-        throw new MojoExecutionException("Failed to read release notes", e);
+    return targets;
+  }
+
+  /**
+   * Inherit all properties that are not set on a target from the plugin configuration.
+   *
+   * @param configuredTarget The configured target
+   * @return A copy of the target with all properties set
+   */
+  private ReleaseTarget resolveTarget(ReleaseTarget configuredTarget) {
+    final ReleaseTarget target = new ReleaseTarget();
+    target.setProjectId(configuredTarget.getProjectId());
+    target.setGame(configuredTarget.getGame() == null ? game : configuredTarget.getGame());
+    target.setGameVersions(configuredTarget.getGameVersions() == null
+        || configuredTarget.getGameVersions().isEmpty()
+        ? Arrays.asList(getGameVersions()) : configuredTarget.getGameVersions());
+    target.setReleaseType(configuredTarget.getReleaseType() == null
+        ? getReleaseType() : configuredTarget.getReleaseType());
+    target.setDisplayName(configuredTarget.getDisplayName() == null
+        ? displayName : configuredTarget.getDisplayName());
+
+    return target;
+  }
+
+  /**
+   * Prepare a new release on Twitch. The game versions are resolved, nothing is uploaded yet.
+   *
+   * @param name      Name of the release used when reporting its result
+   * @param target    The project the release is created in
+   * @param changelog The changelog of the release
+   * @return The release that is ready to be created
+   *
+   * @throws MojoExecutionException If any exception happens while preparing the release
+   */
+  private DeferredRelease prepareRelease(String name, ReleaseTarget target, String changelog)
+      throws MojoExecutionException {
+    final TwitchClient twitchClient = createTwitchClient(target);
+    final Metadata metadata = new Metadata();
+
+    metadata.setChangelog(changelog);
+    metadata.setChangelogType(getChangelogType());
+    metadata.setDisplayName(target.getDisplayName());
+    metadata.setGameVersions(serviceFactory.resolveGameVersions(twitchClient,
+        target.getGameVersions()));
+    metadata.setReleaseType(target.getReleaseType());
+
+    return new DeferredRelease(name, serviceFactory.createReleaseService(twitchClient), metadata,
+        getFile(), getAdditionalFiles());
+  }
+
+  /**
+   * Package the addon directory into the archive that is uploaded afterwards.
+   *
+   * @throws MojoExecutionException If the addon directory cannot be packaged
+   */
+  private void packageAddon() throws MojoExecutionException {
+    final AddonPackager addonPackager = new AddonPackager();
+
+    try {
+      addonPackager.setTimestamp(AddonPackager.parseTimestamp(outputTimestamp));
+
+      final PackageResult packageResult = addonPackager.pack(Paths.get(getAddonDirectory()),
+          Paths.get(getFile()));
+
+      if (getLog().isInfoEnabled()) {
+        getLog().info("Packaged " + packageResult.getEntries() + " entries into "
+            + packageResult.getArchive() + " (" + packageResult.getReusedEntries()
+            + " reused from previous archive)");
       }
-    } else if (!changelog.isEmpty()) {
-      return changelog;
+    } catch (IOException | IllegalArgumentException e) {
+      throw new MojoExecutionException("Failed to package addon directory " + getAddonDirectory(),
+          e);
     }
+  }
 
-    return "";
+  /**
+   * Retrieve the token for the Twitch Api.
+   *
+   * @return The Twitch Api token
+   *
+   * @throws MojoExecutionException An exception occurring during the execution of a plugin
+   */
+  private String getCredentials() throws MojoExecutionException {
+    token = CredentialUtils.getToken(settings, server, token, getLog());
+
+    return token;
   }
 
   /**
@@ -183,33 +577,37 @@ public class TwitchReleaseMojo extends AbstractMojo {
    * @throws MojoExecutionException An exception occurring during the execution of a plugin
    */
   private void validateRequiredInputParameters() throws MojoExecutionException {
-    if (projectId == null || projectId.isEmpty()) {
+    if (!hasTargets() && (projectId == null || projectId.isEmpty())) {
       throw new MojoExecutionException("Missing required parameter projectId");
     }
 
-    if (gameVersions == null || gameVersions.length <= 0) {
-      throw new MojoExecutionException("Missing required parameter gameVersions");
+    // the parameter groups of the release services are validated by the factory
+    serviceFactory = new ReleaseServiceFactory(retry, timeout, throttle, circuitBreaker,
+        uploadCache);
+    ReleaseServiceFactory.checkPositive("targetThreads", targetThreads);
+    ReleaseServiceFactory.checkPositive("releaseAtEndThreads", releaseAtEndThreads);
+    ReleaseServiceFactory.checkNotNegative("gameVersionCacheTtl", gameVersionCacheTtl);
+
+    if (wowInterface != null && (wowInterface.getAddonId() == null
+        || wowInterface.getAddonId().isEmpty())) {
+      throw new MojoExecutionException("Missing required parameter addonId of wowInterface");
     }
 
-    if (file == null || file.isEmpty()) {
-      throw new MojoExecutionException("Missing required parameter file");
+    if (gitHub != null && (gitHub.getOwner() == null || gitHub.getRepository() == null)) {
+      throw new MojoExecutionException("Missing required parameters owner and repository of "
+          + "gitHub");
     }
+
+    ReleaseServiceFactory.checkCassette(cassette);
   }
 
   /**
-   * Create a new Twitch client and set its owner and the targeted repository.
-   * Additionally the token for authenticating against the Twitch Api is set.
+   * Create a new Twitch client for the targeted project.
    *
+   * @param target The targeted project
    * @return The created Twitch client
-   *
-   * @throws MojoExecutionException An exception occurring during the execution of a plugin
    */
-  private TwitchClient createTwitchClient() throws MojoExecutionException {
-    TwitchClient twitchClient = new TwitchClient();
-    twitchClient.setToken(getCredentials());
-    twitchClient.setGame(game);
-    twitchClient.setProjectId(projectId);
-
-    return twitchClient;
+  private TwitchClient createTwitchClient(ReleaseTarget target) {
+    return serviceFactory.createTwitchClient(baseUri, target.getGame(), target.getProjectId());
   }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import java.nio.file.Paths;
+import java.util.Objects;
+
+/**
+ * Configuration of the upload cache that skips releases that were already published with
+ * identical file, metadata and project.
+ */
+public class UploadCacheConfiguration {
+  // Whether releases that were already published are skipped
+  private boolean enabled;
+
+  // Directory of the upload cache
+  private String directory = Paths.get(System.getProperty("user.home"), ".m2", "twitch-release",
+      "upload-cache").toString();
+
+  // Maximum amount of releases remembered by the upload cache
+  private int maxEntries = 1000;
+
+  // Maximum age in days of a release remembered by the upload cache
+  private int maxAge = 90;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  public int getMaxAge() {
+    return maxAge;
+  }
+
+  public void setMaxAge(int maxAge) {
+    this.maxAge = maxAge;
+  }
+
+  @Override
+  public String toString() {
+    return "UploadCacheConfiguration{"
+        + "enabled=" + enabled
+        + ", directory='" + directory + '\''
+        + ", maxEntries=" + maxEntries
+        + ", maxAge=" + maxAge
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    UploadCacheConfiguration that = (UploadCacheConfiguration) o;
+    return enabled == that.enabled
+        && maxEntries == that.maxEntries
+        && maxAge == that.maxAge
+        && Objects.equals(directory, that.directory);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(enabled, directory, maxEntries, maxAge);
+  }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.archive;
+
+import com.ragedunicorn.tools.maven.concurrent.DaemonThreadFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+/**
+ * Packages an addon directory into a zip archive. Entries are compressed in parallel and streamed
+ * to the archive in lexicographical order with a fixed timestamp which makes the archive
+ * reproducible. Only a bounded number of compressed entries is held in memory at any time and
+ * files larger than {@link #MAX_BUFFERED_SIZE} are compressed while they are written. If the
+ * archive already exists and was written by a packager with the same compression level, entries
+ * of unchanged files are copied from it without compressing them again.
+ */
+public class AddonPackager {
+  // 1980-01-01T00:00:02Z - the earliest timestamp of a zip archive, zip tools read a time of
+  // 1980-01-01T00:00:00 as a time before 1980
+  public static final long DEFAULT_TIMESTAMP = 315532802000L;
+
+  // files above this size are not compressed ahead of writing them to keep the heap bounded
+  public static final long MAX_BUFFERED_SIZE = 8L * 1024 * 1024;
+
+  // amount of entries per thread that are compressed ahead of the entry being written
+  private static final int ENTRIES_AHEAD = 2;
+
+  // archive comment identifying archives written by this packager, followed by the level
+  private static final String COMMENT_PREFIX = "twitch-release-maven-plugin deflate level ";
+
+  private final int threads;
+
+  private final int compressionLevel;
+
+  private long timestamp = DEFAULT_TIMESTAMP;
+
+  public AddonPackager() {
+    this(Runtime.getRuntime().availableProcessors(), Deflater.BEST_COMPRESSION);
+  }
+
+  /**
+   * Create an addon packager.
+   *
+   * @param threads          Amount of entries that are compressed concurrently
+   * @param compressionLevel Deflate compression level between 0 and 9
+   */
+  public AddonPackager(int threads, int compressionLevel) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("threads must be greater than zero");
+    }
+
+    if (compressionLevel < Deflater.NO_COMPRESSION
+        || compressionLevel > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("compressionLevel must be between 0 and 9");
+    }
+
+    this.threads = threads;
+    this.compressionLevel = compressionLevel;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Set the modification time that is recorded for all entries.
+   *
+   * @param timestamp Milliseconds since the epoch
+   */
+  public void setTimestamp(long timestamp) {
+    this.timestamp = timestamp;
+  }
+
+  /**
+   * Parse a timestamp in the format of the {@code project.build.outputTimestamp} property used
+   * for reproducible builds.
+   *
+   * @param outputTimestamp Either ISO-8601 or seconds since the epoch. Unset or single character
+   *                        values disable the timestamp
+   * @return The timestamp in milliseconds since the epoch
+   * @throws IllegalArgumentException If the timestamp cannot be parsed
+   */
+  public static long parseTimestamp(String outputTimestamp) {
+    if (outputTimestamp == null || outputTimestamp.length() < 2) {
+      return DEFAULT_TIMESTAMP;
+    }
+
+    try {
+      if (outputTimestamp.chars().allMatch(Character::isDigit)) {
+        return Long.parseLong(outputTimestamp) * 1000L;
+      }
+
+      return OffsetDateTime.parse(outputTimestamp).toInstant().toEpochMilli();
+    } catch (DateTimeParseException | NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid outputTimestamp " + outputTimestamp, e);
+    }
+  }
+
+  /**
+   * Package a directory into an archive. All entries are placed below a folder named after the
+   * directory which is the layout expected by the game client.
+   *
+   * @param directory The addon directory
+   * @param archive   The archive to create or update
+   * @return The result of packaging the directory
+   * @throws IOException If the directory cannot be read or the archive cannot be written
+   */
+  public PackageResult pack(Path directory, Path archive) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      throw new IOException("Addon directory " + directory + " does not exist");
+    }
+
+    final Map<String, Path> sources = collectSources(directory);
+    final Path absoluteArchive = archive.toAbsolutePath();
+    final Path temporaryArchive = absoluteArchive.resolveSibling(
+        absoluteArchive.getFileName() + ".tmp");
+
+    if (absoluteArchive.getParent() != null) {
+      Files.createDirectories(absoluteArchive.getParent());
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads,
+        new DaemonThreadFactory("twitch-package"));
+
+    try (ZipFile previousArchive = openPreviousArchive(absoluteArchive)) {
+      final Map<String, ZipArchiveEntry> previousEntries = readEntries(previousArchive);
+      final Deque<Future<ZipEntryRecord>> pending = new ArrayDeque<>();
+      int reusedEntries = 0;
+
+      try (ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(temporaryArchive)) {
+        outputStream.setUseZip64(Zip64Mode.AsNeeded);
+        outputStream.setLevel(compressionLevel);
+        outputStream.setComment(getComment());
+
+        for (Map.Entry<String, Path> source : sources.entrySet()) {
+          if (pending.size() >= threads * ENTRIES_AHEAD) {
+            reusedEntries += write(outputStream, await(pending.poll()), previousArchive);
+          }
+
+          pending.add(executor.submit(() -> createRecord(source.getKey(), source.getValue(),
+              previousEntries.get(source.getKey()))));
+        }
+
+        while (!pending.isEmpty()) {
+          reusedEntries += write(outputStream, await(pending.poll()), previousArchive);
+        }
+      }
+
+      Files.move(temporaryArchive, absoluteArchive, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+
+      return new PackageResult(absoluteArchive, sources.size(), reusedEntries);
+    } finally {
+      executor.shutdownNow();
+      Files.deleteIfExists(temporaryArchive);
+    }
+  }
+
+  /**
+   * Collect all directories and regular files sorted by their entry name.
+   *
+   * @param directory The addon directory
+   * @return Sources by entry name
+   * @throws IOException If the directory cannot be read
+   */
+  private static Map<String, Path> collectSources(Path directory) throws IOException {
+    final Path root = directory.toAbsolutePath().normalize();
+    final String prefix = root.getFileName() + "/";
+    final Map<String, Path> sources = new TreeMap<>();
+
+    try (Stream<Path> paths = Files.walk(root)) {
+      paths.forEach(path -> {
+        final String relativePath = root.relativize(path).toString().replace('\\', '/');
+
+        if (Files.isDirectory(path)) {
+          sources.put(relativePath.isEmpty() ? prefix : prefix + relativePath + "/", path);
+        } else if (Files.isRegularFile(path)) {
+          sources.put(prefix + relativePath, path);
+        }
+      });
+    }
+
+    return sources;
+  }
+
+  /**
+   * Open the previous archive if its compressed entries can be reused. Only archives written by
+   * this packager with the same compression level qualify. Entries of any other archive are
+   * compressed again because they would differ from a fresh archive and break reproducibility.
+   *
+   * @param archive The archive that is about to be replaced
+   * @return The previous archive or null if it does not exist or cannot be reused
+   * @throws IOException If the previous archive cannot be read
+   */
+  private ZipFile openPreviousArchive(Path archive) throws IOException {
+    if (!Files.isRegularFile(archive)) {
+      return null;
+    }
+
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(archive.toFile())) {
+      if (!getComment().equals(zipFile.getComment())) {
+        return null;
+      }
+    } catch (ZipException e) {
+      // not a readable zip archive, it is replaced as a whole
+      return null;
+    }
+
+    return ZipFile.builder().setPath(archive).get();
+  }
+
+  private static Map<String, ZipArchiveEntry> readEntries(ZipFile previousArchive) {
+    if (previousArchive == null) {
+      return Collections.emptyMap();
+    }
+
+    final Map<String, ZipArchiveEntry> entries = new TreeMap<>();
+
+    for (ZipArchiveEntry entry : Collections.list(previousArchive.getEntries())) {
+      entries.put(entry.getName(), entry);
+    }
+
+    return entries;
+  }
+
+  /**
+   * Shift the timestamp by the offset of the default time zone. Zip archives store the time of
+   * an entry as local date and time, the shift makes the stored time the UTC time of the
+   * timestamp on every machine. The time is rounded down to the two second precision of the zip
+   * format so that no extended timestamp fields are written.
+   *
+   * @return The time of the entries in milliseconds since the epoch
+   */
+  private long getEntryTime() {
+    final long utcTime = Math.max(timestamp, DEFAULT_TIMESTAMP);
+    final long localTime = utcTime - TimeZone.getDefault().getOffset(utcTime);
+
+    return localTime - Math.floorMod(localTime, 2000L);
+  }
+
+  private String getComment() {
+    return COMMENT_PREFIX + compressionLevel;
+  }
+
+  /**
+   * Create the entry of a single source. The entry of the previous archive is reused if size and
+   * checksum of the source did not change. Files up to {@link #MAX_BUFFERED_SIZE} are compressed
+   * right away and stored as is if compression does not reduce their size.
+   *
+   * @param name          The entry name
+   * @param source        The source file or directory
+   * @param previousEntry The entry of the previous archive or null
+   * @return The entry including its compressed data if it was compressed ahead of writing it
+   * @throws IOException If the source cannot be read
+   */
+  private ZipEntryRecord createRecord(String name, Path source, ZipArchiveEntry previousEntry)
+      throws IOException {
+    final ZipArchiveEntry entry = new ZipArchiveEntry(name);
+    final ZipEntryRecord record = new ZipEntryRecord(entry, source);
+    entry.setTime(getEntryTime());
+
+    if (entry.isDirectory()) {
+      entry.setMethod(ZipArchiveEntry.STORED);
+      entry.setSize(0);
+      entry.setCrc(0);
+
+      return record;
+    }
+
+    final long size = Files.size(source);
+    entry.setSize(size);
+
+    if (previousEntry != null && previousEntry.getSize() == size
+        && previousEntry.getCrc() == ArchiveUtils.checksum(source)) {
+      entry.setMethod(previousEntry.getMethod());
+      entry.setCrc(previousEntry.getCrc());
+      entry.setCompressedSize(previousEntry.getCompressedSize());
+      record.setPreviousEntry(previousEntry);
+
+      return record;
+    }
+
+    entry.setMethod(ZipArchiveEntry.DEFLATED);
+
+    if (size > MAX_BUFFERED_SIZE) {
+      return record;
+    }
+
+    final CRC32 crc = new CRC32();
+    final byte[] compressed = ArchiveUtils.deflate(source, compressionLevel, crc);
+    entry.setCrc(crc.getValue());
+
+    // incompressible content is stored as is
+    if (compressed.length < size) {
+      entry.setCompressedSize(compressed.length);
+      record.setData(compressed);
+    } else {
+      entry.setMethod(ZipArchiveEntry.STORED);
+      entry.setCompressedSize(size);
+    }
+
+    return record;
+  }
+
+  /**
+   * Write an entry to the archive. Compressed and reused entries are copied as is, all other
+   * entries are read from their source and compressed by the archive stream if necessary.
+   *
+   * @param outputStream    The archive
+   * @param record          The entry to write
+   * @param previousArchive The previous archive or null
+   * @return 1 if the entry was copied from the previous archive, 0 otherwise
+   * @throws IOException If the entry cannot be written
+   */
+  private int write(ZipArchiveOutputStream outputStream, ZipEntryRecord record,
+      ZipFile previousArchive) throws IOException {
+    final ZipArchiveEntry entry = record.getEntry();
+
+    if (record.isReused()) {
+      try (InputStream inputStream = previousArchive.getRawInputStream(record.getPreviousEntry())) {
+        outputStream.addRawArchiveEntry(entry, inputStream);
+      }
+
+      return 1;
+    }
+
+    final byte[] data = record.getData();
+
+    if (data != null) {
+      outputStream.addRawArchiveEntry(entry, new ByteArrayInputStream(data));
+
+      return 0;
+    }
+
+    outputStream.putArchiveEntry(entry);
+
+    if (!entry.isDirectory()) {
+      try (InputStream inputStream = Files.newInputStream(record.getSource())) {
+        ArchiveUtils.copy(inputStream, outputStream);
+      }
+    }
+
+    outputStream.closeArchiveEntry();
+
+    return 0;
+  }
+
+  private static ZipEntryRecord await(Future<ZipEntryRecord> future) throws IOException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+
+      throw new IOException("Failed to compress entry", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final InterruptedIOException exception =
+          new InterruptedIOException("Interrupted while packaging addon");
+      exception.initCause(e);
+
+      throw exception;
+    }
+  }
+}
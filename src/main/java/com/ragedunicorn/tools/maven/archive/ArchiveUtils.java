@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Stream helpers of the addon packager to checksum, compress and copy the content of entries.
+ */
+final class ArchiveUtils {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private ArchiveUtils() {
+    // utility class
+  }
+
+  /**
+   * Calculate the checksum of a file like it is recorded in a zip entry.
+   *
+   * @param source The file to read
+   * @return The CRC-32 of the file
+   * @throws IOException If the file cannot be read
+   */
+  static long checksum(Path source) throws IOException {
+    final CRC32 crc = new CRC32();
+
+    try (InputStream inputStream = Files.newInputStream(source)) {
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      int read;
+
+      while ((read = inputStream.read(buffer)) != -1) {
+        crc.update(buffer, 0, read);
+      }
+    }
+
+    return crc.getValue();
+  }
+
+  /**
+   * Compress a file into raw deflate data as it is stored in a zip entry.
+   *
+   * @param source           The file to compress
+   * @param compressionLevel The deflate level
+   * @param crc              Updated with the uncompressed content of the file
+   * @return The compressed data
+   * @throws IOException If the file cannot be read
+   */
+  static byte[] deflate(Path source, int compressionLevel, CRC32 crc) throws IOException {
+    final Deflater deflater = new Deflater(compressionLevel, true);
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    try (InputStream inputStream = new CheckedInputStream(Files.newInputStream(source), crc);
+        OutputStream deflaterStream =
+            new DeflaterOutputStream(outputStream, deflater, BUFFER_SIZE)) {
+      copy(inputStream, deflaterStream);
+    } finally {
+      deflater.end();
+    }
+
+    return outputStream.toByteArray();
+  }
+
+  static void copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    int read;
+
+    while ((read = inputStream.read(buffer)) != -1) {
+      outputStream.write(buffer, 0, read);
+    }
+  }
+}
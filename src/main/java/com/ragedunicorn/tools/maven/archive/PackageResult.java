@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.archive;
+
+import java.nio.file.Path;
+
+/**
+ * Result of packaging an addon directory.
+ */
+public class PackageResult {
+  private final Path archive;
+
+  private final int entries;
+
+  private final int reusedEntries;
+
+  /**
+   * Create a package result.
+   *
+   * @param archive       The created archive
+   * @param entries       Amount of entries in the archive
+   * @param reusedEntries Amount of entries copied from the previous archive without compressing
+   *                      them again
+   */
+  public PackageResult(Path archive, int entries, int reusedEntries) {
+    this.archive = archive;
+    this.entries = entries;
+    this.reusedEntries = reusedEntries;
+  }
+
+  public Path getArchive() {
+    return archive;
+  }
+
+  public int getEntries() {
+    return entries;
+  }
+
+  public int getReusedEntries() {
+    return reusedEntries;
+  }
+
+  @Override
+  public String toString() {
+    return "PackageResult{"
+        + "archive=" + archive
+        + ", entries=" + entries
+        + ", reusedEntries=" + reusedEntries
+        + '}';
+  }
+}
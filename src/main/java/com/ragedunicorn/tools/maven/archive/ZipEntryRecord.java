@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.ragedunicorn.tools.maven.archive;
+
+import java.nio.file.Path;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+
+/**
+ * A single entry of an archive together with the origin of its data. Entries either carry their
+ * compressed data, are copied from the previous archive or are read from their source while the
+ * archive is written.
+ */
+class ZipEntryRecord {
+  private final ZipArchiveEntry entry;
+
+  private final Path source;
+
+  // compressed data or null if the entry is not compressed ahead of writing it
+  private byte[] data;
+
+  // entry of the previous archive that is copied or null
+  private ZipArchiveEntry previousEntry;
+
+  ZipEntryRecord(ZipArchiveEntry entry, Path source) {
+    this.entry = entry;
+    this.source = source;
+  }
+
+  ZipArchiveEntry getEntry() {
+    return entry;
+  }
+
+  Path getSource() {
+    return source;
+  }
+
+  byte[] getData() {
+    return data == null ? null : data.clone();
+  }
+
+  void setData(byte[] data) {
+    this.data = data == null ? null : data.clone();
+  }
+
+  ZipArchiveEntry getPreviousEntry() {
+    return previousEntry;
+  }
+
+  void setPreviousEntry(ZipArchiveEntry previousEntry) {
+    this.previousEntry = previousEntry;
+  }
+
+  boolean isReused() {
+    return previousEntry != null;
+  }
+}
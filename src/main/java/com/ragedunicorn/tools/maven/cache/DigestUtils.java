@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.cache;
+
+import com.ragedunicorn.tools.maven.model.FileChecksums;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Helper for calculating message digests of files and strings.
+ */
+public final class DigestUtils {
+  public static final String SHA_256 = "SHA-256";
+  public static final String MD5 = "MD5";
+
+  // suffix of the checksum file written next to an uploaded file
+  public static final String CHECKSUM_FILE_SUFFIX = ".checksums";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private DigestUtils() {
+    // utility class
+  }
+
+  /**
+   * Calculate the SHA-256 digest of a file.
+   *
+   * @param file The file to digest
+   * @return The hex encoded digest
+   * @throws IOException If the file cannot be read
+   */
+  public static String sha256(File file) throws IOException {
+    final MessageDigest messageDigest = createMessageDigest(SHA_256);
+    final byte[] buffer = new byte[BUFFER_SIZE];
+
+    try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        messageDigest.update(buffer, 0, read);
+      }
+    }
+
+    return toHex(messageDigest.digest());
+  }
+
+  /**
+   * Calculate the SHA-256 and MD5 digests of a file in a single pass.
+   *
+   * @param file The file to digest
+   * @return The checksums of the file
+   * @throws IOException If the file cannot be read
+   */
+  public static FileChecksums checksums(File file) throws IOException {
+    final MessageDigest sha256 = createMessageDigest(SHA_256);
+    final MessageDigest md5 = createMessageDigest(MD5);
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    long length = 0;
+
+    try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        sha256.update(buffer, 0, read);
+        md5.update(buffer, 0, read);
+        length += read;
+      }
+    }
+
+    final FileChecksums checksums = new FileChecksums();
+    checksums.setSha256(toHex(sha256.digest()));
+    checksums.setMd5(toHex(md5.digest()));
+    checksums.setLength(length);
+
+    return checksums;
+  }
+
+  /**
+   * Calculate the SHA-256 digest of a string.
+   *
+   * @param content The string to digest
+   * @return The hex encoded digest
+   */
+  public static String sha256(String content) {
+    return toHex(createMessageDigest(SHA_256).digest(content.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Create a message digest for an algorithm every Java platform has to support.
+   *
+   * @param algorithm The name of the algorithm
+   * @return The created message digest
+   */
+  public static MessageDigest createMessageDigest(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Missing required digest algorithm " + algorithm, e);
+    }
+  }
+
+  /**
+   * Hex encode a digest.
+   *
+   * @param digest The digest to encode
+   * @return The lowercase hex representation
+   */
+  public static String toHex(byte[] digest) {
+    final char[] hex = new char[digest.length * 2];
+
+    for (int i = 0; i < digest.length; i++) {
+      hex[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+      hex[i * 2 + 1] = HEX[digest[i] & 0xF];
+    }
+
+    return new String(hex);
+  }
+
+  /**
+   * Write the checksums of a file to a checksum file next to it. The file uses the tagged format
+   * of the BSD checksum tools that is also verified by {@code cksum --check}.
+   *
+   * @param file      The file the checksums belong to
+   * @param checksums The checksums of the file
+   * @return The path of the checksum file
+   * @throws IOException If the checksum file cannot be written
+   */
+  public static Path writeChecksumFile(Path file, FileChecksums checksums) throws IOException {
+    final Path absoluteFile = file.toAbsolutePath();
+    final Path checksumFile =
+        absoluteFile.resolveSibling(absoluteFile.getFileName() + CHECKSUM_FILE_SUFFIX);
+    final String fileName = absoluteFile.getFileName().toString();
+    final String content = "SHA256 (" + fileName + ") = " + checksums.getSha256() + '\n'
+        + "MD5 (" + fileName + ") = " + checksums.getMd5() + '\n';
+    final Path temporaryFile =
+        Files.createTempFile(absoluteFile.getParent(), fileName, ".tmp");
+
+    // concurrent releases of the same file write identical content
+    try {
+      Files.write(temporaryFile, content.getBytes(StandardCharsets.UTF_8));
+      Files.move(temporaryFile, checksumFile, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+
+    return checksumFile;
+  }
+}
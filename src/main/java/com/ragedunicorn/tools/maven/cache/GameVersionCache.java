@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * On-disk cache of the game version tables. Every game is stored in its own file. The file is
+ * written to a temporary file first and atomically moved into place so that concurrent builds
+ * always read a complete table.
+ */
+public class GameVersionCache {
+  private final Gson gson = new Gson();
+
+  private final Path directory;
+
+  public GameVersionCache(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Read the cached game version table of a game.
+   *
+   * @param game The targeted game such as wow
+   * @return The cached table or null if the game was never cached
+   * @throws IOException If the cache cannot be read
+   */
+  public GameVersionCacheEntry get(String game) throws IOException {
+    final Path cacheFile = getCacheFile(game);
+
+    try {
+      return gson.fromJson(new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8),
+          GameVersionCacheEntry.class);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (JsonParseException e) {
+      throw new IOException("Corrupt game version cache " + cacheFile, e);
+    }
+  }
+
+  /**
+   * Store the game version table of a game.
+   *
+   * @param game  The targeted game such as wow
+   * @param entry The table to store
+   * @throws IOException If the cache cannot be written
+   */
+  public void put(String game, GameVersionCacheEntry entry) throws IOException {
+    Files.createDirectories(directory);
+
+    final Path temporaryFile = Files.createTempFile(directory, game, ".tmp");
+
+    try {
+      Files.write(temporaryFile, gson.toJson(entry).getBytes(StandardCharsets.UTF_8));
+      Files.move(temporaryFile, getCacheFile(game), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  private Path getCacheFile(String game) {
+    return directory.resolve(game + ".json");
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.cache;
+
+import com.ragedunicorn.tools.maven.model.GameVersion;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cached game version table of a game together with the information required to revalidate
+ * it against the Twitch Api.
+ */
+public class GameVersionCacheEntry {
+  private String etag;
+
+  // epoch millis of the last successful fetch or revalidation
+  private long fetchedAt;
+
+  private List<GameVersion> gameVersions = new ArrayList<>();
+
+  public String getEtag() {
+    return etag;
+  }
+
+  public void setEtag(String etag) {
+    this.etag = etag;
+  }
+
+  public long getFetchedAt() {
+    return fetchedAt;
+  }
+
+  public void setFetchedAt(long fetchedAt) {
+    this.fetchedAt = fetchedAt;
+  }
+
+  public List<GameVersion> getGameVersions() {
+    return gameVersions;
+  }
+
+  public void setGameVersions(List<GameVersion> gameVersions) {
+    this.gameVersions = gameVersions;
+  }
+
+  @Override
+  public String toString() {
+    return "GameVersionCacheEntry{"
+        + "etag='" + etag + '\''
+        + ", fetchedAt=" + fetchedAt
+        + ", gameVersions=" + gameVersions.size()
+        + '}';
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent index of already published releases. Every entry is stored in its own file named
+ * after the cache key. Entries are written to a temporary file first and atomically moved into
+ * place which allows lookups without any locking. Writes and eviction are guarded by a lock file
+ * to support concurrent builds on the same machine.
+ */
+public class UploadCache {
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+  public static final int DEFAULT_MAX_AGE_DAYS = 90;
+
+  private static final String LOCK_FILE = "cache.lock";
+  private static final String ENTRY_SUFFIX = ".json";
+
+  // file locks are held by the whole JVM and cannot be acquired twice by the same JVM
+  private static final Object JVM_LOCK = new Object();
+
+  private final Gson gson = new Gson();
+
+  private final Path directory;
+
+  private final int maxEntries;
+
+  private final long maxAgeMillis;
+
+  public UploadCache(Path directory) {
+    this(directory, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_AGE_DAYS);
+  }
+
+  /**
+   * Create an upload cache.
+   *
+   * @param directory  The directory the cache entries are stored in
+   * @param maxEntries Maximum amount of entries. The oldest entries are evicted first
+   * @param maxAgeDays Maximum age of an entry in days
+   */
+  public UploadCache(Path directory, int maxEntries, int maxAgeDays) {
+    if (maxEntries <= 0 || maxAgeDays <= 0) {
+      throw new IllegalArgumentException("maxEntries and maxAgeDays must be greater than zero");
+    }
+
+    this.directory = directory;
+    this.maxEntries = maxEntries;
+    this.maxAgeMillis = TimeUnit.DAYS.toMillis(maxAgeDays);
+  }
+
+  /**
+   * Create the cache key for a release.
+   *
+   * @param fileDigest The SHA-256 digest of the uploaded file
+   * @param projectId  The targeted project
+   * @param metadata   The serialized metadata of the release
+   * @return The cache key
+   */
+  public static String createKey(String fileDigest, String projectId, String metadata) {
+    return DigestUtils.sha256(projectId + '\n' + fileDigest + '\n' + metadata);
+  }
+
+  /**
+   * Lookup an already published release.
+   *
+   * @param key The cache key
+   * @return The cached entry or null if the release was not published or the entry expired
+   * @throws IOException If the cache cannot be read
+   */
+  public UploadCacheEntry get(String key) throws IOException {
+    final Path entryFile = directory.resolve(key + ENTRY_SUFFIX);
+
+    try {
+      final UploadCacheEntry entry = gson.fromJson(
+          new String(Files.readAllBytes(entryFile), StandardCharsets.UTF_8),
+          UploadCacheEntry.class);
+
+      return entry == null || isExpired(entry) ? null : entry;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (JsonParseException e) {
+      throw new IOException("Corrupt upload cache entry " + entryFile, e);
+    }
+  }
+
+  /**
+   * Store a published release and evict entries exceeding the age and size limits.
+   *
+   * @param key   The cache key
+   * @param entry The entry to store
+   * @throws IOException If the cache cannot be written
+   */
+  public void put(String key, UploadCacheEntry entry) throws IOException {
+    Files.createDirectories(directory);
+
+    synchronized (JVM_LOCK) {
+      try (FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        final FileLock lock = lockChannel.lock();
+
+        try {
+          write(key, entry);
+          evict();
+        } finally {
+          lock.release();
+        }
+      }
+    }
+  }
+
+  private void write(String key, UploadCacheEntry entry) throws IOException {
+    final Path temporaryFile = Files.createTempFile(directory, key, ".tmp");
+
+    try {
+      Files.write(temporaryFile, gson.toJson(entry).getBytes(StandardCharsets.UTF_8));
+      Files.move(temporaryFile, directory.resolve(key + ENTRY_SUFFIX),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Remove expired entries and the oldest entries exceeding the maximum amount of entries. Must
+   * be called while holding the cache lock.
+   *
+   * @throws IOException If the cache directory cannot be read
+   */
+  private void evict() throws IOException {
+    final long now = System.currentTimeMillis();
+    final List<Path> entryFiles = new ArrayList<>();
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+      for (Path entryFile : stream) {
+        if (now - Files.getLastModifiedTime(entryFile).toMillis() > maxAgeMillis) {
+          Files.deleteIfExists(entryFile);
+        } else {
+          entryFiles.add(entryFile);
+        }
+      }
+    }
+
+    if (entryFiles.size() <= maxEntries) {
+      return;
+    }
+
+    entryFiles.sort(Comparator.comparingLong(UploadCache::lastModified));
+
+    for (Path entryFile : entryFiles.subList(0, entryFiles.size() - maxEntries)) {
+      Files.deleteIfExists(entryFile);
+    }
+  }
+
+  private boolean isExpired(UploadCacheEntry entry) {
+    return System.currentTimeMillis() - entry.getCreatedAt() > maxAgeMillis;
+  }
+
+  private static long lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      // entries that vanished in the meantime are sorted first
+      return Long.MIN_VALUE;
+    }
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.cassette;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.http.Header;
+import org.apache.http.impl.client.HttpClientBuilder;
+
+/**
+ * Recorded http exchanges with the Twitch Api. In record mode every request is sent and the
+ * exchange is written to the cassette file with secrets such as the api token redacted. In replay
+ * mode requests are answered from memory without any network access, which allows testing a
+ * release configuration offline in milliseconds. Requests are matched by method, path and query.
+ * Exchanges of the same request are replayed in the order they were recorded and the last one is
+ * repeated once all of them were replayed. A cassette can be shared by any amount of threads.
+ */
+public final class Cassette {
+  public static final String REDACTED = "<redacted>";
+
+  private static final Set<String> SECRET_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+  private static final Type EXCHANGE_LIST_TYPE = new TypeToken<List<RecordedExchange>>() {
+  }.getType();
+
+  static {
+    SECRET_HEADERS.addAll(Arrays.asList("X-Api-Token", "Authorization", "Proxy-Authorization",
+        "Cookie", "Set-Cookie"));
+  }
+
+  private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+  private final Object lock = new Object();
+
+  private final Path file;
+
+  private final CassetteMode mode;
+
+  private final List<RecordedExchange> exchanges;
+
+  // amount of replayed exchanges of every request
+  private final Map<String, Integer> replayed = new HashMap<>();
+
+  private Cassette(Path file, CassetteMode mode, List<RecordedExchange> exchanges) {
+    this.file = file;
+    this.mode = mode;
+    this.exchanges = exchanges;
+  }
+
+  /**
+   * Open a cassette. A recorded cassette starts empty and replaces an existing file once the
+   * first exchange is recorded.
+   *
+   * @param file The cassette file
+   * @param mode The mode of the cassette
+   * @return The opened cassette
+   * @throws IOException If the cassette to replay cannot be read
+   */
+  public static Cassette open(Path file, CassetteMode mode) throws IOException {
+    if (mode == CassetteMode.RECORD) {
+      return new Cassette(file, mode, new ArrayList<>());
+    }
+
+    try {
+      final List<RecordedExchange> exchanges = new Gson().fromJson(
+          new String(Files.readAllBytes(file), StandardCharsets.UTF_8), EXCHANGE_LIST_TYPE);
+
+      return new Cassette(file, mode, exchanges == null ? new ArrayList<>() : exchanges);
+    } catch (JsonParseException e) {
+      throw new IOException("Corrupt cassette " + file, e);
+    }
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  public CassetteMode getMode() {
+    return mode;
+  }
+
+  /**
+   * Retrieve the exchanges of the cassette.
+   *
+   * @return A copy of the recorded exchanges
+   */
+  public List<RecordedExchange> getExchanges() {
+    synchronized (lock) {
+      return new ArrayList<>(exchanges);
+    }
+  }
+
+  /**
+   * Create a builder of http clients backed by the cassette. Only a recording client sends
+   * requests, a replaying client answers every request before a connection is opened.
+   *
+   * @return The http client builder
+   */
+  public HttpClientBuilder createHttpClientBuilder() {
+    return new CassetteHttpClientBuilder(this);
+  }
+
+  /**
+   * Add an exchange and append it to the cassette file. The first exchange replaces an existing
+   * file, every further exchange overwrites the closing bracket of the json array so that the
+   * cost of recording does not grow with the amount of recorded exchanges. The exchange and the
+   * closing bracket are written at once, the file is a complete cassette after every exchange.
+   *
+   * @param exchange The recorded exchange
+   * @throws IOException If the cassette cannot be written
+   */
+  void record(RecordedExchange exchange) throws IOException {
+    synchronized (lock) {
+      final boolean first = exchanges.isEmpty();
+      exchanges.add(exchange);
+
+      if (first) {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+      }
+
+      final String json = (first ? "[" : ",") + System.lineSeparator() + gson.toJson(exchange)
+          + System.lineSeparator() + ']';
+
+      try (FileChannel channel = first
+          ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)
+          : FileChannel.open(file, StandardOpenOption.WRITE)) {
+        final ByteBuffer buffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+        // the closing bracket and the line separator before it are replaced
+        long position = first ? 0 : channel.size() - System.lineSeparator().length() - 1;
+
+        while (buffer.hasRemaining()) {
+          position += channel.write(buffer, position);
+        }
+      }
+    }
+  }
+
+  /**
+   * Find the exchange that answers a request.
+   *
+   * @param method The http method of the request
+   * @param uri    The path and query of the request
+   * @return The next exchange of the request or null if the request was never recorded
+   */
+  RecordedExchange replay(String method, String uri) {
+    synchronized (lock) {
+      final String request = method + ' ' + uri;
+      final int count = replayed.getOrDefault(request, 0);
+      RecordedExchange last = null;
+      int index = 0;
+
+      for (RecordedExchange exchange : exchanges) {
+        if (method.equals(exchange.getMethod()) && uri.equals(exchange.getUri())) {
+          if (index == count) {
+            replayed.put(request, count + 1);
+            return exchange;
+          }
+
+          last = exchange;
+          index++;
+        }
+      }
+
+      return last;
+    }
+  }
+
+  /**
+   * Convert headers into a list that can be written to the cassette. The order of the headers and
+   * headers that occur multiple times are kept. Values of headers carrying secrets are replaced.
+   *
+   * @param headers The headers of a request or response
+   * @return The headers with secrets redacted
+   */
+  static List<RecordedHeader> redact(Header... headers) {
+    final List<RecordedHeader> redacted = new ArrayList<>(headers.length);
+
+    for (Header header : headers) {
+      redacted.add(new RecordedHeader(header.getName(),
+          SECRET_HEADERS.contains(header.getName()) ? REDACTED : header.getValue()));
+    }
+
+    return Collections.unmodifiableList(redacted);
+  }
+}
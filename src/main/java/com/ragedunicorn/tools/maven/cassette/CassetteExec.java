@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.ragedunicorn.tools.maven.cassette;
+
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.execchain.ClientExecChain;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Element of the request execution chain that records exchanges to a {@link Cassette} or replays
+ * them from it. The element is placed in front of the protocol handling, default headers of the
+ * client, such as the api token, are added after the request passed it and are therefore never
+ * recorded. Replayed requests never reach the protocol handling and never open a connection.
+ */
+final class CassetteExec implements ClientExecChain {
+  private final Cassette cassette;
+
+  // protocol handling and transport of the client, only used while recording
+  private final ClientExecChain requestExecutor;
+
+  CassetteExec(Cassette cassette, ClientExecChain requestExecutor) {
+    this.cassette = cassette;
+    this.requestExecutor = requestExecutor;
+  }
+
+  @Override
+  public CloseableHttpResponse execute(HttpRoute route, HttpRequestWrapper request,
+      HttpClientContext context, HttpExecutionAware execAware) throws IOException, HttpException {
+    final String method = request.getRequestLine().getMethod();
+    final URI requestUri = request.getURI();
+    final String uri = requestUri.getRawQuery() == null
+        ? requestUri.getRawPath() : requestUri.getRawPath() + '?' + requestUri.getRawQuery();
+
+    return cassette.getMode() == CassetteMode.RECORD
+        ? record(method, uri, route, request, context, execAware) : replay(method, uri, request);
+  }
+
+  private CloseableHttpResponse replay(String method, String uri, HttpRequestWrapper request)
+      throws IOException {
+    final HttpEntity entity = getEntity(request);
+
+    // the body is produced like on a connection so that progress and checksums are calculated
+    if (entity != null) {
+      entity.writeTo(ByteStreams.nullOutputStream());
+    }
+
+    final RecordedExchange exchange = cassette.replay(method, uri);
+
+    if (exchange == null) {
+      throw new ClientProtocolException("No recorded exchange for " + method + " " + uri
+          + " in cassette " + cassette.getFile());
+    }
+
+    return new CassetteResponse(exchange);
+  }
+
+  private CloseableHttpResponse record(String method, String uri, HttpRoute route,
+      HttpRequestWrapper request, HttpClientContext context, HttpExecutionAware execAware)
+      throws IOException, HttpException {
+    final HttpEntity requestEntity = getEntity(request);
+    // the headers are captured before the protocol handling adds the default headers
+    final RecordedExchange exchange = new RecordedExchange();
+    exchange.setMethod(method);
+    exchange.setUri(uri);
+    exchange.setRequestHeaders(Cassette.redact(request.getAllHeaders()));
+    exchange.setRequestContentLength(
+        requestEntity == null ? -1 : requestEntity.getContentLength());
+
+    final CloseableHttpResponse response =
+        requestExecutor.execute(route, request, context, execAware);
+
+    try {
+      exchange.setStatusCode(response.getStatusLine().getStatusCode());
+      exchange.setReasonPhrase(response.getStatusLine().getReasonPhrase());
+      exchange.setResponseHeaders(Cassette.redact(response.getAllHeaders()));
+
+      final HttpEntity responseEntity = response.getEntity();
+
+      // the body is buffered because it is read by the caller and written to the cassette
+      if (responseEntity != null) {
+        final byte[] body = EntityUtils.toByteArray(responseEntity);
+        final ByteArrayEntity bufferedEntity = new ByteArrayEntity(body);
+        bufferedEntity.setContentType(responseEntity.getContentType());
+        response.setEntity(bufferedEntity);
+        exchange.setResponseBody(new String(body, StandardCharsets.UTF_8));
+      }
+
+      cassette.record(exchange);
+
+      return response;
+    } catch (IOException e) {
+      response.close();
+      throw e;
+    }
+  }
+
+  private static HttpEntity getEntity(HttpRequestWrapper request) {
+    return request instanceof HttpEntityEnclosingRequest
+        ? ((HttpEntityEnclosingRequest) request).getEntity() : null;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.cassette;
+
+import java.util.Locale;
+
+/**
+ * Mode of a {@link Cassette}.
+ */
+public enum CassetteMode {
+  // requests are sent and every exchange is written to the cassette
+  RECORD,
+  // requests are answered from the cassette without any network access
+  REPLAY;
+
+  /**
+   * Retrieve the mode of its configured name.
+   *
+   * @param mode One of "record", "replay"
+   * @return The mode
+   * @throws IllegalArgumentException If the mode is unknown
+   */
+  public static CassetteMode fromName(String mode) {
+    if (mode == null) {
+      throw new IllegalArgumentException("Missing cassette mode");
+    }
+
+    return valueOf(mode.toUpperCase(Locale.ROOT));
+  }
+}
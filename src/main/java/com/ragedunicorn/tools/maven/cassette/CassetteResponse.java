@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.cassette;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+
+/**
+ * Response replayed from a {@link Cassette}. The response is held in memory, closing it is a
+ * no-op.
+ */
+final class CassetteResponse extends BasicHttpResponse implements CloseableHttpResponse {
+  CassetteResponse(RecordedExchange exchange) {
+    super(HttpVersion.HTTP_1_1, exchange.getStatusCode(), exchange.getReasonPhrase());
+
+    if (exchange.getResponseHeaders() != null) {
+      for (RecordedHeader header : exchange.getResponseHeaders()) {
+        addHeader(header.getName(), header.getValue());
+      }
+    }
+
+    if (exchange.getResponseBody() != null) {
+      final ByteArrayEntity entity =
+          new ByteArrayEntity(exchange.getResponseBody().getBytes(StandardCharsets.UTF_8));
+      entity.setContentType(getFirstHeader(HttpHeaders.CONTENT_TYPE));
+      setEntity(entity);
+    }
+  }
+
+  @Override
+  public void close() {
+    // replayed responses hold no connection
+  }
+}
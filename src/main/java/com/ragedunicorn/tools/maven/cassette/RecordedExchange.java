@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.cassette;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A request and its response recorded in a {@link Cassette}. Request bodies are not recorded,
+ * only their length, because uploads would blow up the cassette with the uploaded files.
+ */
+public class RecordedExchange {
+  // http method of the request
+  private String method;
+
+  // path and query of the request
+  private String uri;
+
+  // headers of the request with secrets redacted
+  private List<RecordedHeader> requestHeaders;
+
+  // length of the request body or -1 if unknown
+  private long requestContentLength;
+
+  // http status code of the response
+  private int statusCode;
+
+  // reason phrase of the response
+  private String reasonPhrase;
+
+  // headers of the response with secrets redacted
+  private List<RecordedHeader> responseHeaders;
+
+  // body of the response or null if the response has no body
+  private String responseBody;
+
+  public String getMethod() {
+    return method;
+  }
+
+  public void setMethod(String method) {
+    this.method = method;
+  }
+
+  public String getUri() {
+    return uri;
+  }
+
+  public void setUri(String uri) {
+    this.uri = uri;
+  }
+
+  public List<RecordedHeader> getRequestHeaders() {
+    return requestHeaders;
+  }
+
+  public void setRequestHeaders(List<RecordedHeader> requestHeaders) {
+    this.requestHeaders = requestHeaders;
+  }
+
+  public long getRequestContentLength() {
+    return requestContentLength;
+  }
+
+  public void setRequestContentLength(long requestContentLength) {
+    this.requestContentLength = requestContentLength;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public void setStatusCode(int statusCode) {
+    this.statusCode = statusCode;
+  }
+
+  public String getReasonPhrase() {
+    return reasonPhrase;
+  }
+
+  public void setReasonPhrase(String reasonPhrase) {
+    this.reasonPhrase = reasonPhrase;
+  }
+
+  public List<RecordedHeader> getResponseHeaders() {
+    return responseHeaders;
+  }
+
+  public void setResponseHeaders(List<RecordedHeader> responseHeaders) {
+    this.responseHeaders = responseHeaders;
+  }
+
+  public String getResponseBody() {
+    return responseBody;
+  }
+
+  public void setResponseBody(String responseBody) {
+    this.responseBody = responseBody;
+  }
+
+  @Override
+  public String toString() {
+    return "RecordedExchange{"
+        + "method='" + method + '\''
+        + ", uri='" + uri + '\''
+        + ", requestHeaders=" + requestHeaders
+        + ", requestContentLength=" + requestContentLength
+        + ", statusCode=" + statusCode
+        + ", reasonPhrase='" + reasonPhrase + '\''
+        + ", responseHeaders=" + responseHeaders
+        + ", responseBody='" + responseBody + '\''
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    RecordedExchange that = (RecordedExchange) o;
+    return requestContentLength == that.requestContentLength
+        && statusCode == that.statusCode
+        && Objects.equals(method, that.method)
+        && Objects.equals(uri, that.uri)
+        && Objects.equals(requestHeaders, that.requestHeaders)
+        && Objects.equals(reasonPhrase, that.reasonPhrase)
+        && Objects.equals(responseHeaders, that.responseHeaders)
+        && Objects.equals(responseBody, that.responseBody);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(method, uri, requestHeaders, requestContentLength, statusCode,
+        reasonPhrase, responseHeaders, responseBody);
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.concurrent;
+
+import java.util.Objects;
+
+/**
+ * Tracks the executions of the plugin within a reactor build. Like deployAtEnd of the
+ * maven-deploy-plugin the executions the reactor is going to run are counted before the first
+ * execution starts. In a parallel reactor build (-T) the modules are released concurrently and the
+ * last module of the reactor is not necessarily the last one to finish. The execution that
+ * finishes last creates the deferred releases and releases the resources shared by all
+ * executions.
+ */
+public final class ExecutionTracker {
+  private static final ExecutionTracker INSTANCE = new ExecutionTracker();
+
+  private final Object lock = new Object();
+
+  // reactor build the executions belong to
+  private Object reactor;
+
+  private int expectedExecutions;
+
+  private int startedExecutions;
+
+  private int finishedExecutions;
+
+  private boolean failedExecutions;
+
+  private ExecutionTracker() {
+    // singleton
+  }
+
+  public static ExecutionTracker getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Register an execution that started. The first execution of another reactor build or of a
+   * reactor build whose executions all finished starts a new count.
+   *
+   * @param reactorBuild       Identifies the reactor build, e.g. the Maven execution request
+   * @param expectedExecutions The amount of executions the reactor build is going to run
+   * @return True if the execution is the first execution of a reactor build
+   */
+  public boolean start(Object reactorBuild, int expectedExecutions) {
+    synchronized (lock) {
+      final boolean first =
+          !Objects.equals(reactor, reactorBuild) || finishedExecutions >= this.expectedExecutions;
+
+      if (first) {
+        reactor = reactorBuild;
+        this.expectedExecutions = expectedExecutions;
+        startedExecutions = 0;
+        finishedExecutions = 0;
+        failedExecutions = false;
+      }
+
+      startedExecutions++;
+      // an execution that was not counted still has to finish before the end of the build
+      this.expectedExecutions = Math.max(this.expectedExecutions, startedExecutions);
+
+      return first;
+    }
+  }
+
+  /**
+   * Register an execution that finished.
+   *
+   * @param succeeded Whether the execution succeeded
+   * @return True if the execution was the last execution of the reactor build
+   */
+  public boolean finish(boolean succeeded) {
+    synchronized (lock) {
+      finishedExecutions++;
+      failedExecutions |= !succeeded;
+
+      return finishedExecutions >= expectedExecutions;
+    }
+  }
+
+  /**
+   * Retrieve the amount of executions of the reactor build that did not finish yet.
+   *
+   * @return The amount of executions that are in progress or did not start yet
+   */
+  public int getPendingExecutions() {
+    synchronized (lock) {
+      return Math.max(expectedExecutions - finishedExecutions, 0);
+    }
+  }
+
+  /**
+   * Check whether any finished execution of the reactor build failed.
+   *
+   * @return True if an execution failed
+   */
+  public boolean hasFailedExecutions() {
+    synchronized (lock) {
+      return failedExecutions;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Helpers for {@link CompletableFuture} that are missing in Java 8. Delayed tasks run on a single
+ * shared daemon thread and must therefore never block. Blocking stages of non-blocking operations
+ * run on a small separate pool.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public final class FutureUtils {
+  private static final ScheduledExecutorService SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("twitch-scheduler"));
+
+  // threads for blocking file I/O chained to futures of the non-blocking http client
+  private static final int BLOCKING_THREADS = 2;
+
+  private static final ExecutorService BLOCKING_EXECUTOR =
+      Executors.newFixedThreadPool(BLOCKING_THREADS, new DaemonThreadFactory("twitch-blocking"));
+
+  private FutureUtils() {
+    // utility class
+  }
+
+  /**
+   * Retrieve the executor for blocking stages of non-blocking operations such as hashing files or
+   * reading and writing caches. Such stages must neither run on the common pool nor on the I/O
+   * threads of the non-blocking http client.
+   *
+   * @return The shared executor for blocking tasks
+   */
+  public static Executor blockingExecutor() {
+    return BLOCKING_EXECUTOR;
+  }
+
+  /**
+   * Run a non-blocking task after a delay.
+   *
+   * @param task  The task to run
+   * @param delay The delay
+   * @param unit  The unit of the delay
+   * @return The scheduled task
+   */
+  public static ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+    return SCHEDULER.schedule(task, delay, unit);
+  }
+
+  /**
+   * Complete a future exceptionally with a {@link TimeoutException} if it is not completed
+   * within the given timeout.
+   *
+   * @param future  The future to observe
+   * @param timeout The timeout
+   * @param unit    The unit of the timeout
+   * @param <T>     The type of the result
+   * @return The passed future
+   */
+  public static <T> CompletableFuture<T> orTimeout(CompletableFuture<T> future, long timeout,
+      TimeUnit unit) {
+    final ScheduledFuture<?> timeoutTask = schedule(() -> future.completeExceptionally(
+        new TimeoutException("Operation timed out after " + timeout + " " + unit)), timeout, unit);
+    future.whenComplete((result, error) -> timeoutTask.cancel(false));
+
+    return future;
+  }
+}
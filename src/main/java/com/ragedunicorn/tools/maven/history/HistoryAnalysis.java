@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.history;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the latest releases of the {@link ReleaseHistory} with a rolling baseline of the
+ * releases before them. Medians are used so that a single slow release does not count as a
+ * regression. Slower transmissions point to the network, a longer server processing time to the
+ * Twitch Api and longer releases with a grown archive to the archive itself.
+ */
+public final class HistoryAnalysis {
+  // baselines with less successful releases are not compared
+  public static final int MIN_BASELINE_RELEASES = 3;
+
+  // changes of durations below this are considered noise
+  private static final long MIN_DURATION_CHANGE_MILLIS = 500;
+
+  private static final int PERCENT = 100;
+
+  private final Statistics recent;
+
+  private final Statistics baseline;
+
+  private final List<String> regressions = new ArrayList<>();
+
+  private HistoryAnalysis(Statistics recent, Statistics baseline) {
+    this.recent = recent;
+    this.baseline = baseline;
+  }
+
+  /**
+   * Analyze the latest records of the history.
+   *
+   * @param records          Records ordered from the oldest to the newest
+   * @param window           Amount of latest records compared with the baseline
+   * @param thresholdPercent Change in percent that is considered a regression
+   * @return The analysis
+   */
+  public static HistoryAnalysis analyze(List<ReleaseRecord> records, int window,
+      int thresholdPercent) {
+    if (window <= 0 || thresholdPercent <= 0) {
+      throw new IllegalArgumentException("window and thresholdPercent must be greater than zero");
+    }
+
+    final int split = Math.max(0, records.size() - window);
+    final HistoryAnalysis analysis = new HistoryAnalysis(
+        new Statistics(records.subList(split, records.size())),
+        new Statistics(records.subList(0, split)));
+
+    if (analysis.recent.getSuccessful() > 0
+        && analysis.baseline.getSuccessful() >= MIN_BASELINE_RELEASES) {
+      analysis.detectRegressions(thresholdPercent);
+    }
+
+    return analysis;
+  }
+
+  private void detectRegressions(int thresholdPercent) {
+    if (recent.getThroughput() * PERCENT
+        < baseline.getThroughput() * (PERCENT - thresholdPercent)) {
+      regressions.add("Throughput dropped from " + formatThroughput(baseline.getThroughput())
+          + " to " + formatThroughput(recent.getThroughput()));
+    }
+
+    if (isIncrease(baseline.getServerProcessingMillis(), recent.getServerProcessingMillis(),
+        thresholdPercent)) {
+      regressions.add("Twitch Api processing time grew from "
+          + baseline.getServerProcessingMillis() + "ms to " + recent.getServerProcessingMillis()
+          + "ms");
+    }
+
+    if (isIncrease(baseline.getDurationMillis(), recent.getDurationMillis(), thresholdPercent)) {
+      final boolean archiveGrew = recent.getFileLength() * PERCENT
+          > baseline.getFileLength() * (PERCENT + thresholdPercent);
+
+      regressions.add("Release duration grew from " + baseline.getDurationMillis() + "ms to "
+          + recent.getDurationMillis() + "ms" + (archiveGrew ? " - archive grew from "
+          + formatBytes(baseline.getFileLength()) + " to " + formatBytes(recent.getFileLength())
+          : ""));
+    }
+
+    if (recent.getFailurePercent() > baseline.getFailurePercent() + thresholdPercent) {
+      regressions.add("Failure rate rose from " + baseline.getFailurePercent() + "% to "
+          + recent.getFailurePercent() + "%");
+    }
+  }
+
+  private static boolean isIncrease(long baselineMillis, long recentMillis,
+      int thresholdPercent) {
+    return recentMillis - baselineMillis >= MIN_DURATION_CHANGE_MILLIS
+        && recentMillis * PERCENT > baselineMillis * (PERCENT + thresholdPercent);
+  }
+
+  public Statistics getRecent() {
+    return recent;
+  }
+
+  public Statistics getBaseline() {
+    return baseline;
+  }
+
+  public List<String> getRegressions() {
+    return Collections.unmodifiableList(regressions);
+  }
+
+  public boolean isRegressed() {
+    return !regressions.isEmpty();
+  }
+
+  /**
+   * Format a throughput for humans.
+   *
+   * @param bytesPerSecond The throughput in bytes per second
+   * @return The formatted throughput
+   */
+  public static String formatThroughput(long bytesPerSecond) {
+    return formatBytes(bytesPerSecond) + "/s";
+  }
+
+  /**
+   * Format an amount of bytes for humans.
+   *
+   * @param bytes The amount of bytes
+   * @return The formatted amount
+   */
+  public static String formatBytes(long bytes) {
+    if (bytes < 1024) {
+      return bytes + " B";
+    }
+
+    if (bytes < 1024 * 1024) {
+      return String.format("%.1f KB", bytes / 1024.0);
+    }
+
+    return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+  }
+
+  /**
+   * Medians of a range of releases. Durations and throughput only consider successful releases.
+   */
+  public static final class Statistics {
+    private final int releases;
+
+    private final int successful;
+
+    private final long throughput;
+
+    private final long durationMillis;
+
+    private final long serverProcessingMillis;
+
+    private final long fileLength;
+
+    private final double averageAttempts;
+
+    Statistics(List<ReleaseRecord> records) {
+      final List<ReleaseRecord> successfulRecords = records.stream()
+          .filter(ReleaseRecord::isSuccessful)
+          .collect(Collectors.toList());
+
+      this.releases = records.size();
+      this.successful = successfulRecords.size();
+      this.throughput = median(successfulRecords, ReleaseRecord::getThroughput);
+      this.durationMillis = median(successfulRecords, ReleaseRecord::getDurationMillis);
+      this.serverProcessingMillis =
+          median(successfulRecords, ReleaseRecord::getServerProcessingMillis);
+      this.fileLength = median(successfulRecords, ReleaseRecord::getFileLength);
+      this.averageAttempts = records.stream()
+          .mapToInt(ReleaseRecord::getAttempts)
+          .average()
+          .orElse(0);
+    }
+
+    public int getReleases() {
+      return releases;
+    }
+
+    public int getSuccessful() {
+      return successful;
+    }
+
+    public int getFailurePercent() {
+      return releases == 0 ? 0 : (releases - successful) * PERCENT / releases;
+    }
+
+    public long getThroughput() {
+      return throughput;
+    }
+
+    public long getDurationMillis() {
+      return durationMillis;
+    }
+
+    public long getServerProcessingMillis() {
+      return serverProcessingMillis;
+    }
+
+    public long getFileLength() {
+      return fileLength;
+    }
+
+    public double getAverageAttempts() {
+      return averageAttempts;
+    }
+
+    private static long median(List<ReleaseRecord> records, ToLongFunction<ReleaseRecord> value) {
+      final long[] values = records.stream().mapToLong(value).sorted().toArray();
+
+      if (values.length == 0) {
+        return 0;
+      }
+
+      final int middle = values.length / 2;
+
+      return values.length % 2 == 0 ? (values[middle - 1] + values[middle]) / 2 : values[middle];
+    }
+  }
+}
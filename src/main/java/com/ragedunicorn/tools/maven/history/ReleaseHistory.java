@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.history;
+
+import com.ragedunicorn.tools.maven.http.UploadResponse;
+import com.ragedunicorn.tools.maven.timing.UploadTiming;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only history of the performance of release operations. Every release is stored as a
+ * fixed-size binary record at the end of a single file. Appending writes a single record and
+ * reading the latest records seeks directly to them, both independent of the length of the
+ * history. Appends are guarded by a file lock to support concurrent builds on the same machine.
+ * A record that was only partially written, e.g. because the build was killed, is discarded by
+ * the next append.
+ */
+public class ReleaseHistory {
+  // "TRH" followed by the version of the record format
+  static final int MAGIC = 0x54524801;
+  static final int HEADER_SIZE = 4;
+  static final int RECORD_SIZE = 5 * Long.BYTES + 2 * Integer.BYTES;
+
+  // file locks are held by the whole JVM and cannot be acquired twice by the same JVM
+  private static final Object JVM_LOCK = new Object();
+
+  private final Path file;
+
+  public ReleaseHistory(Path file) {
+    this.file = file;
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Append the result of a release operation.
+   *
+   * @param fileLength    Length of the uploaded file in bytes
+   * @param response      The final response or null if no response was received
+   * @param durationNanos Duration of the whole release operation
+   * @throws IOException If the history cannot be written
+   */
+  public void append(long fileLength, UploadResponse response, long durationNanos)
+      throws IOException {
+    final ReleaseRecord record = new ReleaseRecord();
+    record.setCreatedAt(System.currentTimeMillis());
+    record.setFileLength(fileLength);
+    record.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+
+    if (response != null) {
+      record.setStatusCode(response.getStatusCode());
+      record.setAttempts(response.getAttempts());
+    }
+
+    if (response != null && response.getTiming() != null) {
+      final UploadTiming timing = response.getTiming();
+      record.setUploadMillis(timing.getUploadMillis());
+      record.setServerProcessingMillis(timing.getServerProcessingMillis());
+    }
+
+    append(record);
+  }
+
+  /**
+   * Append a record to the history.
+   *
+   * @param record The record to append
+   * @throws IOException If the history cannot be written
+   */
+  public void append(ReleaseRecord record) throws IOException {
+    final Path parent = file.toAbsolutePath().getParent();
+
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+
+    final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + RECORD_SIZE);
+
+    synchronized (JVM_LOCK) {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        final FileLock lock = channel.lock();
+
+        try {
+          final long size = channel.size();
+
+          if (size < HEADER_SIZE) {
+            buffer.putInt(MAGIC);
+          } else {
+            checkHeader(channel);
+          }
+
+          encode(record, buffer);
+          buffer.flip();
+
+          // a partially written record at the end is overwritten
+          long position = size < HEADER_SIZE
+              ? 0 : size - (size - HEADER_SIZE) % RECORD_SIZE;
+          channel.truncate(position);
+
+          while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+          }
+        } finally {
+          lock.release();
+        }
+      }
+    }
+  }
+
+  /**
+   * Retrieve the amount of records in the history.
+   *
+   * @return The amount of complete records
+   * @throws IOException If the history cannot be read
+   */
+  public long size() throws IOException {
+    try {
+      return Math.max(0, (Files.size(file) - HEADER_SIZE) / RECORD_SIZE);
+    } catch (NoSuchFileException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Read the latest records of the history.
+   *
+   * @param count Maximum amount of records to read
+   * @return The latest records ordered from the oldest to the newest
+   * @throws IOException If the history cannot be read or has an unknown format
+   */
+  public List<ReleaseRecord> readLatest(int count) throws IOException {
+    final List<ReleaseRecord> records = new ArrayList<>();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+
+      if (size < HEADER_SIZE || count <= 0) {
+        return records;
+      }
+
+      checkHeader(channel);
+
+      final long available = (size - HEADER_SIZE) / RECORD_SIZE;
+      final int read = (int) Math.min(count, available);
+      final ByteBuffer buffer = ByteBuffer.allocate(read * RECORD_SIZE);
+      long position = HEADER_SIZE + (available - read) * RECORD_SIZE;
+
+      while (buffer.hasRemaining()) {
+        final int bytes = channel.read(buffer, position);
+
+        if (bytes < 0) {
+          throw new IOException("Unexpected end of release history " + file);
+        }
+
+        position += bytes;
+      }
+
+      buffer.flip();
+
+      for (int i = 0; i < read; i++) {
+        records.add(decode(buffer));
+      }
+    } catch (NoSuchFileException e) {
+      return records;
+    }
+
+    return records;
+  }
+
+  private void checkHeader(FileChannel channel) throws IOException {
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+    while (header.hasRemaining()) {
+      if (channel.read(header, header.position()) < 0) {
+        throw new IOException("Unexpected end of release history " + file);
+      }
+    }
+
+    if (header.getInt(0) != MAGIC) {
+      throw new IOException("Unknown format of release history " + file);
+    }
+  }
+
+  private static void encode(ReleaseRecord record, ByteBuffer buffer) {
+    buffer.putLong(record.getCreatedAt());
+    buffer.putLong(record.getFileLength());
+    buffer.putLong(record.getDurationMillis());
+    buffer.putLong(record.getUploadMillis());
+    buffer.putLong(record.getServerProcessingMillis());
+    buffer.putInt(record.getAttempts());
+    buffer.putInt(record.getStatusCode());
+  }
+
+  private static ReleaseRecord decode(ByteBuffer buffer) {
+    final ReleaseRecord record = new ReleaseRecord();
+    record.setCreatedAt(buffer.getLong());
+    record.setFileLength(buffer.getLong());
+    record.setDurationMillis(buffer.getLong());
+    record.setUploadMillis(buffer.getLong());
+    record.setServerProcessingMillis(buffer.getLong());
+    record.setAttempts(buffer.getInt());
+    record.setStatusCode(buffer.getInt());
+
+    return record;
+  }
+}
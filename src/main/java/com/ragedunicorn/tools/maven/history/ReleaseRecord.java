@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.history;
+
+import java.util.Objects;
+
+/**
+ * Performance of a single release operation as stored in the {@link ReleaseHistory}.
+ */
+public class ReleaseRecord {
+  // epoch millis the release was created
+  private long createdAt;
+
+  // length of the uploaded file in bytes
+  private long fileLength;
+
+  // duration of the whole release operation including all attempts
+  private long durationMillis;
+
+  // duration of the transmission of the file of the last attempt
+  private long uploadMillis;
+
+  // time the server took to respond after the file was transmitted
+  private long serverProcessingMillis;
+
+  private int attempts;
+
+  // http status code of the final response, 0 if no response was received
+  private int statusCode;
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(long createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public long getFileLength() {
+    return fileLength;
+  }
+
+  public void setFileLength(long fileLength) {
+    this.fileLength = fileLength;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  public void setDurationMillis(long durationMillis) {
+    this.durationMillis = durationMillis;
+  }
+
+  public long getUploadMillis() {
+    return uploadMillis;
+  }
+
+  public void setUploadMillis(long uploadMillis) {
+    this.uploadMillis = uploadMillis;
+  }
+
+  public long getServerProcessingMillis() {
+    return serverProcessingMillis;
+  }
+
+  public void setServerProcessingMillis(long serverProcessingMillis) {
+    this.serverProcessingMillis = serverProcessingMillis;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(int attempts) {
+    this.attempts = attempts;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public void setStatusCode(int statusCode) {
+    this.statusCode = statusCode;
+  }
+
+  /**
+   * Whether the release was created.
+   *
+   * @return True if Twitch responded with a 2xx status code
+   */
+  public boolean isSuccessful() {
+    return statusCode >= 200 && statusCode < 300;
+  }
+
+  /**
+   * Calculate the throughput of the transmission of the file.
+   *
+   * @return The throughput in bytes per second or 0 if the transmission was not measured
+   */
+  public long getThroughput() {
+    return uploadMillis <= 0 ? 0 : fileLength * 1000 / uploadMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "ReleaseRecord{"
+        + "createdAt=" + createdAt
+        + ", fileLength=" + fileLength
+        + ", durationMillis=" + durationMillis
+        + ", uploadMillis=" + uploadMillis
+        + ", serverProcessingMillis=" + serverProcessingMillis
+        + ", attempts=" + attempts
+        + ", statusCode=" + statusCode
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ReleaseRecord that = (ReleaseRecord) o;
+    return createdAt == that.createdAt
+        && fileLength == that.fileLength
+        && durationMillis == that.durationMillis
+        && uploadMillis == that.uploadMillis
+        && serverProcessingMillis == that.serverProcessingMillis
+        && attempts == that.attempts
+        && statusCode == that.statusCode;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(createdAt, fileLength, durationMillis, uploadMillis,
+        serverProcessingMillis, attempts, statusCode);
+  }
+}
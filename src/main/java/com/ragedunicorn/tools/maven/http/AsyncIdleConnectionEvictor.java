@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.concurrent.DaemonThreadFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+
+/**
+ * Periodically closes expired and idle connections of a non-blocking connection pool. The
+ * {@link org.apache.http.impl.client.IdleConnectionEvictor} of the http client only supports
+ * blocking connection managers.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class AsyncIdleConnectionEvictor {
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("twitch-evictor"));
+
+  private final NHttpClientConnectionManager connectionManager;
+
+  private final long evictionIntervalMillis;
+
+  private final long maxIdleMillis;
+
+  /**
+   * Create an evictor. The evictor has to be started before it evicts any connection.
+   *
+   * @param connectionManager      The pool to evict connections from
+   * @param evictionIntervalMillis Interval in which expired and idle connections are closed
+   * @param maxIdleMillis          Connections idle for longer than this are closed
+   */
+  AsyncIdleConnectionEvictor(NHttpClientConnectionManager connectionManager,
+      long evictionIntervalMillis, long maxIdleMillis) {
+    this.connectionManager = connectionManager;
+    this.evictionIntervalMillis = evictionIntervalMillis;
+    this.maxIdleMillis = maxIdleMillis;
+  }
+
+  void start() {
+    scheduler.scheduleWithFixedDelay(() -> {
+      connectionManager.closeExpiredConnections();
+      connectionManager.closeIdleConnections(maxIdleMillis, TimeUnit.MILLISECONDS);
+    }, evictionIntervalMillis, evictionIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  void shutdown() {
+    scheduler.shutdownNow();
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.concurrent.FutureUtils;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.nio.IOControl;
+
+/**
+ * Token bucket limiting the bandwidth of all uploads within the JVM. Every upload acquires the
+ * bytes it is about to hand over to the connection. The bucket holds the bytes of one second and
+ * may be overdrawn by a single large request, which is paid back by the following requests. If
+ * priorities are enabled an upload only receives bandwidth as long as no upload of a higher
+ * priority requested bandwidth recently. The throttle is disabled until a limit is configured.
+ */
+public final class BandwidthThrottle {
+  // a priority is considered active while it requested bandwidth within this window
+  private static final long DEMAND_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  // waiting uploads check again at least this often
+  private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private static final BandwidthThrottle INSTANCE = new BandwidthThrottle();
+
+  private final Object lock = new Object();
+
+  private final long[] demandNanos = new long[UploadPriority.values().length];
+
+  // zero if the bandwidth is not limited
+  private long bytesPerSecond;
+
+  private boolean prioritized;
+
+  private double tokens;
+
+  private long refillNanos;
+
+  private BandwidthThrottle() {
+    // singleton
+  }
+
+  public static BandwidthThrottle getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Configure the bandwidth limit.
+   *
+   * @param bytesPerSecond Maximum bytes per second of all uploads. Zero disables the limit
+   * @param prioritized    Whether uploads of a higher priority receive bandwidth first
+   */
+  public void configure(long bytesPerSecond, boolean prioritized) {
+    if (bytesPerSecond < 0) {
+      throw new IllegalArgumentException("bytesPerSecond must not be negative");
+    }
+
+    synchronized (lock) {
+      // modules of a parallel build configure the throttle while others are uploading
+      if (this.bytesPerSecond == bytesPerSecond && this.prioritized == prioritized) {
+        return;
+      }
+
+      this.bytesPerSecond = bytesPerSecond;
+      this.prioritized = prioritized;
+      this.tokens = bytesPerSecond;
+      this.refillNanos = System.nanoTime();
+    }
+  }
+
+  /**
+   * Check whether the bandwidth is limited.
+   *
+   * @return True if a bandwidth limit is configured
+   */
+  public boolean isEnabled() {
+    synchronized (lock) {
+      return bytesPerSecond > 0;
+    }
+  }
+
+  /**
+   * Wait until the bytes may be transmitted.
+   *
+   * @param bytes    Amount of bytes that are about to be transmitted
+   * @param priority The priority of the upload
+   * @throws InterruptedIOException If the thread was interrupted while waiting
+   */
+  public void acquire(long bytes, UploadPriority priority) throws InterruptedIOException {
+    long waitNanos = tryAcquire(bytes, priority);
+
+    while (waitNanos > 0) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(Math.min(waitNanos, MAX_WAIT_NANOS));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        final InterruptedIOException exception =
+            new InterruptedIOException("Interrupted while waiting for upload bandwidth");
+        exception.initCause(e);
+
+        throw exception;
+      }
+
+      waitNanos = tryAcquire(bytes, priority);
+    }
+  }
+
+  /**
+   * Acquire the bytes if they may be transmitted now. Never blocks which allows non-blocking
+   * uploads to suspend their output instead.
+   *
+   * @param bytes    Amount of bytes that are about to be transmitted
+   * @param priority The priority of the upload
+   * @return Zero if the bytes were acquired, otherwise nanoseconds to wait before trying again
+   */
+  public long tryAcquire(long bytes, UploadPriority priority) {
+    synchronized (lock) {
+      if (bytesPerSecond <= 0) {
+        return 0;
+      }
+
+      final long now = System.nanoTime();
+      demandNanos[priority.ordinal()] = now;
+
+      if (prioritized && hasHigherPriorityDemand(priority, now)) {
+        return MAX_WAIT_NANOS;
+      }
+
+      tokens = Math.min(bytesPerSecond,
+          tokens + (now - refillNanos) * (double) bytesPerSecond / TimeUnit.SECONDS.toNanos(1));
+      refillNanos = now;
+
+      // requests larger than the bucket overdraw it once it is full
+      final double required = Math.min(bytes, bytesPerSecond);
+
+      if (tokens >= required) {
+        tokens -= bytes;
+        return 0;
+      }
+
+      return Math.max(1, (long) ((required - tokens) * TimeUnit.SECONDS.toNanos(1)
+          / bytesPerSecond));
+    }
+  }
+
+  /**
+   * Acquire the bytes for a non-blocking connection. Without bandwidth the output of the
+   * connection is suspended and requested again once bandwidth is expected to be available.
+   *
+   * @param bytes     Amount of bytes that are about to be transmitted
+   * @param priority  The priority of the upload
+   * @param ioControl Control of the connection
+   * @return True if the bytes were acquired and may be transmitted now
+   */
+  public boolean tryAcquire(long bytes, UploadPriority priority, IOControl ioControl) {
+    final long waitNanos = tryAcquire(bytes, priority);
+
+    if (waitNanos == 0) {
+      return true;
+    }
+
+    ioControl.suspendOutput();
+    FutureUtils.schedule(ioControl::requestOutput, waitNanos, TimeUnit.NANOSECONDS);
+
+    return false;
+  }
+
+  /**
+   * Return bytes that were acquired but not transmitted.
+   *
+   * @param bytes Amount of bytes that were not transmitted
+   */
+  public void release(long bytes) {
+    synchronized (lock) {
+      if (bytesPerSecond > 0) {
+        tokens = Math.min(bytesPerSecond, tokens + bytes);
+      }
+    }
+  }
+
+  private boolean hasHigherPriorityDemand(UploadPriority priority, long now) {
+    for (int i = priority.ordinal() + 1; i < demandNanos.length; i++) {
+      if (demandNanos[i] != 0 && now - demandNanos[i] < DEMAND_WINDOW_NANOS) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.cache.DigestUtils;
+import com.ragedunicorn.tools.maven.model.FileChecksums;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+/**
+ * Multipart body that transmits a file in chunks. Every chunk is flushed to the connection and
+ * confirmed in the attached {@link UploadProgress}. Every chunk acquires its bandwidth from the
+ * {@link BandwidthThrottle} before it is written. The file is read with positional reads from a
+ * {@link FileChannel} into a single buffer that is reused for every chunk and every
+ * retransmission of the body. The SHA-256 and MD5 checksums of the file are calculated from the
+ * transmitted chunks.
+ */
+public class ChunkedFileBody extends AbstractContentBody {
+  private final File file;
+
+  private final String filename;
+
+  private final int chunkSize;
+
+  private final UploadProgress progress;
+
+  private final UploadPriority priority;
+
+  // allocated on first transmission and reused by retransmissions
+  private ByteBuffer chunk;
+
+  private final MessageDigest sha256Digest = DigestUtils.createMessageDigest(DigestUtils.SHA_256);
+
+  private final MessageDigest md5Digest = DigestUtils.createMessageDigest(DigestUtils.MD5);
+
+  // checksums of the last complete transmission
+  private FileChecksums checksums;
+
+  /**
+   * Create a chunked file body.
+   *
+   * @param file        The file to transmit
+   * @param contentType The content type of the file
+   * @param filename    The filename that is reported to the server
+   * @param chunkSize   Size of a single chunk in bytes
+   * @param progress    Progress that is updated after every transmitted chunk
+   */
+  public ChunkedFileBody(File file, ContentType contentType, String filename, int chunkSize,
+      UploadProgress progress) {
+    this(file, contentType, filename, chunkSize, progress, UploadPriority.RELEASE);
+  }
+
+  /**
+   * Create a chunked file body.
+   *
+   * @param file        The file to transmit
+   * @param contentType The content type of the file
+   * @param filename    The filename that is reported to the server
+   * @param chunkSize   Size of a single chunk in bytes
+   * @param progress    Progress that is updated after every transmitted chunk
+   * @param priority    Priority of the upload if the bandwidth is limited
+   */
+  public ChunkedFileBody(File file, ContentType contentType, String filename, int chunkSize,
+      UploadProgress progress, UploadPriority priority) {
+    super(contentType);
+
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be greater than zero");
+    }
+
+    this.file = file;
+    this.filename = filename;
+    this.chunkSize = chunkSize;
+    this.progress = progress;
+    this.priority = priority;
+  }
+
+  @Override
+  public String getFilename() {
+    return filename;
+  }
+
+  /**
+   * Retrieve the checksums of the transmitted bytes. The checksums are calculated while the file
+   * is transmitted and never require reading the file again.
+   *
+   * @return The checksums of the last complete transmission or null if the file was not
+   *         completely transmitted yet
+   */
+  public FileChecksums getChecksums() {
+    return checksums;
+  }
+
+  @Override
+  public void writeTo(OutputStream outputStream) throws IOException {
+    progress.start();
+    checksums = null;
+    sha256Digest.reset();
+    md5Digest.reset();
+
+    final long length = getContentLength();
+
+    if (chunk == null) {
+      chunk = ByteBuffer.allocate((int) Math.max(1, Math.min(chunkSize, length)));
+    }
+
+    final BandwidthThrottle throttle = BandwidthThrottle.getInstance();
+
+    try (FileChannel fileChannel = openFile()) {
+      long position = 0;
+
+      while (position < length) {
+        final int read = readChunk(fileChannel, position);
+        acquire(throttle, read);
+        outputStream.write(chunk.array(), 0, read);
+        outputStream.flush();
+        progress.confirm(read);
+        digest(read);
+        position += read;
+      }
+    }
+
+    completeChecksums();
+  }
+
+  private void acquire(BandwidthThrottle throttle, int bytes) throws IOException {
+    progress.setThrottled(true);
+
+    try {
+      throttle.acquire(bytes, priority);
+    } finally {
+      progress.setThrottled(false);
+    }
+  }
+
+  private FileChannel openFile() throws FileReadException {
+    try {
+      return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    } catch (IOException e) {
+      throw new FileReadException("Failed to open " + file, e);
+    }
+  }
+
+  private void digest(int length) {
+    sha256Digest.update(chunk.array(), 0, length);
+    md5Digest.update(chunk.array(), 0, length);
+  }
+
+  private void completeChecksums() {
+    final FileChecksums fileChecksums = new FileChecksums();
+    fileChecksums.setSha256(DigestUtils.toHex(sha256Digest.digest()));
+    fileChecksums.setMd5(DigestUtils.toHex(md5Digest.digest()));
+    fileChecksums.setLength(progress.getConfirmedBytes());
+    checksums = fileChecksums;
+  }
+
+  /**
+   * Read until the chunk is full or the end of the file is reached.
+   *
+   * @param fileChannel The channel to read from
+   * @param position    The position in the file to start reading at
+   * @return Amount of bytes read into the chunk
+   * @throws FileReadException If reading from the file failed
+   */
+  private int readChunk(FileChannel fileChannel, long position) throws FileReadException {
+    chunk.clear();
+
+    try {
+      while (chunk.hasRemaining()) {
+        if (fileChannel.read(chunk, position + chunk.position()) < 0) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      throw new FileReadException("Failed to read " + file, e);
+    }
+
+    if (chunk.position() == 0) {
+      throw new FileReadException("Unexpected end of file " + file);
+    }
+
+    return chunk.position();
+  }
+
+  @Override
+  public String getTransferEncoding() {
+    return MIME.ENC_BINARY;
+  }
+
+  @Override
+  public long getContentLength() {
+    return file.length();
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.ManagedNHttpClientConnection;
+import org.apache.http.nio.conn.NHttpConnectionFactory;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.nio.reactor.IOReactorException;
+
+/**
+ * Creates the blocking and the non-blocking connection pools of the {@link HttpClientRegistry}.
+ * Both pools create TLS connections from the system properties and count every physical
+ * connection they open.
+ */
+final class ConnectionPoolUtils {
+  private ConnectionPoolUtils() {
+    // utility class
+  }
+
+  /**
+   * Create the pool of the blocking http clients.
+   *
+   * @param openedConnectionCount Incremented for every connection the pool opens
+   * @return The connection manager of the pool
+   */
+  static PoolingHttpClientConnectionManager createConnectionManager(
+      AtomicLong openedConnectionCount) {
+    // count every physical connection to calculate how many requests reused a connection
+    HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory;
+    connectionFactory = (route, config) -> {
+      openedConnectionCount.incrementAndGet();
+      return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+    };
+
+    final Registry<ConnectionSocketFactory> socketFactories =
+        RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+            .build();
+
+    return new PoolingHttpClientConnectionManager(socketFactories, connectionFactory);
+  }
+
+  /**
+   * Create the pool of the non-blocking http client including its I/O reactor.
+   *
+   * @param ioThreads             The amount of I/O threads of the reactor
+   * @param openedConnectionCount Incremented for every connection the pool opens
+   * @return The connection manager of the pool
+   */
+  static PoolingNHttpClientConnectionManager createAsyncConnectionManager(int ioThreads,
+      AtomicLong openedConnectionCount) {
+    ConnectingIOReactor ioReactor;
+
+    try {
+      ioReactor = new DefaultConnectingIOReactor(IOReactorConfig.custom()
+          .setIoThreadCount(ioThreads)
+          .build());
+    } catch (IOReactorException e) {
+      throw new IllegalStateException("Failed to create I/O reactor", e);
+    }
+
+    final Registry<SchemeIOSessionStrategy> sessionStrategies =
+        RegistryBuilder.<SchemeIOSessionStrategy>create()
+            .register("http", NoopIOSessionStrategy.INSTANCE)
+            .register("https", SSLIOSessionStrategy.getSystemDefaultStrategy())
+            .build();
+
+    // count every physical connection to calculate how many requests reused a connection
+    NHttpConnectionFactory<ManagedNHttpClientConnection> connectionFactory;
+    connectionFactory = (session, config) -> {
+      openedConnectionCount.incrementAndGet();
+      return ManagedNHttpClientConnectionFactory.INSTANCE.create(session, config);
+    };
+
+    return new PoolingNHttpClientConnectionManager(ioReactor, connectionFactory,
+        sessionStrategies);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.util.Locale;
+import java.util.Objects;
+
+public class ConnectionStatistics {
+  private final long requests;
+
+  private final long openedConnections;
+
+  public ConnectionStatistics(long requests, long openedConnections) {
+    this.requests = requests;
+    this.openedConnections = openedConnections;
+  }
+
+  public long getRequests() {
+    return requests;
+  }
+
+  public long getOpenedConnections() {
+    return openedConnections;
+  }
+
+  /**
+   * Amount of requests that were served by an already established connection.
+   *
+   * @return The amount of reused connections
+   */
+  public long getReusedConnections() {
+    return Math.max(0, requests - openedConnections);
+  }
+
+  /**
+   * Ratio of requests that were served by an already established connection.
+   *
+   * @return The reuse ratio between 0 and 1
+   */
+  public double getReuseRatio() {
+    return requests == 0 ? 0 : (double) getReusedConnections() / requests;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(Locale.ROOT,
+        "ConnectionStatistics{requests=%d, openedConnections=%d, reusedConnections=%d, "
+            + "reuseRatio=%.2f}",
+        requests, openedConnections, getReusedConnections(), getReuseRatio());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ConnectionStatistics that = (ConnectionStatistics) o;
+    return requests == that.requests
+        && openedConnections == that.openedConnections;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(requests, openedConnections);
+  }
+}
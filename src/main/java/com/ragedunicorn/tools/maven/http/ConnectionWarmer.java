@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.concurrent.DaemonThreadFactory;
+import java.io.IOException;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
+import org.apache.http.message.BasicHttpRequest;
+
+/**
+ * Opens connections of a connection pool in the background. The connections are established,
+ * including the TLS handshake, while the release is still being prepared and are returned to the
+ * pool so that the upload can start sending its body right away. Warming up is best effort, a
+ * connection that cannot be opened is simply opened again by the request that needs it.
+ */
+public class ConnectionWarmer {
+  public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10_000;
+
+  // a warmed connection is kept in the pool for as long as a server without keep-alive allows
+  private static final long KEEP_ALIVE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  private final HttpClientConnectionManager connectionManager;
+
+  private final int connectTimeoutMillis;
+
+  public ConnectionWarmer(HttpClientConnectionManager connectionManager) {
+    this(connectionManager, DEFAULT_CONNECT_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Create a connection warmer.
+   *
+   * @param connectionManager    The connection manager whose pool is warmed up
+   * @param connectTimeoutMillis Maximum time for leasing and opening a connection
+   */
+  public ConnectionWarmer(HttpClientConnectionManager connectionManager,
+      int connectTimeoutMillis) {
+    if (connectTimeoutMillis <= 0) {
+      throw new IllegalArgumentException("connectTimeoutMillis must be greater than zero");
+    }
+
+    this.connectionManager = connectionManager;
+    this.connectTimeoutMillis = connectTimeoutMillis;
+  }
+
+  /**
+   * Open connections to the host of an uri in the background. The route is determined the same
+   * way as by the http clients using the pool. Routes through a proxy are not warmed up because
+   * tunnelling requires a request.
+   *
+   * @param uri         An uri of the host to connect to
+   * @param connections Amount of connections to open concurrently
+   * @return A future that is completed with the amount of connections that are ready in the pool
+   */
+  public CompletableFuture<Integer> warmUp(URI uri, int connections) {
+    final HttpRoute route = determineRoute(uri);
+
+    if (route == null || route.getProxyHost() != null || connections <= 0) {
+      return CompletableFuture.completedFuture(0);
+    }
+
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(connections, new DaemonThreadFactory("twitch-warm-up"));
+    final List<CompletableFuture<Boolean>> opened = new ArrayList<>();
+    // connections are only returned once all are opened, otherwise they would be leased twice
+    final CountDownLatch allOpened = new CountDownLatch(connections);
+
+    for (int i = 0; i < connections; i++) {
+      opened.add(CompletableFuture.supplyAsync(() -> open(route, allOpened), executor));
+    }
+
+    // the threads terminate once all connections are opened
+    executor.shutdown();
+
+    return CompletableFuture.allOf(opened.toArray(new CompletableFuture<?>[0]))
+        .thenApply(ignored -> (int) opened.stream().filter(CompletableFuture::join).count());
+  }
+
+  /**
+   * Determine the route of the requests to an uri.
+   *
+   * @param uri The uri
+   * @return The route or null if the route cannot be determined
+   */
+  private static HttpRoute determineRoute(URI uri) {
+    final HttpHost target = URIUtils.extractHost(uri);
+
+    if (target == null) {
+      return null;
+    }
+
+    try {
+      return new SystemDefaultRoutePlanner(DefaultSchemePortResolver.INSTANCE,
+          ProxySelector.getDefault()).determineRoute(target,
+          new BasicHttpRequest("POST", uri.toString()), HttpClientContext.create());
+    } catch (HttpException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Lease a connection of the route, open it if it is not yet open and return it to the pool.
+   *
+   * @param route     The route to open the connection for
+   * @param allOpened Latch counted down once the connection is opened
+   * @return True if an open connection was returned to the pool
+   */
+  private boolean open(HttpRoute route, CountDownLatch allOpened) {
+    final ConnectionRequest request = connectionManager.requestConnection(route, null);
+    HttpClientConnection connection = null;
+    boolean reusable = false;
+
+    try {
+      connection = request.get(connectTimeoutMillis, TimeUnit.MILLISECONDS);
+
+      if (!connection.isOpen()) {
+        final HttpClientContext context = HttpClientContext.create();
+        connectionManager.connect(connection, route, connectTimeoutMillis, context);
+        connectionManager.routeComplete(connection, route, context);
+      }
+
+      reusable = true;
+    } catch (IOException | ExecutionException e) {
+      // the request opens the connection itself
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      allOpened.countDown();
+      awaitQuietly(allOpened);
+
+      if (connection != null) {
+        release(connection, reusable);
+      }
+    }
+
+    return reusable;
+  }
+
+  private void awaitQuietly(CountDownLatch allOpened) {
+    try {
+      allOpened.await(connectTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void release(HttpClientConnection connection, boolean reusable) {
+    if (!reusable) {
+      try {
+        connection.shutdown();
+      } catch (IOException e) {
+        // the connection is discarded anyway
+      }
+    }
+
+    connectionManager.releaseConnection(connection, null, KEEP_ALIVE_MILLIS,
+        TimeUnit.MILLISECONDS);
+  }
+}
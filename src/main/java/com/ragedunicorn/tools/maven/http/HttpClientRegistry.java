@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+
+/**
+ * Holds a pooled connection manager and a non-blocking http client that are shared by all
+ * executions of the plugin within the same Maven session. The plugin classloader is reused for
+ * every module of a reactor build which allows connections to the Twitch Api to be kept alive
+ * between modules. Both pools create TLS connections from the system properties such as
+ * {@code javax.net.ssl.trustStore} and {@code https.protocols}.
+ */
+public final class HttpClientRegistry {
+  public static final int DEFAULT_MAX_CONNECTIONS = 20;
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 5;
+
+  // keep-alive duration used when the server does not send a keep-alive header
+  private static final long DEFAULT_KEEP_ALIVE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+  // connections idle for longer than this are evicted from the pool
+  private static final long MAX_IDLE_MILLIS = TimeUnit.SECONDS.toMillis(60);
+  // interval in which the evictor checks for expired and idle connections
+  private static final long EVICTION_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+  // I/O threads of the non-blocking client shared by all uploads in flight
+  private static final int ASYNC_IO_THREADS = 2;
+  // connections idle for longer than this are validated before they are leased again
+  private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+  private static final HttpClientRegistry INSTANCE = new HttpClientRegistry();
+
+  private final Object lock = new Object();
+
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong openedConnectionCount = new AtomicLong();
+
+  private PoolingHttpClientConnectionManager connectionManager;
+  private IdleConnectionEvictor connectionEvictor;
+  private CloseableHttpAsyncClient asyncHttpClient;
+  private PoolingNHttpClientConnectionManager asyncConnectionManager;
+  private AsyncIdleConnectionEvictor asyncConnectionEvictor;
+
+  // default timeouts of requests that do not set their own
+  private TimeoutPolicy timeoutPolicy = new TimeoutPolicy();
+
+  // connection limits applied to both the blocking and the non-blocking pool
+  private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+  private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+
+  private HttpClientRegistry() {
+    // singleton
+  }
+
+  public static HttpClientRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Retrieve the shared connection manager. The manager is lazily created on first access and
+   * recreated after the registry was shut down.
+   *
+   * @return The shared connection manager
+   */
+  public HttpClientConnectionManager getConnectionManager() {
+    synchronized (lock) {
+      return getOrCreateConnectionManager();
+    }
+  }
+
+  private PoolingHttpClientConnectionManager getOrCreateConnectionManager() {
+    if (connectionManager == null) {
+      connectionManager = ConnectionPoolUtils.createConnectionManager(openedConnectionCount);
+      connectionManager.setMaxTotal(maxConnections);
+      connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+      connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+      connectionEvictor = new IdleConnectionEvictor(connectionManager,
+          EVICTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS, MAX_IDLE_MILLIS, TimeUnit.MILLISECONDS);
+      connectionEvictor.start();
+    }
+
+    return connectionManager;
+  }
+
+  /**
+   * Retrieve the shared non-blocking http client. The client is lazily started on first access
+   * and runs a small amount of I/O threads that serve all requests in flight. The client has no
+   * default headers because it is shared by all Twitch clients. Requests without their own
+   * request config use the timeouts that were configured when the client was started.
+   *
+   * @return The started non-blocking http client
+   */
+  public CloseableHttpAsyncClient getAsyncHttpClient() {
+    synchronized (lock) {
+      if (asyncHttpClient == null) {
+        asyncHttpClient = createAsyncHttpClient();
+        asyncHttpClient.start();
+      }
+
+      return asyncHttpClient;
+    }
+  }
+
+  private CloseableHttpAsyncClient createAsyncHttpClient() {
+    asyncConnectionManager =
+        ConnectionPoolUtils.createAsyncConnectionManager(ASYNC_IO_THREADS, openedConnectionCount);
+    asyncConnectionManager.setMaxTotal(maxConnections);
+    asyncConnectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+    asyncConnectionEvictor = new AsyncIdleConnectionEvictor(asyncConnectionManager,
+        EVICTION_INTERVAL_MILLIS, MAX_IDLE_MILLIS);
+    asyncConnectionEvictor.start();
+
+    return HttpAsyncClients.custom()
+        .useSystemProperties()
+        .setConnectionManager(asyncConnectionManager)
+        .setDefaultRequestConfig(timeoutPolicy.createRequestConfig())
+        .setKeepAliveStrategy(getKeepAliveStrategy())
+        .addInterceptorFirst((HttpRequestInterceptor) (request, context) -> recordRequest())
+        .build();
+  }
+
+  /**
+   * Update the connection limits of the shared pool and the default timeouts of requests. The
+   * timeouts apply to all blocking clients created afterwards and to the non-blocking client
+   * unless it was already started.
+   *
+   * @param maxConnections          Maximum amount of connections in total
+   * @param maxConnectionsPerRoute  Maximum amount of connections per route
+   * @param timeoutPolicy           Default timeouts of requests
+   */
+  public void configure(int maxConnections, int maxConnectionsPerRoute,
+      TimeoutPolicy timeoutPolicy) {
+    if (maxConnections <= 0 || maxConnectionsPerRoute <= 0) {
+      throw new IllegalArgumentException("Connection limits must be greater than zero");
+    }
+
+    synchronized (lock) {
+      this.maxConnections = maxConnections;
+      this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+      this.timeoutPolicy = timeoutPolicy;
+
+      final PoolingHttpClientConnectionManager manager = getOrCreateConnectionManager();
+      manager.setMaxTotal(maxConnections);
+      manager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+      if (asyncConnectionManager != null) {
+        asyncConnectionManager.setMaxTotal(maxConnections);
+        asyncConnectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+      }
+    }
+  }
+
+  /**
+   * Retrieve the default timeouts of requests.
+   *
+   * @return The configured timeout policy
+   */
+  public TimeoutPolicy getTimeoutPolicy() {
+    synchronized (lock) {
+      return timeoutPolicy;
+    }
+  }
+
+  /**
+   * Retrieve the keep-alive strategy used by all clients sharing the pool.
+   *
+   * @return The keep-alive strategy
+   */
+  public ConnectionKeepAliveStrategy getKeepAliveStrategy() {
+    return (response, context) -> {
+      long duration = DefaultConnectionKeepAliveStrategy.INSTANCE
+          .getKeepAliveDuration(response, context);
+
+      return duration > 0 ? duration : DEFAULT_KEEP_ALIVE_MILLIS;
+    };
+  }
+
+  /**
+   * Record a request that was executed with a client sharing the pool.
+   */
+  public void recordRequest() {
+    requestCount.incrementAndGet();
+  }
+
+  /**
+   * Retrieve a snapshot of the connection statistics.
+   *
+   * @return The connection statistics
+   */
+  public ConnectionStatistics getStatistics() {
+    return new ConnectionStatistics(requestCount.get(), openedConnectionCount.get());
+  }
+
+  /**
+   * Close all pooled connections and stop the idle connection evictors. Statistics, connection
+   * limits and timeouts are reset.
+   */
+  public void shutdown() {
+    synchronized (lock) {
+      if (connectionEvictor != null) {
+        connectionEvictor.shutdown();
+        connectionEvictor = null;
+      }
+
+      if (connectionManager != null) {
+        connectionManager.shutdown();
+        connectionManager = null;
+      }
+
+      if (asyncConnectionEvictor != null) {
+        asyncConnectionEvictor.shutdown();
+        asyncConnectionEvictor = null;
+      }
+
+      if (asyncHttpClient != null) {
+        try {
+          asyncHttpClient.close();
+        } catch (IOException e) {
+          // the client is discarded anyway
+        }
+        asyncHttpClient = null;
+        asyncConnectionManager = null;
+      }
+
+      maxConnections = DEFAULT_MAX_CONNECTIONS;
+      maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+      timeoutPolicy = new TimeoutPolicy();
+      requestCount.set(0);
+      openedConnectionCount.set(0);
+    }
+  }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.FileContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Non-blocking producer of a multipart upload request. The multipart framing is created with the
+ * same {@link MultipartEntityBuilder} the blocking upload uses. The file itself is never loaded
+ * into memory but streamed from a {@link FileChannel} whenever the connection is ready to accept
+ * more data. Plain connections transfer the file directly from the channel to the socket. If the
+ * {@link BandwidthThrottle} has no bandwidth left the output is suspended and resumed once the
+ * upload may continue, the I/O thread is never blocked.
+ */
+public class MultipartAsyncRequestProducer implements HttpAsyncRequestProducer {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final HttpHost target;
+
+  private final URI uri;
+
+  private final List<Header> headers;
+
+  private final File file;
+
+  private final UploadProgress progress;
+
+  private final UploadPriority priority;
+
+  private final Header contentType;
+
+  private final ByteBuffer head;
+
+  private final ByteBuffer tail;
+
+  private FileChannel fileChannel;
+
+  private ByteBuffer buffer;
+
+  private long filePosition;
+
+  /**
+   * Create a multipart request producer.
+   *
+   * @param uri             The uri to post the request to
+   * @param headers         Additional request headers
+   * @param metadata        The serialized metadata
+   * @param file            The file to upload
+   * @param fileContentType The content type of the file
+   * @param filename        The filename reported to the server
+   * @param progress        Progress that is updated while the file is transmitted
+   * @param priority        Priority of the upload if the bandwidth is limited
+   * @throws IOException If the multipart framing cannot be created
+   */
+  public MultipartAsyncRequestProducer(URI uri, List<Header> headers, String metadata, File file,
+      ContentType fileContentType, String filename, UploadProgress progress,
+      UploadPriority priority) throws IOException {
+    this.target = URIUtils.extractHost(uri);
+    this.uri = uri;
+    this.headers = headers;
+    this.file = file;
+    this.progress = progress;
+    this.priority = priority;
+
+    final byte[] marker = UUID.randomUUID().toString().getBytes(StandardCharsets.US_ASCII);
+    final HttpEntity entity = MultipartEntityBuilder
+        .create()
+        .addTextBody("metadata", metadata)
+        .addPart("file", new MarkerBody(fileContentType, filename, marker))
+        .build();
+
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    entity.writeTo(outputStream);
+
+    final byte[] framing = outputStream.toByteArray();
+    final int markerIndex = indexOf(framing, marker);
+
+    this.contentType = entity.getContentType();
+    this.head = ByteBuffer.wrap(Arrays.copyOfRange(framing, 0, markerIndex));
+    this.tail = ByteBuffer.wrap(
+        Arrays.copyOfRange(framing, markerIndex + marker.length, framing.length));
+  }
+
+  @Override
+  public HttpHost getTarget() {
+    return target;
+  }
+
+  @Override
+  public HttpRequest generateRequest() {
+    final BasicHttpEntity entity = new BasicHttpEntity();
+    entity.setContentType(contentType);
+    entity.setContentLength(head.capacity() + file.length() + tail.capacity());
+
+    final String requestUri = uri.getRawQuery() == null
+        ? uri.getRawPath() : uri.getRawPath() + '?' + uri.getRawQuery();
+    final BasicHttpEntityEnclosingRequest request =
+        new BasicHttpEntityEnclosingRequest("POST", requestUri);
+    request.setEntity(entity);
+
+    for (Header header : headers) {
+      request.addHeader(header);
+    }
+
+    return request;
+  }
+
+  @Override
+  public void produceContent(ContentEncoder encoder, IOControl ioControl) throws IOException {
+    if (!progress.isStarted()) {
+      progress.start();
+    }
+
+    if (head.hasRemaining()) {
+      encoder.write(head);
+
+      if (head.hasRemaining()) {
+        return;
+      }
+    }
+
+    final long fileLength = file.length();
+
+    if (filePosition < fileLength) {
+      final long written = transferFile(encoder, ioControl, fileLength - filePosition);
+      filePosition += written;
+      progress.confirm(written);
+
+      if (filePosition < fileLength) {
+        return;
+      }
+    }
+
+    if (tail.hasRemaining()) {
+      encoder.write(tail);
+
+      if (tail.hasRemaining()) {
+        return;
+      }
+    }
+
+    encoder.complete();
+  }
+
+  /**
+   * Transfer the next part of the file. Plain connections transfer the file directly from the
+   * file channel to the socket without copying it through the heap. Encrypted connections read
+   * the file into a direct buffer that is handed to the encoder as is.
+   *
+   * @param encoder   The encoder of the connection
+   * @param ioControl Control of the connection used to suspend the output while throttled
+   * @param remaining Amount of bytes of the file that were not yet transferred
+   * @return Amount of bytes of the file transferred to the encoder
+   * @throws IOException If the file cannot be read or the connection failed
+   */
+  private long transferFile(ContentEncoder encoder, IOControl ioControl, long remaining)
+      throws IOException {
+    if (fileChannel == null) {
+      fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    final BandwidthThrottle throttle = BandwidthThrottle.getInstance();
+
+    if (encoder instanceof FileContentEncoder) {
+      if (!throttle.isEnabled()) {
+        return ((FileContentEncoder) encoder).transfer(fileChannel, filePosition, remaining);
+      }
+
+      final long count = Math.min(BUFFER_SIZE, remaining);
+
+      if (!throttle.tryAcquire(count, priority, ioControl)) {
+        return 0;
+      }
+
+      final long transferred =
+          ((FileContentEncoder) encoder).transfer(fileChannel, filePosition, count);
+      throttle.release(count - transferred);
+
+      return transferred;
+    }
+
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+      buffer.limit(0);
+    }
+
+    // data that was read but not accepted by the encoder is kept for the next call
+    if (!buffer.hasRemaining()) {
+      final int count = (int) Math.min(buffer.capacity(), remaining);
+
+      if (!throttle.tryAcquire(count, priority, ioControl)) {
+        return 0;
+      }
+
+      buffer.clear();
+      buffer.limit(count);
+
+      if (fileChannel.read(buffer, filePosition) < 0) {
+        throw new IOException("Unexpected end of file " + file);
+      }
+
+      buffer.flip();
+    }
+
+    return encoder.write(buffer);
+  }
+
+  @Override
+  public void requestCompleted(HttpContext context) {
+    // no op
+  }
+
+  @Override
+  public void failed(Exception ex) {
+    // failures are reported to the callback of the request
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return true;
+  }
+
+  @Override
+  public void resetRequest() throws IOException {
+    head.rewind();
+    tail.rewind();
+    filePosition = 0;
+    progress.reset();
+
+    if (buffer != null) {
+      buffer.limit(0);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (fileChannel != null) {
+      fileChannel.close();
+      fileChannel = null;
+    }
+  }
+
+  private static int indexOf(byte[] content, byte[] marker) {
+    for (int i = 0; i <= content.length - marker.length; i++) {
+      int j = 0;
+
+      while (j < marker.length && content[i + j] == marker[j]) {
+        j++;
+      }
+
+      if (j == marker.length) {
+        return i;
+      }
+    }
+
+    throw new IllegalStateException("Multipart framing does not contain the file marker");
+  }
+
+  /**
+   * Placeholder for the file content that marks the position of the file in the framing.
+   */
+  private static final class MarkerBody extends AbstractContentBody {
+    private final String filename;
+
+    private final byte[] marker;
+
+    MarkerBody(ContentType contentType, String filename, byte[] marker) {
+      super(contentType);
+      this.filename = filename;
+      this.marker = marker.clone();
+    }
+
+    @Override
+    public String getFilename() {
+      return filename;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+      outputStream.write(marker);
+    }
+
+    @Override
+    public String getTransferEncoding() {
+      return MIME.ENC_BINARY;
+    }
+
+    @Override
+    public long getContentLength() {
+      return marker.length;
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.cache.DigestUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A file that is uploaded several times in parallel. The file is digested once and every upload
+ * reuses the digest. The uploads read the file with positional reads of their own, the first read
+ * leaves the file in the page cache of the operating system. The file is not memory mapped
+ * because a mapping is only released by the garbage collector and keeps the file locked on
+ * Windows for the rest of the build.
+ */
+public final class SharedFile {
+  private final Path path;
+
+  private final long length;
+
+  private final String sha256;
+
+  private SharedFile(Path path, long length, String sha256) {
+    this.path = path;
+    this.length = length;
+    this.sha256 = sha256;
+  }
+
+  /**
+   * Read a file once to calculate its digest.
+   *
+   * @param path The file to share
+   * @return The shared file
+   * @throws IOException If the file cannot be read
+   */
+  public static SharedFile open(Path path) throws IOException {
+    final File file = path.toFile();
+    final String sha256 = DigestUtils.sha256(file);
+
+    return new SharedFile(path.toAbsolutePath().normalize(), file.length(), sha256);
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  public File getFile() {
+    return path.toFile();
+  }
+
+  public long getLength() {
+    return length;
+  }
+
+  public String getSha256() {
+    return sha256;
+  }
+
+  /**
+   * Check whether a path refers to the shared file.
+   *
+   * @param file The path of a file
+   * @return True if the path refers to the shared file
+   */
+  public boolean isSharedFile(String file) {
+    return file != null && path.equals(path.getFileSystem().getPath(file).toAbsolutePath()
+        .normalize());
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.util.Locale;
+
+/**
+ * Priority of an upload when the bandwidth is limited. Uploads of a higher priority receive
+ * bandwidth before uploads of a lower priority.
+ */
+public enum UploadPriority {
+  ALPHA,
+  BETA,
+  RELEASE;
+
+  /**
+   * Retrieve the priority of a release type. Unknown release types are treated as releases.
+   *
+   * @param releaseType One of "alpha", "beta", "release"
+   * @return The priority of the release type
+   */
+  public static UploadPriority fromReleaseType(String releaseType) {
+    if (releaseType == null) {
+      return RELEASE;
+    }
+
+    switch (releaseType.toLowerCase(Locale.ROOT)) {
+      case "alpha":
+        return ALPHA;
+      case "beta":
+        return BETA;
+      default:
+        return RELEASE;
+    }
+  }
+}
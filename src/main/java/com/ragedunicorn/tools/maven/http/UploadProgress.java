@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks how many bytes of a file were handed over to the transport. A chunk counts as confirmed
+ * once it was written and flushed to the connection without an error.
+ */
+public class UploadProgress {
+  private final long totalBytes;
+
+  // whether the transmission of the file started in the current attempt
+  private final AtomicBoolean started = new AtomicBoolean();
+
+  // whether the transmission waits for bandwidth of the throttle
+  private final AtomicBoolean throttled = new AtomicBoolean();
+
+  // confirmed bytes of the current attempt
+  private final AtomicLong confirmedBytes = new AtomicLong();
+
+  // highest offset confirmed over all attempts
+  private final AtomicLong highestConfirmedOffset = new AtomicLong();
+
+  // start and end of the transmission of the current attempt
+  private final AtomicLong transmissionStartNanos = new AtomicLong();
+  private final AtomicLong transmissionEndNanos = new AtomicLong();
+
+  public UploadProgress(long totalBytes) {
+    this.totalBytes = totalBytes;
+  }
+
+  public long getTotalBytes() {
+    return totalBytes;
+  }
+
+  public long getConfirmedBytes() {
+    return confirmedBytes.get();
+  }
+
+  public long getHighestConfirmedOffset() {
+    return highestConfirmedOffset.get();
+  }
+
+  public long getTransmissionStartNanos() {
+    return transmissionStartNanos.get();
+  }
+
+  public long getTransmissionEndNanos() {
+    return transmissionEndNanos.get();
+  }
+
+  public boolean isThrottled() {
+    return throttled.get();
+  }
+
+  /**
+   * Mark whether the transmission waits for bandwidth of the {@link BandwidthThrottle}. A
+   * transmission waiting for bandwidth is not stalled.
+   *
+   * @param throttled True while waiting for bandwidth
+   */
+  public void setThrottled(boolean throttled) {
+    this.throttled.set(throttled);
+  }
+
+  public boolean isStarted() {
+    return started.get();
+  }
+
+  /**
+   * Whether the whole file was handed over to the transport in the current attempt. A file is
+   * never complete before its transmission started, not even an empty one.
+   *
+   * @return True if the transmission started and all bytes were confirmed
+   */
+  public boolean isComplete() {
+    return started.get() && confirmedBytes.get() >= totalBytes;
+  }
+
+  /**
+   * Reset the progress before a new attempt is sent. Until the transmission of the file starts
+   * the attempt is neither complete nor has any confirmed bytes.
+   */
+  public void reset() {
+    started.set(false);
+    confirmedBytes.set(0);
+    transmissionStartNanos.set(0);
+    transmissionEndNanos.set(0);
+  }
+
+  /**
+   * Mark the start of the transmission of the file in the current attempt. Starting again, e.g.
+   * when the transport repeats the request, discards the bytes confirmed so far.
+   */
+  public void start() {
+    confirmedBytes.set(0);
+    final long now = System.nanoTime();
+    transmissionStartNanos.set(now);
+    transmissionEndNanos.set(totalBytes == 0 ? now : 0);
+    started.set(true);
+  }
+
+  /**
+   * Confirm a chunk that was successfully flushed to the connection.
+   *
+   * @param bytes Size of the chunk
+   */
+  public void confirm(long bytes) {
+    final long offset = confirmedBytes.addAndGet(bytes);
+    highestConfirmedOffset.accumulateAndGet(offset, Math::max);
+
+    if (offset >= totalBytes) {
+      transmissionEndNanos.set(System.nanoTime());
+    }
+  }
+}
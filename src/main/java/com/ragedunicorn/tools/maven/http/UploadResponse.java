@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.model.FileChecksums;
+import com.ragedunicorn.tools.maven.timing.UploadTiming;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Status, headers and body of a completed upload request.
+ */
+public class UploadResponse {
+  private final int statusCode;
+
+  private final String body;
+
+  // header names are case insensitive
+  private final Map<String, String> headers;
+
+  // amount of requests that were sent until this response was received
+  private final int attempts;
+
+  // timing of the last attempt, null if the upload was not measured
+  private UploadTiming timing;
+
+  // checksums of the transmitted file, null if the file was not completely transmitted
+  private FileChecksums checksums;
+
+  public UploadResponse(int statusCode, String body) {
+    this(statusCode, body, Collections.emptyMap(), 1);
+  }
+
+  /**
+   * Create an upload response.
+   *
+   * @param statusCode The http status code
+   * @param body       The response body
+   * @param headers    The response headers
+   * @param attempts   Amount of requests that were sent until this response was received
+   */
+  public UploadResponse(int statusCode, String body, Map<String, String> headers, int attempts) {
+    this.statusCode = statusCode;
+    this.body = body;
+    this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    this.headers.putAll(headers);
+    this.attempts = attempts;
+  }
+
+  /**
+   * Read the response of an upload request. The body is consumed.
+   *
+   * @param response The http response
+   * @param attempts Amount of requests that were sent until this response was received
+   * @return The upload response
+   * @throws IOException If the body of the response cannot be read
+   */
+  public static UploadResponse read(HttpResponse response, int attempts) throws IOException {
+    final String body = response.getEntity() == null
+        ? "" : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+    final Map<String, String> headers = new HashMap<>();
+
+    for (Header header : response.getAllHeaders()) {
+      headers.put(header.getName(), header.getValue());
+    }
+
+    return new UploadResponse(response.getStatusLine().getStatusCode(), body, headers, attempts);
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public String getBody() {
+    return body;
+  }
+
+  public Map<String, String> getHeaders() {
+    return Collections.unmodifiableMap(headers);
+  }
+
+  /**
+   * Retrieve a header of the response.
+   *
+   * @param name The case insensitive name of the header
+   * @return The value of the header or null if the header is missing
+   */
+  public String getHeader(String name) {
+    return headers.get(name);
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public UploadTiming getTiming() {
+    return timing;
+  }
+
+  public void setTiming(UploadTiming timing) {
+    this.timing = timing;
+  }
+
+  public FileChecksums getChecksums() {
+    return checksums;
+  }
+
+  public void setChecksums(FileChecksums checksums) {
+    this.checksums = checksums;
+  }
+
+  /**
+   * Whether the server responded with a 2xx status code.
+   *
+   * @return True if the request was successful
+   */
+  public boolean isSuccessful() {
+    return statusCode / 100 == 2;
+  }
+
+  @Override
+  public String toString() {
+    return "UploadResponse{"
+        + "statusCode=" + statusCode
+        + ", body='" + body + '\''
+        + ", headers=" + headers
+        + ", attempts=" + attempts
+        + '}';
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.concurrent.FutureUtils;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * Observes a blocking upload and aborts its request if the deadline of the release ran out or the
+ * transmission of the file stopped making progress. The socket timeout only guards reading the
+ * response, a write to a connection the server stopped reading from blocks until the request is
+ * aborted. Aborting the request closes its connection and the blocked thread fails with an
+ * {@link java.io.IOException}. Time the upload spends waiting for bandwidth of the
+ * {@link BandwidthThrottle} is not a stall, the upload is starved by the shared bandwidth limit
+ * and not by the connection. All times are measured with the monotonic {@link System#nanoTime()}.
+ */
+public class UploadWatchdog implements AutoCloseable {
+  private final HttpUriRequest request;
+
+  private final UploadProgress progress;
+
+  private final long stallTimeoutMillis;
+
+  private final long stallTimeoutNanos;
+
+  private final long deadline;
+
+  private final Object lock = new Object();
+
+  private ScheduledFuture<?> check;
+
+  private boolean closed;
+
+  private boolean deadlineExceeded;
+
+  private boolean stalled;
+
+  // confirmed bytes of the last check and the time the upload last made progress
+  private long lastConfirmedBytes = -1;
+
+  private long lastProgressNanos;
+
+  /**
+   * Create a watchdog for an upload.
+   *
+   * @param request            The request transmitting the file
+   * @param progress           Progress of the transmitted file
+   * @param stallTimeoutMillis Maximum time the transmission may not make any progress
+   * @param deadline           Value of {@link System#nanoTime()} the request is aborted at
+   */
+  public UploadWatchdog(HttpUriRequest request, UploadProgress progress, long stallTimeoutMillis,
+      long deadline) {
+    if (stallTimeoutMillis <= 0) {
+      throw new IllegalArgumentException("stallTimeoutMillis must be greater than zero");
+    }
+
+    this.request = request;
+    this.progress = progress;
+    this.stallTimeoutMillis = stallTimeoutMillis;
+    this.stallTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(stallTimeoutMillis);
+    this.deadline = deadline;
+  }
+
+  /**
+   * Start observing the upload.
+   *
+   * @return This watchdog
+   */
+  public UploadWatchdog start() {
+    synchronized (lock) {
+      lastProgressNanos = System.nanoTime();
+      scheduleCheck(lastProgressNanos);
+    }
+
+    return this;
+  }
+
+  /**
+   * Explain the failure of an observed request. Requests aborted by the watchdog fail with an
+   * exception that tells why the request was aborted.
+   *
+   * @param cause The exception the request failed with
+   * @return A {@link DeadlineExceededException} if the deadline ran out, a
+   *         {@link SocketTimeoutException} if the transmission stalled or the cause otherwise
+   */
+  public IOException explain(IOException cause) {
+    synchronized (lock) {
+      if (deadlineExceeded) {
+        return withCause(new DeadlineExceededException("Release deadline exceeded - aborted "
+            + "upload after " + progress.getConfirmedBytes() + " of " + progress.getTotalBytes()
+            + " bytes"), cause);
+      }
+
+      if (stalled) {
+        return withCause(new SocketTimeoutException(
+            "Upload made no progress for " + stallTimeoutMillis + "ms"), cause);
+      }
+    }
+
+    return cause;
+  }
+
+  private static IOException withCause(InterruptedIOException exception, IOException cause) {
+    exception.initCause(cause);
+
+    return exception;
+  }
+
+  private void check() {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+
+      final long now = System.nanoTime();
+
+      if (deadline - now <= 0) {
+        deadlineExceeded = true;
+        request.abort();
+        return;
+      }
+
+      final long confirmedBytes = progress.getConfirmedBytes();
+
+      // waiting for bandwidth counts as progress
+      if (confirmedBytes != lastConfirmedBytes || progress.isThrottled()) {
+        lastConfirmedBytes = confirmedBytes;
+        lastProgressNanos = now;
+      } else if (!progress.isComplete() && now - lastProgressNanos >= stallTimeoutNanos) {
+        // once the file was transmitted the socket timeout guards waiting for the response
+        stalled = true;
+        request.abort();
+        return;
+      }
+
+      scheduleCheck(now);
+    }
+  }
+
+  private void scheduleCheck(long now) {
+    final long delay = Math.max(1, Math.min(deadline - now, stallTimeoutNanos / 2));
+    check = FutureUtils.schedule(this::check, delay, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void close() {
+    synchronized (lock) {
+      closed = true;
+
+      if (check != null) {
+        check.cancel(false);
+      }
+    }
+  }
+}
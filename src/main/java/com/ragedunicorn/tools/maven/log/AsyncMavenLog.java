@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.log;
+
+import com.ragedunicorn.tools.maven.concurrent.DaemonThreadFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Logger that forwards all messages to the {@link Log} of the executing mojo. Messages are put
+ * into a bounded buffer and written by a single background thread. Threads that upload files
+ * therefore never wait for the console and every message is written as a whole even if several
+ * projects are released in parallel. The enabled levels are taken from the Maven log once, a
+ * disabled level neither allocates nor touches the buffer. If the buffer is full the logging
+ * thread waits for the writer instead of dropping messages.
+ */
+public class AsyncMavenLog implements TwitchReleaseLogger, AutoCloseable {
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+  private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+  private static final LogEvent STOP = new LogEvent(Level.DEBUG, null, null);
+
+  private final Log log;
+
+  private final BlockingQueue<LogEvent> queue;
+
+  private final ExecutorService writer;
+
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  private final boolean debugEnabled;
+
+  private final boolean infoEnabled;
+
+  private final boolean warnEnabled;
+
+  private final boolean errorEnabled;
+
+  public AsyncMavenLog(Log log) {
+    this(log, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a logger that forwards to the Maven log.
+   *
+   * @param log      The log of the executing mojo
+   * @param capacity Amount of messages that are buffered before logging threads have to wait
+   */
+  public AsyncMavenLog(Log log, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be greater than zero");
+    }
+
+    this.log = log;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.debugEnabled = log.isDebugEnabled();
+    this.infoEnabled = log.isInfoEnabled();
+    this.warnEnabled = log.isWarnEnabled();
+    this.errorEnabled = log.isErrorEnabled();
+    this.writer = Executors.newSingleThreadExecutor(new DaemonThreadFactory("twitch-log"));
+    this.writer.execute(this::drain);
+  }
+
+  @Override
+  public void debug(String content) {
+    if (debugEnabled) {
+      enqueue(new LogEvent(Level.DEBUG, content, null));
+    }
+  }
+
+  @Override
+  public void debug(String content, Throwable error) {
+    if (debugEnabled) {
+      enqueue(new LogEvent(Level.DEBUG, content, error));
+    }
+  }
+
+  @Override
+  public void debug(Throwable error) {
+    if (debugEnabled) {
+      enqueue(new LogEvent(Level.DEBUG, null, error));
+    }
+  }
+
+  @Override
+  public boolean isDebugEnabled() {
+    return debugEnabled;
+  }
+
+  @Override
+  public void info(String content) {
+    if (infoEnabled) {
+      enqueue(new LogEvent(Level.INFO, content, null));
+    }
+  }
+
+  @Override
+  public void info(String content, Throwable error) {
+    if (infoEnabled) {
+      enqueue(new LogEvent(Level.INFO, content, error));
+    }
+  }
+
+  @Override
+  public void info(Throwable error) {
+    if (infoEnabled) {
+      enqueue(new LogEvent(Level.INFO, null, error));
+    }
+  }
+
+  @Override
+  public boolean isInfoEnabled() {
+    return infoEnabled;
+  }
+
+  @Override
+  public void warn(String content) {
+    if (warnEnabled) {
+      enqueue(new LogEvent(Level.WARN, content, null));
+    }
+  }
+
+  @Override
+  public void warn(String content, Throwable error) {
+    if (warnEnabled) {
+      enqueue(new LogEvent(Level.WARN, content, error));
+    }
+  }
+
+  @Override
+  public void warn(Throwable error) {
+    if (warnEnabled) {
+      enqueue(new LogEvent(Level.WARN, null, error));
+    }
+  }
+
+  @Override
+  public boolean isWarnEnabled() {
+    return warnEnabled;
+  }
+
+  @Override
+  public void error(String content) {
+    if (errorEnabled) {
+      enqueue(new LogEvent(Level.ERROR, content, null));
+    }
+  }
+
+  @Override
+  public void error(String content, Throwable error) {
+    if (errorEnabled) {
+      enqueue(new LogEvent(Level.ERROR, content, error));
+    }
+  }
+
+  @Override
+  public void error(Throwable error) {
+    if (errorEnabled) {
+      enqueue(new LogEvent(Level.ERROR, null, error));
+    }
+  }
+
+  @Override
+  public boolean isErrorEnabled() {
+    return errorEnabled;
+  }
+
+  /**
+   * Write all buffered messages and stop the writer. Messages that are logged afterwards are
+   * written directly by the logging thread.
+   */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      queue.put(STOP);
+      writer.shutdown();
+      writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      writer.shutdownNow();
+      drainRemaining();
+    }
+  }
+
+  private void enqueue(LogEvent event) {
+    try {
+      // the writer stops after close and would never take a message from a full buffer
+      while (!queue.offer(event, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (closed.get()) {
+          write(event);
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      write(event);
+      return;
+    }
+
+    // the message might have been buffered after the writer stopped
+    if (closed.get()) {
+      drainRemaining();
+    }
+  }
+
+  private void drain() {
+    try {
+      LogEvent event = queue.take();
+
+      while (!STOP.equals(event)) {
+        write(event);
+        event = queue.take();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void drainRemaining() {
+    LogEvent event = queue.poll();
+
+    while (event != null) {
+      if (!STOP.equals(event)) {
+        write(event);
+      }
+
+      event = queue.poll();
+    }
+  }
+
+  private void write(LogEvent event) {
+    switch (event.level) {
+      case DEBUG:
+        write(event, log::debug, log::debug, log::debug);
+        break;
+      case INFO:
+        write(event, log::info, log::info, log::info);
+        break;
+      case WARN:
+        write(event, log::warn, log::warn, log::warn);
+        break;
+      default:
+        write(event, log::error, log::error, log::error);
+        break;
+    }
+  }
+
+  private static void write(LogEvent event, Consumer<CharSequence> content,
+      BiConsumer<CharSequence, Throwable> contentAndError, Consumer<Throwable> error) {
+    if (event.error == null) {
+      content.accept(event.content);
+    } else if (event.content == null) {
+      error.accept(event.error);
+    } else {
+      contentAndError.accept(event.content, event.error);
+    }
+  }
+
+  private enum Level {
+    DEBUG, INFO, WARN, ERROR
+  }
+
+  /**
+   * A message waiting to be written.
+   */
+  private static final class LogEvent {
+    private final Level level;
+
+    private final String content;
+
+    private final Throwable error;
+
+    LogEvent(Level level, String content, Throwable error) {
+      this.level = level;
+      this.content = content;
+      this.error = error;
+    }
+  }
+}
@@ -25,22 +25,25 @@ package com.ragedunicorn.tools.maven.log;
 @SuppressWarnings("PMD")
 public class DefaultLog implements TwitchReleaseLogger {
   /**
-   * Define default logLevel.
+   * Define logLevel. Defaults to info.
    * logLevels:
    * 1 - Error
-   * 2 - Info
-   * 3 - Warning
+   * 2 - Warning
+   * 3 - Info
    * 4 - Debug
    */
-  private int logLevel = 3;
+  private final int logLevel;
 
   public static final int LOG_LEVEL_ERROR = 1;
   public static final int LOG_LEVEL_WARNING = 2;
   public static final int LOG_LEVEL_INFO = 3;
   public static final int LOG_LEVEL_DEBUG = 4;
 
+  // keeps a message and its stack trace together when several threads log at once
+  private static final Object OUTPUT_LOCK = new Object();
+
   public DefaultLog() {
-    // no op
+    this(LOG_LEVEL_INFO);
   }
 
   public DefaultLog(int logLevel) {
@@ -66,8 +69,7 @@ public class DefaultLog implements TwitchReleaseLogger {
    */
   public void debug(String content, Throwable error) {
     if (this.logLevel >= LOG_LEVEL_DEBUG) {
-      System.out.println("[DEBUG] " + content);
-      error.printStackTrace();
+      print("[DEBUG] " + content, error);
     }
   }
 
@@ -110,8 +112,7 @@ public class DefaultLog implements TwitchReleaseLogger {
    */
   public void info(String content, Throwable error) {
     if (this.logLevel >= LOG_LEVEL_INFO) {
-      System.out.println("[INFO] " + content);
-      error.printStackTrace();
+      print("[INFO] " + content, error);
     }
   }
 
@@ -154,8 +155,7 @@ public class DefaultLog implements TwitchReleaseLogger {
    */
   public void warn(String content, Throwable error) {
     if (this.logLevel >= LOG_LEVEL_WARNING) {
-      System.out.println("[WARNING] " + content);
-      error.printStackTrace();
+      print("[WARNING] " + content, error);
     }
   }
 
@@ -198,8 +198,7 @@ public class DefaultLog implements TwitchReleaseLogger {
    */
   public void error(String content, Throwable error) {
     if (this.logLevel >= LOG_LEVEL_ERROR) {
-      System.out.println("[ERROR] " + content);
-      error.printStackTrace();
+      print("[ERROR] " + content, error);
     }
   }
 
@@ -222,4 +221,11 @@ public class DefaultLog implements TwitchReleaseLogger {
   public boolean isErrorEnabled() {
     return this.logLevel >= LOG_LEVEL_ERROR;
   }
+
+  private static void print(String message, Throwable error) {
+    synchronized (OUTPUT_LOCK) {
+      System.out.println(message);
+      error.printStackTrace();
+    }
+  }
 }
@@ -29,21 +29,29 @@ public interface TwitchReleaseLogger {
 
   void debug(Throwable error);
 
+  boolean isDebugEnabled();
+
   void info(String content);
 
   void info(String content, Throwable error);
 
   void info(Throwable error);
 
+  boolean isInfoEnabled();
+
   void warn(String content);
 
   void warn(String content, Throwable error);
 
   void warn(Throwable error);
 
+  boolean isWarnEnabled();
+
   void error(String content);
 
   void error(String content, Throwable error);
 
   void error(Throwable error);
+
+  boolean isErrorEnabled();
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.model;
+
+import com.google.gson.annotations.SerializedName;
+import java.util.Objects;
+
+public class GameVersion {
+  private int id;
+
+  @SerializedName("gameVersionTypeID")
+  private int gameVersionTypeId;
+
+  private String name;
+
+  private String slug;
+
+  public int getId() {
+    return id;
+  }
+
+  public void setId(int id) {
+    this.id = id;
+  }
+
+  public int getGameVersionTypeId() {
+    return gameVersionTypeId;
+  }
+
+  public void setGameVersionTypeId(int gameVersionTypeId) {
+    this.gameVersionTypeId = gameVersionTypeId;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getSlug() {
+    return slug;
+  }
+
+  public void setSlug(String slug) {
+    this.slug = slug;
+  }
+
+  @Override
+  public String toString() {
+    return "GameVersion{"
+        + "id=" + id
+        + ", gameVersionTypeId=" + gameVersionTypeId
+        + ", name='" + name + '\''
+        + ", slug='" + slug + '\''
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    GameVersion that = (GameVersion) o;
+    return id == that.id
+        && gameVersionTypeId == that.gameVersionTypeId
+        && Objects.equals(name, that.name)
+        && Objects.equals(slug, that.slug);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, gameVersionTypeId, name, slug);
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.model;
+
+import java.util.Objects;
+
+/**
+ * Configuration of a GitHub repository the release is published to in addition to Twitch. A
+ * release is created for the tag and the file is attached to it.
+ */
+public class GitHubDestination {
+  // Owner of the repository
+  private String owner;
+
+  // Name of the repository
+  private String repository;
+
+  // Tag of the release. Defaults to the version of the project
+  private String tagName;
+
+  // Optional name of the release. Defaults to the tag
+  private String name;
+
+  // Whether the release is marked as pre-release. Defaults to true for alphas and betas
+  private Boolean prerelease;
+
+  // References a server configuration in your .m2 settings.xml holding the GitHub token
+  private String server;
+
+  // Alternative of using a server configuration
+  private String token;
+
+  // Base uri of the GitHub Api, e.g. of a GitHub Enterprise installation
+  private String baseUri;
+
+  public String getOwner() {
+    return owner;
+  }
+
+  public void setOwner(String owner) {
+    this.owner = owner;
+  }
+
+  public String getRepository() {
+    return repository;
+  }
+
+  public void setRepository(String repository) {
+    this.repository = repository;
+  }
+
+  public String getTagName() {
+    return tagName;
+  }
+
+  public void setTagName(String tagName) {
+    this.tagName = tagName;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public Boolean getPrerelease() {
+    return prerelease;
+  }
+
+  public void setPrerelease(Boolean prerelease) {
+    this.prerelease = prerelease;
+  }
+
+  public String getServer() {
+    return server;
+  }
+
+  public void setServer(String server) {
+    this.server = server;
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  public void setToken(String token) {
+    this.token = token;
+  }
+
+  public String getBaseUri() {
+    return baseUri;
+  }
+
+  public void setBaseUri(String baseUri) {
+    this.baseUri = baseUri;
+  }
+
+  @Override
+  public String toString() {
+    return "GitHubDestination{"
+        + "owner='" + owner + '\''
+        + ", repository='" + repository + '\''
+        + ", tagName='" + tagName + '\''
+        + ", name='" + name + '\''
+        + ", prerelease=" + prerelease
+        + ", server='" + server + '\''
+        + ", baseUri='" + baseUri + '\''
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    GitHubDestination that = (GitHubDestination) o;
+    return Objects.equals(owner, that.owner)
+        && Objects.equals(repository, that.repository)
+        && Objects.equals(tagName, that.tagName)
+        && Objects.equals(name, that.name)
+        && Objects.equals(prerelease, that.prerelease)
+        && Objects.equals(server, that.server)
+        && Objects.equals(token, that.token)
+        && Objects.equals(baseUri, that.baseUri);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(owner, repository, tagName, name, prerelease, server, token, baseUri);
+  }
+}
@@ -23,6 +23,7 @@
 package com.ragedunicorn.tools.maven.model;
 
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -42,6 +43,11 @@ public class Metadata {
   @Expose
   private String releaseType;
 
+  // id of the parent file if this file is an additional file
+  @Expose
+  @SerializedName("parentFileID")
+  private Integer parentFileId;
+
   public String getChangelog() {
     return changelog;
   }
@@ -67,11 +73,11 @@ public class Metadata {
   }
 
   public int[] getGameVersions() {
-    return gameVersions.clone();
+    return gameVersions == null ? null : gameVersions.clone();
   }
 
   public void setGameVersions(int[] gameVersions) {
-    this.gameVersions = gameVersions.clone();
+    this.gameVersions = gameVersions == null ? null : gameVersions.clone();
   }
 
   public String getReleaseType() {
@@ -82,6 +88,14 @@ public class Metadata {
     this.releaseType = releaseType;
   }
 
+  public Integer getParentFileId() {
+    return parentFileId;
+  }
+
+  public void setParentFileId(Integer parentFileId) {
+    this.parentFileId = parentFileId;
+  }
+
   @Override
   public String toString() {
     return "Metadata{"
@@ -90,6 +104,7 @@ public class Metadata {
         + ", displayName='" + displayName + '\''
         + ", gameVersions=" + Arrays.toString(gameVersions)
         + ", releaseType='" + releaseType + '\''
+        + ", parentFileId=" + parentFileId
         + '}';
   }
 
@@ -106,12 +121,14 @@ public class Metadata {
         && Objects.equals(changelogType, metadata.changelogType)
         && Objects.equals(displayName, metadata.displayName)
         && Arrays.equals(gameVersions, metadata.gameVersions)
-        && Objects.equals(releaseType, metadata.releaseType);
+        && Objects.equals(releaseType, metadata.releaseType)
+        && Objects.equals(parentFileId, metadata.parentFileId);
   }
 
   @Override
   public int hashCode() {
-    int result = Objects.hash(changelog, changelogType, displayName, releaseType);
+    int result = Objects.hash(changelog, changelogType, displayName, releaseType,
+        parentFileId);
     result = 31 * result + Arrays.hashCode(gameVersions);
     return result;
   }
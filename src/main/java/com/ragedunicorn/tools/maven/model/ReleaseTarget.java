@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.model;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A project the release is published to. Targets allow publishing the same file to several
+ * projects and games within one execution. Properties that are not set are inherited from the
+ * plugin configuration.
+ */
+public class ReleaseTarget {
+  // The project id of the twitch project
+  private String projectId;
+
+  // Type of game such as wow
+  private String game;
+
+  // Supported game versions. Either names such as 1.13.5 or ids
+  private List<String> gameVersions;
+
+  // One of "alpha", "beta", "release"
+  private String releaseType;
+
+  // An optional displayname for the uploaded file
+  private String displayName;
+
+  public String getProjectId() {
+    return projectId;
+  }
+
+  public void setProjectId(String projectId) {
+    this.projectId = projectId;
+  }
+
+  public String getGame() {
+    return game;
+  }
+
+  public void setGame(String game) {
+    this.game = game;
+  }
+
+  public List<String> getGameVersions() {
+    return gameVersions;
+  }
+
+  public void setGameVersions(List<String> gameVersions) {
+    this.gameVersions = gameVersions;
+  }
+
+  public String getReleaseType() {
+    return releaseType;
+  }
+
+  public void setReleaseType(String releaseType) {
+    this.releaseType = releaseType;
+  }
+
+  public String getDisplayName() {
+    return displayName;
+  }
+
+  public void setDisplayName(String displayName) {
+    this.displayName = displayName;
+  }
+
+  @Override
+  public String toString() {
+    return "ReleaseTarget{"
+        + "projectId='" + projectId + '\''
+        + ", game='" + game + '\''
+        + ", gameVersions=" + gameVersions
+        + ", releaseType='" + releaseType + '\''
+        + ", displayName='" + displayName + '\''
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ReleaseTarget that = (ReleaseTarget) o;
+    return Objects.equals(projectId, that.projectId)
+        && Objects.equals(game, that.game)
+        && Objects.equals(gameVersions, that.gameVersions)
+        && Objects.equals(releaseType, that.releaseType)
+        && Objects.equals(displayName, that.displayName);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(projectId, game, gameVersions, releaseType, displayName);
+  }
+}
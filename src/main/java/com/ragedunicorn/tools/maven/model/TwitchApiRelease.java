@@ -27,6 +27,9 @@ import java.util.Objects;
 public class TwitchApiRelease {
   private int id;
 
+  // checksums of the uploaded file, null if the file was not uploaded by this execution
+  private FileChecksums checksums;
+
   public int getId() {
     return id;
   }
@@ -35,10 +38,19 @@ public class TwitchApiRelease {
     this.id = id;
   }
 
+  public FileChecksums getChecksums() {
+    return checksums;
+  }
+
+  public void setChecksums(FileChecksums checksums) {
+    this.checksums = checksums;
+  }
+
   @Override
   public String toString() {
     return "TwitchRelease{"
         + "id=" + id
+        + ", checksums=" + checksums
         + '}';
   }
 
@@ -51,11 +63,12 @@ public class TwitchApiRelease {
       return false;
     }
     TwitchApiRelease that = (TwitchApiRelease) o;
-    return id == that.id;
+    return id == that.id
+        && Objects.equals(checksums, that.checksums);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(id);
+    return Objects.hash(id, checksums);
   }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.model;
+
+import java.util.Objects;
+
+/**
+ * Configuration of a WoWInterface addon the release is published to in addition to Twitch.
+ */
+public class WowInterfaceDestination {
+  // The id of the addon on WoWInterface
+  private String addonId;
+
+  // The version of the release. Defaults to the version of the project
+  private String version;
+
+  // Optional comma separated list of compatible game versions such as 9.0.2
+  private String compatible;
+
+  // References a server configuration in your .m2 settings.xml holding the WoWInterface token
+  private String server;
+
+  // Alternative of using a server configuration
+  private String token;
+
+  // Base uri of the WoWInterface Api
+  private String baseUri;
+
+  public String getAddonId() {
+    return addonId;
+  }
+
+  public void setAddonId(String addonId) {
+    this.addonId = addonId;
+  }
+
+  public String getVersion() {
+    return version;
+  }
+
+  public void setVersion(String version) {
+    this.version = version;
+  }
+
+  public String getCompatible() {
+    return compatible;
+  }
+
+  public void setCompatible(String compatible) {
+    this.compatible = compatible;
+  }
+
+  public String getServer() {
+    return server;
+  }
+
+  public void setServer(String server) {
+    this.server = server;
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  public void setToken(String token) {
+    this.token = token;
+  }
+
+  public String getBaseUri() {
+    return baseUri;
+  }
+
+  public void setBaseUri(String baseUri) {
+    this.baseUri = baseUri;
+  }
+
+  @Override
+  public String toString() {
+    return "WowInterfaceDestination{"
+        + "addonId='" + addonId + '\''
+        + ", version='" + version + '\''
+        + ", compatible='" + compatible + '\''
+        + ", server='" + server + '\''
+        + ", baseUri='" + baseUri + '\''
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    WowInterfaceDestination that = (WowInterfaceDestination) o;
+    return Objects.equals(addonId, that.addonId)
+        && Objects.equals(version, that.version)
+        && Objects.equals(compatible, that.compatible)
+        && Objects.equals(server, that.server)
+        && Objects.equals(token, that.token)
+        && Objects.equals(baseUri, that.baseUri);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(addonId, version, compatible, server, token, baseUri);
+  }
+}
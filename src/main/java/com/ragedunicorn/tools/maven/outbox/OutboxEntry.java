@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.outbox;
+
+import com.ragedunicorn.tools.maven.model.AdditionalFile;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A fully prepared release that could not be created because the Twitch Api was unavailable.
+ */
+public class OutboxEntry {
+  private String id;
+
+  // name of the release used when reporting its result
+  private String name;
+
+  private String game;
+
+  private String projectId;
+
+  private String baseUri;
+
+  // absolute path of the main file
+  private String file;
+
+  // SHA-256 digest of the main file at the time the release was spooled
+  private String sha256;
+
+  // the serialized metadata of the main file
+  private String metadata;
+
+  private List<AdditionalFile> additionalFiles;
+
+  // SHA-256 digests of the additional files at the time the release was spooled by absolute path
+  private Map<String, String> additionalFileSha256;
+
+  // id of the main file if it was created and only additional files remain
+  private Integer parentFileId;
+
+  // epoch millis the release was spooled
+  private long createdAt;
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getGame() {
+    return game;
+  }
+
+  public void setGame(String game) {
+    this.game = game;
+  }
+
+  public String getProjectId() {
+    return projectId;
+  }
+
+  public void setProjectId(String projectId) {
+    this.projectId = projectId;
+  }
+
+  public String getBaseUri() {
+    return baseUri;
+  }
+
+  public void setBaseUri(String baseUri) {
+    this.baseUri = baseUri;
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  public String getSha256() {
+    return sha256;
+  }
+
+  public void setSha256(String sha256) {
+    this.sha256 = sha256;
+  }
+
+  public String getMetadata() {
+    return metadata;
+  }
+
+  public void setMetadata(String metadata) {
+    this.metadata = metadata;
+  }
+
+  public List<AdditionalFile> getAdditionalFiles() {
+    return additionalFiles;
+  }
+
+  public void setAdditionalFiles(List<AdditionalFile> additionalFiles) {
+    this.additionalFiles = additionalFiles;
+  }
+
+  public Map<String, String> getAdditionalFileSha256() {
+    return additionalFileSha256;
+  }
+
+  public void setAdditionalFileSha256(Map<String, String> additionalFileSha256) {
+    this.additionalFileSha256 = additionalFileSha256;
+  }
+
+  public Integer getParentFileId() {
+    return parentFileId;
+  }
+
+  public void setParentFileId(Integer parentFileId) {
+    this.parentFileId = parentFileId;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(long createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  @Override
+  public String toString() {
+    return "OutboxEntry{"
+        + "id='" + id + '\''
+        + ", name='" + name + '\''
+        + ", game='" + game + '\''
+        + ", projectId='" + projectId + '\''
+        + ", baseUri='" + baseUri + '\''
+        + ", file='" + file + '\''
+        + ", sha256='" + sha256 + '\''
+        + ", metadata='" + metadata + '\''
+        + ", additionalFiles=" + additionalFiles
+        + ", additionalFileSha256=" + additionalFileSha256
+        + ", parentFileId=" + parentFileId
+        + ", createdAt=" + createdAt
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    OutboxEntry that = (OutboxEntry) o;
+    return createdAt == that.createdAt
+        && Objects.equals(id, that.id)
+        && Objects.equals(name, that.name)
+        && Objects.equals(game, that.game)
+        && Objects.equals(projectId, that.projectId)
+        && Objects.equals(baseUri, that.baseUri)
+        && Objects.equals(file, that.file)
+        && Objects.equals(sha256, that.sha256)
+        && Objects.equals(metadata, that.metadata)
+        && Objects.equals(additionalFiles, that.additionalFiles)
+        && Objects.equals(additionalFileSha256, that.additionalFileSha256)
+        && Objects.equals(parentFileId, that.parentFileId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, name, game, projectId, baseUri, file, sha256, metadata,
+        additionalFiles, additionalFileSha256, parentFileId, createdAt);
+  }
+}
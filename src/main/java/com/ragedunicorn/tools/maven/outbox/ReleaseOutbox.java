@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.outbox;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Durable directory of releases that wait for the Twitch Api to become available again. Every
+ * release is stored in its own file named after its id. Entries are written to a temporary file
+ * first and atomically moved into place, a crash never leaves a partially written entry behind.
+ */
+public class ReleaseOutbox {
+  private static final String ENTRY_SUFFIX = ".json";
+
+  private final Gson gson = new Gson();
+
+  private final Path directory;
+
+  public ReleaseOutbox(Path directory) {
+    this.directory = directory;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Store a release. An existing entry with the same id is replaced.
+   *
+   * @param entry The release to store
+   * @throws IOException If the outbox cannot be written
+   */
+  public void put(OutboxEntry entry) throws IOException {
+    Files.createDirectories(directory);
+
+    final Path temporaryFile = Files.createTempFile(directory, entry.getId(), ".tmp");
+
+    try {
+      Files.write(temporaryFile, gson.toJson(entry).getBytes(StandardCharsets.UTF_8));
+      Files.move(temporaryFile, directory.resolve(entry.getId() + ENTRY_SUFFIX),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Retrieve all stored releases, the oldest first.
+   *
+   * @return The stored releases
+   * @throws IOException If the outbox cannot be read or contains a corrupt entry
+   */
+  public List<OutboxEntry> list() throws IOException {
+    final List<OutboxEntry> entries = new ArrayList<>();
+
+    if (!Files.isDirectory(directory)) {
+      return entries;
+    }
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+      for (Path entryFile : stream) {
+        try {
+          entries.add(gson.fromJson(new String(Files.readAllBytes(entryFile),
+              StandardCharsets.UTF_8), OutboxEntry.class));
+        } catch (JsonParseException e) {
+          throw new IOException("Corrupt outbox entry " + entryFile, e);
+        }
+      }
+    }
+
+    entries.sort(Comparator.comparingLong(OutboxEntry::getCreatedAt));
+
+    return entries;
+  }
+
+  /**
+   * Remove a release that was created.
+   *
+   * @param id The id of the release
+   * @throws IOException If the entry cannot be deleted
+   */
+  public void remove(String id) throws IOException {
+    Files.deleteIfExists(directory.resolve(id + ENTRY_SUFFIX));
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.publish;
+
+import com.ragedunicorn.tools.maven.http.HttpClientRegistry;
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.EntityUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Base of the publishers that upload the release file to a destination over http. The http
+ * clients share the connection pool of the {@link HttpClientRegistry} with the Twitch uploads
+ * and the socket timeout is sized from the file by the {@link TimeoutPolicy}.
+ */
+public abstract class AbstractHttpPublisher implements Publisher {
+  private static final String USER_AGENT = "twitch-release-plugin";
+
+  private final String name;
+
+  private final File file;
+
+  private final TimeoutPolicy timeoutPolicy;
+
+  /**
+   * Create a publisher.
+   *
+   * @param name          Name of the destination
+   * @param file          The file to publish
+   * @param timeoutPolicy The timeouts of the requests
+   */
+  protected AbstractHttpPublisher(String name, File file, TimeoutPolicy timeoutPolicy) {
+    this.name = name;
+    this.file = file;
+    this.timeoutPolicy = timeoutPolicy;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public PublishResult publish() throws MojoExecutionException {
+    final long start = System.nanoTime();
+    final PublishResult result = publishWithPooledClient();
+    result.setDestination(name);
+    result.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+    return result;
+  }
+
+  private PublishResult publishWithPooledClient() throws MojoExecutionException {
+    // closing the client only releases it from the shared connection pool
+    try (CloseableHttpClient httpClient = createHttpClient()) {
+      return upload(httpClient);
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to publish release to " + name, e);
+    }
+  }
+
+  /**
+   * Publish the release with the passed http client.
+   *
+   * @param httpClient Http client backed by the shared connection pool
+   * @return The result of the release. Destination and duration are set by the caller
+   * @throws IOException            If a request failed
+   * @throws MojoExecutionException If the destination rejected the release
+   */
+  protected abstract PublishResult upload(CloseableHttpClient httpClient)
+      throws IOException, MojoExecutionException;
+
+  /**
+   * Execute a request and retrieve the body of a successful response.
+   *
+   * @param httpClient  The http client
+   * @param request     The request to execute
+   * @param description Description of the request used in the failure message
+   * @return The body of the response, empty if the response has no body
+   * @throws IOException            If the request failed
+   * @throws MojoExecutionException If the response status is not successful
+   */
+  protected String execute(CloseableHttpClient httpClient, HttpUriRequest request,
+      String description) throws IOException, MojoExecutionException {
+    try (CloseableHttpResponse response = httpClient.execute(request)) {
+      final int statusCode = response.getStatusLine().getStatusCode();
+      final String body = response.getEntity() == null
+          ? "" : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+
+      if (statusCode < 200 || statusCode >= 300) {
+        throw new MojoExecutionException(description + " on " + name + " failed with status "
+            + statusCode + ": " + body);
+      }
+
+      return body;
+    }
+  }
+
+  private CloseableHttpClient createHttpClient() {
+    final HttpClientRegistry registry = HttpClientRegistry.getInstance();
+
+    return HttpClientBuilder
+        .create()
+        .useSystemProperties()
+        .setConnectionManager(registry.getConnectionManager())
+        .setConnectionManagerShared(true)
+        .setKeepAliveStrategy(registry.getKeepAliveStrategy())
+        .setDefaultRequestConfig(timeoutPolicy.createRequestConfig(file.length()))
+        // a request is only sent again if it failed before it was completely sent, e.g. on a
+        // pooled connection the destination closed in the meantime
+        .setRetryHandler(new DefaultHttpRequestRetryHandler(1, false))
+        .addInterceptorFirst((HttpRequestInterceptor) (request, context) ->
+            registry.recordRequest())
+        .setDefaultHeaders(Collections.singletonList(
+            new BasicHeader(HttpHeaders.USER_AGENT, USER_AGENT)))
+        .build();
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.publish;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.ragedunicorn.tools.maven.model.GitHubDestination;
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.FileEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Publishes the release file as asset of a new GitHub release. The release is created for the
+ * tag first and the file is uploaded to the upload url returned for the release.
+ */
+public class GitHubPublisher extends AbstractHttpPublisher {
+  public static final String DEFAULT_BASE_URI = "https://api.github.com";
+
+  private static final String ACCEPT = "application/vnd.github.v3+json";
+
+  private final Gson gson = new Gson();
+
+  private final GitHubDestination destination;
+
+  private final String changelog;
+
+  /**
+   * Create a GitHub publisher.
+   *
+   * @param destination   The repository with tag, token and base uri set
+   * @param file          The file to publish
+   * @param changelog     Optional changelog used as description of the release
+   * @param timeoutPolicy The timeouts of the requests
+   */
+  public GitHubPublisher(GitHubDestination destination, File file, String changelog,
+      TimeoutPolicy timeoutPolicy) {
+    super("github/" + destination.getOwner() + "/" + destination.getRepository(), file,
+        timeoutPolicy);
+    this.destination = destination;
+    this.changelog = changelog;
+  }
+
+  @Override
+  protected PublishResult upload(CloseableHttpClient httpClient)
+      throws IOException, MojoExecutionException {
+    final JsonObject release = createRelease(httpClient);
+
+    // the upload url is a uri template such as .../assets{?name,label}
+    final String uploadUrl = release.get("upload_url").getAsString().replaceFirst("\\{.*}$", "");
+    final HttpPost httpPost = new HttpPost(uploadUrl + "?name="
+        + URLEncoder.encode(getFile().getName(), StandardCharsets.UTF_8.name()));
+    setHeaders(httpPost);
+    httpPost.setEntity(new FileEntity(getFile(), ContentType.create("application/zip")));
+
+    execute(httpClient, httpPost, "Asset upload");
+
+    final PublishResult result = new PublishResult();
+    result.setId(release.get("id").getAsString());
+    result.setUrl(release.has("html_url") ? release.get("html_url").getAsString() : null);
+
+    return result;
+  }
+
+  private JsonObject createRelease(CloseableHttpClient httpClient)
+      throws IOException, MojoExecutionException {
+    final JsonObject request = new JsonObject();
+    request.addProperty("tag_name", destination.getTagName());
+    request.addProperty("name", destination.getName() == null
+        ? destination.getTagName() : destination.getName());
+    request.addProperty("body", changelog);
+    request.addProperty("prerelease", Boolean.TRUE.equals(destination.getPrerelease()));
+
+    final HttpPost httpPost = new HttpPost(destination.getBaseUri() + "/repos/"
+        + destination.getOwner() + "/" + destination.getRepository() + "/releases");
+    setHeaders(httpPost);
+    httpPost.setEntity(new StringEntity(gson.toJson(request), ContentType.APPLICATION_JSON));
+
+    final String body = execute(httpClient, httpPost, "Release creation");
+
+    try {
+      final JsonObject release = gson.fromJson(body, JsonObject.class);
+
+      if (release == null || !release.has("id") || !release.has("upload_url")) {
+        throw new MojoExecutionException("Unexpected response of release creation on "
+            + getName() + ": " + body);
+      }
+
+      return release;
+    } catch (JsonParseException e) {
+      throw new MojoExecutionException("Failed to parse response of release creation on "
+          + getName(), e);
+    }
+  }
+
+  private void setHeaders(HttpPost httpPost) {
+    httpPost.setHeader(HttpHeaders.AUTHORIZATION, "token " + destination.getToken());
+    httpPost.setHeader(HttpHeaders.ACCEPT, ACCEPT);
+  }
+}
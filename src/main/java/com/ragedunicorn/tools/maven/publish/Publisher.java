@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.publish;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Destination a prepared release is published to. A publisher is prepared with everything it
+ * needs before the release starts, e.g. resolved game versions or credentials, so that the
+ * publishers of all destinations can publish the same artifact concurrently. Implementations are
+ * executed on their own thread and must not share mutable state with other publishers.
+ */
+public interface Publisher {
+  /**
+   * Retrieve the name of the destination used when reporting the result.
+   *
+   * @return The name of the destination
+   */
+  String getName();
+
+  /**
+   * Publish the prepared release.
+   *
+   * @return The result of the release on the destination
+   * @throws MojoExecutionException If the destination rejected the release or is unreachable
+   */
+  PublishResult publish() throws MojoExecutionException;
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.publish;
+
+import com.ragedunicorn.tools.maven.model.WowInterfaceDestination;
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Publishes the release file as update of an existing WoWInterface addon.
+ */
+public class WowInterfacePublisher extends AbstractHttpPublisher {
+  public static final String DEFAULT_BASE_URI = "https://api.wowinterface.com";
+
+  private static final String ENDPOINT = "/addons/update";
+
+  private static final String ADDON_URL = "https://www.wowinterface.com/downloads/info";
+
+  private static final ContentType TEXT = ContentType.create("text/plain", StandardCharsets.UTF_8);
+
+  private final WowInterfaceDestination destination;
+
+  private final String changelog;
+
+  /**
+   * Create a WoWInterface publisher.
+   *
+   * @param destination   The addon with version, token and base uri set
+   * @param file          The file to publish
+   * @param changelog     Optional changelog of the release
+   * @param timeoutPolicy The timeouts of the requests
+   */
+  public WowInterfacePublisher(WowInterfaceDestination destination, File file, String changelog,
+      TimeoutPolicy timeoutPolicy) {
+    super("wowinterface/" + destination.getAddonId(), file, timeoutPolicy);
+    this.destination = destination;
+    this.changelog = changelog;
+  }
+
+  @Override
+  protected PublishResult upload(CloseableHttpClient httpClient)
+      throws IOException, MojoExecutionException {
+    final MultipartEntityBuilder entityBuilder = MultipartEntityBuilder
+        .create()
+        .addTextBody("id", destination.getAddonId(), TEXT)
+        .addTextBody("version", destination.getVersion(), TEXT);
+
+    if (destination.getCompatible() != null) {
+      entityBuilder.addTextBody("compatible", destination.getCompatible(), TEXT);
+    }
+
+    if (changelog != null) {
+      entityBuilder.addTextBody("changelog", changelog, TEXT);
+    }
+
+    entityBuilder.addBinaryBody("updatefile", getFile(), ContentType.create("application/zip"),
+        getFile().getName());
+
+    final HttpPost httpPost = new HttpPost(destination.getBaseUri() + ENDPOINT);
+    httpPost.setHeader("x-api-token", destination.getToken());
+    httpPost.setEntity(entityBuilder.build());
+
+    // the update is accepted and processed by WoWInterface afterwards
+    execute(httpClient, httpPost, "Addon update");
+
+    final PublishResult result = new PublishResult();
+    result.setId(destination.getAddonId());
+    result.setUrl(ADDON_URL + destination.getAddonId());
+
+    return result;
+  }
+}
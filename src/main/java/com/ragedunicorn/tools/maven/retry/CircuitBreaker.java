@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.retry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker shared by all releases within the JVM. Once the Twitch Api failed a number of
+ * times in a row the circuit opens and releases fail immediately without calling the Api. After
+ * the open time has passed a single release is let through to probe the Api. If it succeeds the
+ * circuit closes again, otherwise it stays open for another open time. A probe that ended without
+ * reaching the Api releases its slot so that the next release probes instead. The open time is
+ * measured with the monotonic clock.
+ */
+public final class CircuitBreaker {
+  public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+  public static final long DEFAULT_OPEN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private static final CircuitBreaker INSTANCE = new CircuitBreaker();
+
+  private final Object lock = new Object();
+
+  private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+  private long openMillis = DEFAULT_OPEN_MILLIS;
+
+  // failures in a row since the last success
+  private int failures;
+
+  private boolean open;
+
+  // System.nanoTime() when the circuit opened or the last probe failed
+  private long openedAtNanos;
+
+  private boolean probing;
+
+  private CircuitBreaker() {
+    // singleton
+  }
+
+  public static CircuitBreaker getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Configure the circuit breaker. The state of the circuit is kept so that the executions of
+   * all modules of a reactor build share it.
+   *
+   * @param failureThreshold Failures in a row that open the circuit
+   * @param openMillis       Time the circuit stays open before the Api is probed again
+   */
+  public void configure(int failureThreshold, long openMillis) {
+    if (failureThreshold <= 0 || openMillis < 0) {
+      throw new IllegalArgumentException("failureThreshold must be greater than zero and "
+          + "openMillis must not be negative");
+    }
+
+    synchronized (lock) {
+      this.failureThreshold = failureThreshold;
+      this.openMillis = openMillis;
+    }
+  }
+
+  /**
+   * Check whether a request to the Twitch Api may be sent. While the circuit is open only a
+   * single probing request is allowed once the open time has passed.
+   *
+   * @return True if the request may be sent
+   */
+  public boolean allowRequest() {
+    synchronized (lock) {
+      if (!open) {
+        return true;
+      }
+
+      if (probing
+          || System.nanoTime() - openedAtNanos < TimeUnit.MILLISECONDS.toNanos(openMillis)) {
+        return false;
+      }
+
+      probing = true;
+
+      return true;
+    }
+  }
+
+  /**
+   * Check whether the circuit is open.
+   *
+   * @return True if requests are currently rejected
+   */
+  public boolean isOpen() {
+    synchronized (lock) {
+      return open;
+    }
+  }
+
+  /**
+   * Record a request that reached the Twitch Api. Closes the circuit.
+   */
+  public void recordSuccess() {
+    synchronized (lock) {
+      close();
+    }
+  }
+
+  /**
+   * Record a request that failed because the Twitch Api was unavailable.
+   *
+   * @return True if the circuit is open afterwards
+   */
+  public boolean recordFailure() {
+    synchronized (lock) {
+      failures++;
+      probing = false;
+
+      if (open || failures >= failureThreshold) {
+        open = true;
+        openedAtNanos = System.nanoTime();
+      }
+
+      return open;
+    }
+  }
+
+  /**
+   * Release the probe of a request that failed before it reached the Twitch Api, e.g. because
+   * the file could not be read. Such a failure tells nothing about the availability of the Api,
+   * the circuit stays as it is and the next request probes the Api instead.
+   */
+  public void releaseProbe() {
+    synchronized (lock) {
+      probing = false;
+    }
+  }
+
+  /**
+   * Close the circuit and forget all recorded failures.
+   */
+  public void reset() {
+    synchronized (lock) {
+      close();
+    }
+  }
+
+  private void close() {
+    failures = 0;
+    open = false;
+    probing = false;
+  }
+}
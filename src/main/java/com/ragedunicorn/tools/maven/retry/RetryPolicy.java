@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.retry;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.ragedunicorn.tools.maven.http.DeadlineExceededException;
+import com.ragedunicorn.tools.maven.http.FileReadException;
+import com.ragedunicorn.tools.maven.http.UnconfirmedUploadException;
+import com.ragedunicorn.tools.maven.http.UploadResponse;
+import com.ragedunicorn.tools.maven.model.TwitchApiClientError;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.utils.DateUtils;
+
+/**
+ * Decides whether a failed request to the Twitch Api is retried and how long to wait before the
+ * next attempt. A response is retryable if its status code is classified as retryable and the
+ * error code reported by Twitch is not classified as fatal. Error codes classified as retryable
+ * make a response retryable regardless of its status code.
+ */
+public class RetryPolicy {
+  public static final int DEFAULT_MAX_ATTEMPTS = 5;
+  public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 1000;
+  public static final long DEFAULT_MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(1);
+  public static final long DEFAULT_DEADLINE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+  public static final Set<Integer> DEFAULT_RETRYABLE_STATUS_CODES =
+      Collections.unmodifiableSet(new HashSet<>(Arrays.asList(429, 500, 502, 503, 504)));
+
+  private static final String RETRY_AFTER = "Retry-After";
+
+  private final Gson gson = new Gson();
+
+  private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+  private long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+
+  private long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+
+  // total time budget for all attempts of a single release
+  private long deadlineMillis = DEFAULT_DEADLINE_MILLIS;
+
+  private Set<Integer> retryableStatusCodes = DEFAULT_RETRYABLE_STATUS_CODES;
+
+  private Set<Integer> retryableErrorCodes = Collections.emptySet();
+
+  private Set<Integer> fatalErrorCodes = Collections.emptySet();
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    if (maxAttempts <= 0) {
+      throw new IllegalArgumentException("maxAttempts must be greater than zero");
+    }
+    this.maxAttempts = maxAttempts;
+  }
+
+  public long getInitialBackoffMillis() {
+    return initialBackoffMillis;
+  }
+
+  public void setInitialBackoffMillis(long initialBackoffMillis) {
+    if (initialBackoffMillis < 0) {
+      throw new IllegalArgumentException("initialBackoffMillis must not be negative");
+    }
+    this.initialBackoffMillis = initialBackoffMillis;
+  }
+
+  public long getMaxBackoffMillis() {
+    return maxBackoffMillis;
+  }
+
+  public void setMaxBackoffMillis(long maxBackoffMillis) {
+    if (maxBackoffMillis < 0) {
+      throw new IllegalArgumentException("maxBackoffMillis must not be negative");
+    }
+    this.maxBackoffMillis = maxBackoffMillis;
+  }
+
+  public long getDeadlineMillis() {
+    return deadlineMillis;
+  }
+
+  public void setDeadlineMillis(long deadlineMillis) {
+    if (deadlineMillis <= 0) {
+      throw new IllegalArgumentException("deadlineMillis must be greater than zero");
+    }
+    this.deadlineMillis = deadlineMillis;
+  }
+
+  public Set<Integer> getRetryableStatusCodes() {
+    return retryableStatusCodes;
+  }
+
+  public void setRetryableStatusCodes(Set<Integer> retryableStatusCodes) {
+    this.retryableStatusCodes = Collections.unmodifiableSet(new HashSet<>(retryableStatusCodes));
+  }
+
+  public Set<Integer> getRetryableErrorCodes() {
+    return retryableErrorCodes;
+  }
+
+  public void setRetryableErrorCodes(Set<Integer> retryableErrorCodes) {
+    this.retryableErrorCodes = Collections.unmodifiableSet(new HashSet<>(retryableErrorCodes));
+  }
+
+  public Set<Integer> getFatalErrorCodes() {
+    return fatalErrorCodes;
+  }
+
+  public void setFatalErrorCodes(Set<Integer> fatalErrorCodes) {
+    this.fatalErrorCodes = Collections.unmodifiableSet(new HashSet<>(fatalErrorCodes));
+  }
+
+  /**
+   * Classify a response of the Twitch Api.
+   *
+   * @param response The received response
+   * @return True if the request should be retried
+   */
+  public boolean isRetryable(UploadResponse response) {
+    if (response.isSuccessful()) {
+      return false;
+    }
+
+    final Integer errorCode = getErrorCode(response);
+
+    if (errorCode != null && fatalErrorCodes.contains(errorCode)) {
+      return false;
+    }
+
+    return retryableStatusCodes.contains(response.getStatusCode())
+        || errorCode != null && retryableErrorCodes.contains(errorCode);
+  }
+
+  /**
+   * Classify a request that failed without a response. Only a connection failing before the file
+   * was completely sent indicates that the Twitch Api is unavailable. A file that cannot be read,
+   * an upload aborted at the deadline of its release and an upload that was completely sent but
+   * never confirmed fail the release without being attributed to the Twitch Api.
+   *
+   * @param error The failure of the request
+   * @return True if the failure indicates that the Twitch Api is unavailable
+   */
+  public boolean isUnavailable(IOException error) {
+    return !(error instanceof FileReadException || error instanceof DeadlineExceededException
+        || error instanceof UnconfirmedUploadException);
+  }
+
+  /**
+   * Calculate the delay before the next attempt. The delay grows exponentially with every attempt
+   * and half of it is randomized to spread concurrent clients. A delay requested by the server
+   * with a Retry-After header takes precedence if it is longer.
+   *
+   * @param attempt  The attempt that failed starting with 1
+   * @param response The received response or null if the request failed without a response
+   * @return The delay in milliseconds
+   */
+  public long getBackoffMillis(int attempt, UploadResponse response) {
+    final long exponentialBackoff = Math.min(maxBackoffMillis,
+        initialBackoffMillis << Math.min(attempt - 1, 30));
+    final long halfBackoff = exponentialBackoff / 2;
+    final long backoff = halfBackoff
+        + ThreadLocalRandom.current().nextLong(exponentialBackoff - halfBackoff + 1);
+
+    if (response == null) {
+      return backoff;
+    }
+
+    return Math.max(backoff, getRetryAfterMillis(response));
+  }
+
+  /**
+   * Parse the Retry-After header which either contains the delay in seconds or an http date.
+   *
+   * @param response The received response
+   * @return The requested delay in milliseconds or 0 if none was requested
+   */
+  public static long getRetryAfterMillis(UploadResponse response) {
+    final String retryAfter = response.getHeader(RETRY_AFTER);
+
+    if (retryAfter == null) {
+      return 0;
+    }
+
+    final String value = retryAfter.trim();
+
+    try {
+      return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+    } catch (NumberFormatException e) {
+      final Date date = DateUtils.parseDate(value);
+
+      return date == null ? 0 : Math.max(0, date.getTime() - System.currentTimeMillis());
+    }
+  }
+
+  private Integer getErrorCode(UploadResponse response) {
+    try {
+      final TwitchApiClientError clientError =
+          gson.fromJson(response.getBody(), TwitchApiClientError.class);
+
+      return clientError == null ? null : clientError.getErrorCode();
+    } catch (JsonParseException e) {
+      // error responses of proxies and load balancers are usually no json
+      return null;
+    }
+  }
+}
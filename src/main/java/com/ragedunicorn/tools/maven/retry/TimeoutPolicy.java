@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.retry;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.config.RequestConfig;
+
+/**
+ * Decides how long a request to the Twitch Api may take. Connecting and leasing a pooled
+ * connection use fixed timeouts. The socket timeout of an upload is sized from the length of the
+ * file and the throughput measured by previous transmissions because the time the server needs
+ * to process an upload grows with the file. The same timeout is used to detect transmissions
+ * that stopped making progress. Every release additionally has a deadline after which its
+ * request in flight is aborted.
+ */
+public class TimeoutPolicy {
+  public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis(10);
+  public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS =
+      (int) TimeUnit.SECONDS.toMillis(30);
+  public static final int DEFAULT_MIN_SOCKET_TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis(30);
+  public static final int DEFAULT_MAX_SOCKET_TIMEOUT_MILLIS = (int) TimeUnit.MINUTES.toMillis(30);
+  public static final long DEFAULT_RELEASE_DEADLINE_MILLIS = TimeUnit.HOURS.toMillis(1);
+  // throughput in bytes per second assumed until the first transmission was measured
+  public static final long DEFAULT_THROUGHPUT = 128 * 1024;
+
+  // deadlines further away are capped so that nano time values never overflow when compared
+  private static final long MAX_DEADLINE_NANOS = Long.MAX_VALUE / 4;
+
+  // the timeout allows the server to take several times as long as the transmission
+  private static final int SAFETY_FACTOR = 4;
+
+  // weight of a new measurement in the moving average of the throughput
+  private static final double SMOOTHING = 0.3;
+
+  private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+
+  private int connectionRequestTimeoutMillis = DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS;
+
+  private int minSocketTimeoutMillis = DEFAULT_MIN_SOCKET_TIMEOUT_MILLIS;
+
+  private int maxSocketTimeoutMillis = DEFAULT_MAX_SOCKET_TIMEOUT_MILLIS;
+
+  // total time budget for a release including its additional files and all retries
+  private long releaseDeadlineMillis = DEFAULT_RELEASE_DEADLINE_MILLIS;
+
+  private final Object lock = new Object();
+
+  // moving average of the measured throughput in bytes per second, 0 until measured
+  private double measuredThroughput;
+
+  public int getConnectTimeoutMillis() {
+    return connectTimeoutMillis;
+  }
+
+  public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+    if (connectTimeoutMillis <= 0) {
+      throw new IllegalArgumentException("connectTimeoutMillis must be greater than zero");
+    }
+    this.connectTimeoutMillis = connectTimeoutMillis;
+  }
+
+  public int getConnectionRequestTimeoutMillis() {
+    return connectionRequestTimeoutMillis;
+  }
+
+  public void setConnectionRequestTimeoutMillis(int connectionRequestTimeoutMillis) {
+    if (connectionRequestTimeoutMillis <= 0) {
+      throw new IllegalArgumentException(
+          "connectionRequestTimeoutMillis must be greater than zero");
+    }
+    this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+  }
+
+  public int getMinSocketTimeoutMillis() {
+    return minSocketTimeoutMillis;
+  }
+
+  public void setMinSocketTimeoutMillis(int minSocketTimeoutMillis) {
+    if (minSocketTimeoutMillis <= 0) {
+      throw new IllegalArgumentException("minSocketTimeoutMillis must be greater than zero");
+    }
+    this.minSocketTimeoutMillis = minSocketTimeoutMillis;
+  }
+
+  public int getMaxSocketTimeoutMillis() {
+    return maxSocketTimeoutMillis;
+  }
+
+  public void setMaxSocketTimeoutMillis(int maxSocketTimeoutMillis) {
+    if (maxSocketTimeoutMillis <= 0) {
+      throw new IllegalArgumentException("maxSocketTimeoutMillis must be greater than zero");
+    }
+    this.maxSocketTimeoutMillis = maxSocketTimeoutMillis;
+  }
+
+  public long getReleaseDeadlineMillis() {
+    return releaseDeadlineMillis;
+  }
+
+  public void setReleaseDeadlineMillis(long releaseDeadlineMillis) {
+    if (releaseDeadlineMillis <= 0) {
+      throw new IllegalArgumentException("releaseDeadlineMillis must be greater than zero");
+    }
+    this.releaseDeadlineMillis = releaseDeadlineMillis;
+  }
+
+  /**
+   * Record the throughput of a transmission. Transmissions of every upload sharing this policy
+   * contribute to the throughput used for sizing the socket timeout.
+   *
+   * @param bytes Amount of transmitted bytes
+   * @param nanos Duration of the transmission
+   */
+  public void recordThroughput(long bytes, long nanos) {
+    if (bytes <= 0 || nanos <= 0) {
+      return;
+    }
+
+    final double throughput = bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+
+    synchronized (lock) {
+      measuredThroughput = measuredThroughput == 0
+          ? throughput : SMOOTHING * throughput + (1 - SMOOTHING) * measuredThroughput;
+    }
+  }
+
+  /**
+   * Retrieve the throughput used for sizing the socket timeout.
+   *
+   * @return The measured throughput in bytes per second or the default throughput if nothing was
+   *         measured yet
+   */
+  public long getThroughput() {
+    synchronized (lock) {
+      return measuredThroughput == 0
+          ? DEFAULT_THROUGHPUT : Math.max(1, (long) measuredThroughput);
+    }
+  }
+
+  /**
+   * Size the socket timeout for the upload of a file. The timeout is a multiple of the time the
+   * transmission of the file is expected to take at the current throughput, bounded by the
+   * minimum and maximum socket timeout.
+   *
+   * @param length Length of the uploaded file in bytes
+   * @return The socket timeout in milliseconds
+   */
+  public int getSocketTimeoutMillis(long length) {
+    final double expectedMillis = length * (double) TimeUnit.SECONDS.toMillis(1) / getThroughput();
+    final double timeout = Math.max(minSocketTimeoutMillis, SAFETY_FACTOR * expectedMillis);
+
+    return (int) Math.min(maxSocketTimeoutMillis, timeout);
+  }
+
+  /**
+   * Create the request configuration of requests without a body.
+   *
+   * @return The request configuration
+   */
+  public RequestConfig createRequestConfig() {
+    return createRequestConfig(0);
+  }
+
+  /**
+   * Create the request configuration for the upload of a file.
+   *
+   * @param length Length of the uploaded file in bytes
+   * @return The request configuration
+   */
+  public RequestConfig createRequestConfig(long length) {
+    return RequestConfig
+        .custom()
+        .setConnectTimeout(connectTimeoutMillis)
+        .setConnectionRequestTimeout(connectionRequestTimeoutMillis)
+        .setSocketTimeout(getSocketTimeoutMillis(length))
+        .build();
+  }
+
+  /**
+   * Calculate the deadline of a release that starts now.
+   *
+   * @return The deadline as a value of {@link System#nanoTime()}
+   */
+  public long createDeadline() {
+    return deadlineAfter(releaseDeadlineMillis);
+  }
+
+  /**
+   * Calculate a deadline. Deadlines are measured with the monotonic {@link System#nanoTime()}
+   * because wall-clock adjustments would otherwise abort uploads too early or too late. Deadlines
+   * must only be compared with the methods of this class as nano time values may overflow.
+   *
+   * @param millis Time from now until the deadline in milliseconds
+   * @return The deadline as a value of {@link System#nanoTime()}
+   */
+  public static long deadlineAfter(long millis) {
+    return System.nanoTime() + Math.min(TimeUnit.MILLISECONDS.toNanos(millis), MAX_DEADLINE_NANOS);
+  }
+
+  /**
+   * Retrieve the earlier of two deadlines.
+   *
+   * @param deadline      A deadline as a value of {@link System#nanoTime()}
+   * @param otherDeadline Another deadline as a value of {@link System#nanoTime()}
+   * @return The deadline that runs out first
+   */
+  public static long earliest(long deadline, long otherDeadline) {
+    return deadline - otherDeadline <= 0 ? deadline : otherDeadline;
+  }
+
+  /**
+   * Calculate the time left until a deadline.
+   *
+   * @param deadline A deadline as a value of {@link System#nanoTime()}
+   * @return The remaining time in milliseconds, zero or negative once the deadline ran out
+   */
+  public static long remainingMillis(long deadline) {
+    return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+  }
+
+  /**
+   * Check whether a deadline ran out.
+   *
+   * @param deadline A deadline as a value of {@link System#nanoTime()}
+   * @return True if the deadline ran out
+   */
+  public static boolean isExpired(long deadline) {
+    return deadline - System.nanoTime() <= 0;
+  }
+}
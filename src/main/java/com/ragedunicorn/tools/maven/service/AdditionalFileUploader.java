@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.concurrent.DaemonThreadFactory;
+import com.ragedunicorn.tools.maven.log.TwitchReleaseLogger;
+import com.ragedunicorn.tools.maven.model.AdditionalFile;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.TwitchApiRelease;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Uploads the additional files of a release once its main file was uploaded. Additional files
+ * reference the id of the main file and are uploaded concurrently.
+ */
+class AdditionalFileUploader {
+  private final int uploadThreads;
+
+  private final TwitchReleaseLogger logger;
+
+  private final ReleaseOperation releaseOperation;
+
+  /**
+   * Create an uploader of additional files.
+   *
+   * @param uploadThreads    Maximum amount of additional files that are uploaded concurrently
+   * @param logger           The logger
+   * @param releaseOperation Creates the release of a single file
+   */
+  AdditionalFileUploader(int uploadThreads, TwitchReleaseLogger logger,
+      ReleaseOperation releaseOperation) {
+    this.uploadThreads = uploadThreads;
+    this.logger = logger;
+    this.releaseOperation = releaseOperation;
+  }
+
+  /**
+   * Upload all additional files concurrently on a bounded executor. All uploads are awaited even
+   * if one of them fails so that no upload is left running in the background.
+   *
+   * @param metadata        Metadata of the main file
+   * @param parentRelease   The already uploaded main file
+   * @param additionalFiles Additional files that are linked to the main file
+   * @return The received responses from Twitch in the order of the passed additional files
+   * @throws MojoExecutionException If any of the requests to the Twitch Api failed
+   */
+  List<TwitchApiRelease> upload(Metadata metadata, TwitchApiRelease parentRelease,
+      List<AdditionalFile> additionalFiles) throws MojoExecutionException {
+    final ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(uploadThreads, additionalFiles.size()), new DaemonThreadFactory("twitch-upload"));
+    final List<Future<TwitchApiRelease>> futures = new ArrayList<>();
+
+    try {
+      for (AdditionalFile additionalFile : additionalFiles) {
+        final Metadata childMetadata = createChildMetadata(metadata, parentRelease,
+            additionalFile);
+        futures.add(executor.submit(() ->
+            releaseOperation.create(childMetadata, additionalFile.getFile())));
+      }
+
+      final List<TwitchApiRelease> releases = new ArrayList<>();
+      MojoExecutionException failure = null;
+
+      for (Future<TwitchApiRelease> future : futures) {
+        try {
+          releases.add(future.get());
+        } catch (ExecutionException e) {
+          logger.error("Failed to upload additional file", e.getCause());
+
+          if (failure == null) {
+            failure = e.getCause() instanceof MojoExecutionException
+                ? (MojoExecutionException) e.getCause()
+                : new MojoExecutionException("Failed to upload additional file", e.getCause());
+          }
+        }
+      }
+
+      if (failure != null) {
+        throw failure;
+      }
+
+      return releases;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while uploading additional files", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Create the metadata for an additional file. Additional files inherit the changelog and
+   * release type of their parent but must not define game versions.
+   *
+   * @param metadata       Metadata of the main file
+   * @param parentRelease  The already uploaded main file
+   * @param additionalFile The additional file
+   * @return The metadata for the additional file
+   */
+  private Metadata createChildMetadata(Metadata metadata, TwitchApiRelease parentRelease,
+      AdditionalFile additionalFile) {
+    final Metadata childMetadata = new Metadata();
+    childMetadata.setChangelog(metadata.getChangelog());
+    childMetadata.setChangelogType(metadata.getChangelogType());
+    childMetadata.setReleaseType(metadata.getReleaseType());
+    childMetadata.setParentFileId(parentRelease.getId());
+
+    if (additionalFile.getDisplayName() == null || additionalFile.getDisplayName().isEmpty()) {
+      childMetadata.setDisplayName(Paths.get(additionalFile.getFile()).getFileName().toString());
+    } else {
+      childMetadata.setDisplayName(additionalFile.getDisplayName());
+    }
+
+    return childMetadata;
+  }
+
+  /**
+   * Creates the release of a single file.
+   */
+  interface ReleaseOperation {
+    TwitchApiRelease create(Metadata metadata, String file) throws MojoExecutionException;
+  }
+}
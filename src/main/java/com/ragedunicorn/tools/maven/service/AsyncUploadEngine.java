@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.TwitchClient;
+import com.ragedunicorn.tools.maven.concurrent.FutureUtils;
+import com.ragedunicorn.tools.maven.http.DeadlineExceededException;
+import com.ragedunicorn.tools.maven.http.FileReadException;
+import com.ragedunicorn.tools.maven.http.MultipartAsyncRequestProducer;
+import com.ragedunicorn.tools.maven.http.UnconfirmedUploadException;
+import com.ragedunicorn.tools.maven.http.UploadPriority;
+import com.ragedunicorn.tools.maven.http.UploadProgress;
+import com.ragedunicorn.tools.maven.http.UploadResponse;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.log.TwitchReleaseLogger;
+import com.ragedunicorn.tools.maven.retry.RetryPolicy;
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
+
+/**
+ * Non-blocking counterpart of the {@link UploadEngine}. Uploads are executed by the shared
+ * non-blocking http client and no thread is blocked while an upload is in flight. Retries follow
+ * the same rules as the blocking engine and are scheduled instead of slept.
+ */
+public class AsyncUploadEngine {
+  private static final ContentType FILE_CONTENT_TYPE =
+      ContentType.create("application/octet-stream");
+
+  // separates a count from its total in progress and attempt messages
+  private static final String OF = " of ";
+
+  private TwitchReleaseLogger logger = new DefaultLog();
+
+  private final int maxRetransmissions;
+
+  private final RetryPolicy retryPolicy;
+
+  private final TimeoutPolicy timeoutPolicy;
+
+  public AsyncUploadEngine(int maxRetransmissions, RetryPolicy retryPolicy) {
+    this(maxRetransmissions, retryPolicy, new TimeoutPolicy());
+  }
+
+  /**
+   * Create an asynchronous upload engine.
+   *
+   * @param maxRetransmissions How often an interrupted transmission is sent again
+   * @param retryPolicy        Policy deciding which failed requests are retried
+   * @param timeoutPolicy      Policy sizing the timeouts of every request
+   */
+  public AsyncUploadEngine(int maxRetransmissions, RetryPolicy retryPolicy,
+      TimeoutPolicy timeoutPolicy) {
+    if (maxRetransmissions < 0) {
+      throw new IllegalArgumentException("maxRetransmissions must not be negative");
+    }
+
+    this.maxRetransmissions = maxRetransmissions;
+    this.retryPolicy = retryPolicy;
+    this.timeoutPolicy = timeoutPolicy;
+  }
+
+  public TwitchReleaseLogger getLogger() {
+    return logger;
+  }
+
+  public void setLogger(TwitchReleaseLogger logger) {
+    this.logger = logger;
+  }
+
+  /**
+   * Upload a file together with its serialized metadata without blocking. Cancelling or
+   * completing the returned future aborts the request in flight.
+   *
+   * @param twitchClient The Twitch client
+   * @param endpointUri  The prepared endpoint uri
+   * @param metadata     The serialized metadata
+   * @param file         The file to upload
+   * @param filename     The filename reported to the server
+   * @param priority     Priority of the upload if the bandwidth is limited
+   * @return A future that is completed with the response of the server
+   */
+  public CompletableFuture<UploadResponse> upload(TwitchClient twitchClient, URI endpointUri,
+      String metadata, File file, String filename, UploadPriority priority) {
+    return upload(twitchClient, endpointUri, metadata, file, filename, priority,
+        timeoutPolicy.createDeadline());
+  }
+
+  /**
+   * Upload a file together with its serialized metadata without blocking. Cancelling or
+   * completing the returned future aborts the request in flight. Once the deadline of the release
+   * ran out the request in flight is aborted and the future completed with a
+   * {@link DeadlineExceededException}.
+   *
+   * @param twitchClient The Twitch client
+   * @param endpointUri  The prepared endpoint uri
+   * @param metadata     The serialized metadata
+   * @param file         The file to upload
+   * @param filename     The filename reported to the server
+   * @param priority     Priority of the upload if the bandwidth is limited
+   * @param deadline     Value of {@link System#nanoTime()} the upload is aborted at
+   * @return A future that is completed with the response of the server
+   */
+  public CompletableFuture<UploadResponse> upload(TwitchClient twitchClient, URI endpointUri,
+      String metadata, File file, String filename, UploadPriority priority, long deadline) {
+    final UploadOperation operation = new UploadOperation(twitchClient, endpointUri, metadata,
+        file, filename, priority, deadline);
+    operation.attempt();
+
+    return operation.result;
+  }
+
+  /**
+   * State of a single upload across all of its attempts.
+   */
+  private final class UploadOperation {
+    private final CompletableFuture<UploadResponse> result = new CompletableFuture<>();
+
+    private final AtomicReference<Future<HttpResponse>> inFlight = new AtomicReference<>();
+
+    private final TwitchClient twitchClient;
+
+    private final URI endpointUri;
+
+    private final String metadata;
+
+    private final File file;
+
+    private final String filename;
+
+    private final UploadPriority priority;
+
+    private final UploadProgress progress;
+
+    private final long releaseDeadline;
+
+    private final long deadline;
+
+    private int attempt;
+
+    private int retransmissions;
+
+    UploadOperation(TwitchClient twitchClient, URI endpointUri, String metadata, File file,
+        String filename, UploadPriority priority, long releaseDeadline) {
+      this.twitchClient = twitchClient;
+      this.endpointUri = endpointUri;
+      this.metadata = metadata;
+      this.file = file;
+      this.filename = filename;
+      this.priority = priority;
+      this.progress = new UploadProgress(file.length());
+      this.releaseDeadline = releaseDeadline;
+
+      this.deadline = TimeoutPolicy.earliest(releaseDeadline,
+          TimeoutPolicy.deadlineAfter(retryPolicy.getDeadlineMillis()));
+
+      // the release deadline aborts the upload like the watchdog of the blocking engine
+      final ScheduledFuture<?> deadlineTask = FutureUtils.schedule(() ->
+          result.completeExceptionally(new DeadlineExceededException(
+              "Release deadline exceeded - aborted upload after " + progress.getConfirmedBytes()
+                  + OF + progress.getTotalBytes() + " bytes")),
+          Math.max(0, releaseDeadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+      // abort the request in flight if the upload is cancelled or timed out
+      result.whenComplete((response, error) -> {
+        final Future<HttpResponse> request = inFlight.get();
+
+        deadlineTask.cancel(false);
+
+        if (error != null && request != null) {
+          request.cancel(true);
+        }
+      });
+    }
+
+    void attempt() {
+      if (result.isDone()) {
+        return;
+      }
+
+      attempt++;
+      // the progress of a previous attempt must not count as sent by this one
+      progress.reset();
+
+      MultipartAsyncRequestProducer producer;
+
+      try {
+        // the file is opened lazily, an empty body must not be sent in place of a missing file
+        if (!file.isFile()) {
+          throw new NoSuchFileException(file.getPath());
+        }
+
+        producer = new MultipartAsyncRequestProducer(endpointUri,
+            twitchClient.getDefaultHeaders(), metadata, file, FILE_CONTENT_TYPE, filename,
+            progress, priority);
+      } catch (IOException e) {
+        result.completeExceptionally(new FileReadException("Failed to read " + file, e));
+        return;
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+        return;
+      }
+
+      // the socket timeout is sized from the file like the one of the blocking engine
+      final HttpClientContext context = HttpClientContext.create();
+      context.setRequestConfig(timeoutPolicy.createRequestConfig(file.length()));
+      final long requestNanos = System.nanoTime();
+
+      inFlight.set(twitchClient.getAsyncHttpClient().execute(producer,
+          new BasicAsyncResponseConsumer(), context, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+              try {
+                final long responseNanos = System.nanoTime();
+                final UploadResponse uploadResponse = UploadResponse.read(response, attempt);
+                uploadResponse.setTiming(UploadEngine.createTiming(progress, attempt,
+                    requestNanos, responseNanos));
+                onResponse(uploadResponse);
+              } catch (IOException e) {
+                result.completeExceptionally(e);
+              }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+              onFailure(ex);
+            }
+
+            @Override
+            public void cancelled() {
+              result.cancel(false);
+            }
+          }));
+
+      // the upload might have been cancelled while the request was submitted
+      if (result.isDone()) {
+        inFlight.get().cancel(true);
+      }
+    }
+
+    private void onResponse(UploadResponse response) {
+      if (!retryPolicy.isRetryable(response) || attempt >= retryPolicy.getMaxAttempts()) {
+        result.complete(response);
+        return;
+      }
+
+      final long backoff = retryPolicy.getBackoffMillis(attempt, response);
+
+      if (backoff > TimeoutPolicy.remainingMillis(deadline)) {
+        if (logger.isWarnEnabled()) {
+          logger.warn("Retry deadline of " + retryPolicy.getDeadlineMillis() + "ms exhausted");
+        }
+
+        result.complete(response);
+        return;
+      }
+
+      if (logger.isWarnEnabled()) {
+        logger.warn("Twitch Api responded with status " + response.getStatusCode()
+            + ". Retrying in " + backoff + "ms - attempt " + (attempt + 1) + OF
+            + retryPolicy.getMaxAttempts());
+      }
+
+      FutureUtils.schedule(this::attempt, backoff, TimeUnit.MILLISECONDS);
+    }
+
+    private void onFailure(Exception exception) {
+      if (exception instanceof IOException && progress.isComplete()) {
+        result.completeExceptionally(new UnconfirmedUploadException("Upload of " + file.getName()
+            + " was completely sent but no response was received (" + exception.getMessage()
+            + ")", exception));
+        return;
+      }
+
+      if (!(exception instanceof IOException)
+          || TimeoutPolicy.isExpired(releaseDeadline)
+          || retransmissions >= maxRetransmissions
+          || attempt >= retryPolicy.getMaxAttempts()) {
+        result.completeExceptionally(exception);
+        return;
+      }
+
+      retransmissions++;
+      final long backoff = retryPolicy.getBackoffMillis(retransmissions, null);
+
+      if (backoff > TimeoutPolicy.remainingMillis(deadline)) {
+        result.completeExceptionally(exception);
+        return;
+      }
+
+      if (logger.isWarnEnabled()) {
+        logger.warn("Upload of " + file.getName() + " was interrupted after "
+            + progress.getConfirmedBytes() + OF + progress.getTotalBytes()
+            + " bytes (" + exception.getMessage() + "). Retransmitting in " + backoff
+            + "ms - attempt " + retransmissions + OF + maxRetransmissions);
+      }
+
+      FutureUtils.schedule(this::attempt, backoff, TimeUnit.MILLISECONDS);
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.google.gson.GsonBuilder;
+import com.ragedunicorn.tools.maven.TwitchClient;
+import com.ragedunicorn.tools.maven.cache.DigestUtils;
+import com.ragedunicorn.tools.maven.model.AdditionalFile;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.TwitchApiRelease;
+import com.ragedunicorn.tools.maven.outbox.OutboxEntry;
+import com.ragedunicorn.tools.maven.publish.PublishResult;
+import com.ragedunicorn.tools.maven.publish.Publisher;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A fully prepared release of a module on Twitch. The release is created either immediately or
+ * queued until the end of the reactor build. As {@link Publisher} the release is published
+ * concurrently with the releases on other destinations.
+ */
+public class DeferredRelease implements Publisher {
+  private final String name;
+
+  private final ReleaseService releaseService;
+
+  private final Metadata metadata;
+
+  private final String file;
+
+  private final List<AdditionalFile> additionalFiles;
+
+  // files of the release that were already created
+  private final ReleaseProgress progress = new ReleaseProgress();
+
+  // id of the outbox entry if the release was restored from the outbox
+  private String outboxId;
+
+  /**
+   * Create a prepared release.
+   *
+   * @param name            Name of the module the release belongs to
+   * @param releaseService  The release service of the module
+   * @param metadata        Metadata of the main file
+   * @param file            The main file
+   * @param additionalFiles Optional additional files
+   */
+  public DeferredRelease(String name, ReleaseService releaseService, Metadata metadata,
+      String file, List<AdditionalFile> additionalFiles) {
+    this.name = name;
+    this.releaseService = releaseService;
+    this.metadata = metadata;
+    this.file = file;
+    this.additionalFiles = additionalFiles;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  public ReleaseService getReleaseService() {
+    return releaseService;
+  }
+
+  public ReleaseProgress getProgress() {
+    return progress;
+  }
+
+  public String getOutboxId() {
+    return outboxId;
+  }
+
+  public void setOutboxId(String outboxId) {
+    this.outboxId = outboxId;
+  }
+
+  /**
+   * Create the files of the release that were not created yet.
+   *
+   * @return The created releases, the main file first
+   * @throws MojoExecutionException If any of the requests to the Twitch Api failed
+   */
+  public List<TwitchApiRelease> release() throws MojoExecutionException {
+    return releaseService.createReleaseOperation(metadata, file, additionalFiles, progress);
+  }
+
+  @Override
+  public PublishResult publish() throws MojoExecutionException {
+    final long start = System.nanoTime();
+    final List<TwitchApiRelease> releases = release();
+
+    final PublishResult result = new PublishResult();
+    result.setDestination(name);
+    result.setId(String.valueOf(releases.get(0).getId()));
+    result.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+    return result;
+  }
+
+  /**
+   * Create the outbox entry of the release. Only the files that were not created yet are spooled
+   * together with their digests. If the main file was created its id is spooled instead. Paths are
+   * stored as absolute paths because the outbox may be flushed from another directory.
+   *
+   * @return The outbox entry
+   * @throws IOException If the digest of a spooled file cannot be calculated
+   */
+  public OutboxEntry toOutboxEntry() throws IOException {
+    final TwitchClient twitchClient = releaseService.getTwitchClient();
+    final OutboxEntry entry = new OutboxEntry();
+    entry.setId(outboxId == null ? UUID.randomUUID().toString() : outboxId);
+    entry.setName(name);
+    entry.setGame(twitchClient.getGame());
+    entry.setProjectId(twitchClient.getProjectId());
+    entry.setBaseUri(twitchClient.getBaseUri());
+    entry.setFile(new File(file).getAbsolutePath());
+    entry.setMetadata(new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create()
+        .toJson(metadata));
+    entry.setCreatedAt(System.currentTimeMillis());
+
+    final TwitchApiRelease parentRelease = progress.getParentRelease();
+
+    if (parentRelease == null) {
+      entry.setSha256(releaseService.getSharedFile() != null
+          && releaseService.getSharedFile().isSharedFile(file)
+          ? releaseService.getSharedFile().getSha256() : DigestUtils.sha256(new File(file)));
+    } else {
+      entry.setParentFileId(parentRelease.getId());
+    }
+
+    if (additionalFiles != null) {
+      final List<AdditionalFile> remainingFiles = new ArrayList<>();
+      final Map<String, String> digests = new LinkedHashMap<>();
+
+      for (AdditionalFile additionalFile : additionalFiles) {
+        if (progress.isCreated(additionalFile.getFile())) {
+          continue;
+        }
+
+        final AdditionalFile absoluteFile = new AdditionalFile();
+        absoluteFile.setFile(new File(additionalFile.getFile()).getAbsolutePath());
+        absoluteFile.setDisplayName(additionalFile.getDisplayName());
+        remainingFiles.add(absoluteFile);
+        digests.put(absoluteFile.getFile(), DigestUtils.sha256(new File(absoluteFile.getFile())));
+      }
+
+      entry.setAdditionalFiles(remainingFiles);
+      entry.setAdditionalFileSha256(digests);
+    }
+
+    return entry;
+  }
+}
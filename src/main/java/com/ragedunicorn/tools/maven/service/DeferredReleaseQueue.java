@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.log.TwitchReleaseLogger;
+import com.ragedunicorn.tools.maven.outbox.ReleaseOutbox;
+import com.ragedunicorn.tools.maven.publish.Publisher;
+import com.ragedunicorn.tools.maven.timing.TimingReport;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Collects the releases of all modules of a reactor build that are created at the end of the
+ * build. Like the http clients the queue is shared by all executions of the plugin within the
+ * same Maven session. The releases are created concurrently once the last execution finished. Next
+ * to the Twitch releases the queue holds the releases of the modules on other destinations. If the
+ * reactor build ends before the releases are created, e.g. because a module failed without
+ * --fail-at-end, an error is logged once the JVM exits.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public final class DeferredReleaseQueue {
+  private static final DeferredReleaseQueue INSTANCE = new DeferredReleaseQueue();
+
+  private final Object lock = new Object();
+
+  private final List<Publisher> releases = new ArrayList<>();
+
+  // reports releases that are still queued once the JVM exits
+  private Thread exitCheck;
+
+  private DeferredReleaseQueue() {
+    // singleton
+  }
+
+  public static DeferredReleaseQueue getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Queue a release until the end of the reactor build.
+   *
+   * @param release The prepared release
+   */
+  public void add(Publisher release) {
+    synchronized (lock) {
+      releases.add(release);
+
+      if (exitCheck == null) {
+        exitCheck = new Thread(this::reportPendingReleases, "twitch-release-at-end-check");
+        Runtime.getRuntime().addShutdownHook(exitCheck);
+      }
+    }
+  }
+
+  /**
+   * Retrieve the amount of queued releases.
+   *
+   * @return The amount of queued releases
+   */
+  public int size() {
+    synchronized (lock) {
+      return releases.size();
+    }
+  }
+
+  /**
+   * Remove all queued releases without creating them.
+   *
+   * @return The amount of discarded releases
+   */
+  public int discard() {
+    return drain().size();
+  }
+
+  /**
+   * Create all queued releases concurrently. Every release is attempted even if another release
+   * failed. The queue is empty afterwards.
+   *
+   * @param threads      Maximum amount of releases that are created concurrently
+   * @param logger       Logger used by the release services
+   * @param timingReport Report that records the uploads of all releases
+   * @return The amount of created releases
+   * @throws MojoExecutionException If any of the releases failed
+   */
+  public int flush(int threads, TwitchReleaseLogger logger, TimingReport timingReport)
+      throws MojoExecutionException {
+    return flush(threads, logger, timingReport, null);
+  }
+
+  /**
+   * Create all queued releases concurrently. Every release is attempted even if another release
+   * failed. Releases failing because the Twitch Api is unavailable are spooled to the outbox. The
+   * queue is empty afterwards.
+   *
+   * @param threads      Maximum amount of releases that are created concurrently
+   * @param logger       Logger used by the release services
+   * @param timingReport Report that records the uploads of all releases
+   * @param outbox       Optional outbox of releases waiting for the Twitch Api
+   * @return The amount of created releases
+   * @throws MojoExecutionException If any of the releases failed
+   */
+  public int flush(int threads, TwitchReleaseLogger logger, TimingReport timingReport,
+      ReleaseOutbox outbox) throws MojoExecutionException {
+    final List<Publisher> pending = drain();
+
+    for (Publisher release : pending) {
+      // the executions that prepared the releases have already finished
+      if (release instanceof DeferredRelease) {
+        ((DeferredRelease) release).getReleaseService().setLogger(logger);
+        ((DeferredRelease) release).getReleaseService().setTimingReport(timingReport);
+      }
+    }
+
+    final ReleaseExecutor executor =
+        new ReleaseExecutor(threads, "twitch-release-at-end", logger);
+    executor.setOutbox(outbox);
+
+    return executor.execute(pending, "deferred releases").size();
+  }
+
+  private void reportPendingReleases() {
+    final List<Publisher> pending = drain();
+    final DefaultLog log = new DefaultLog();
+
+    if (!pending.isEmpty() && log.isErrorEnabled()) {
+      log.error(pending.size() + " deferred releases were never created because the reactor "
+          + "build ended before its last execution of the release goal:");
+
+      for (Publisher release : pending) {
+        log.error(" - " + release.getName());
+      }
+    }
+  }
+
+  private List<Publisher> drain() {
+    synchronized (lock) {
+      final List<Publisher> drained = new ArrayList<>(releases);
+      releases.clear();
+
+      return drained;
+    }
+  }
+}
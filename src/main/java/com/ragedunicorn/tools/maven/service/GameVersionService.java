@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.ragedunicorn.tools.maven.TwitchClient;
+import com.ragedunicorn.tools.maven.cache.GameVersionCache;
+import com.ragedunicorn.tools.maven.cache.GameVersionCacheEntry;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.log.TwitchReleaseLogger;
+import com.ragedunicorn.tools.maven.model.GameVersion;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Resolves human readable game versions such as "1.13.5" to the ids expected by the Twitch Api.
+ * If a cache is passed the game version table is cached on disk. Within its time to live the
+ * cached table is used without any network round trip. Afterwards the table is revalidated with
+ * its ETag which usually only costs a "304 Not Modified" response.
+ */
+public class GameVersionService {
+  private static final String ENDPOINT = "/api/game/versions";
+
+  public static final long DEFAULT_TTL_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+  private static final Type GAME_VERSION_LIST_TYPE = new TypeToken<List<GameVersion>>() {
+  }.getType();
+
+  private TwitchReleaseLogger logger = new DefaultLog();
+
+  private final Gson gson = new Gson();
+
+  private final TwitchClient twitchClient;
+
+  private final GameVersionCache gameVersionCache;
+
+  private final long ttlMillis;
+
+  /**
+   * Create a game version service.
+   *
+   * @param twitchClient     The Twitch client
+   * @param gameVersionCache Optional on-disk cache of the game version tables
+   * @param ttlMillis        Time in milliseconds a cached table is used without revalidation
+   */
+  public GameVersionService(TwitchClient twitchClient, GameVersionCache gameVersionCache,
+      long ttlMillis) {
+    this.twitchClient = twitchClient;
+    this.gameVersionCache = gameVersionCache;
+    this.ttlMillis = ttlMillis;
+  }
+
+  public TwitchReleaseLogger getLogger() {
+    return logger;
+  }
+
+  public void setLogger(TwitchReleaseLogger logger) {
+    this.logger = logger;
+  }
+
+  /**
+   * Resolve game versions to their ids. Numeric game versions are treated as ids and never cause
+   * a lookup.
+   *
+   * @param gameVersions Game version names, slugs or ids
+   * @return The ids of the game versions in the order they were passed
+   * @throws MojoExecutionException If a game version is unknown or ambiguous
+   */
+  public int[] resolveGameVersions(String[] gameVersions) throws MojoExecutionException {
+    final int[] ids = new int[gameVersions.length];
+    final List<Integer> unresolved = new ArrayList<>();
+
+    for (int i = 0; i < gameVersions.length; i++) {
+      try {
+        ids[i] = Integer.parseInt(gameVersions[i].trim());
+      } catch (NumberFormatException e) {
+        unresolved.add(i);
+      }
+    }
+
+    if (unresolved.isEmpty()) {
+      return ids;
+    }
+
+    GameVersionCacheEntry cachedTable = readCache();
+    final boolean fresh = cachedTable != null
+        && System.currentTimeMillis() - cachedTable.getFetchedAt() < ttlMillis;
+    GameVersionCacheEntry table = fresh ? cachedTable : revalidate(cachedTable);
+
+    if (fresh && !isResolvable(table, gameVersions, unresolved)) {
+      // the version might have been released after the table was cached
+      table = revalidate(cachedTable);
+    }
+
+    for (int index : unresolved) {
+      ids[index] = resolveGameVersion(table, gameVersions[index].trim());
+    }
+
+    return ids;
+  }
+
+  private boolean isResolvable(GameVersionCacheEntry table, String[] gameVersions,
+      List<Integer> unresolved) {
+    for (int index : unresolved) {
+      if (findGameVersions(table, gameVersions[index].trim()).isEmpty()) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private int resolveGameVersion(GameVersionCacheEntry table, String gameVersion)
+      throws MojoExecutionException {
+    final List<GameVersion> matches = findGameVersions(table, gameVersion);
+
+    if (matches.isEmpty()) {
+      throw new MojoExecutionException("Unknown game version " + gameVersion + " for game "
+          + twitchClient.getGame());
+    }
+
+    if (matches.size() > 1) {
+      throw new MojoExecutionException("Ambiguous game version " + gameVersion + " - use one of "
+          + "the ids " + matches.stream().map(version -> String.valueOf(version.getId()))
+          .collect(Collectors.joining(", ")) + " instead");
+    }
+
+    return matches.get(0).getId();
+  }
+
+  private static List<GameVersion> findGameVersions(GameVersionCacheEntry table,
+      String gameVersion) {
+    return table.getGameVersions().stream()
+        .filter(version -> gameVersion.equalsIgnoreCase(version.getName())
+            || gameVersion.equalsIgnoreCase(version.getSlug()))
+        .collect(Collectors.toList());
+  }
+
+  private GameVersionCacheEntry readCache() {
+    if (gameVersionCache == null) {
+      return null;
+    }
+
+    try {
+      return gameVersionCache.get(twitchClient.getGame());
+    } catch (IOException e) {
+      if (logger.isWarnEnabled()) {
+        logger.warn("Failed to read game version cache", e);
+      }
+
+      return null;
+    }
+  }
+
+  /**
+   * Fetch the game version table or revalidate the cached table with its ETag. If the Twitch Api
+   * is unavailable a stale cached table is used.
+   *
+   * @param cachedTable The cached table or null
+   * @return The current game version table
+   * @throws MojoExecutionException If no table could be fetched and none is cached
+   */
+  private GameVersionCacheEntry revalidate(GameVersionCacheEntry cachedTable)
+      throws MojoExecutionException {
+    final HttpGet httpGet = new HttpGet(twitchClient.prepareEndpointUri(ENDPOINT));
+
+    if (cachedTable != null && cachedTable.getEtag() != null) {
+      httpGet.setHeader(HttpHeaders.IF_NONE_MATCH, cachedTable.getEtag());
+    }
+
+    GameVersionCacheEntry table;
+
+    // closing the client only releases it from the shared connection pool
+    try (CloseableHttpClient httpClient = twitchClient.getHttpClient();
+         CloseableHttpResponse response = httpClient.execute(httpGet)) {
+      final int statusCode = response.getStatusLine().getStatusCode();
+      final String body = response.getEntity() == null
+          ? "" : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+
+      if (statusCode == HttpStatus.SC_NOT_MODIFIED && cachedTable != null) {
+        table = cachedTable;
+      } else if (statusCode == HttpStatus.SC_OK) {
+        table = new GameVersionCacheEntry();
+        table.setGameVersions(gson.fromJson(body, GAME_VERSION_LIST_TYPE));
+
+        final Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+        table.setEtag(etag == null ? null : etag.getValue());
+      } else {
+        return useStaleTable(cachedTable, "status " + statusCode, null);
+      }
+    } catch (IOException | JsonParseException e) {
+      return useStaleTable(cachedTable, e.getMessage(), e);
+    }
+
+    table.setFetchedAt(System.currentTimeMillis());
+
+    if (gameVersionCache == null) {
+      return table;
+    }
+
+    try {
+      gameVersionCache.put(twitchClient.getGame(), table);
+    } catch (IOException e) {
+      if (logger.isWarnEnabled()) {
+        logger.warn("Failed to update game version cache", e);
+      }
+    }
+
+    return table;
+  }
+
+  private GameVersionCacheEntry useStaleTable(GameVersionCacheEntry cachedTable, String reason,
+      Exception cause) throws MojoExecutionException {
+    if (cachedTable == null) {
+      throw new MojoExecutionException("Failed to retrieve game versions - reason: " + reason,
+          cause);
+    }
+
+    if (logger.isWarnEnabled()) {
+      logger.warn("Failed to revalidate game versions (" + reason + "). Using cached game "
+          + "versions");
+    }
+
+    return cachedTable;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.cache.DigestUtils;
+import com.ragedunicorn.tools.maven.cache.UploadCache;
+import com.ragedunicorn.tools.maven.cache.UploadCacheEntry;
+import com.ragedunicorn.tools.maven.http.SharedFile;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.log.TwitchReleaseLogger;
+import com.ragedunicorn.tools.maven.model.TwitchApiRelease;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Looks up and records releases in the {@link UploadCache}. Failures of the cache are logged and
+ * never fail a release.
+ */
+class ReleaseCache {
+  private TwitchReleaseLogger logger = new DefaultLog();
+
+  private final UploadCache uploadCache;
+
+  private final String projectId;
+
+  ReleaseCache(UploadCache uploadCache, String projectId) {
+    this.uploadCache = uploadCache;
+    this.projectId = projectId;
+  }
+
+  void setLogger(TwitchReleaseLogger logger) {
+    this.logger = logger;
+  }
+
+  /**
+   * Create the upload cache key of a release. Failing to create the key disables the upload cache
+   * for the release.
+   *
+   * @param file               Path to the file to upload
+   * @param serializedMetadata The serialized metadata of the release
+   * @return The cache key or null if the key could not be created
+   */
+  String createKey(String file, String serializedMetadata) {
+    try {
+      return UploadCache.createKey(DigestUtils.sha256(new File(file)), projectId,
+          serializedMetadata);
+    } catch (IOException e) {
+      if (logger.isWarnEnabled()) {
+        logger.warn("Failed to calculate digest of " + file + " - upload cache is skipped", e);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Create the upload cache key of a release of a shared file reusing the digest of the file.
+   *
+   * @param sharedFile         The shared file to upload
+   * @param serializedMetadata The serialized metadata of the release
+   * @return The cache key
+   */
+  String createKey(SharedFile sharedFile, String serializedMetadata) {
+    return UploadCache.createKey(sharedFile.getSha256(), projectId, serializedMetadata);
+  }
+
+  TwitchApiRelease get(String cacheKey) {
+    if (cacheKey == null) {
+      return null;
+    }
+
+    try {
+      final UploadCacheEntry entry = uploadCache.get(cacheKey);
+
+      if (entry == null) {
+        return null;
+      }
+
+      final TwitchApiRelease twitchApiRelease = new TwitchApiRelease();
+      twitchApiRelease.setId(entry.getFileId());
+
+      return twitchApiRelease;
+    } catch (IOException e) {
+      if (logger.isWarnEnabled()) {
+        logger.warn("Failed to read upload cache", e);
+      }
+      return null;
+    }
+  }
+
+  void put(String cacheKey, String file, TwitchApiRelease twitchApiRelease) {
+    if (cacheKey == null) {
+      return;
+    }
+
+    final UploadCacheEntry entry = new UploadCacheEntry();
+    entry.setFileId(twitchApiRelease.getId());
+    entry.setProjectId(projectId);
+    entry.setFileName(new File(file).getName());
+    entry.setCreatedAt(System.currentTimeMillis());
+
+    try {
+      uploadCache.put(cacheKey, entry);
+    } catch (IOException e) {
+      if (logger.isWarnEnabled()) {
+        logger.warn("Failed to update upload cache", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.concurrent.DaemonThreadFactory;
+import com.ragedunicorn.tools.maven.log.TwitchReleaseLogger;
+import com.ragedunicorn.tools.maven.outbox.ReleaseOutbox;
+import com.ragedunicorn.tools.maven.publish.PublishResult;
+import com.ragedunicorn.tools.maven.publish.Publisher;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Publishes prepared releases concurrently, e.g. the releases of several Twitch targets or the
+ * same release on several destinations. Every release is attempted even if another release
+ * failed and the result and duration of every release is reported once all of them are done. If
+ * an outbox is set, Twitch releases failing because the Twitch Api is unavailable are spooled to
+ * the outbox instead of failing, and releases restored from the outbox are removed from it once
+ * created.
+ */
+public class ReleaseExecutor {
+  private final int threads;
+
+  private final String threadName;
+
+  private final TwitchReleaseLogger logger;
+
+  // optional outbox of releases waiting for the Twitch Api to become available
+  private ReleaseOutbox outbox;
+
+  /**
+   * Create a release executor.
+   *
+   * @param threads    Maximum amount of releases that are created concurrently
+   * @param threadName Name prefix of the threads creating the releases
+   * @param logger     Logger the results are reported to
+   */
+  public ReleaseExecutor(int threads, String threadName, TwitchReleaseLogger logger) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("threads must be greater than zero");
+    }
+
+    this.threads = threads;
+    this.threadName = threadName;
+    this.logger = logger;
+  }
+
+  public ReleaseOutbox getOutbox() {
+    return outbox;
+  }
+
+  public void setOutbox(ReleaseOutbox outbox) {
+    this.outbox = outbox;
+  }
+
+  /**
+   * Publish all releases concurrently.
+   *
+   * @param releases    The prepared releases
+   * @param description Description of the releases used in the failure message
+   * @return The results of the published releases. Spooled releases have no result
+   * @throws MojoExecutionException If any of the releases failed
+   */
+  public List<PublishResult> execute(List<? extends Publisher> releases, String description)
+      throws MojoExecutionException {
+    final List<PublishResult> results = new ArrayList<>();
+
+    if (releases.isEmpty()) {
+      return results;
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(threads, releases.size()), new DaemonThreadFactory(threadName));
+    final List<Future<PublishResult>> futures = new ArrayList<>();
+
+    try {
+      for (Publisher release : releases) {
+        futures.add(executor.submit(release::publish));
+      }
+
+      final List<String> failed = new ArrayList<>();
+
+      for (int i = 0; i < releases.size(); i++) {
+        final Publisher release = releases.get(i);
+
+        try {
+          final PublishResult result = futures.get(i).get();
+          results.add(result);
+
+          if (logger.isInfoEnabled()) {
+            logger.info("Released " + release.getName() + " in " + result.getDurationMillis()
+                + "ms - id: " + result.getId()
+                + (result.getUrl() == null ? "" : ", url: " + result.getUrl()));
+          }
+
+          removeFromOutbox(release);
+        } catch (ExecutionException e) {
+          if (!spool(release, e.getCause())) {
+            if (logger.isErrorEnabled()) {
+              logger.error("Failed to release " + release.getName(), e.getCause());
+            }
+
+            failed.add(release.getName());
+          }
+        }
+      }
+
+      if (results.size() > 1 && logger.isInfoEnabled()) {
+        logger.info(getSummary(results, description));
+      }
+
+      if (!failed.isEmpty()) {
+        throw new MojoExecutionException("Failed to create " + failed.size() + " of "
+            + releases.size() + " " + description + ": " + String.join(", ", failed));
+      }
+
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while creating " + description, e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Create a single line summary of the durations of all published releases.
+   *
+   * @param results     The results of the published releases
+   * @param description Description of the releases
+   * @return The summary
+   */
+  private static String getSummary(List<PublishResult> results, String description) {
+    final StringBuilder summary = new StringBuilder("Published ")
+        .append(results.size()).append(' ').append(description).append(':');
+    long slowest = 0;
+
+    for (PublishResult result : results) {
+      summary.append(' ').append(result.getDestination()).append(' ')
+          .append(result.getDurationMillis()).append("ms,");
+      slowest = Math.max(slowest, result.getDurationMillis());
+    }
+
+    return summary.append(" slowest ").append(slowest).append("ms").toString();
+  }
+
+  /**
+   * Spool a release that failed because the Twitch Api was unavailable.
+   *
+   * @param release The failed release. Only Twitch releases are spooled
+   * @param error   The reason of the failure
+   * @return True if the release was spooled to the outbox
+   */
+  private boolean spool(Publisher release, Throwable error) {
+    if (outbox == null || !(release instanceof DeferredRelease)
+        || !(error instanceof ServiceUnavailableException)) {
+      return false;
+    }
+
+    try {
+      outbox.put(((DeferredRelease) release).toOutboxEntry());
+    } catch (IOException e) {
+      if (logger.isErrorEnabled()) {
+        logger.error("Failed to spool release of " + release.getName() + " to outbox", e);
+      }
+      return false;
+    }
+
+    if (logger.isWarnEnabled()) {
+      logger.warn(error.getMessage() + " - spooled release of " + release.getName()
+          + " to outbox " + outbox.getDirectory());
+    }
+
+    return true;
+  }
+
+  private void removeFromOutbox(Publisher release) {
+    if (outbox == null || !(release instanceof DeferredRelease)
+        || ((DeferredRelease) release).getOutboxId() == null) {
+      return;
+    }
+
+    try {
+      outbox.remove(((DeferredRelease) release).getOutboxId());
+    } catch (IOException e) {
+      if (logger.isWarnEnabled()) {
+        logger.warn("Failed to remove release of " + release.getName() + " from outbox", e);
+      }
+    }
+  }
+}
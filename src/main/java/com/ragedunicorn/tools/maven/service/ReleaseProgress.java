@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.model.TwitchApiRelease;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The files of a release that were already created on Twitch. A release that failed after some of
+ * its files were created continues with the remaining files instead of creating duplicates of the
+ * created ones. The additional files of a release are created concurrently.
+ */
+public class ReleaseProgress {
+  // the created main file, null until the main file was created
+  private final AtomicReference<TwitchApiRelease> parentRelease = new AtomicReference<>();
+
+  // paths of the created additional files
+  private final Set<String> createdFiles = ConcurrentHashMap.newKeySet();
+
+  public TwitchApiRelease getParentRelease() {
+    return parentRelease.get();
+  }
+
+  public void setParentRelease(TwitchApiRelease parentRelease) {
+    this.parentRelease.set(parentRelease);
+  }
+
+  /**
+   * Check whether an additional file was already created.
+   *
+   * @param file The path of the additional file
+   * @return True if the additional file was created
+   */
+  public boolean isCreated(String file) {
+    return createdFiles.contains(file);
+  }
+
+  /**
+   * Record an additional file that was created.
+   *
+   * @param file The path of the additional file
+   */
+  public void created(String file) {
+    createdFiles.add(file);
+  }
+}
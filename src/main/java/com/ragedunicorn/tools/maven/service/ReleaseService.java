@@ -24,33 +24,252 @@ package com.ragedunicorn.tools.maven.service;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.ragedunicorn.tools.maven.TwitchClient;
-import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.cache.DigestUtils;
+import com.ragedunicorn.tools.maven.cache.UploadCache;
+import com.ragedunicorn.tools.maven.concurrent.FutureUtils;
+import com.ragedunicorn.tools.maven.history.ReleaseHistory;
+import com.ragedunicorn.tools.maven.http.SharedFile;
+import com.ragedunicorn.tools.maven.http.UploadPriority;
+import com.ragedunicorn.tools.maven.http.UploadResponse;
+import com.ragedunicorn.tools.maven.log.TwitchReleaseLogger;
+import com.ragedunicorn.tools.maven.model.AdditionalFile;
 import com.ragedunicorn.tools.maven.model.Metadata;
 import com.ragedunicorn.tools.maven.model.TwitchApiClientError;
 import com.ragedunicorn.tools.maven.model.TwitchApiRelease;
+import com.ragedunicorn.tools.maven.retry.CircuitBreaker;
+import com.ragedunicorn.tools.maven.timing.TimingReport;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
-import org.apache.http.HttpEntity;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.mime.MultipartEntityBuilder;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.util.EntityUtils;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import org.apache.maven.plugin.MojoExecutionException;
 
 public class ReleaseService {
   private static final String ENDPOINT = "/api/projects/:projectId/upload-file";
 
-  private final DefaultLog logger = new DefaultLog();
+  public static final int DEFAULT_UPLOAD_THREADS = 4;
+
+  private TwitchReleaseLogger logger;
 
   private final TwitchClient twitchClient;
 
+  private final UploadEngine uploadEngine;
+
+  private final AsyncUploadEngine asyncUploadEngine;
+
+  // optional cache of already published releases
+  private UploadCache uploadCache;
+
+  private ReleaseCache releaseCache;
+
+  // optional report of the timings of all uploads
+  private TimingReport timingReport;
+
+  // maximum amount of additional files that are uploaded concurrently
+  private final int uploadThreads;
+
+  // optional file that is released to several projects
+  private SharedFile sharedFile;
+
+  // optional circuit breaker rejecting releases while the Twitch Api is unavailable
+  private CircuitBreaker circuitBreaker;
+
+  // whether a checksum file is written next to every uploaded file
+  private boolean checksumFile;
+
+  // optional history the performance of every upload is appended to
+  private ReleaseHistory releaseHistory;
+
   public ReleaseService(TwitchClient twitchClient) {
+    this(twitchClient, DEFAULT_UPLOAD_THREADS);
+  }
+
+  public ReleaseService(TwitchClient twitchClient, int uploadThreads) {
+    this(twitchClient, uploadThreads, new UploadEngine());
+  }
+
+  /**
+   * Create a release service.
+   *
+   * @param twitchClient  The Twitch client
+   * @param uploadThreads Maximum amount of additional files that are uploaded concurrently
+   * @param uploadEngine  The engine used for transmitting files
+   */
+  public ReleaseService(TwitchClient twitchClient, int uploadThreads,
+      UploadEngine uploadEngine) {
+    if (uploadThreads <= 0) {
+      throw new IllegalArgumentException("uploadThreads must be greater than zero");
+    }
+
     this.twitchClient = twitchClient;
+    this.uploadThreads = uploadThreads;
+    this.uploadEngine = uploadEngine;
+    this.logger = uploadEngine.getLogger();
+    this.asyncUploadEngine = new AsyncUploadEngine(uploadEngine.getMaxRetransmissions(),
+        uploadEngine.getRetryPolicy(), uploadEngine.getTimeoutPolicy());
+    this.asyncUploadEngine.setLogger(logger);
+  }
+
+  public UploadCache getUploadCache() {
+    return uploadCache;
+  }
+
+  public void setUploadCache(UploadCache uploadCache) {
+    this.uploadCache = uploadCache;
+    this.releaseCache = uploadCache == null
+        ? null : new ReleaseCache(uploadCache, twitchClient.getProjectId());
+
+    if (releaseCache != null) {
+      releaseCache.setLogger(logger);
+    }
+  }
+
+  public TimingReport getTimingReport() {
+    return timingReport;
+  }
+
+  public void setTimingReport(TimingReport timingReport) {
+    this.timingReport = timingReport;
+  }
+
+  public SharedFile getSharedFile() {
+    return sharedFile;
+  }
+
+  /**
+   * Set a file that is shared with other release services. Releases of the shared file reuse its
+   * digest instead of reading the whole file again before the upload.
+   *
+   * @param sharedFile The shared file
+   */
+  public void setSharedFile(SharedFile sharedFile) {
+    this.sharedFile = sharedFile;
+  }
+
+  public TwitchClient getTwitchClient() {
+    return twitchClient;
+  }
+
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  public boolean isChecksumFile() {
+    return checksumFile;
+  }
+
+  public void setChecksumFile(boolean checksumFile) {
+    this.checksumFile = checksumFile;
+  }
+
+  public ReleaseHistory getReleaseHistory() {
+    return releaseHistory;
+  }
+
+  public void setReleaseHistory(ReleaseHistory releaseHistory) {
+    this.releaseHistory = releaseHistory;
+  }
+
+  public TwitchReleaseLogger getLogger() {
+    return logger;
+  }
+
+  /**
+   * Set the logger of the release service and of the engines transmitting its files.
+   *
+   * @param logger The logger to use
+   */
+  public void setLogger(TwitchReleaseLogger logger) {
+    this.logger = logger;
+    uploadEngine.setLogger(logger);
+    asyncUploadEngine.setLogger(logger);
+
+    if (releaseCache != null) {
+      releaseCache.setLogger(logger);
+    }
+  }
+
+  /**
+   * Create a new release consisting of a main file and additional files. The main file is
+   * uploaded first because the additional files have to reference its id. Once the main file is
+   * uploaded all additional files are uploaded concurrently.
+   *
+   * @param metadata        All metadata related to the main file
+   * @param file            Path to the main file to upload
+   * @param additionalFiles Additional files that are linked to the main file
+   * @return The received responses from Twitch. The main file is always the first element
+   *         followed by the additional files in the order they were passed
+   * @throws MojoExecutionException If any of the requests to the Twitch Api failed
+   */
+  public List<TwitchApiRelease> createReleaseOperation(Metadata metadata, String file,
+      List<AdditionalFile> additionalFiles) throws MojoExecutionException {
+    return createReleaseOperation(metadata, file, additionalFiles, new ReleaseProgress());
+  }
+
+  /**
+   * Create the files of a release that were not created yet. Every created file is recorded in
+   * the progress, so that a failed release can be continued without creating duplicates. If the
+   * main file was already created only the remaining additional files are uploaded.
+   *
+   * @param metadata        All metadata related to the main file
+   * @param file            Path to the main file to upload
+   * @param additionalFiles Additional files that are linked to the main file
+   * @param progress        The files of the release that were already created
+   * @return The received responses from Twitch. The main file is always the first element
+   *         followed by the additional files created by this call in the order they were passed
+   * @throws MojoExecutionException If any of the requests to the Twitch Api failed
+   */
+  public List<TwitchApiRelease> createReleaseOperation(Metadata metadata, String file,
+      List<AdditionalFile> additionalFiles, ReleaseProgress progress)
+      throws MojoExecutionException {
+    // the main file and all additional files share the deadline of the release
+    final long deadline = uploadEngine.getTimeoutPolicy().createDeadline();
+    TwitchApiRelease parentRelease = progress.getParentRelease();
+
+    if (parentRelease == null) {
+      parentRelease = createReleaseOperation(metadata, file, deadline);
+      progress.setParentRelease(parentRelease);
+    }
+
+    final List<AdditionalFile> remainingFiles = new ArrayList<>();
+
+    if (additionalFiles != null) {
+      for (AdditionalFile additionalFile : additionalFiles) {
+        if (!progress.isCreated(additionalFile.getFile())) {
+          remainingFiles.add(additionalFile);
+        }
+      }
+    }
+
+    if (remainingFiles.isEmpty()) {
+      return Collections.singletonList(parentRelease);
+    }
+
+    final AdditionalFileUploader.ReleaseOperation releaseOperation = (childMetadata, childFile) -> {
+      final TwitchApiRelease childRelease =
+          createReleaseOperation(childMetadata, childFile, deadline);
+      progress.created(childFile);
+
+      return childRelease;
+    };
+    final List<TwitchApiRelease> releases = new ArrayList<>();
+    releases.add(parentRelease);
+    releases.addAll(new AdditionalFileUploader(uploadThreads, logger, releaseOperation)
+        .upload(metadata, parentRelease, remainingFiles));
+
+    return releases;
   }
 
   /**
@@ -63,45 +282,355 @@ public class ReleaseService {
    */
   public TwitchApiRelease createReleaseOperation(Metadata metadata, String file)
       throws MojoExecutionException {
-    TwitchApiRelease twitchApiRelease;
-    final Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+    return createReleaseOperation(metadata, file, uploadEngine.getTimeoutPolicy().createDeadline());
+  }
 
-    HttpEntity entity = MultipartEntityBuilder
-        .create()
-        .addTextBody("metadata", gson.toJson(metadata))
-        .addBinaryBody("file", new File(file), ContentType.create("application/octet-stream"),
-            metadata.getDisplayName())
-        .build();
+  /**
+   * Create a new release that is aborted once its deadline ran out.
+   *
+   * @param metadata All metadata related to the upload
+   * @param file     Path to the file to upload
+   * @param deadline Value of {@link System#nanoTime()} the upload is aborted at
+   * @return The received response from Twitch after uploading the addon
+   * @throws MojoExecutionException If the request to the Twitch Api failed
+   */
+  private TwitchApiRelease createReleaseOperation(Metadata metadata, String file, long deadline)
+      throws MojoExecutionException {
+    final String serializedMetadata = serializeMetadata(metadata);
+    final String cacheKey = createCacheKey(file, serializedMetadata);
 
-    CloseableHttpClient httpClient = twitchClient.getHttpClient();
+    final TwitchApiRelease cachedRelease = getCachedRelease(cacheKey, file);
+    if (cachedRelease != null) {
+      return cachedRelease;
+    }
 
-    HttpPost httpPost = new HttpPost();
     URI preparedEndpointUrl = twitchClient.prepareEndpointUri(ENDPOINT);
     if (logger.isDebugEnabled()) {
       logger.debug("Endpoint Uri: " + preparedEndpointUrl.getPath());
     }
-    httpPost.setURI(preparedEndpointUrl);
-    httpPost.setEntity(entity);
+
+    checkAvailability();
+
+    final UploadPriority priority = UploadPriority.fromReleaseType(metadata.getReleaseType());
+    final long releaseStart = System.nanoTime();
+    UploadResponse response;
 
     try {
-      CloseableHttpResponse response = httpClient.execute(httpPost);
-      twitchApiRelease = responseHandler(response);
+      response = uploadEngine.upload(twitchClient, preparedEndpointUrl,
+          serializedMetadata, new File(file), metadata.getDisplayName(), priority, deadline);
+    } catch (IOException e) {
+      throw failRelease(file, e, releaseStart);
+    } catch (RuntimeException e) {
+      releaseProbe();
+      throw e;
+    }
 
-      if (logger.isInfoEnabled()) {
-        logger.info("Upload successful");
-        logger.info("File id: " + twitchApiRelease.getId());
+    return completeRelease(file, cacheKey, response, releaseStart);
+  }
+
+  /**
+   * Create a new release without blocking the calling thread. The upload is executed by the
+   * shared non-blocking http client so that many releases can be in flight without dedicating a
+   * thread to each of them. Cancelling the returned future aborts the upload. Like a blocking
+   * release the release is rejected while the circuit breaker is open and its outcome is recorded
+   * in the release history, the timing report and the checksum file.
+   *
+   * @param metadata All metadata related to the upload
+   * @param file     Path to the file to upload
+   * @return A future that is completed with the received response from Twitch. Failed requests
+   *         complete the future with a {@link MojoExecutionException}
+   */
+  public CompletableFuture<TwitchApiRelease> createReleaseOperationAsync(Metadata metadata,
+      String file) {
+    final CompletableFuture<TwitchApiRelease> release = new CompletableFuture<>();
+    URI preparedEndpointUrl;
+
+    try {
+      preparedEndpointUrl = twitchClient.prepareEndpointUri(ENDPOINT);
+    } catch (MojoExecutionException e) {
+      release.completeExceptionally(e);
+      return release;
+    }
+
+    final String serializedMetadata = serializeMetadata(metadata);
+    // the deadline of the release also covers hashing the file and reading the cache
+    final long deadline = uploadEngine.getTimeoutPolicy().createDeadline();
+
+    // hashing the file and reading and writing the cache is blocking and must neither run on the
+    // caller thread, the common pool nor the I/O threads of the non-blocking client
+    final CompletableFuture<String> cacheKey = CompletableFuture.supplyAsync(() ->
+        createCacheKey(file, serializedMetadata), FutureUtils.blockingExecutor());
+
+    cacheKey.thenComposeAsync(key -> {
+      final TwitchApiRelease cachedRelease = getCachedRelease(key, file);
+
+      if (cachedRelease != null) {
+        return CompletableFuture.completedFuture(cachedRelease);
+      }
+
+      try {
+        checkAvailability();
+      } catch (ServiceUnavailableException e) {
+        throw new CompletionException(e);
       }
+
+      final long releaseStart = System.nanoTime();
+      final CompletableFuture<UploadResponse> upload = asyncUploadEngine.upload(twitchClient,
+          preparedEndpointUrl, serializedMetadata, new File(file),
+          metadata.getDisplayName(), UploadPriority.fromReleaseType(metadata.getReleaseType()),
+          deadline);
+
+      // propagate cancellation and timeouts of the release to the upload in flight
+      release.whenComplete((result, error) -> {
+        if (error != null) {
+          upload.cancel(true);
+        }
+      });
+
+      // the outcome passes the same pipeline as a blocking release
+      return upload.handleAsync((response, error) -> {
+        try {
+          final Throwable cause = unwrapCompletionException(error);
+
+          if (cause instanceof IOException) {
+            throw failRelease(file, (IOException) cause, releaseStart);
+          } else if (cause != null) {
+            // the upload was cancelled or failed before reaching the Api
+            releaseProbe();
+            throw new CompletionException(cause);
+          }
+
+          return completeRelease(file, key, response, releaseStart);
+        } catch (MojoExecutionException e) {
+          throw new CompletionException(e);
+        }
+      }, FutureUtils.blockingExecutor());
+    }, FutureUtils.blockingExecutor()).whenComplete((result, error) -> {
+      if (error == null) {
+        release.complete(result);
+      } else {
+        release.completeExceptionally(unwrapCompletionException(error));
+      }
+    });
+
+    return release;
+  }
+
+  /**
+   * Create a new release without blocking the calling thread. If the release is not completed
+   * within the timeout the upload is aborted and the future completed with a
+   * {@link java.util.concurrent.TimeoutException}.
+   *
+   * @param metadata All metadata related to the upload
+   * @param file     Path to the file to upload
+   * @param timeout  Maximum time the release may take
+   * @param unit     Unit of the timeout
+   * @return A future that is completed with the received response from Twitch
+   */
+  public CompletableFuture<TwitchApiRelease> createReleaseOperationAsync(Metadata metadata,
+      String file, long timeout, TimeUnit unit) {
+    return FutureUtils.orTimeout(createReleaseOperationAsync(metadata, file), timeout, unit);
+  }
+
+  private static Throwable unwrapCompletionException(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null
+        ? error.getCause()
+        : error;
+  }
+
+  private String serializeMetadata(Metadata metadata) {
+    final long serializationStart = System.nanoTime();
+    final Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+    final String serializedMetadata = gson.toJson(metadata);
+
+    if (timingReport != null) {
+      timingReport.record(TimingReport.METADATA_SERIALIZATION,
+          System.nanoTime() - serializationStart);
+    }
+
+    return serializedMetadata;
+  }
+
+  /**
+   * Reject a release while the circuit breaker is open.
+   *
+   * @throws ServiceUnavailableException If the circuit breaker rejects the release
+   */
+  private void checkAvailability() throws ServiceUnavailableException {
+    if (circuitBreaker != null && !circuitBreaker.allowRequest()) {
+      throw new ServiceUnavailableException("Twitch Api is unavailable - circuit breaker is open");
+    }
+  }
+
+  /**
+   * Complete a release with the final response of its upload. Blocking and non-blocking releases
+   * share this pipeline: the availability of the Api is recorded in the circuit breaker, the
+   * upload is appended to the release history and the timing report and a created release is
+   * written to the checksum file and the upload cache.
+   *
+   * @param file         The uploaded file
+   * @param cacheKey     The key of the release in the upload cache or null
+   * @param response     The final response of the upload
+   * @param releaseStart Start of the upload
+   * @return The created release
+   * @throws MojoExecutionException If the Twitch Api did not create the release
+   */
+  private TwitchApiRelease completeRelease(String file, String cacheKey, UploadResponse response,
+      long releaseStart) throws MojoExecutionException {
+    final boolean unavailable = !response.isSuccessful()
+        && uploadEngine.getRetryPolicy().isRetryable(response);
+    recordAvailability(!unavailable);
+    appendHistory(file, response, releaseStart);
+    final long parsingStart = System.nanoTime();
+    TwitchApiRelease twitchApiRelease;
+
+    try {
+      twitchApiRelease = responseHandler(response);
+    } catch (MojoExecutionException e) {
+      throw unavailable ? new ServiceUnavailableException(e.getMessage(), e) : e;
+    } finally {
+      if (timingReport != null) {
+        timingReport.recordUpload(file, response, System.nanoTime() - parsingStart);
+      }
+    }
+
+    writeChecksumFile(file, twitchApiRelease);
+    putCachedRelease(cacheKey, file, twitchApiRelease);
+
+    return twitchApiRelease;
+  }
+
+  /**
+   * Fail a release whose upload received no final response. The upload is appended to the
+   * release history and a connection failure is recorded in the circuit breaker. Any other
+   * failure, e.g. a file that cannot be read, never reached the Api and only releases the probe
+   * of the circuit breaker.
+   *
+   * @param file         The file of the failed upload
+   * @param e            The failure of the upload
+   * @param releaseStart Start of the upload
+   * @return The exception failing the release
+   */
+  private MojoExecutionException failRelease(String file, IOException e, long releaseStart) {
+    appendHistory(file, null, releaseStart);
+
+    if (!uploadEngine.getRetryPolicy().isUnavailable(e)) {
+      releaseProbe();
+      return new MojoExecutionException("Upload of " + file + " to Twitch failed: "
+          + e.getMessage(), e);
+    }
+
+    recordAvailability(false);
+    return new ServiceUnavailableException("Upload to Twitch failed", e);
+  }
+
+  private void releaseProbe() {
+    if (circuitBreaker != null) {
+      circuitBreaker.releaseProbe();
+    }
+  }
+
+  private void recordAvailability(boolean available) {
+    if (circuitBreaker == null) {
+      return;
+    }
+
+    if (available) {
+      circuitBreaker.recordSuccess();
+    } else if (circuitBreaker.recordFailure() && logger.isWarnEnabled()) {
+      logger.warn("Twitch Api is unavailable - circuit breaker is open");
+    }
+  }
+
+  private boolean isSharedFile(String file) {
+    return sharedFile != null && sharedFile.isSharedFile(file);
+  }
+
+  private String createCacheKey(String file, String serializedMetadata) {
+    if (releaseCache == null) {
+      return null;
+    }
+
+    return isSharedFile(file)
+        ? releaseCache.createKey(sharedFile, serializedMetadata)
+        : releaseCache.createKey(file, serializedMetadata);
+  }
+
+  private TwitchApiRelease getCachedRelease(String cacheKey, String file) {
+    if (releaseCache == null) {
+      return null;
+    }
+
+    final TwitchApiRelease cachedRelease = releaseCache.get(cacheKey);
+
+    if (cachedRelease != null && logger.isInfoEnabled()) {
+      logger.info("Identical release was already published - skipping upload of " + file);
+      logger.info("File id: " + cachedRelease.getId());
+    }
+
+    return cachedRelease;
+  }
+
+  /**
+   * Append the performance of an upload to the release history. A history that cannot be written
+   * does not fail the release.
+   *
+   * @param file         The uploaded file
+   * @param response     The final response or null if no response was received
+   * @param releaseStart Start of the release operation
+   */
+  private void appendHistory(String file, UploadResponse response, long releaseStart) {
+    if (releaseHistory == null) {
+      return;
+    }
+
+    try {
+      releaseHistory.append(isSharedFile(file) ? sharedFile.getLength() : new File(file).length(),
+          response, System.nanoTime() - releaseStart);
     } catch (IOException e) {
-      throw new MojoExecutionException("Upload to Twitch failed", e);
+      if (logger.isWarnEnabled()) {
+        logger.warn("Failed to write release history " + releaseHistory.getFile() + ": "
+            + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Write the checksums calculated while uploading the file next to the file. The non-blocking
+   * engine transfers the file without reading it through the heap, the checksums of its releases
+   * are calculated from the file after the upload. A checksum file that cannot be written does
+   * not fail the release that was already created.
+   *
+   * @param file             The uploaded file
+   * @param twitchApiRelease The created release
+   */
+  private void writeChecksumFile(String file, TwitchApiRelease twitchApiRelease) {
+    if (!checksumFile) {
+      return;
     }
 
     try {
-      httpClient.close();
+      if (twitchApiRelease.getChecksums() == null) {
+        twitchApiRelease.setChecksums(DigestUtils.checksums(new File(file)));
+      }
+
+      final Path checksumPath =
+          DigestUtils.writeChecksumFile(new File(file).toPath(), twitchApiRelease.getChecksums());
+
+      if (logger.isDebugEnabled()) {
+        logger.debug("Wrote checksums to " + checksumPath);
+      }
     } catch (IOException e) {
-      throw new MojoExecutionException("Failed to close http client", e);
+      if (logger.isWarnEnabled()) {
+        logger.warn("Failed to write checksum file for " + file + ": " + e.getMessage());
+      }
     }
+  }
 
-    return twitchApiRelease;
+  private void putCachedRelease(String cacheKey, String file, TwitchApiRelease twitchApiRelease) {
+    if (releaseCache != null) {
+      releaseCache.put(cacheKey, file, twitchApiRelease);
+    }
   }
 
   /**
@@ -109,24 +638,100 @@ public class ReleaseService {
    *
    * @param response The response from the Twitch Api
    * @return The response from the Twitch Api as POJO
-   * @throws IOException            If entity cannot be converted to a string
    * @throws MojoExecutionException If creation of release failed
    */
-  private TwitchApiRelease responseHandler(CloseableHttpResponse response)
-      throws IOException, MojoExecutionException {
+  private TwitchApiRelease responseHandler(UploadResponse response)
+      throws MojoExecutionException {
     final Gson gson = new Gson();
-    final HttpEntity entity = response.getEntity();
-    final String responseString = EntityUtils.toString(entity, StandardCharsets.UTF_8);
-    final int statusCode = response.getStatusLine().getStatusCode();
 
-    if (statusCode / 100 != 2) {
-      TwitchApiClientError clientError = gson.fromJson(responseString, TwitchApiClientError.class);
+    if (!response.isSuccessful()) {
+      TwitchApiClientError clientError = parseClientError(gson, response);
       logger.error(clientError.toString());
 
-      throw new MojoExecutionException("Failed to create release - reason: "
-          + clientError.getErrorMessage());
+      throw new MojoExecutionException("Failed to create release after "
+          + response.getAttempts() + " attempt(s) with status " + response.getStatusCode()
+          + " - reason: " + clientError.getErrorMessage());
     } else {
-      return gson.fromJson(responseString, TwitchApiRelease.class);
+      TwitchApiRelease twitchApiRelease;
+
+      try {
+        twitchApiRelease = parseRelease(gson, response);
+      } catch (IOException e) {
+        // the upload was accepted, sending it again could create a duplicate release
+        throw new MojoExecutionException("Failed to read created release: " + e.getMessage(), e);
+      }
+
+      twitchApiRelease.setChecksums(response.getChecksums());
+
+      if (logger.isInfoEnabled()) {
+        logger.info("Upload successful");
+        logger.info("File id: " + twitchApiRelease.getId());
+        logger.info("Attempts: " + response.getAttempts());
+      }
+
+      if (response.getChecksums() != null && logger.isInfoEnabled()) {
+        logger.info("SHA-256: " + response.getChecksums().getSha256());
+      }
+
+      return twitchApiRelease;
+    }
+  }
+
+  /**
+   * Parse the release created by the Twitch Api.
+   *
+   * @param gson     The Gson instance
+   * @param response The successful response
+   * @return The parsed release
+   * @throws IOException If the response contains no release
+   */
+  private static TwitchApiRelease parseRelease(Gson gson, UploadResponse response)
+      throws IOException {
+    final String body = response.getBody();
+
+    if (body == null || body.isEmpty()) {
+      throw new IOException("Twitch Api responded with status " + response.getStatusCode()
+          + " and an empty body");
+    }
+
+    try {
+      final TwitchApiRelease release = gson.fromJson(body, TwitchApiRelease.class);
+
+      if (release != null) {
+        return release;
+      }
+    } catch (JsonParseException e) {
+      throw new IOException("Twitch Api responded with status " + response.getStatusCode()
+          + " and an invalid body: " + body, e);
     }
+
+    // a blank body or a json null
+    throw new IOException("Twitch Api responded with status " + response.getStatusCode()
+        + " and no release: " + body);
+  }
+
+  /**
+   * Parse the error reported by the Twitch Api. Responses of proxies and load balancers are
+   * usually no json in which case the raw body is used as error message.
+   *
+   * @param gson     The Gson instance
+   * @param response The failed response
+   * @return The parsed client error
+   */
+  private static TwitchApiClientError parseClientError(Gson gson, UploadResponse response) {
+    TwitchApiClientError clientError = null;
+
+    try {
+      clientError = gson.fromJson(response.getBody(), TwitchApiClientError.class);
+    } catch (JsonParseException e) {
+      // fall through to the raw body
+    }
+
+    if (clientError == null || clientError.getErrorMessage() == null) {
+      clientError = new TwitchApiClientError();
+      clientError.setErrorMessage(response.getBody());
+    }
+
+    return clientError;
   }
 }
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.TwitchClient;
+import com.ragedunicorn.tools.maven.http.ChunkedFileBody;
+import com.ragedunicorn.tools.maven.http.UnconfirmedUploadException;
+import com.ragedunicorn.tools.maven.http.UploadPriority;
+import com.ragedunicorn.tools.maven.http.UploadProgress;
+import com.ragedunicorn.tools.maven.http.UploadResponse;
+import com.ragedunicorn.tools.maven.http.UploadWatchdog;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.log.TwitchReleaseLogger;
+import com.ragedunicorn.tools.maven.retry.RetryPolicy;
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import com.ragedunicorn.tools.maven.timing.TimingReport;
+import com.ragedunicorn.tools.maven.timing.UploadTiming;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+/**
+ * Transmits a file together with its metadata to the Twitch Api. The file is sent in chunks and
+ * the progress of every chunk is tracked. If the connection drops before the whole file was
+ * handed over to the transport the server cannot have accepted the upload, and the request is
+ * safely sent again on a fresh connection. Once the whole file was transmitted a failure is
+ * never retried because the server might already have created the release. Responses of the
+ * server are retried according to the {@link RetryPolicy}.
+ */
+public class UploadEngine {
+  public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+  public static final int DEFAULT_MAX_RETRANSMISSIONS = 3;
+
+  private static final ContentType FILE_CONTENT_TYPE =
+      ContentType.create("application/octet-stream");
+
+  private TwitchReleaseLogger logger = new DefaultLog();
+
+  private final int chunkSize;
+
+  private final int maxRetransmissions;
+
+  private final RetryPolicy retryPolicy;
+
+  private final TimeoutPolicy timeoutPolicy;
+
+  public UploadEngine() {
+    this(DEFAULT_CHUNK_SIZE, DEFAULT_MAX_RETRANSMISSIONS);
+  }
+
+  public UploadEngine(int chunkSize, int maxRetransmissions) {
+    this(chunkSize, maxRetransmissions, new RetryPolicy());
+  }
+
+  /**
+   * Create an upload engine.
+   *
+   * @param chunkSize          Size of a single chunk in bytes
+   * @param maxRetransmissions How often an interrupted transmission is sent again
+   * @param retryPolicy        Policy deciding which failed requests are retried
+   */
+  public UploadEngine(int chunkSize, int maxRetransmissions, RetryPolicy retryPolicy) {
+    this(chunkSize, maxRetransmissions, retryPolicy, new TimeoutPolicy());
+  }
+
+  /**
+   * Create an upload engine.
+   *
+   * @param chunkSize          Size of a single chunk in bytes
+   * @param maxRetransmissions How often an interrupted transmission is sent again
+   * @param retryPolicy        Policy deciding which failed requests are retried
+   * @param timeoutPolicy      Policy deciding how long a request may take
+   */
+  public UploadEngine(int chunkSize, int maxRetransmissions, RetryPolicy retryPolicy,
+      TimeoutPolicy timeoutPolicy) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be greater than zero");
+    }
+
+    if (maxRetransmissions < 0) {
+      throw new IllegalArgumentException("maxRetransmissions must not be negative");
+    }
+
+    this.chunkSize = chunkSize;
+    this.maxRetransmissions = maxRetransmissions;
+    this.retryPolicy = retryPolicy;
+    this.timeoutPolicy = timeoutPolicy;
+  }
+
+  public int getMaxRetransmissions() {
+    return maxRetransmissions;
+  }
+
+  public RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  public TimeoutPolicy getTimeoutPolicy() {
+    return timeoutPolicy;
+  }
+
+  public TwitchReleaseLogger getLogger() {
+    return logger;
+  }
+
+  public void setLogger(TwitchReleaseLogger logger) {
+    this.logger = logger;
+  }
+
+  /**
+   * Upload a file together with its serialized metadata. Responses classified as retryable by the
+   * retry policy are retried with backoff until the attempts or the deadline of the policy are
+   * exhausted. In that case the last response is returned.
+   *
+   * @param twitchClient The Twitch client used to create the http client
+   * @param endpointUri  The prepared endpoint uri
+   * @param metadata     The serialized metadata
+   * @param file         The file to upload
+   * @param filename     The filename reported to the server
+   * @return The response of the server
+   * @throws IOException If the upload failed and cannot be safely retransmitted
+   */
+  public UploadResponse upload(TwitchClient twitchClient, URI endpointUri, String metadata,
+      File file, String filename) throws IOException {
+    return upload(twitchClient, endpointUri, metadata, file, filename, UploadPriority.RELEASE,
+        timeoutPolicy.createDeadline());
+  }
+
+  /**
+   * Upload a file together with its serialized metadata. Responses classified as retryable by the
+   * retry policy are retried with backoff until the attempts or the deadline of the policy are
+   * exhausted. In that case the last response is returned.
+   *
+   * @param twitchClient The Twitch client used to create the http client
+   * @param endpointUri  The prepared endpoint uri
+   * @param metadata     The serialized metadata
+   * @param file         The file to upload
+   * @param filename     The filename reported to the server
+   * @param priority     Priority of the upload if the bandwidth is limited
+   * @param deadline     Value of {@link System#nanoTime()} the upload is aborted at
+   * @return The response of the server
+   * @throws IOException If the upload failed and cannot be safely retransmitted
+   */
+  public UploadResponse upload(TwitchClient twitchClient, URI endpointUri, String metadata,
+      File file, String filename, UploadPriority priority, long deadline) throws IOException {
+    final UploadProgress progress = new UploadProgress(file.length());
+    final long multipartBuildStart = System.nanoTime();
+
+    return upload(twitchClient, endpointUri, metadata, new ChunkedFileBody(file,
+        FILE_CONTENT_TYPE, filename, chunkSize, progress, priority), progress,
+        multipartBuildStart, deadline);
+  }
+
+  private UploadResponse upload(TwitchClient twitchClient, URI endpointUri, String metadata,
+      ChunkedFileBody fileBody, UploadProgress progress, long multipartBuildStart,
+      long releaseDeadline) throws IOException {
+    final long deadline = TimeoutPolicy.earliest(releaseDeadline,
+        TimeoutPolicy.deadlineAfter(retryPolicy.getDeadlineMillis()));
+    // the entity is repeatable and reuses its buffer for every attempt
+    final HttpEntity entity = MultipartEntityBuilder
+        .create()
+        .addTextBody("metadata", metadata)
+        .addPart("file", fileBody)
+        .build();
+    final long multipartBuildMillis =
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - multipartBuildStart);
+    int retransmissions = 0;
+    int attempt = 0;
+
+    while (true) {
+      attempt++;
+
+      final HttpPost httpPost = new HttpPost(endpointUri);
+      httpPost.setEntity(entity);
+      httpPost.setConfig(timeoutPolicy.createRequestConfig(progress.getTotalBytes()));
+      // the progress of a previous attempt must not count as sent by this one
+      progress.reset();
+
+      UploadResponse response;
+
+      try {
+        response = execute(twitchClient, httpPost, attempt, progress, releaseDeadline);
+        response.getTiming().setMultipartBuildMillis(multipartBuildMillis);
+        response.setChecksums(fileBody.getChecksums());
+      } catch (IOException e) {
+        // neither a local failure nor an upload aborted at the deadline is retransmitted
+        if (!retryPolicy.isUnavailable(e)) {
+          throw e;
+        }
+
+        if (progress.isComplete()) {
+          throw new UnconfirmedUploadException("Upload of " + fileBody.getFilename()
+              + " was completely sent but no response was received (" + e.getMessage() + ")", e);
+        }
+
+        if (TimeoutPolicy.isExpired(releaseDeadline)
+            || retransmissions >= maxRetransmissions
+            || attempt >= retryPolicy.getMaxAttempts()) {
+          throw e;
+        }
+
+        retransmissions++;
+        final long backoff = retryPolicy.getBackoffMillis(retransmissions, null);
+
+        if (backoff > TimeoutPolicy.remainingMillis(deadline)) {
+          throw e;
+        }
+
+        if (logger.isWarnEnabled()) {
+          logger.warn("Upload of " + fileBody.getFilename() + " was interrupted after "
+              + progress.getConfirmedBytes() + " of " + progress.getTotalBytes()
+              + " bytes (" + e.getMessage() + "). Retransmitting in " + backoff + "ms - attempt "
+              + retransmissions + " of " + maxRetransmissions);
+        }
+
+        sleep(backoff);
+        continue;
+      }
+
+      if (!retryPolicy.isRetryable(response) || attempt >= retryPolicy.getMaxAttempts()) {
+        return response;
+      }
+
+      final long backoff = retryPolicy.getBackoffMillis(attempt, response);
+
+      if (backoff > TimeoutPolicy.remainingMillis(deadline)) {
+        if (logger.isWarnEnabled()) {
+          logger.warn("Retry deadline of " + retryPolicy.getDeadlineMillis() + "ms exhausted");
+        }
+
+        return response;
+      }
+
+      if (logger.isWarnEnabled()) {
+        logger.warn("Twitch Api responded with status " + response.getStatusCode()
+            + ". Retrying in " + backoff + "ms - attempt " + (attempt + 1) + " of "
+            + retryPolicy.getMaxAttempts());
+      }
+
+      sleep(backoff);
+    }
+  }
+
+  private static void sleep(long millis) throws InterruptedIOException {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final InterruptedIOException exception =
+          new InterruptedIOException("Interrupted while waiting for the next upload attempt");
+      exception.initCause(e);
+
+      throw exception;
+    }
+  }
+
+  /**
+   * Execute a single attempt of the upload while a watchdog aborts the request once the deadline
+   * of the release ran out or the transmission stalled for longer than the socket timeout.
+   *
+   * @param twitchClient The Twitch client used to create the http client
+   * @param httpPost     The request of the attempt
+   * @param attempt      The attempt of the request
+   * @param progress     The progress of the transmitted file
+   * @param deadline     Value of {@link System#nanoTime()} the request is aborted at
+   * @return The response of the server
+   * @throws IOException If the request failed or was aborted
+   */
+  private UploadResponse execute(TwitchClient twitchClient, HttpPost httpPost, int attempt,
+      UploadProgress progress, long deadline) throws IOException {
+    final UploadWatchdog watchdog = new UploadWatchdog(httpPost, progress,
+        httpPost.getConfig().getSocketTimeout(), deadline).start();
+
+    try {
+      final UploadResponse response = execute(twitchClient, httpPost, attempt, progress);
+
+      if (progress.getTransmissionEndNanos() != 0) {
+        timeoutPolicy.recordThroughput(progress.getConfirmedBytes(),
+            progress.getTransmissionEndNanos() - progress.getTransmissionStartNanos());
+      }
+
+      return response;
+    } catch (IOException e) {
+      throw watchdog.explain(e);
+    } finally {
+      watchdog.close();
+    }
+  }
+
+  private UploadResponse execute(TwitchClient twitchClient, HttpPost httpPost, int attempt,
+      UploadProgress progress) throws IOException {
+    final long requestNanos = System.nanoTime();
+
+    // closing the client only releases it from the shared connection pool
+    try (CloseableHttpClient httpClient = twitchClient.getHttpClient();
+         CloseableHttpResponse response = httpClient.execute(httpPost)) {
+      final long responseNanos = System.nanoTime();
+      final UploadResponse uploadResponse = UploadResponse.read(response, attempt);
+      uploadResponse.setTiming(createTiming(progress, attempt, requestNanos, responseNanos));
+
+      return uploadResponse;
+    }
+  }
+
+  /**
+   * Split the duration of a request into connection setup, transmission of the body and the
+   * time the server took to respond.
+   *
+   * @param progress      The progress of the transmitted file
+   * @param attempt       The attempt of the request
+   * @param requestNanos  Start of the request
+   * @param responseNanos Time the response was received
+   * @return The timing of the request
+   */
+  static UploadTiming createTiming(UploadProgress progress, int attempt,
+      long requestNanos, long responseNanos) {
+    final UploadTiming timing = new UploadTiming();
+    timing.setAttempts(attempt);
+
+    // the server might have responded before the body was sent
+    if (progress.getTransmissionStartNanos() < requestNanos) {
+      timing.setConnectionSetupMillis(TimeUnit.NANOSECONDS.toMillis(responseNanos - requestNanos));
+      return timing;
+    }
+
+    final long transmissionEndNanos = progress.getTransmissionEndNanos() == 0
+        ? responseNanos : progress.getTransmissionEndNanos();
+    final long transmissionNanos = transmissionEndNanos - progress.getTransmissionStartNanos();
+
+    timing.setConnectionSetupMillis(TimeUnit.NANOSECONDS.toMillis(
+        progress.getTransmissionStartNanos() - requestNanos));
+    timing.setUploadMillis(TimeUnit.NANOSECONDS.toMillis(transmissionNanos));
+    timing.setUploadedBytes(progress.getConfirmedBytes());
+    timing.setUploadMegabytesPerSecond(
+        TimingReport.megabytesPerSecond(progress.getConfirmedBytes(), transmissionNanos));
+    timing.setServerProcessingMillis(TimeUnit.NANOSECONDS.toMillis(
+        responseNanos - transmissionEndNanos));
+
+    return timing;
+  }
+
+}
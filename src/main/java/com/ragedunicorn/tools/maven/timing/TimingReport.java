@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.timing;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.ragedunicorn.tools.maven.http.UploadResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects the duration of every phase of a release execution. Phases of the plugin execution are
+ * recorded by name, uploads are recorded with the timings measured by the upload engine. All
+ * methods are thread safe because additional files are uploaded concurrently.
+ */
+public class TimingReport {
+  public static final String CREDENTIAL_LOOKUP = "credentialLookup";
+  public static final String PACKAGING = "packaging";
+  public static final String VALIDATION = "validation";
+  public static final String CHANGELOG_READ = "changelogRead";
+  public static final String FILE_DIGEST = "fileDigest";
+  public static final String GAME_VERSION_RESOLUTION = "gameVersionResolution";
+  public static final String METADATA_SERIALIZATION = "metadataSerialization";
+  public static final String RELEASE = "release";
+
+  private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+
+  private final Object lock = new Object();
+
+  private final long startNanos = System.nanoTime();
+
+  private final Map<String, Long> phases = new LinkedHashMap<>();
+
+  private final List<UploadTiming> uploads = new ArrayList<>();
+
+  /**
+   * Record the duration of a phase. Durations of phases recorded more than once are added up.
+   *
+   * @param phase The name of the phase
+   * @param nanos The duration of the phase
+   */
+  public void record(String phase, long nanos) {
+    synchronized (lock) {
+      phases.merge(phase, TimeUnit.NANOSECONDS.toMillis(nanos), Long::sum);
+    }
+  }
+
+  /**
+   * Record a completed upload. Uploads without measured transmission are ignored.
+   *
+   * @param file         The uploaded file
+   * @param response     The response of the upload
+   * @param parsingNanos Duration of the response parsing
+   */
+  public void recordUpload(String file, UploadResponse response, long parsingNanos) {
+    final UploadTiming timing = response.getTiming();
+
+    if (timing == null) {
+      return;
+    }
+
+    timing.setFile(file);
+    timing.setResponseParsingMillis(TimeUnit.NANOSECONDS.toMillis(parsingNanos));
+
+    synchronized (lock) {
+      uploads.add(timing);
+    }
+  }
+
+  public List<UploadTiming> getUploads() {
+    synchronized (lock) {
+      return new ArrayList<>(uploads);
+    }
+  }
+
+  public Map<String, Long> getPhases() {
+    synchronized (lock) {
+      return new LinkedHashMap<>(phases);
+    }
+  }
+
+  /**
+   * Calculate the achieved upload speed.
+   *
+   * @param bytes Amount of transmitted bytes
+   * @param nanos Duration of the transmission
+   * @return The speed in megabytes per second
+   */
+  public static double megabytesPerSecond(long bytes, long nanos) {
+    return nanos <= 0 ? 0 : bytes / BYTES_PER_MEGABYTE / (nanos / 1e9);
+  }
+
+  /**
+   * Create a single line summary of all phases. The timings of multiple uploads are added up.
+   *
+   * @return The summary
+   */
+  public String getSummary() {
+    final StringBuilder summary = new StringBuilder("Release timings:");
+
+    getPhases().forEach((phase, millis) ->
+        summary.append(' ').append(phase).append(' ').append(millis).append("ms,"));
+
+    final List<UploadTiming> uploadTimings = getUploads();
+
+    if (!uploadTimings.isEmpty()) {
+      long uploadMillis = 0;
+      long uploadedBytes = 0;
+
+      for (UploadTiming timing : uploadTimings) {
+        uploadMillis += timing.getUploadMillis();
+        uploadedBytes += timing.getUploadedBytes();
+      }
+
+      summary.append(" multipartBuild ")
+          .append(sum(uploadTimings, UploadTiming::getMultipartBuildMillis))
+          .append("ms, connectionSetup ")
+          .append(sum(uploadTimings, UploadTiming::getConnectionSetupMillis))
+          .append("ms, upload ").append(uploadMillis)
+          .append(String.format(Locale.ROOT, "ms (%.2f MB/s), ", megabytesPerSecond(
+              uploadedBytes, TimeUnit.MILLISECONDS.toNanos(uploadMillis))))
+          .append("serverProcessing ")
+          .append(sum(uploadTimings, UploadTiming::getServerProcessingMillis))
+          .append("ms, responseParsing ")
+          .append(sum(uploadTimings, UploadTiming::getResponseParsingMillis))
+          .append("ms,");
+    }
+
+    summary.append(" total ").append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+        .append("ms");
+
+    return summary.toString();
+  }
+
+  private static long sum(List<UploadTiming> timings,
+      ToLongFunction<UploadTiming> getter) {
+    return timings.stream().mapToLong(getter).sum();
+  }
+
+  /**
+   * Write the report as json.
+   *
+   * @param file The file to write the report to
+   * @throws IOException If the report cannot be written
+   */
+  public void write(Path file) throws IOException {
+    final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    final JsonObject report = new JsonObject();
+    report.addProperty("totalMillis",
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    report.add("phases", gson.toJsonTree(getPhases()));
+    report.add("uploads", gson.toJsonTree(getUploads()));
+
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      gson.toJson(report, writer);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.timing;
+
+/**
+ * Timings of a single upload. Transmission related timings refer to the last attempt.
+ */
+public class UploadTiming {
+  private String file;
+
+  private int attempts;
+
+  private long multipartBuildMillis;
+
+  // time from sending the request until the first byte of the body was written
+  private long connectionSetupMillis;
+
+  // time spent writing the file to the connection
+  private long uploadMillis;
+
+  private long uploadedBytes;
+
+  private double uploadMegabytesPerSecond;
+
+  // time from the last byte of the body until the response was received
+  private long serverProcessingMillis;
+
+  private long responseParsingMillis;
+
+  public String getFile() {
+    return file;
+  }
+
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(int attempts) {
+    this.attempts = attempts;
+  }
+
+  public long getMultipartBuildMillis() {
+    return multipartBuildMillis;
+  }
+
+  public void setMultipartBuildMillis(long multipartBuildMillis) {
+    this.multipartBuildMillis = multipartBuildMillis;
+  }
+
+  public long getConnectionSetupMillis() {
+    return connectionSetupMillis;
+  }
+
+  public void setConnectionSetupMillis(long connectionSetupMillis) {
+    this.connectionSetupMillis = connectionSetupMillis;
+  }
+
+  public long getUploadMillis() {
+    return uploadMillis;
+  }
+
+  public void setUploadMillis(long uploadMillis) {
+    this.uploadMillis = uploadMillis;
+  }
+
+  public long getUploadedBytes() {
+    return uploadedBytes;
+  }
+
+  public void setUploadedBytes(long uploadedBytes) {
+    this.uploadedBytes = uploadedBytes;
+  }
+
+  public double getUploadMegabytesPerSecond() {
+    return uploadMegabytesPerSecond;
+  }
+
+  public void setUploadMegabytesPerSecond(double uploadMegabytesPerSecond) {
+    this.uploadMegabytesPerSecond = uploadMegabytesPerSecond;
+  }
+
+  public long getServerProcessingMillis() {
+    return serverProcessingMillis;
+  }
+
+  public void setServerProcessingMillis(long serverProcessingMillis) {
+    this.serverProcessingMillis = serverProcessingMillis;
+  }
+
+  public long getResponseParsingMillis() {
+    return responseParsingMillis;
+  }
+
+  public void setResponseParsingMillis(long responseParsingMillis) {
+    this.responseParsingMillis = responseParsingMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "UploadTiming{"
+        + "file='" + file + '\''
+        + ", attempts=" + attempts
+        + ", multipartBuildMillis=" + multipartBuildMillis
+        + ", connectionSetupMillis=" + connectionSetupMillis
+        + ", uploadMillis=" + uploadMillis
+        + ", uploadedBytes=" + uploadedBytes
+        + ", uploadMegabytesPerSecond=" + uploadMegabytesPerSecond
+        + ", serverProcessingMillis=" + serverProcessingMillis
+        + ", responseParsingMillis=" + responseParsingMillis
+        + '}';
+  }
+}
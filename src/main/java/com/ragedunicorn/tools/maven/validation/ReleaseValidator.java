@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2020 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.validation;
+
+import com.ragedunicorn.tools.maven.concurrent.DaemonThreadFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Validates the inputs of a release without any network access. Checks are registered first and
+ * executed concurrently by {@link #validate()}, which reports all problems at once. Zip archives
+ * are fully inflated and the CRC of every entry is verified, entries of an archive are verified
+ * in parallel.
+ */
+public class ReleaseValidator {
+  // maximum file size that disables the size check
+  public static final long UNLIMITED_FILE_SIZE = 0;
+
+  public static final Set<String> RELEASE_TYPES =
+      Collections.unmodifiableSet(new HashSet<>(Arrays.asList("alpha", "beta", "release")));
+
+  public static final Set<String> CHANGELOG_TYPES =
+      Collections.unmodifiableSet(new HashSet<>(Arrays.asList("text", "html", "markdown")));
+
+  private static final Pattern GAME_VERSION = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+  private static final Pattern GAME_VERSION_ID = Pattern.compile("[0-9]+");
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final String FILE = "File ";
+
+  private final List<Function<Executor, CompletableFuture<List<String>>>> checks =
+      new ArrayList<>();
+
+  private final long maxFileSize;
+
+  private final int threads;
+
+  public ReleaseValidator() {
+    this(UNLIMITED_FILE_SIZE, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Create a release validator.
+   *
+   * @param maxFileSize Maximum size in bytes of an uploaded file. 0 disables the limit
+   * @param threads     Amount of threads executing the checks
+   */
+  public ReleaseValidator(long maxFileSize, int threads) {
+    if (maxFileSize < 0) {
+      throw new IllegalArgumentException("maxFileSize must not be negative");
+    }
+
+    if (threads <= 0) {
+      throw new IllegalArgumentException("threads must be greater than zero");
+    }
+
+    this.maxFileSize = maxFileSize;
+    this.threads = threads;
+  }
+
+  /**
+   * Check that a file exists, does not exceed the size limit and, if it is a zip archive, that
+   * all of its entries are intact.
+   *
+   * @param file The file that is uploaded
+   */
+  public void checkFile(String file) {
+    checks.add(executor -> CompletableFuture
+        .supplyAsync(() -> checkFileSize(Paths.get(file)), executor)
+        .thenCompose(problems -> problems.isEmpty() && isZip(file)
+            ? checkZip(Paths.get(file), executor) : CompletableFuture.completedFuture(problems)));
+  }
+
+  /**
+   * Check that a directory exists.
+   *
+   * @param directory The directory that is packaged
+   */
+  public void checkDirectory(String directory) {
+    addCheck(() -> Files.isDirectory(Paths.get(directory))
+        ? null : "Addon directory " + directory + " does not exist");
+  }
+
+  /**
+   * Check that a changelog file exists and is readable.
+   *
+   * @param changelogFile The changelog file
+   */
+  public void checkChangelogFile(String changelogFile) {
+    addCheck(() -> {
+      final Path path = Paths.get(changelogFile);
+
+      return Files.isRegularFile(path) && Files.isReadable(path)
+          ? null : "Changelog file " + changelogFile + " does not exist or is not readable";
+    });
+  }
+
+  public void checkReleaseType(String releaseType) {
+    addCheck(() -> checkValue("releaseType", releaseType, RELEASE_TYPES));
+  }
+
+  public void checkChangelogType(String changelogType) {
+    addCheck(() -> checkValue("changelogType", changelogType, CHANGELOG_TYPES));
+  }
+
+  /**
+   * Check that game versions are either positive ids or well formed names or slugs. Whether a
+   * name is known is only checked by the Twitch Api.
+   *
+   * @param gameVersions The game versions
+   */
+  public void checkGameVersions(String[] gameVersions) {
+    for (String gameVersion : gameVersions) {
+      addCheck(() -> checkGameVersion(gameVersion));
+    }
+  }
+
+  /**
+   * Report a problem that was found by the caller together with the problems of all checks.
+   *
+   * @param problem The problem
+   */
+  public void addProblem(String problem) {
+    addCheck(() -> problem);
+  }
+
+  /**
+   * Execute all registered checks concurrently.
+   *
+   * @return All problems found in the order the checks were registered. Empty if the release is
+   *         valid
+   */
+  public List<String> validate() {
+    final ExecutorService executor = Executors.newFixedThreadPool(threads,
+        new DaemonThreadFactory("twitch-validate"));
+
+    try {
+      final List<CompletableFuture<List<String>>> results = checks.stream()
+          .map(check -> check.apply(executor))
+          .collect(Collectors.toList());
+      final List<String> problems = new ArrayList<>();
+
+      for (CompletableFuture<List<String>> result : results) {
+        try {
+          problems.addAll(result.join());
+        } catch (CompletionException e) {
+          problems.add("Validation failed unexpectedly: " + e.getCause());
+        }
+      }
+
+      return problems;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void addCheck(Supplier<String> check) {
+    checks.add(executor -> CompletableFuture.supplyAsync(() -> {
+      final String problem = check.get();
+
+      return problem == null
+          ? Collections.<String>emptyList() : Collections.singletonList(problem);
+    }, executor));
+  }
+
+  private List<String> checkFileSize(Path path) {
+    if (!Files.isRegularFile(path)) {
+      return Collections.singletonList(FILE + path + " does not exist");
+    }
+
+    try {
+      final long size = Files.size(path);
+
+      if (size == 0) {
+        return Collections.singletonList(FILE + path + " is empty");
+      }
+
+      if (maxFileSize != UNLIMITED_FILE_SIZE && size > maxFileSize) {
+        return Collections.singletonList(FILE + path + " has " + size
+            + " bytes and exceeds the maximum file size of " + maxFileSize + " bytes");
+      }
+    } catch (IOException e) {
+      return Collections.singletonList("Failed to read size of " + path + ": " + e.getMessage());
+    }
+
+    return Collections.emptyList();
+  }
+
+  private static boolean isZip(String file) {
+    return file.toLowerCase(Locale.ROOT).endsWith(".zip");
+  }
+
+  /**
+   * Verify all entries of a zip archive in parallel.
+   *
+   * @param path     The zip archive
+   * @param executor The executor verifying the entries
+   * @return Future of all problems of the archive
+   */
+  private static CompletableFuture<List<String>> checkZip(Path path, Executor executor) {
+    ZipFile zipFile;
+
+    try {
+      zipFile = new ZipFile(path.toFile());
+    } catch (IOException e) {
+      return CompletableFuture.completedFuture(Collections.singletonList(
+          FILE + path + " is not a valid zip archive: " + e.getMessage()));
+    }
+
+    final ZipFile archive = zipFile;
+    final List<CompletableFuture<String>> entries = archive.stream()
+        .filter(entry -> !entry.isDirectory())
+        .map(entry -> CompletableFuture.supplyAsync(() -> checkZipEntry(path, archive, entry),
+            executor))
+        .collect(Collectors.toList());
+
+    return CompletableFuture.allOf(entries.toArray(new CompletableFuture<?>[0]))
+        .handle((result, error) -> {
+          try {
+            archive.close();
+          } catch (IOException e) {
+            // the archive was only read
+          }
+
+          return entries.stream()
+              .map(CompletableFuture::join)
+              .filter(Objects::nonNull)
+              .collect(Collectors.toList());
+        });
+  }
+
+  private static String checkZipEntry(Path path, ZipFile zipFile, ZipEntry entry) {
+    final CRC32 crc = new CRC32();
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    long size = 0;
+
+    try (InputStream inputStream = zipFile.getInputStream(entry)) {
+      int read = inputStream.read(buffer);
+
+      while (read != -1) {
+        crc.update(buffer, 0, read);
+        size += read;
+        read = inputStream.read(buffer);
+      }
+    } catch (IOException e) {
+      return "Entry " + entry.getName() + " of " + path + " is corrupt: " + e.getMessage();
+    }
+
+    if (crc.getValue() != entry.getCrc() || entry.getSize() >= 0 && size != entry.getSize()) {
+      return "Entry " + entry.getName() + " of " + path + " is corrupt: checksum mismatch";
+    }
+
+    return null;
+  }
+
+  private static String checkValue(String name, String value, Set<String> allowed) {
+    return value != null && allowed.contains(value)
+        ? null : "Invalid " + name + " " + value + ". Expected one of "
+        + allowed.stream().sorted().collect(Collectors.joining(", "));
+  }
+
+  private static String checkGameVersion(String gameVersion) {
+    final String trimmed = gameVersion == null ? "" : gameVersion.trim();
+
+    if (!GAME_VERSION.matcher(trimmed).matches()) {
+      return "Invalid game version '" + gameVersion + "'";
+    }
+
+    if (GAME_VERSION_ID.matcher(trimmed).matches()) {
+      try {
+        if (Integer.parseInt(trimmed) <= 0) {
+          return "Invalid game version id " + trimmed;
+        }
+      } catch (NumberFormatException e) {
+        return "Invalid game version id " + trimmed + ". Ids must be smaller than "
+            + Integer.MAX_VALUE;
+      }
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,276 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.archive.AddonPackager;
+import com.ragedunicorn.tools.maven.archive.PackageResult;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+public class AddonPackagerTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testDirectoryIsPackaged() throws Exception {
+    Path directory = createAddonDirectory();
+    Path archive = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+
+    PackageResult result = new AddonPackager(4, 9).pack(directory, archive);
+
+    Assert.assertEquals(7, result.getEntries());
+    Assert.assertEquals(0, result.getReusedEntries());
+
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      List<String> names = new ArrayList<>();
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        names.add(entries.nextElement().getName());
+      }
+
+      List<String> sortedNames = new ArrayList<>(names);
+      Collections.sort(sortedNames);
+
+      Assert.assertEquals(sortedNames, names);
+      Assert.assertTrue(names.contains("MyAddon/"));
+      Assert.assertTrue(names.contains("MyAddon/libs/"));
+      Assert.assertEquals("## Title: MyAddon",
+          read(zipFile, "MyAddon/MyAddon.toc"));
+      Assert.assertArrayEquals(Files.readAllBytes(directory.resolve("media/texture.blp")),
+          readBytes(zipFile, "MyAddon/media/texture.blp"));
+      Assert.assertEquals(ZipEntry.STORED, zipFile.getEntry("MyAddon/media/texture.blp")
+          .getMethod());
+      Assert.assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("MyAddon/libs/lib.lua")
+          .getMethod());
+    }
+  }
+
+  @Test
+  public void testArchiveIsReproducible() throws Exception {
+    Path directory = createAddonDirectory();
+    Path first = temporaryFolder.getRoot().toPath().resolve("first.zip");
+    Path second = temporaryFolder.getRoot().toPath().resolve("second.zip");
+
+    new AddonPackager(1, 9).pack(directory, first);
+    Files.setLastModifiedTime(directory.resolve("MyAddon.toc"),
+        java.nio.file.attribute.FileTime.fromMillis(0));
+    new AddonPackager(4, 9).pack(directory, second);
+
+    Assert.assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+  }
+
+  @Test
+  public void testUnchangedEntriesAreReused() throws Exception {
+    Path directory = createAddonDirectory();
+    Path archive = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    AddonPackager addonPackager = new AddonPackager(4, 9);
+
+    addonPackager.pack(directory, archive);
+    Files.write(directory.resolve("MyAddon.lua"),
+        "print('changed')".getBytes(StandardCharsets.UTF_8));
+    PackageResult result = addonPackager.pack(directory, archive);
+
+    // three unchanged files - directories are never reused
+    Assert.assertEquals(3, result.getReusedEntries());
+
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      Assert.assertEquals("print('changed')", read(zipFile, "MyAddon/MyAddon.lua"));
+      Assert.assertEquals("## Title: MyAddon", read(zipFile, "MyAddon/MyAddon.toc"));
+      Assert.assertArrayEquals(Files.readAllBytes(directory.resolve("media/texture.blp")),
+          readBytes(zipFile, "MyAddon/media/texture.blp"));
+    }
+
+    Path freshArchive = temporaryFolder.getRoot().toPath().resolve("fresh.zip");
+    addonPackager.pack(directory, freshArchive);
+
+    Assert.assertArrayEquals(Files.readAllBytes(freshArchive), Files.readAllBytes(archive));
+  }
+
+  @Test
+  public void testEntriesOfArchivesWithOtherSettingsAreNotReused() throws Exception {
+    Path directory = createAddonDirectory();
+    Path archive = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    Path expected = temporaryFolder.getRoot().toPath().resolve("expected.zip");
+
+    new AddonPackager(4, 1).pack(directory, archive);
+    PackageResult result = new AddonPackager(4, 9).pack(directory, archive);
+
+    Assert.assertEquals(0, result.getReusedEntries());
+
+    new AddonPackager(4, 9).pack(directory, expected);
+    Assert.assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(archive));
+  }
+
+  @Test
+  public void testEntriesOfForeignArchivesAreNotReused() throws Exception {
+    Path directory = createAddonDirectory();
+    Path archive = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+
+    try (ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(archive))) {
+      outputStream.putNextEntry(new ZipEntry("MyAddon/MyAddon.toc"));
+      outputStream.write(Files.readAllBytes(directory.resolve("MyAddon.toc")));
+      outputStream.closeEntry();
+    }
+
+    PackageResult result = new AddonPackager(4, 9).pack(directory, archive);
+
+    Assert.assertEquals(0, result.getReusedEntries());
+  }
+
+  @Test
+  public void testArchiveIsIndependentOfTimeZone() throws Exception {
+    Path directory = createAddonDirectory();
+
+    for (String timestamp : new String[] {"2023-01-01T00:00:00Z", null}) {
+      Path utcArchive = pack(directory, timestamp, "UTC");
+      Path newYorkArchive = pack(directory, timestamp, "America/New_York");
+
+      Assert.assertArrayEquals(Files.readAllBytes(utcArchive), Files.readAllBytes(newYorkArchive));
+
+      try (ZipFile zipFile = new ZipFile(newYorkArchive.toFile())) {
+        ZipEntry entry = zipFile.getEntry("MyAddon/MyAddon.toc");
+
+        // the stored local time is the UTC time of the timestamp and no extra fields are written
+        Assert.assertEquals(timestamp == null ? "1980-01-01T00:00:02" : "2023-01-01T00:00",
+            entry.getTimeLocal().toString());
+        Assert.assertNull(entry.getExtra());
+      }
+    }
+  }
+
+  @Test
+  public void testFilesAboveBufferLimitAreCompressedWhileWriting() throws Exception {
+    Path directory = createAddonDirectory();
+    Path archive = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    AddonPackager addonPackager = new AddonPackager(4, 9);
+
+    byte[] data = new byte[(int) AddonPackager.MAX_BUFFERED_SIZE + 1024];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) ('a' + i % 26);
+    }
+    Files.write(directory.resolve("media/atlas.tga"), data);
+
+    addonPackager.pack(directory, archive);
+    PackageResult result = addonPackager.pack(directory, archive);
+
+    Assert.assertEquals(5, result.getReusedEntries());
+
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      Assert.assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("MyAddon/media/atlas.tga")
+          .getMethod());
+      Assert.assertArrayEquals(data, readBytes(zipFile, "MyAddon/media/atlas.tga"));
+    }
+  }
+
+  @Test
+  public void testArchivesWithManyEntriesAreSupported() throws Exception {
+    Path directory = temporaryFolder.newFolder("ManyFiles").toPath();
+    int files = 0x10000 + 10;
+    byte[] content = "x".getBytes(StandardCharsets.UTF_8);
+
+    for (int i = 0; i < files; i++) {
+      Files.write(directory.resolve("file" + i + ".lua"), content);
+    }
+
+    Path archive = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    PackageResult result = new AddonPackager(4, 9).pack(directory, archive);
+
+    Assert.assertEquals(files + 1, result.getEntries());
+
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      Assert.assertEquals(files + 1, zipFile.size());
+      Assert.assertEquals("x", read(zipFile, "ManyFiles/file" + (files - 1) + ".lua"));
+    }
+  }
+
+  @Test(expected = java.io.IOException.class)
+  public void testMissingDirectoryFails() throws Exception {
+    new AddonPackager().pack(temporaryFolder.getRoot().toPath().resolve("missing"),
+        temporaryFolder.getRoot().toPath().resolve("addon.zip"));
+  }
+
+  /**
+   * Pack a directory with the given default time zone.
+   *
+   * @param directory The directory to pack
+   * @param timestamp The timestamp of the entries or null for the default timestamp
+   * @param timeZone  The id of the default time zone
+   * @return The written archive
+   * @throws Exception If the directory cannot be packed
+   */
+  private Path pack(Path directory, String timestamp, String timeZone) throws Exception {
+    Path archive = Files.createTempFile(temporaryFolder.getRoot().toPath(), "addon", ".zip");
+    Files.delete(archive);
+    AddonPackager addonPackager = new AddonPackager(4, 9);
+
+    if (timestamp != null) {
+      addonPackager.setTimestamp(AddonPackager.parseTimestamp(timestamp));
+    }
+
+    TimeZone defaultTimeZone = TimeZone.getDefault();
+
+    try {
+      TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+      addonPackager.pack(directory, archive);
+    } finally {
+      TimeZone.setDefault(defaultTimeZone);
+    }
+
+    return archive;
+  }
+
+  private Path createAddonDirectory() throws Exception {
+    Path directory = temporaryFolder.newFolder("MyAddon").toPath();
+    Files.createDirectories(directory.resolve("libs"));
+    Files.createDirectories(directory.resolve("media"));
+    Files.write(directory.resolve("MyAddon.toc"),
+        "## Title: MyAddon".getBytes(StandardCharsets.UTF_8));
+    Files.write(directory.resolve("MyAddon.lua"), "print('hello')".getBytes(StandardCharsets.UTF_8));
+
+    StringBuilder library = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      library.append("local value").append(i).append(" = ").append(i).append('\n');
+    }
+    Files.write(directory.resolve("libs/lib.lua"),
+        library.toString().getBytes(StandardCharsets.UTF_8));
+
+    // random content does not compress and is stored
+    byte[] texture = new byte[64 * 1024];
+    new Random(42).nextBytes(texture);
+    Files.write(directory.resolve("media/texture.blp"), texture);
+
+    return directory;
+  }
+
+  private static String read(ZipFile zipFile, String name) throws Exception {
+    return new String(readBytes(zipFile, name), StandardCharsets.UTF_8);
+  }
+
+  private static byte[] readBytes(ZipFile zipFile, String name) throws Exception {
+    try (InputStream inputStream = zipFile.getInputStream(zipFile.getEntry(name))) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        outputStream.write(buffer, 0, read);
+      }
+
+      return outputStream.toByteArray();
+    }
+  }
+}
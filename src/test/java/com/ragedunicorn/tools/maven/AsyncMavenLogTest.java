@@ -0,0 +1,137 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.log.AsyncMavenLog;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncMavenLogTest {
+
+  @Test
+  public void testMessagesAreForwardedInOrder() {
+    RecordingLog log = new RecordingLog(false);
+    AsyncMavenLog logger = new AsyncMavenLog(log, 4);
+
+    for (int i = 0; i < 100; i++) {
+      logger.info("message " + i);
+    }
+    logger.close();
+
+    Assert.assertEquals(100, log.getMessages().size());
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals("[info] message " + i, log.getMessages().get(i));
+    }
+  }
+
+  @Test
+  public void testMessagesAreForwardedFromConcurrentThreads() throws Exception {
+    RecordingLog log = new RecordingLog(false);
+    AsyncMavenLog logger = new AsyncMavenLog(log, 16);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    CountDownLatch done = new CountDownLatch(4);
+
+    for (int thread = 0; thread < 4; thread++) {
+      executor.execute(() -> {
+        for (int i = 0; i < 250; i++) {
+          logger.warn("warning", new IllegalStateException());
+        }
+        done.countDown();
+      });
+    }
+
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    executor.shutdown();
+    logger.close();
+
+    Assert.assertEquals(1000, log.getMessages().size());
+    Assert.assertTrue(log.getMessages().stream()
+        .allMatch("[warn] warning IllegalStateException"::equals));
+  }
+
+  @Test
+  public void testDisabledLevelIsNotForwarded() {
+    RecordingLog log = new RecordingLog(false);
+    AsyncMavenLog logger = new AsyncMavenLog(log);
+
+    Assert.assertFalse(logger.isDebugEnabled());
+    Assert.assertTrue(logger.isInfoEnabled());
+
+    logger.debug("debug");
+    logger.error(new IllegalArgumentException());
+    logger.close();
+
+    Assert.assertEquals(Collections.singletonList("[error] IllegalArgumentException"),
+        log.getMessages());
+  }
+
+  @Test
+  public void testMessagesAfterCloseAreWrittenDirectly() {
+    RecordingLog log = new RecordingLog(true);
+    AsyncMavenLog logger = new AsyncMavenLog(log);
+    logger.close();
+
+    logger.debug("late");
+
+    Assert.assertEquals(Collections.singletonList("[debug] late"), log.getMessages());
+  }
+
+  /**
+   * Maven log that records all messages instead of printing them.
+   */
+  private static final class RecordingLog extends SystemStreamLog {
+    private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+    private final boolean debugEnabled;
+
+    RecordingLog(boolean debugEnabled) {
+      this.debugEnabled = debugEnabled;
+    }
+
+    List<String> getMessages() {
+      return messages;
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+      return debugEnabled;
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+      record("debug", content, null);
+    }
+
+    @Override
+    public void info(CharSequence content) {
+      record("info", content, null);
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+      record("warn", content, error);
+    }
+
+    @Override
+    public void error(Throwable error) {
+      record("error", null, error);
+    }
+
+    private void record(String level, CharSequence content, Throwable error) {
+      StringBuilder message = new StringBuilder("[").append(level).append(']');
+      if (content != null) {
+        message.append(' ').append(content);
+      }
+      if (error != null) {
+        message.append(' ').append(error.getClass().getSimpleName());
+      }
+      messages.add(message.toString());
+    }
+  }
+}
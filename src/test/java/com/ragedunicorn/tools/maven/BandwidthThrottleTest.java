@@ -0,0 +1,73 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.http.BandwidthThrottle;
+import com.ragedunicorn.tools.maven.http.UploadPriority;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class BandwidthThrottleTest {
+  private static final int MEGABYTE = 1024 * 1024;
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private final BandwidthThrottle throttle = BandwidthThrottle.getInstance();
+
+  @After
+  public void tearDown() {
+    throttle.configure(0, false);
+  }
+
+  @Test
+  public void testDisabledThrottleNeverWaits() throws Exception {
+    Assert.assertFalse(throttle.isEnabled());
+    Assert.assertEquals(0, throttle.tryAcquire(Long.MAX_VALUE, UploadPriority.ALPHA));
+  }
+
+  @Test
+  public void testBandwidthIsLimited() throws Exception {
+    throttle.configure(4 * MEGABYTE, false);
+    long start = System.nanoTime();
+
+    // the first second is covered by the full bucket
+    transmit(8 * MEGABYTE, UploadPriority.RELEASE);
+
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    Assert.assertTrue("Expected at least 950ms but was " + elapsedMillis, elapsedMillis >= 950);
+    Assert.assertTrue("Expected at most 2000ms but was " + elapsedMillis, elapsedMillis < 2000);
+  }
+
+  @Test
+  public void testReleasesReceiveBandwidthFirst() throws Exception {
+    throttle.configure(2 * MEGABYTE, true);
+    // empty the bucket so that both uploads compete for the refill
+    transmit(2 * MEGABYTE, UploadPriority.RELEASE);
+
+    CompletableFuture<Long> alpha = CompletableFuture.supplyAsync(
+        () -> transmitQuietly(MEGABYTE, UploadPriority.ALPHA));
+    Thread.sleep(20);
+    CompletableFuture<Long> release = CompletableFuture.supplyAsync(
+        () -> transmitQuietly(MEGABYTE, UploadPriority.RELEASE));
+
+    Assert.assertTrue("Expected release upload to finish before alpha upload",
+        release.get(10, TimeUnit.SECONDS) < alpha.get(10, TimeUnit.SECONDS));
+  }
+
+  private void transmit(long bytes, UploadPriority priority) throws Exception {
+    for (long sent = 0; sent < bytes; sent += CHUNK_SIZE) {
+      throttle.acquire(CHUNK_SIZE, priority);
+    }
+  }
+
+  private long transmitQuietly(long bytes, UploadPriority priority) {
+    try {
+      transmit(bytes, priority);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+
+    return System.nanoTime();
+  }
+}
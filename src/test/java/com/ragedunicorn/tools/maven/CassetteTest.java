@@ -0,0 +1,305 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.cassette.Cassette;
+import com.ragedunicorn.tools.maven.cassette.CassetteMode;
+import com.ragedunicorn.tools.maven.cassette.RecordedExchange;
+import com.ragedunicorn.tools.maven.cassette.RecordedHeader;
+import com.ragedunicorn.tools.maven.history.ReleaseHistory;
+import com.ragedunicorn.tools.maven.model.TwitchApiRelease;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import org.apache.http.Header;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class CassetteTest {
+  // nothing listens on this port, replayed requests must never reach the network
+  private static final String UNREACHABLE_BASE_URI = "http://localhost:1";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public StubHttpServer server = new StubHttpServer();
+
+  private final AtomicInteger fileIds = new AtomicInteger(1000);
+
+  @Before
+  public void setUp() {
+    server.handle("/api/projects/111111/upload-file", exchange -> {
+      StubHttpServer.readBody(exchange);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.getResponseHeaders().add("Set-Cookie", "session=secret-session");
+      exchange.getResponseHeaders().add("Set-Cookie", "region=secret-region");
+      exchange.getResponseHeaders().add("Vary", "Accept");
+      exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+      StubHttpServer.respond(exchange, 200, "{\"id\":" + fileIds.getAndIncrement() + "}");
+    });
+  }
+
+  @Test
+  public void testReleaseIsRecordedAndReplayed() throws Exception {
+    Path cassetteFile = temporaryFolder.getRoot().toPath().resolve("cassettes/release.json");
+    String file = createFile().getPath();
+
+    TwitchApiRelease recorded = new ReleaseService(server.createTwitchClient(
+        StubHttpServer.PROJECT_ID, Cassette.open(cassetteFile, CassetteMode.RECORD)))
+        .createReleaseOperation(TestFixtures.createMetadata(), file);
+
+    String content = new String(Files.readAllBytes(cassetteFile), StandardCharsets.UTF_8);
+    Assert.assertFalse(content.contains("test-token"));
+    Assert.assertFalse(content.contains("secret-session"));
+
+    Cassette cassette = Cassette.open(cassetteFile, CassetteMode.REPLAY);
+    RecordedExchange exchange = cassette.getExchanges().get(0);
+    Assert.assertEquals("POST", exchange.getMethod());
+    Assert.assertEquals("/api/projects/111111/upload-file", exchange.getUri());
+    Assert.assertEquals(200, exchange.getStatusCode());
+    Assert.assertEquals(Arrays.asList(Cassette.REDACTED, Cassette.REDACTED),
+        getValues(exchange.getResponseHeaders(), "Set-Cookie"));
+
+    TwitchApiRelease replayed =
+        new ReleaseService(createReplayingTwitchClient(cassette))
+            .createReleaseOperation(TestFixtures.createMetadata(), file);
+
+    Assert.assertEquals(recorded.getId(), replayed.getId());
+    // the body is still produced while replaying
+    Assert.assertEquals(recorded.getChecksums(), replayed.getChecksums());
+  }
+
+  @Test
+  public void testSecretRequestHeadersAreRedacted() throws Exception {
+    Path cassetteFile = temporaryFolder.getRoot().toPath().resolve("headers.json");
+    Cassette cassette = Cassette.open(cassetteFile, CassetteMode.RECORD);
+    HttpGet httpGet = new HttpGet(server.getUri("/api/projects/111111/upload-file?dry=true"));
+    httpGet.setHeader("X-Api-Token", "test-token");
+    httpGet.setHeader("Authorization", "token github-token");
+    httpGet.setHeader("Accept", "application/json");
+
+    try (CloseableHttpClient httpClient = cassette.createHttpClientBuilder().build();
+         CloseableHttpResponse response = httpClient.execute(httpGet)) {
+      // the recorded body is still available to the caller
+      Assert.assertEquals("{\"id\":1000}", EntityUtils.toString(response.getEntity()));
+    }
+
+    RecordedExchange exchange =
+        Cassette.open(cassetteFile, CassetteMode.REPLAY).getExchanges().get(0);
+    Assert.assertEquals("/api/projects/111111/upload-file?dry=true", exchange.getUri());
+    Assert.assertEquals(Collections.singletonList(Cassette.REDACTED),
+        getValues(exchange.getRequestHeaders(), "X-Api-Token"));
+    Assert.assertEquals(Collections.singletonList(Cassette.REDACTED),
+        getValues(exchange.getRequestHeaders(), "Authorization"));
+    Assert.assertEquals(Collections.singletonList("application/json"),
+        getValues(exchange.getRequestHeaders(), "Accept"));
+  }
+
+  @Test
+  public void testExchangesAreReplayedInRecordedOrder() throws Exception {
+    Path cassetteFile = recordUploads(2);
+    Cassette cassette = Cassette.open(cassetteFile, CassetteMode.REPLAY);
+    String uri = UNREACHABLE_BASE_URI + "/api/projects/111111/upload-file";
+
+    try (CloseableHttpClient httpClient = cassette.createHttpClientBuilder().build()) {
+      Assert.assertEquals("{\"id\":1000}", replay(httpClient, uri));
+      Assert.assertEquals("{\"id\":1001}", replay(httpClient, uri));
+      // the last exchange is repeated once all exchanges were replayed
+      Assert.assertEquals("{\"id\":1001}", replay(httpClient, uri));
+
+      try {
+        replay(httpClient, UNREACHABLE_BASE_URI + "/api/game/versions");
+        Assert.fail("Expected a request that was never recorded to fail");
+      } catch (ClientProtocolException e) {
+        Assert.assertTrue(e.getMessage().contains("POST /api/game/versions"));
+      }
+    }
+  }
+
+  @Test
+  public void testReleasesAreReplayedInParallel() throws Exception {
+    Cassette cassette = Cassette.open(recordUploads(1), CassetteMode.REPLAY);
+    String file = createFile().getPath();
+    ExecutorService executorService = Executors.newFixedThreadPool(16);
+    List<Future<TwitchApiRelease>> futures = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < 200; i++) {
+        futures.add(executorService.submit(() ->
+            new ReleaseService(createReplayingTwitchClient(cassette))
+                .createReleaseOperation(TestFixtures.createMetadata(), file)));
+      }
+
+      for (Future<TwitchApiRelease> future : futures) {
+        Assert.assertEquals(1000, future.get(10, TimeUnit.SECONDS).getId());
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testRecordedCassetteIsCompleteAfterEveryExchange() throws Exception {
+    Path cassetteFile = recordUploads(3);
+    Cassette cassette = Cassette.open(cassetteFile, CassetteMode.REPLAY);
+
+    Assert.assertEquals(3, cassette.getExchanges().size());
+    Assert.assertEquals("{\"id\":1002}", cassette.getExchanges().get(2).getResponseBody());
+  }
+
+  @Test
+  public void testRepeatedHeadersAreRecordedAndReplayed() throws Exception {
+    Cassette cassette = Cassette.open(recordUploads(1), CassetteMode.REPLAY);
+    List<RecordedHeader> headers = cassette.getExchanges().get(0).getResponseHeaders();
+
+    Assert.assertEquals(Arrays.asList("Accept", "Accept-Encoding"), getValues(headers, "Vary"));
+
+    try (CloseableHttpClient httpClient = cassette.createHttpClientBuilder().build();
+         CloseableHttpResponse response = httpClient.execute(
+             new HttpPost(UNREACHABLE_BASE_URI + "/api/projects/111111/upload-file"))) {
+      Header[] vary = response.getHeaders("Vary");
+
+      Assert.assertEquals(2, vary.length);
+      Assert.assertEquals("Accept", vary[0].getValue());
+      Assert.assertEquals("Accept-Encoding", vary[1].getValue());
+      Assert.assertEquals(2, response.getHeaders("Set-Cookie").length);
+    }
+  }
+
+  @Test
+  public void testCassetteLeavesLocalStateUntouched() throws Exception {
+    File file = createFile();
+    Path cacheDirectory = temporaryFolder.newFolder("upload-cache").toPath();
+    UploadCacheConfiguration uploadCache = new UploadCacheConfiguration();
+    uploadCache.setEnabled(true);
+    uploadCache.setDirectory(cacheDirectory.toString());
+
+    // a real release populates the upload cache
+    ReleaseServiceFactory factory = createFactory(uploadCache, null);
+    Assert.assertEquals(1000, factory.createReleaseService(factory.createTwitchClient(
+        server.getBaseUri(), "wow", StubHttpServer.PROJECT_ID))
+        .createReleaseOperation(TestFixtures.createMetadata(), file.getPath()).getId());
+    Files.delete(new File(file.getPath() + ".checksums").toPath());
+    List<String> cachedEntries = readDirectory(cacheDirectory);
+    ReleaseHistory history = new ReleaseHistory(getHistoryFile());
+    Assert.assertEquals(1, history.size());
+
+    // the identical release is recorded and replayed instead of being skipped by the cache
+    Path cassetteFile = temporaryFolder.getRoot().toPath().resolve("cassette.json");
+    ReleaseServiceFactory recordingFactory = createFactory(uploadCache,
+        createCassette(cassetteFile, "record"));
+    Assert.assertEquals(1001, recordingFactory.createReleaseService(
+        recordingFactory.createTwitchClient(server.getBaseUri(), "wow",
+            StubHttpServer.PROJECT_ID))
+        .createReleaseOperation(TestFixtures.createMetadata(), file.getPath()).getId());
+
+    ReleaseServiceFactory replayingFactory = createFactory(uploadCache,
+        createCassette(cassetteFile, "replay"));
+    Assert.assertEquals(1001, replayingFactory.createReleaseService(
+        replayingFactory.createTwitchClient(UNREACHABLE_BASE_URI, "wow",
+            StubHttpServer.PROJECT_ID))
+        .createReleaseOperation(TestFixtures.createMetadata(), file.getPath()).getId());
+
+    Assert.assertEquals(cachedEntries, readDirectory(cacheDirectory));
+    Assert.assertFalse(new File(file.getPath() + ".checksums").exists());
+    Assert.assertEquals(1, history.size());
+  }
+
+  private ReleaseServiceFactory createFactory(UploadCacheConfiguration uploadCache,
+      CassetteConfiguration cassette) throws Exception {
+    ReleaseServiceFactory factory = new ReleaseServiceFactory(null, null, null, null,
+        uploadCache);
+    factory.setCredentials("test-token");
+    factory.setChecksumFile(true);
+    factory.setHistoryFile(getHistoryFile().toString());
+    factory.openCassette(cassette);
+
+    return factory;
+  }
+
+  private Path getHistoryFile() {
+    return temporaryFolder.getRoot().toPath().resolve("history/releases.bin");
+  }
+
+  private static CassetteConfiguration createCassette(Path file, String mode) {
+    CassetteConfiguration cassette = new CassetteConfiguration();
+    cassette.setFile(file.toString());
+    cassette.setMode(mode);
+
+    return cassette;
+  }
+
+  private static List<String> readDirectory(Path directory) throws Exception {
+    List<String> entries = new ArrayList<>();
+
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+        entries.add(directory.relativize(file) + (Files.isRegularFile(file)
+            ? ":" + new String(Files.readAllBytes(file), StandardCharsets.UTF_8) : ""));
+      }
+    }
+
+    return entries;
+  }
+
+  private Path recordUploads(int uploads) throws Exception {
+    Path cassetteFile = temporaryFolder.getRoot().toPath().resolve("uploads.json");
+    Cassette cassette = Cassette.open(cassetteFile, CassetteMode.RECORD);
+    String file = createFile().getPath();
+
+    for (int i = 0; i < uploads; i++) {
+      new ReleaseService(server.createTwitchClient(StubHttpServer.PROJECT_ID, cassette))
+          .createReleaseOperation(TestFixtures.createMetadata(), file);
+    }
+
+    return cassetteFile;
+  }
+
+  private static String replay(CloseableHttpClient httpClient, String uri) throws Exception {
+    try (CloseableHttpResponse response = httpClient.execute(new HttpPost(uri))) {
+      return EntityUtils.toString(response.getEntity());
+    }
+  }
+
+  private static List<String> getValues(List<RecordedHeader> headers, String name) {
+    List<String> values = new ArrayList<>();
+
+    for (RecordedHeader header : headers) {
+      if (header.getName().equalsIgnoreCase(name)) {
+        values.add(header.getValue());
+      }
+    }
+
+    return values;
+  }
+
+  private static TwitchClient createReplayingTwitchClient(Cassette cassette) {
+    return new TwitchClient(UNREACHABLE_BASE_URI, "wow", StubHttpServer.PROJECT_ID, "test-token",
+        cassette);
+  }
+
+  private File createFile() throws Exception {
+    return TestFixtures.createFile(temporaryFolder.getRoot(), "addon.zip", 64 * 1024);
+  }
+}
@@ -0,0 +1,66 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.retry.CircuitBreaker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+  private final CircuitBreaker circuitBreaker = CircuitBreaker.getInstance();
+
+  @After
+  public void tearDown() {
+    circuitBreaker.configure(CircuitBreaker.DEFAULT_FAILURE_THRESHOLD,
+        CircuitBreaker.DEFAULT_OPEN_MILLIS);
+    circuitBreaker.reset();
+  }
+
+  @Test
+  public void testCircuitOpensAfterFailuresInARow() {
+    circuitBreaker.configure(3, 60000);
+
+    Assert.assertFalse(circuitBreaker.recordFailure());
+    Assert.assertFalse(circuitBreaker.recordFailure());
+    Assert.assertTrue(circuitBreaker.recordFailure());
+    Assert.assertFalse(circuitBreaker.allowRequest());
+  }
+
+  @Test
+  public void testSuccessResetsFailures() {
+    circuitBreaker.configure(2, 60000);
+
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordSuccess();
+
+    Assert.assertFalse(circuitBreaker.recordFailure());
+    Assert.assertTrue(circuitBreaker.allowRequest());
+  }
+
+  @Test
+  public void testSingleProbeIsAllowedAfterOpenTime() throws Exception {
+    circuitBreaker.configure(1, 50);
+    circuitBreaker.recordFailure();
+
+    Assert.assertFalse(circuitBreaker.allowRequest());
+    Thread.sleep(100);
+    Assert.assertTrue(circuitBreaker.allowRequest());
+    Assert.assertFalse("Only one probe may be in flight", circuitBreaker.allowRequest());
+
+    circuitBreaker.recordSuccess();
+    Assert.assertFalse(circuitBreaker.isOpen());
+  }
+
+  @Test
+  public void testReleasedProbeLetsNextRequestProbe() throws Exception {
+    circuitBreaker.configure(1, 50);
+    circuitBreaker.recordFailure();
+    Thread.sleep(100);
+
+    Assert.assertTrue(circuitBreaker.allowRequest());
+    // the probe failed before it reached the Api
+    circuitBreaker.releaseProbe();
+
+    Assert.assertTrue(circuitBreaker.isOpen());
+    Assert.assertTrue(circuitBreaker.allowRequest());
+  }
+}
@@ -0,0 +1,95 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.cache.GameVersionCache;
+import com.ragedunicorn.tools.maven.service.GameVersionService;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class GameVersionServiceTest {
+  private static final String ETAG = "\"v1\"";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public StubHttpServer server = new StubHttpServer();
+
+  private final AtomicInteger fullResponses = new AtomicInteger();
+  private final AtomicInteger notModifiedResponses = new AtomicInteger();
+  private final AtomicReference<String> versions = new AtomicReference<>(
+      "[{\"id\":7668,\"gameVersionTypeID\":517,\"name\":\"1.13.5\",\"slug\":\"1-13-5\"},"
+          + "{\"id\":7350,\"gameVersionTypeID\":517,\"name\":\"1.13.4\",\"slug\":\"1-13-4\"}]");
+
+  @Before
+  public void setUp() {
+    server.handle("/api/game/versions", exchange -> {
+      if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+        notModifiedResponses.incrementAndGet();
+        StubHttpServer.respond(exchange, 304, "");
+        return;
+      }
+
+      fullResponses.incrementAndGet();
+      exchange.getResponseHeaders().add("ETag", ETAG);
+      StubHttpServer.respond(exchange, 200, versions.get());
+    });
+  }
+
+  @Test
+  public void testNumericVersionsAreNotLookedUp() throws Exception {
+    int[] ids = createService(TimeUnit.HOURS.toMillis(1))
+        .resolveGameVersions(new String[] {"7668", "7350"});
+
+    Assert.assertArrayEquals(new int[] {7668, 7350}, ids);
+    Assert.assertEquals(0, fullResponses.get());
+  }
+
+  @Test
+  public void testNamesAreResolvedFromCache() throws Exception {
+    GameVersionService service = createService(TimeUnit.HOURS.toMillis(1));
+
+    Assert.assertArrayEquals(new int[] {7668, 7350},
+        service.resolveGameVersions(new String[] {"1.13.5", "1-13-4"}));
+    Assert.assertArrayEquals(new int[] {7668},
+        createService(TimeUnit.HOURS.toMillis(1)).resolveGameVersions(new String[] {"1.13.5"}));
+
+    Assert.assertEquals(1, fullResponses.get());
+    Assert.assertEquals(0, notModifiedResponses.get());
+  }
+
+  @Test
+  public void testExpiredCacheIsRevalidated() throws Exception {
+    createService(0).resolveGameVersions(new String[] {"1.13.5"});
+    createService(0).resolveGameVersions(new String[] {"1.13.5"});
+
+    Assert.assertEquals(1, fullResponses.get());
+    Assert.assertEquals(1, notModifiedResponses.get());
+  }
+
+  @Test
+  public void testCachedTableIsUsedWhenApiIsUnavailable() throws Exception {
+    createService(0).resolveGameVersions(new String[] {"1.13.5"});
+    server.stop();
+
+    Assert.assertArrayEquals(new int[] {7668},
+        createService(0).resolveGameVersions(new String[] {"1.13.5"}));
+  }
+
+  @Test(expected = MojoExecutionException.class)
+  public void testUnknownVersionFails() throws Exception {
+    createService(TimeUnit.HOURS.toMillis(1)).resolveGameVersions(new String[] {"9.9.9"});
+  }
+
+  private GameVersionService createService(long ttlMillis) {
+    return new GameVersionService(server.createTwitchClient(),
+        new GameVersionCache(temporaryFolder.getRoot().toPath()), ttlMillis);
+  }
+}
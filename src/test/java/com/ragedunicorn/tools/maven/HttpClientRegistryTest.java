@@ -0,0 +1,111 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.http.ConnectionStatistics;
+import com.ragedunicorn.tools.maven.http.ConnectionWarmer;
+import com.ragedunicorn.tools.maven.http.HttpClientRegistry;
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class HttpClientRegistryTest {
+  @Rule
+  public StubHttpServer server = new StubHttpServer();
+
+  @Before
+  public void setUp() {
+    server.handle("/", exchange -> StubHttpServer.respond(exchange, 200, "{}"));
+  }
+
+  @Test
+  public void testConnectionIsReusedAcrossClients() throws Exception {
+    final String uri = server.getBaseUri() + "/";
+
+    for (int i = 0; i < 3; i++) {
+      // every release operation creates its own client
+      try (CloseableHttpClient httpClient = server.createTwitchClient().getHttpClient();
+           CloseableHttpResponse response = httpClient.execute(new HttpGet(uri))) {
+        Assert.assertEquals(200, response.getStatusLine().getStatusCode());
+        EntityUtils.consume(response.getEntity());
+      }
+    }
+
+    ConnectionStatistics statistics = HttpClientRegistry.getInstance().getStatistics();
+    Assert.assertEquals(3, statistics.getRequests());
+    Assert.assertEquals(1, statistics.getOpenedConnections());
+    Assert.assertEquals(2, statistics.getReusedConnections());
+  }
+
+  @Test
+  public void testWarmedUpConnectionsAreUsedByRequests() throws Exception {
+    final String uri = server.getBaseUri() + "/";
+    ConnectionWarmer connectionWarmer =
+        new ConnectionWarmer(HttpClientRegistry.getInstance().getConnectionManager());
+
+    Assert.assertEquals(Integer.valueOf(2),
+        connectionWarmer.warmUp(URI.create(uri), 2).get(10, TimeUnit.SECONDS));
+    Assert.assertEquals(2, HttpClientRegistry.getInstance().getStatistics()
+        .getOpenedConnections());
+
+    try (CloseableHttpClient httpClient = server.createTwitchClient().getHttpClient();
+         CloseableHttpResponse response = httpClient.execute(new HttpGet(uri))) {
+      Assert.assertEquals(200, response.getStatusLine().getStatusCode());
+      EntityUtils.consume(response.getEntity());
+    }
+
+    // the request was sent on one of the warmed up connections
+    Assert.assertEquals(2, HttpClientRegistry.getInstance().getStatistics()
+        .getOpenedConnections());
+  }
+
+  @Test
+  public void testConfiguredTimeoutsApplyToSharedClients() throws Exception {
+    server.handle("/slow", exchange -> {
+      try {
+        Thread.sleep(2000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      StubHttpServer.respond(exchange, 200, "{}");
+    });
+
+    TimeoutPolicy timeoutPolicy = new TimeoutPolicy();
+    timeoutPolicy.setMinSocketTimeoutMillis(200);
+    timeoutPolicy.setMaxSocketTimeoutMillis(200);
+    HttpClientRegistry.getInstance().configure(HttpClientRegistry.DEFAULT_MAX_CONNECTIONS,
+        HttpClientRegistry.DEFAULT_MAX_CONNECTIONS_PER_ROUTE, timeoutPolicy);
+
+    try (CloseableHttpClient httpClient = server.createTwitchClient().getHttpClient()) {
+      httpClient.execute(new HttpGet(server.getUri("/slow"))).close();
+      Assert.fail("Expected the configured socket timeout to abort the request");
+    } catch (SocketTimeoutException e) {
+      // expected
+    }
+
+    try {
+      server.createTwitchClient().getAsyncHttpClient()
+          .execute(new HttpGet(server.getUri("/slow")), null).get(10, TimeUnit.SECONDS);
+      Assert.fail("Expected the configured socket timeout to abort the request");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof SocketTimeoutException);
+    }
+  }
+
+  @Test
+  public void testShutdownResetsStatistics() {
+    HttpClientRegistry.getInstance().recordRequest();
+    HttpClientRegistry.getInstance().shutdown();
+
+    Assert.assertEquals(0, HttpClientRegistry.getInstance().getStatistics().getRequests());
+  }
+}
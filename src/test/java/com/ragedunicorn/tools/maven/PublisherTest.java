@@ -0,0 +1,176 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.GitHubDestination;
+import com.ragedunicorn.tools.maven.model.WowInterfaceDestination;
+import com.ragedunicorn.tools.maven.publish.GitHubPublisher;
+import com.ragedunicorn.tools.maven.publish.PublishResult;
+import com.ragedunicorn.tools.maven.publish.Publisher;
+import com.ragedunicorn.tools.maven.publish.WowInterfacePublisher;
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import com.ragedunicorn.tools.maven.service.ReleaseExecutor;
+import com.sun.net.httpserver.HttpExchange;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PublisherTest {
+  private static final int FILE_SIZE = 256 * 1024;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public StubHttpServer server = new StubHttpServer();
+
+  private final Map<String, String> receivedBodies = new ConcurrentHashMap<>();
+  private final Map<String, String> receivedTokens = new ConcurrentHashMap<>();
+  private final AtomicInteger activeRequests = new AtomicInteger();
+  private final AtomicInteger maxActiveRequests = new AtomicInteger();
+
+  @Before
+  public void setUp() throws Exception {
+    server.handle("/addons/update", exchange -> {
+      receive(exchange, "x-api-token");
+      StubHttpServer.respond(exchange, 202, "");
+    });
+    server.handle("/repos/owner/addon/releases", exchange -> {
+      receive(exchange, "Authorization");
+      StubHttpServer.respond(exchange, 201,
+          "{\"id\":7,\"html_url\":\"https://github.com/owner/addon/releases/7\","
+              + "\"upload_url\":\"" + server.getBaseUri() + "/uploads/7/assets{?name,label}\"}");
+    });
+    server.handle("/uploads/7/assets", exchange -> {
+      receive(exchange, "Authorization");
+      receivedBodies.put("query", exchange.getRequestURI().getQuery());
+      StubHttpServer.respond(exchange, 201, "{\"id\":70}");
+    });
+    server.handle("/repos/owner/missing/releases", exchange -> {
+      receive(exchange, "Authorization");
+      StubHttpServer.respond(exchange, 404, "{\"message\":\"Not Found\"}");
+    });
+  }
+
+  @Test
+  public void testWowInterfaceUpdateIsUploaded() throws Exception {
+    PublishResult result = createWowInterfacePublisher().publish();
+
+    Assert.assertEquals("wowinterface/12345", result.getDestination());
+    Assert.assertEquals("12345", result.getId());
+    Assert.assertEquals("wowinterface-token", receivedTokens.get("/addons/update"));
+
+    String body = receivedBodies.get("/addons/update");
+    Assert.assertTrue(body.contains("name=\"version\""));
+    Assert.assertTrue(body.contains("\r\n\r\n1.0.0\r\n"));
+    Assert.assertTrue(body.contains("\r\n\r\n9.0.2\r\n"));
+    Assert.assertTrue(body.contains("name=\"updatefile\"; filename=\"addon.zip\""));
+    Assert.assertTrue(body.length() > FILE_SIZE);
+  }
+
+  @Test
+  public void testGitHubReleaseIsCreatedWithAsset() throws Exception {
+    PublishResult result = createGitHubPublisher("addon").publish();
+
+    Assert.assertEquals("github/owner/addon", result.getDestination());
+    Assert.assertEquals("7", result.getId());
+    Assert.assertEquals("https://github.com/owner/addon/releases/7", result.getUrl());
+
+    String release = receivedBodies.get("/repos/owner/addon/releases");
+    Assert.assertTrue(release.contains("\"tag_name\":\"v1.0.0\""));
+    Assert.assertTrue(release.contains("\"body\":\"changelog\""));
+    Assert.assertTrue(release.contains("\"prerelease\":true"));
+    Assert.assertEquals("token github-token", receivedTokens.get("/uploads/7/assets"));
+    Assert.assertEquals("name=addon.zip", receivedBodies.get("query"));
+    Assert.assertEquals(FILE_SIZE, receivedBodies.get("/uploads/7/assets").length());
+  }
+
+  @Test
+  public void testDestinationsArePublishedConcurrently() throws Exception {
+    List<Publisher> publishers =
+        Arrays.asList(createWowInterfacePublisher(), createGitHubPublisher("addon"));
+
+    List<PublishResult> results =
+        new ReleaseExecutor(2, "test", new DefaultLog()).execute(publishers, "releases");
+
+    Assert.assertEquals(2, results.size());
+    Assert.assertEquals("wowinterface/12345", results.get(0).getDestination());
+    Assert.assertEquals("github/owner/addon", results.get(1).getDestination());
+    Assert.assertTrue("Expected destinations to be published concurrently",
+        maxActiveRequests.get() > 1);
+  }
+
+  @Test
+  public void testFailedDestinationIsReported() throws Exception {
+    List<Publisher> publishers =
+        Arrays.asList(createWowInterfacePublisher(), createGitHubPublisher("missing"));
+
+    try {
+      new ReleaseExecutor(2, "test", new DefaultLog()).execute(publishers, "releases");
+      Assert.fail("Expected the failed destination to be reported");
+    } catch (MojoExecutionException e) {
+      Assert.assertEquals("Failed to create 1 of 2 releases: github/owner/missing",
+          e.getMessage());
+    }
+
+    // the other destination is released regardless of the failure
+    Assert.assertTrue(receivedBodies.containsKey("/addons/update"));
+  }
+
+  private WowInterfacePublisher createWowInterfacePublisher() throws IOException {
+    WowInterfaceDestination destination = new WowInterfaceDestination();
+    destination.setAddonId("12345");
+    destination.setVersion("1.0.0");
+    destination.setCompatible("9.0.2");
+    destination.setToken("wowinterface-token");
+    destination.setBaseUri(server.getBaseUri());
+
+    return new WowInterfacePublisher(destination, createFile(), "changelog",
+        new TimeoutPolicy());
+  }
+
+  private GitHubPublisher createGitHubPublisher(String repository) throws IOException {
+    GitHubDestination destination = new GitHubDestination();
+    destination.setOwner("owner");
+    destination.setRepository(repository);
+    destination.setTagName("v1.0.0");
+    destination.setPrerelease(true);
+    destination.setToken("github-token");
+    destination.setBaseUri(server.getBaseUri());
+
+    return new GitHubPublisher(destination, createFile(), "changelog", new TimeoutPolicy());
+  }
+
+  private File createFile() throws IOException {
+    return TestFixtures.createFile(temporaryFolder.getRoot(), "addon.zip", FILE_SIZE);
+  }
+
+  private void receive(HttpExchange exchange, String tokenHeader) throws IOException {
+    int active = activeRequests.incrementAndGet();
+    maxActiveRequests.accumulateAndGet(active, Math::max);
+
+    try {
+      String path = exchange.getRequestURI().getPath();
+      receivedBodies.put(path,
+          new String(StubHttpServer.readBody(exchange), StandardCharsets.ISO_8859_1));
+      receivedTokens.put(path, exchange.getRequestHeaders().getFirst(tokenHeader));
+      // give concurrent destinations the chance to overlap
+      Thread.sleep(200);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      activeRequests.decrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.history.HistoryAnalysis;
+import com.ragedunicorn.tools.maven.history.ReleaseHistory;
+import com.ragedunicorn.tools.maven.history.ReleaseRecord;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReleaseHistoryTest {
+  private static final long MEGABYTE = 1024 * 1024;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testLatestRecordsAreRead() throws Exception {
+    ReleaseHistory history = new ReleaseHistory(
+        temporaryFolder.getRoot().toPath().resolve("history/releases.bin"));
+    Assert.assertTrue(history.readLatest(10).isEmpty());
+
+    for (int i = 1; i <= 1000; i++) {
+      history.append(createRecord(i, MEGABYTE, 1000, 200));
+    }
+
+    List<ReleaseRecord> latest = history.readLatest(3);
+
+    Assert.assertEquals(1000, history.size());
+    Assert.assertEquals(3, latest.size());
+    Assert.assertEquals(createRecord(998, MEGABYTE, 1000, 200), latest.get(0));
+    Assert.assertEquals(createRecord(1000, MEGABYTE, 1000, 200), latest.get(2));
+  }
+
+  @Test
+  public void testPartiallyWrittenRecordIsDiscarded() throws Exception {
+    Path file = temporaryFolder.getRoot().toPath().resolve("releases.bin");
+    ReleaseHistory history = new ReleaseHistory(file);
+    history.append(createRecord(1, MEGABYTE, 1000, 200));
+    long size = Files.size(file);
+
+    // simulate a build that was killed while appending
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[7]), size);
+    }
+    Assert.assertEquals(1, history.size());
+
+    history.append(createRecord(2, MEGABYTE, 1000, 500));
+
+    Assert.assertEquals(2 * size - 4, Files.size(file));
+    Assert.assertEquals(createRecord(2, MEGABYTE, 1000, 500), history.readLatest(1).get(0));
+  }
+
+  @Test
+  public void testRegressionsAreDetectedAgainstBaseline() {
+    List<ReleaseRecord> records = new ArrayList<>();
+
+    for (int i = 0; i < 20; i++) {
+      records.add(createRecord(i, MEGABYTE, 1000, 200));
+    }
+
+    Assert.assertFalse(HistoryAnalysis.analyze(records, 5, 25).isRegressed());
+
+    // the network got slower, the archive and the Twitch Api did not change
+    for (int i = 20; i < 25; i++) {
+      records.add(createRecord(i, MEGABYTE, 4000, 200));
+    }
+
+    HistoryAnalysis analysis = HistoryAnalysis.analyze(records, 5, 25);
+
+    Assert.assertTrue(analysis.isRegressed());
+    Assert.assertEquals(MEGABYTE, analysis.getBaseline().getThroughput());
+    Assert.assertEquals(MEGABYTE / 4, analysis.getRecent().getThroughput());
+    Assert.assertEquals(2, analysis.getRegressions().size());
+    Assert.assertTrue(analysis.getRegressions().get(0).startsWith("Throughput dropped"));
+    Assert.assertTrue(analysis.getRegressions().get(1).startsWith("Release duration grew"));
+  }
+
+  private ReleaseRecord createRecord(long createdAt, long fileLength, long uploadMillis,
+      long serverProcessingMillis) {
+    ReleaseRecord record = new ReleaseRecord();
+    record.setCreatedAt(createdAt);
+    record.setFileLength(fileLength);
+    record.setUploadMillis(uploadMillis);
+    record.setServerProcessingMillis(serverProcessingMillis);
+    record.setDurationMillis(uploadMillis + serverProcessingMillis);
+    record.setAttempts(1);
+    record.setStatusCode(200);
+
+    return record;
+  }
+}
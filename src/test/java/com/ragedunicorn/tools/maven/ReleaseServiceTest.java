@@ -0,0 +1,694 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.cache.DigestUtils;
+import com.ragedunicorn.tools.maven.cache.UploadCache;
+import com.ragedunicorn.tools.maven.concurrent.ExecutionTracker;
+import com.ragedunicorn.tools.maven.history.ReleaseHistory;
+import com.ragedunicorn.tools.maven.history.ReleaseRecord;
+import com.ragedunicorn.tools.maven.http.DeadlineExceededException;
+import com.ragedunicorn.tools.maven.http.SharedFile;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.AdditionalFile;
+import com.ragedunicorn.tools.maven.model.FileChecksums;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.TwitchApiRelease;
+import com.ragedunicorn.tools.maven.outbox.OutboxEntry;
+import com.ragedunicorn.tools.maven.outbox.ReleaseOutbox;
+import com.ragedunicorn.tools.maven.retry.CircuitBreaker;
+import com.ragedunicorn.tools.maven.retry.RetryPolicy;
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import com.ragedunicorn.tools.maven.service.DeferredRelease;
+import com.ragedunicorn.tools.maven.service.DeferredReleaseQueue;
+import com.ragedunicorn.tools.maven.service.ReleaseExecutor;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.ragedunicorn.tools.maven.service.ServiceUnavailableException;
+import com.ragedunicorn.tools.maven.service.UploadEngine;
+import com.ragedunicorn.tools.maven.timing.TimingReport;
+import com.ragedunicorn.tools.maven.timing.UploadTiming;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReleaseServiceTest {
+  private static final int PARENT_FILE_ID = 1000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public StubHttpServer server = new StubHttpServer();
+
+  private final List<String> receivedMetadata = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicInteger fileIds = new AtomicInteger(PARENT_FILE_ID);
+  private final AtomicInteger activeUploads = new AtomicInteger();
+  private final AtomicInteger maxActiveUploads = new AtomicInteger();
+  private final CountDownLatch slowUploadReleased = new CountDownLatch(1);
+
+  @Before
+  public void setUp() throws Exception {
+    server.handle("/api/projects/111111/upload-file", exchange -> {
+      int active = activeUploads.incrementAndGet();
+      maxActiveUploads.accumulateAndGet(active, Math::max);
+
+      try {
+        receivedMetadata.add(new String(StubHttpServer.readBody(exchange),
+            StandardCharsets.UTF_8));
+        // give concurrent uploads the chance to overlap
+        Thread.sleep(200);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        activeUploads.decrementAndGet();
+      }
+
+      StubHttpServer.respond(exchange, 200, "{\"id\":" + fileIds.getAndIncrement() + "}");
+    });
+    server.handle("/api/projects/222222/upload-file", exchange -> {
+      try {
+        slowUploadReleased.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.sendResponseHeaders(500, -1);
+      exchange.close();
+    });
+  }
+
+  @After
+  public void tearDown() {
+    CircuitBreaker.getInstance().configure(CircuitBreaker.DEFAULT_FAILURE_THRESHOLD,
+        CircuitBreaker.DEFAULT_OPEN_MILLIS);
+    CircuitBreaker.getInstance().reset();
+    slowUploadReleased.countDown();
+  }
+
+  @Test
+  public void testAdditionalFilesAreUploadedAfterParent() throws Exception {
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient(), 3);
+
+    List<AdditionalFile> additionalFiles = Arrays.asList(
+        createAdditionalFile("module-a.zip"),
+        createAdditionalFile("module-b.zip"),
+        createAdditionalFile("module-c.zip"));
+
+    List<TwitchApiRelease> releases = releaseService.createReleaseOperation(
+        TestFixtures.createMetadata(), createFile("addon.zip").getPath(), additionalFiles);
+
+    Assert.assertEquals(4, releases.size());
+    Assert.assertEquals(PARENT_FILE_ID, releases.get(0).getId());
+    Assert.assertEquals(4, receivedMetadata.size());
+    Assert.assertFalse(receivedMetadata.get(0).contains("parentFileID"));
+
+    for (String metadata : receivedMetadata.subList(1, receivedMetadata.size())) {
+      Assert.assertTrue(metadata.contains("\"parentFileID\":" + PARENT_FILE_ID));
+      Assert.assertFalse(metadata.contains("gameVersions"));
+    }
+
+    Assert.assertTrue("Expected additional files to be uploaded concurrently",
+        maxActiveUploads.get() > 1);
+  }
+
+  @Test
+  public void testSingleFileRelease() throws Exception {
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient());
+
+    List<TwitchApiRelease> releases = releaseService.createReleaseOperation(
+        TestFixtures.createMetadata(), createFile("addon.zip").getPath(), null);
+
+    Assert.assertEquals(1, releases.size());
+    Assert.assertEquals(1, maxActiveUploads.get());
+  }
+
+  @Test
+  public void testEmptySuccessfulResponseFailsRelease() throws Exception {
+    AtomicInteger uploads = new AtomicInteger();
+    server.handle("/api/projects/555555/upload-file", exchange -> {
+      StubHttpServer.readBody(exchange);
+      uploads.incrementAndGet();
+      StubHttpServer.respond(exchange, 200, "");
+    });
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient("555555"));
+
+    try {
+      releaseService.createReleaseOperation(TestFixtures.createMetadata(),
+          createFile("addon.zip").getPath());
+      Assert.fail("Expected the empty response to fail the release");
+    } catch (MojoExecutionException e) {
+      Assert.assertEquals("Failed to read created release: Twitch Api responded with status 200 "
+          + "and an empty body", e.getMessage());
+    }
+
+    // the accepted upload is never sent again
+    Assert.assertEquals(1, uploads.get());
+  }
+
+  @Test
+  public void testChecksumsAreCalculatedWhileUploading() throws Exception {
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient());
+    releaseService.setChecksumFile(true);
+    File file = temporaryFolder.newFile("checksums.zip");
+    byte[] content = new byte[200 * 1024];
+    new Random(42).nextBytes(content);
+    Files.write(file.toPath(), content);
+
+    TwitchApiRelease release = releaseService.createReleaseOperation(TestFixtures.createMetadata(),
+        file.getPath());
+
+    FileChecksums checksums = release.getChecksums();
+    String md5 = DigestUtils.toHex(MessageDigest.getInstance("MD5").digest(content));
+    Assert.assertEquals(DigestUtils.sha256(file), checksums.getSha256());
+    Assert.assertEquals(md5, checksums.getMd5());
+    Assert.assertEquals(content.length, checksums.getLength());
+
+    List<String> lines = Files.readAllLines(
+        file.toPath().resolveSibling("checksums.zip" + DigestUtils.CHECKSUM_FILE_SUFFIX));
+    Assert.assertEquals(Arrays.asList("SHA256 (checksums.zip) = " + checksums.getSha256(),
+        "MD5 (checksums.zip) = " + md5), lines);
+  }
+
+  @Test
+  public void testReleasesAreAppendedToHistory() throws Exception {
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient());
+    ReleaseHistory history =
+        new ReleaseHistory(temporaryFolder.getRoot().toPath().resolve("releases.bin"));
+    releaseService.setReleaseHistory(history);
+
+    releaseService.createReleaseOperation(TestFixtures.createMetadata(),
+        createFile("addon.zip").getPath(),
+        Collections.singletonList(createAdditionalFile("addon-nolib.zip")));
+
+    List<ReleaseRecord> records = history.readLatest(10);
+    Assert.assertEquals(2, records.size());
+    Assert.assertEquals(1024, records.get(0).getFileLength());
+    Assert.assertEquals(200, records.get(0).getStatusCode());
+    Assert.assertEquals(1, records.get(0).getAttempts());
+  }
+
+  @Test
+  public void testModulesAreReleasedInParallel() throws Exception {
+    int modules = 8;
+    ReleaseHistory history =
+        new ReleaseHistory(temporaryFolder.getRoot().toPath().resolve("releases.bin"));
+    ExecutorService executorService = Executors.newFixedThreadPool(modules);
+    CountDownLatch started = new CountDownLatch(modules);
+    List<Future<List<TwitchApiRelease>>> futures = new ArrayList<>();
+    Object reactor = new Object();
+
+    try {
+      for (int i = 0; i < modules; i++) {
+        String file = createFile("module-" + i + ".zip").getPath();
+        AdditionalFile additionalFile = createAdditionalFile("module-" + i + "-nolib.zip");
+
+        // every module of a parallel build executes its own mojo with its own client and service
+        futures.add(executorService.submit(() -> {
+          ExecutionTracker.getInstance().start(reactor, modules);
+          try {
+            ReleaseService releaseService = new ReleaseService(server.createTwitchClient());
+            releaseService.setReleaseHistory(history);
+            started.countDown();
+            started.await();
+
+            return releaseService.createReleaseOperation(TestFixtures.createMetadata(), file,
+                Collections.singletonList(additionalFile));
+          } finally {
+            ExecutionTracker.getInstance().finish(true);
+          }
+        }));
+      }
+
+      List<Integer> releasedIds = new ArrayList<>();
+      for (Future<List<TwitchApiRelease>> future : futures) {
+        for (TwitchApiRelease release : future.get(30, TimeUnit.SECONDS)) {
+          releasedIds.add(release.getId());
+        }
+      }
+
+      Assert.assertEquals(modules * 2, releasedIds.size());
+      Assert.assertEquals(modules * 2, releasedIds.stream().distinct().count());
+      Assert.assertEquals(modules * 2, history.size());
+      Assert.assertEquals(0, ExecutionTracker.getInstance().getPendingExecutions());
+      Assert.assertTrue("Expected modules to be released concurrently",
+          maxActiveUploads.get() > 1);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testIdenticalReleaseIsSkipped() throws Exception {
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient());
+    releaseService.setUploadCache(new UploadCache(temporaryFolder.newFolder("cache").toPath()));
+    String file = createFile("addon.zip").getPath();
+
+    TwitchApiRelease first =
+        releaseService.createReleaseOperation(TestFixtures.createMetadata(), file);
+    TwitchApiRelease second =
+        releaseService.createReleaseOperation(TestFixtures.createMetadata(), file);
+
+    // skipped releases are not uploaded and therefore carry no checksums
+    Assert.assertEquals(first.getId(), second.getId());
+    Assert.assertNull(second.getChecksums());
+    Assert.assertEquals(1, receivedMetadata.size());
+
+    Metadata changedMetadata = TestFixtures.createMetadata();
+    changedMetadata.setChangelog("changed changelog");
+    releaseService.createReleaseOperation(changedMetadata, file);
+
+    Assert.assertEquals(2, receivedMetadata.size());
+  }
+
+  @Test
+  public void testAsyncReleasesAreUploadedConcurrently() throws Exception {
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient());
+    List<CompletableFuture<TwitchApiRelease>> futures = new ArrayList<>();
+
+    for (int i = 0; i < 6; i++) {
+      futures.add(releaseService.createReleaseOperationAsync(TestFixtures.createMetadata(),
+          createFile("addon-" + i + ".zip").getPath()));
+    }
+
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+    List<Integer> fileIds = new ArrayList<>();
+    for (CompletableFuture<TwitchApiRelease> future : futures) {
+      fileIds.add(future.get().getId());
+    }
+
+    Assert.assertEquals(6, receivedMetadata.size());
+    Assert.assertEquals(6, fileIds.stream().distinct().count());
+    Assert.assertTrue(receivedMetadata.get(0).contains("\"displayName\":\"addon\""));
+    Assert.assertTrue("Expected async releases to be uploaded concurrently",
+        maxActiveUploads.get() > 1);
+  }
+
+  @Test
+  public void testAsyncReleaseTimesOut() throws Exception {
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient("222222"));
+
+    CompletableFuture<TwitchApiRelease> future = releaseService.createReleaseOperationAsync(
+        TestFixtures.createMetadata(), createFile("addon.zip").getPath(), 200,
+        TimeUnit.MILLISECONDS);
+
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      Assert.fail("Expected release to time out");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof TimeoutException);
+    }
+  }
+
+  @Test
+  public void testAsyncReleaseIsAbortedAtReleaseDeadline() throws Exception {
+    TimeoutPolicy timeoutPolicy = new TimeoutPolicy();
+    timeoutPolicy.setReleaseDeadlineMillis(200);
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient("222222"), 1,
+        new UploadEngine(UploadEngine.DEFAULT_CHUNK_SIZE, 0, new RetryPolicy(), timeoutPolicy));
+
+    CompletableFuture<TwitchApiRelease> future = releaseService.createReleaseOperationAsync(
+        TestFixtures.createMetadata(), createFile("addon.zip").getPath());
+
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      Assert.fail("Expected the release deadline to abort the upload");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof MojoExecutionException);
+      Assert.assertTrue(e.getCause().getCause() instanceof DeadlineExceededException);
+    }
+  }
+
+  @Test
+  public void testAsyncReleaseCanBeCancelled() throws Exception {
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient("222222"));
+
+    CompletableFuture<TwitchApiRelease> future = releaseService.createReleaseOperationAsync(
+        TestFixtures.createMetadata(), createFile("addon.zip").getPath());
+
+    Assert.assertTrue(future.cancel(true));
+    Assert.assertTrue(future.isCancelled());
+
+    // the aborted upload must not block further releases
+    TwitchApiRelease release = new ReleaseService(server.createTwitchClient())
+        .createReleaseOperationAsync(TestFixtures.createMetadata(),
+            createFile("other.zip").getPath())
+        .get(5, TimeUnit.SECONDS);
+
+    Assert.assertEquals(PARENT_FILE_ID, release.getId());
+  }
+
+  @Test
+  public void testAsyncReleaseIsRecordedLikeBlockingRelease() throws Exception {
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient());
+    ReleaseHistory history =
+        new ReleaseHistory(temporaryFolder.getRoot().toPath().resolve("releases.bin"));
+    TimingReport timingReport = new TimingReport();
+    releaseService.setReleaseHistory(history);
+    releaseService.setTimingReport(timingReport);
+    releaseService.setChecksumFile(true);
+    releaseService.setCircuitBreaker(CircuitBreaker.getInstance());
+    File file = createFile("addon.zip");
+
+    TwitchApiRelease release = releaseService.createReleaseOperationAsync(
+        TestFixtures.createMetadata(), file.getPath()).get(5, TimeUnit.SECONDS);
+
+    Assert.assertEquals(DigestUtils.sha256(file), release.getChecksums().getSha256());
+    Assert.assertEquals(1, history.readLatest(10).size());
+    Assert.assertEquals(1, timingReport.getUploads().size());
+    Assert.assertTrue(timingReport.getPhases().containsKey(TimingReport.METADATA_SERIALIZATION));
+    Assert.assertTrue(Files.exists(
+        file.toPath().resolveSibling("addon.zip" + DigestUtils.CHECKSUM_FILE_SUFFIX)));
+  }
+
+  @Test
+  public void testAsyncReleaseIsRejectedByOpenCircuitBreaker() throws Exception {
+    CircuitBreaker.getInstance().configure(1, 60000);
+    CircuitBreaker.getInstance().recordFailure();
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient());
+    releaseService.setCircuitBreaker(CircuitBreaker.getInstance());
+
+    try {
+      releaseService.createReleaseOperationAsync(TestFixtures.createMetadata(),
+          createFile("addon.zip").getPath()).get(5, TimeUnit.SECONDS);
+      Assert.fail("Expected the open circuit breaker to reject the release");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof ServiceUnavailableException);
+    }
+
+    Assert.assertTrue(receivedMetadata.isEmpty());
+  }
+
+  @Test
+  public void testAsyncProbeFailingLocallyDoesNotBlockCircuitBreaker() throws Exception {
+    CircuitBreaker.getInstance().configure(1, 0);
+    CircuitBreaker.getInstance().recordFailure();
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient());
+    releaseService.setCircuitBreaker(CircuitBreaker.getInstance());
+
+    try {
+      releaseService.createReleaseOperationAsync(TestFixtures.createMetadata(),
+          new File(temporaryFolder.getRoot(), "missing.zip").getPath()).get(5, TimeUnit.SECONDS);
+      Assert.fail("Expected the missing file to fail the probe");
+    } catch (ExecutionException e) {
+      Assert.assertFalse(e.getCause() instanceof ServiceUnavailableException);
+    }
+
+    // the next release probes the Api and closes the circuit
+    releaseService.createReleaseOperationAsync(TestFixtures.createMetadata(),
+        createFile("addon.zip").getPath()).get(5, TimeUnit.SECONDS);
+    Assert.assertFalse(CircuitBreaker.getInstance().isOpen());
+  }
+
+  @Test
+  public void testUploadTimingsAreRecorded() throws Exception {
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient());
+    TimingReport timingReport = new TimingReport();
+    releaseService.setTimingReport(timingReport);
+
+    releaseService.createReleaseOperation(TestFixtures.createMetadata(),
+        createFile("addon.zip").getPath());
+
+    Assert.assertTrue(timingReport.getPhases().containsKey(TimingReport.METADATA_SERIALIZATION));
+    Assert.assertEquals(1, timingReport.getUploads().size());
+
+    UploadTiming timing = timingReport.getUploads().get(0);
+    Assert.assertEquals(1, timing.getAttempts());
+    Assert.assertEquals(1024, timing.getUploadedBytes());
+    // the stub delays every response after reading the body
+    Assert.assertTrue(timing.getServerProcessingMillis() >= 150);
+    Assert.assertTrue(timingReport.getSummary().contains("serverProcessing"));
+
+    Path reportFile = temporaryFolder.getRoot().toPath().resolve("report/timings.json");
+    timingReport.write(reportFile);
+    String report = new String(Files.readAllBytes(reportFile), StandardCharsets.UTF_8);
+
+    Assert.assertTrue(report.contains("\"uploadedBytes\": 1024"));
+    Assert.assertTrue(report.contains("\"metadataSerialization\""));
+  }
+
+  @Test
+  public void testDeferredReleasesAreCreatedConcurrently() throws Exception {
+    DeferredReleaseQueue queue = DeferredReleaseQueue.getInstance();
+
+    for (int i = 0; i < 3; i++) {
+      queue.add(new DeferredRelease("module-" + i, new ReleaseService(server.createTwitchClient()),
+          TestFixtures.createMetadata(), createFile("module-" + i + ".zip").getPath(), null));
+    }
+
+    TimingReport timingReport = new TimingReport();
+    Assert.assertEquals(3, queue.size());
+    Assert.assertEquals(3, queue.flush(3, new DefaultLog(), timingReport));
+
+    Assert.assertEquals(0, queue.size());
+    Assert.assertEquals(3, receivedMetadata.size());
+    Assert.assertEquals(3, timingReport.getUploads().size());
+    Assert.assertTrue("Expected deferred releases to be created concurrently",
+        maxActiveUploads.get() > 1);
+  }
+
+  @Test
+  public void testDiscardedReleasesAreNeverCreated() throws Exception {
+    DeferredReleaseQueue queue = DeferredReleaseQueue.getInstance();
+    queue.add(new DeferredRelease("module", new ReleaseService(server.createTwitchClient()),
+        TestFixtures.createMetadata(), createFile("module.zip").getPath(), null));
+
+    Assert.assertEquals(1, queue.discard());
+    Assert.assertEquals(0, queue.flush(3, new DefaultLog(), new TimingReport()));
+    Assert.assertTrue(receivedMetadata.isEmpty());
+  }
+
+  @Test
+  public void testSharedFileIsReleasedToAllTargets() throws Exception {
+    File file = temporaryFolder.newFile("shared.zip");
+    Files.write(file.toPath(), "shared archive content".getBytes(StandardCharsets.UTF_8));
+    SharedFile sharedFile = SharedFile.open(file.toPath());
+    List<DeferredRelease> releases = new ArrayList<>();
+
+    for (int i = 0; i < 3; i++) {
+      ReleaseService releaseService = new ReleaseService(server.createTwitchClient());
+      releaseService.setSharedFile(sharedFile);
+      releases.add(new DeferredRelease("target-" + i, releaseService, TestFixtures.createMetadata(),
+          file.getPath(), null));
+    }
+
+    Assert.assertEquals(3, new ReleaseExecutor(3, "test", new DefaultLog())
+        .execute(releases, "release targets").size());
+    Assert.assertEquals(3, receivedMetadata.size());
+    Assert.assertTrue("Expected targets to be released concurrently",
+        maxActiveUploads.get() > 1);
+
+    for (String body : receivedMetadata) {
+      Assert.assertTrue(body.contains("shared archive content"));
+    }
+  }
+
+  @Test
+  public void testFailedTargetsAreReported() throws Exception {
+    slowUploadReleased.countDown();
+    File file = createFile("shared.zip");
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setMaxAttempts(1);
+    List<DeferredRelease> releases = Arrays.asList(
+        new DeferredRelease("wow/111111", new ReleaseService(server.createTwitchClient()),
+            TestFixtures.createMetadata(), file.getPath(), null),
+        new DeferredRelease("wow/222222", new ReleaseService(server.createTwitchClient("222222"), 1,
+            new UploadEngine(UploadEngine.DEFAULT_CHUNK_SIZE, 0, retryPolicy)),
+            TestFixtures.createMetadata(), file.getPath(), null));
+
+    try {
+      new ReleaseExecutor(2, "test", new DefaultLog()).execute(releases, "release targets");
+      Assert.fail("Expected the failed target to be reported");
+    } catch (MojoExecutionException e) {
+      Assert.assertEquals("Failed to create 1 of 2 release targets: wow/222222", e.getMessage());
+    }
+
+    Assert.assertEquals(1, receivedMetadata.size());
+  }
+
+  @Test
+  public void testUnavailableReleasesAreSpooledToOutbox() throws Exception {
+    slowUploadReleased.countDown();
+    CircuitBreaker.getInstance().configure(1, 60000);
+    ReleaseOutbox outbox = new ReleaseOutbox(temporaryFolder.newFolder("outbox").toPath());
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setMaxAttempts(1);
+    List<DeferredRelease> releases = new ArrayList<>();
+
+    for (int i = 0; i < 2; i++) {
+      ReleaseService releaseService = new ReleaseService(server.createTwitchClient("222222"), 1,
+          new UploadEngine(UploadEngine.DEFAULT_CHUNK_SIZE, 0, retryPolicy));
+      releaseService.setCircuitBreaker(CircuitBreaker.getInstance());
+      releases.add(new DeferredRelease("module-" + i, releaseService, TestFixtures.createMetadata(),
+          createFile("module-" + i + ".zip").getPath(), null));
+    }
+
+    ReleaseExecutor executor = new ReleaseExecutor(1, "test", new DefaultLog());
+    executor.setOutbox(outbox);
+
+    Assert.assertEquals(0, executor.execute(releases, "releases").size());
+    Assert.assertTrue(CircuitBreaker.getInstance().isOpen());
+
+    List<OutboxEntry> entries = outbox.list();
+    Assert.assertEquals(2, entries.size());
+    Assert.assertEquals("222222", entries.get(0).getProjectId());
+    Assert.assertTrue(new File(entries.get(0).getFile()).isAbsolute());
+  }
+
+  @Test
+  public void testRestoredReleaseIsRemovedFromOutbox() throws Exception {
+    ReleaseOutbox outbox = new ReleaseOutbox(temporaryFolder.newFolder("outbox").toPath());
+    DeferredRelease spooled = new DeferredRelease("module", new ReleaseService(
+        server.createTwitchClient()), TestFixtures.createMetadata(),
+        createFile("module.zip").getPath(), null);
+    OutboxEntry entry = spooled.toOutboxEntry();
+    outbox.put(entry);
+
+    DeferredRelease restored = new DeferredRelease(entry.getName(),
+        new ReleaseService(server.createTwitchClient()), TestFixtures.createMetadata(),
+        entry.getFile(), null);
+    restored.setOutboxId(entry.getId());
+    ReleaseExecutor executor = new ReleaseExecutor(1, "test", new DefaultLog());
+    executor.setOutbox(outbox);
+
+    Assert.assertEquals(1, executor.execute(Collections.singletonList(restored), "releases")
+        .size());
+    Assert.assertTrue(outbox.list().isEmpty());
+    Assert.assertEquals(1, receivedMetadata.size());
+  }
+
+  @Test
+  public void testProbeFailingLocallyDoesNotBlockCircuitBreaker() throws Exception {
+    CircuitBreaker.getInstance().configure(1, 0);
+    CircuitBreaker.getInstance().recordFailure();
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient());
+    releaseService.setCircuitBreaker(CircuitBreaker.getInstance());
+
+    try {
+      releaseService.createReleaseOperation(TestFixtures.createMetadata(),
+          new File(temporaryFolder.getRoot(), "missing.zip").getPath());
+      Assert.fail("Expected the missing file to fail the probe");
+    } catch (MojoExecutionException e) {
+      Assert.assertFalse(e instanceof ServiceUnavailableException);
+    }
+
+    // the next release probes the Api and closes the circuit
+    releaseService.createReleaseOperation(TestFixtures.createMetadata(),
+        createFile("addon.zip").getPath());
+    Assert.assertFalse(CircuitBreaker.getInstance().isOpen());
+  }
+
+  @Test
+  public void testUnconfirmedUploadIsNotSpooled() throws Exception {
+    server.handle("/api/projects/333333/upload-file", exchange -> {
+      StubHttpServer.readBody(exchange);
+      // the connection drops after the whole file was received
+      exchange.close();
+    });
+    CircuitBreaker.getInstance().configure(1, 60000);
+    ReleaseOutbox outbox = new ReleaseOutbox(temporaryFolder.newFolder("outbox").toPath());
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient("333333"));
+    releaseService.setCircuitBreaker(CircuitBreaker.getInstance());
+    ReleaseExecutor executor = new ReleaseExecutor(1, "test", new DefaultLog());
+    executor.setOutbox(outbox);
+
+    try {
+      executor.execute(Collections.singletonList(new DeferredRelease("module", releaseService,
+          TestFixtures.createMetadata(), createFile("module.zip").getPath(), null)), "releases");
+      Assert.fail("Expected the unconfirmed upload to fail the release");
+    } catch (MojoExecutionException e) {
+      Assert.assertEquals("Failed to create 1 of 1 releases: module", e.getMessage());
+    }
+
+    Assert.assertFalse(CircuitBreaker.getInstance().isOpen());
+    Assert.assertTrue(outbox.list().isEmpty());
+  }
+
+  @Test
+  public void testOnlyUncreatedFilesAreSpooled() throws Exception {
+    AtomicInteger failures = new AtomicInteger(1);
+    AtomicInteger uploads = new AtomicInteger();
+    server.handle("/api/projects/444444/upload-file", exchange -> {
+      String body = new String(StubHttpServer.readBody(exchange), StandardCharsets.UTF_8);
+      uploads.incrementAndGet();
+
+      if (body.contains("broken.zip") && failures.getAndDecrement() > 0) {
+        StubHttpServer.respond(exchange, 503, "");
+      } else {
+        StubHttpServer.respond(exchange, 200, "{\"id\":" + fileIds.getAndIncrement() + "}");
+      }
+    });
+    CircuitBreaker.getInstance().configure(1, 60000);
+    ReleaseOutbox outbox = new ReleaseOutbox(temporaryFolder.newFolder("outbox").toPath());
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setMaxAttempts(1);
+    ReleaseService releaseService = new ReleaseService(server.createTwitchClient("444444"), 2,
+        new UploadEngine(UploadEngine.DEFAULT_CHUNK_SIZE, 0, retryPolicy));
+    releaseService.setCircuitBreaker(CircuitBreaker.getInstance());
+    AdditionalFile brokenFile = createAdditionalFile("broken.zip");
+    DeferredRelease release = new DeferredRelease("module", releaseService,
+        TestFixtures.createMetadata(), createFile("module.zip").getPath(),
+        Arrays.asList(createAdditionalFile("addon.zip"), brokenFile));
+    ReleaseExecutor executor = new ReleaseExecutor(1, "test", new DefaultLog());
+    executor.setOutbox(outbox);
+
+    Assert.assertEquals(0, executor.execute(Collections.singletonList(release), "releases")
+        .size());
+
+    OutboxEntry entry = outbox.list().get(0);
+    String brokenPath = new File(brokenFile.getFile()).getAbsolutePath();
+    Assert.assertEquals(Integer.valueOf(PARENT_FILE_ID), entry.getParentFileId());
+    Assert.assertNull(entry.getSha256());
+    Assert.assertEquals(1, entry.getAdditionalFiles().size());
+    Assert.assertEquals(brokenPath, entry.getAdditionalFiles().get(0).getFile());
+    Assert.assertEquals(DigestUtils.sha256(new File(brokenPath)),
+        entry.getAdditionalFileSha256().get(brokenPath));
+
+    // the restored release only creates the failed additional file
+    CircuitBreaker.getInstance().reset();
+    uploads.set(0);
+    DeferredRelease restored = new DeferredRelease(entry.getName(), new ReleaseService(
+        server.createTwitchClient("444444")), TestFixtures.createMetadata(), entry.getFile(),
+        entry.getAdditionalFiles());
+    TwitchApiRelease parentRelease = new TwitchApiRelease();
+    parentRelease.setId(entry.getParentFileId());
+    restored.getProgress().setParentRelease(parentRelease);
+
+    List<TwitchApiRelease> releases = restored.release();
+    Assert.assertEquals(1, uploads.get());
+    Assert.assertEquals(2, releases.size());
+    Assert.assertEquals(PARENT_FILE_ID, releases.get(0).getId());
+  }
+
+  private AdditionalFile createAdditionalFile(String name) throws Exception {
+    AdditionalFile additionalFile = new AdditionalFile();
+    additionalFile.setFile(createFile(name).getPath());
+
+    return additionalFile;
+  }
+
+  private File createFile(String name) throws Exception {
+    return TestFixtures.createFile(temporaryFolder.getRoot(), name, 1024);
+  }
+}
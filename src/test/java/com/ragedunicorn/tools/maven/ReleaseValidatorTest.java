@@ -0,0 +1,115 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.validation.ReleaseValidator;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ReleaseValidatorTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testValidReleaseHasNoProblems() throws Exception {
+    ReleaseValidator validator = new ReleaseValidator(1024 * 1024, 4);
+    validator.checkFile(createZip("addon.zip").getPath());
+    validator.checkChangelogFile(temporaryFolder.newFile("CHANGELOG.md").getPath());
+    validator.checkChangelogType("markdown");
+    validator.checkReleaseType("beta");
+    validator.checkGameVersions(new String[] {"7668", "1.13.5", "wow-classic"});
+
+    Assert.assertTrue(validator.validate().isEmpty());
+  }
+
+  @Test
+  public void testFileSizeIsUnlimitedByDefault() throws Exception {
+    File zip = createZip("addon.zip");
+    ReleaseValidator limitedValidator = new ReleaseValidator(1, 1);
+    limitedValidator.checkFile(zip.getPath());
+    Assert.assertEquals(1, limitedValidator.validate().size());
+
+    ReleaseValidator validator = new ReleaseValidator(ReleaseValidator.UNLIMITED_FILE_SIZE, 1);
+    validator.checkFile(zip.getPath());
+
+    Assert.assertTrue(validator.validate().isEmpty());
+  }
+
+  @Test
+  public void testCorruptZipEntryIsDetected() throws Exception {
+    File zip = createZip("addon.zip");
+    byte[] content = Files.readAllBytes(zip.toPath());
+    int index = new String(content, StandardCharsets.ISO_8859_1).indexOf("content of entry 3");
+    content[index] = 'X';
+    Files.write(zip.toPath(), content);
+
+    ReleaseValidator validator = new ReleaseValidator(1024 * 1024, 4);
+    validator.checkFile(zip.getPath());
+    List<String> problems = validator.validate();
+
+    Assert.assertEquals(1, problems.size());
+    Assert.assertTrue(problems.get(0).contains("entry-3.lua"));
+    Assert.assertTrue(problems.get(0).contains("checksum mismatch"));
+  }
+
+  @Test
+  public void testAllProblemsAreReported() throws Exception {
+    File notAZip = temporaryFolder.newFile("broken.zip");
+    Files.write(notAZip.toPath(), new byte[] {1, 2, 3});
+    File large = temporaryFolder.newFile("large.zip");
+    Files.write(large.toPath(), new byte[2048]);
+
+    ReleaseValidator validator = new ReleaseValidator(1024, 2);
+    validator.checkFile(new File(temporaryFolder.getRoot(), "missing.zip").getPath());
+    validator.checkFile(notAZip.getPath());
+    validator.checkFile(large.getPath());
+    validator.checkChangelogFile("missing.md");
+    validator.checkChangelogType("pdf");
+    validator.checkReleaseType(null);
+    validator.checkGameVersions(new String[] {"1.13.5", "", "99999999999", "1.13 .5"});
+    List<String> problems = validator.validate();
+
+    Assert.assertEquals(9, problems.size());
+    Assert.assertTrue(problems.get(0).endsWith("does not exist"));
+    Assert.assertTrue(problems.get(1).contains("is not a valid zip archive"));
+    Assert.assertTrue(problems.get(2).contains("exceeds the maximum file size of 1024 bytes"));
+    Assert.assertTrue(problems.get(3).startsWith("Changelog file missing.md"));
+    Assert.assertEquals("Invalid changelogType pdf. Expected one of html, markdown, text",
+        problems.get(4));
+    Assert.assertEquals("Invalid releaseType null. Expected one of alpha, beta, release",
+        problems.get(5));
+    Assert.assertEquals("Invalid game version ''", problems.get(6));
+    Assert.assertTrue(problems.get(7).startsWith("Invalid game version id 99999999999"));
+    Assert.assertEquals("Invalid game version '1.13 .5'", problems.get(8));
+  }
+
+  private File createZip(String name) throws Exception {
+    File zip = temporaryFolder.newFile(name);
+    try (ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(zip))) {
+      for (int i = 0; i < 4; i++) {
+        byte[] content = ("-- content of entry " + i).getBytes(StandardCharsets.UTF_8);
+        ZipEntry entry = new ZipEntry("Addon/entry-" + i + ".lua");
+        // stored entries make the content easy to corrupt
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        entry.setCrc(crc.getValue());
+        outputStream.putNextEntry(entry);
+        outputStream.write(content);
+        outputStream.closeEntry();
+      }
+    }
+
+    return zip;
+  }
+}
@@ -0,0 +1,123 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.http.UploadResponse;
+import com.ragedunicorn.tools.maven.retry.RetryPolicy;
+import com.ragedunicorn.tools.maven.service.UploadEngine;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RetryPolicyTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public StubHttpServer server = new StubHttpServer();
+
+  @Test
+  public void testStatusClassification() {
+    RetryPolicy retryPolicy = new RetryPolicy();
+
+    Assert.assertTrue(retryPolicy.isRetryable(new UploadResponse(429, "")));
+    Assert.assertTrue(retryPolicy.isRetryable(new UploadResponse(503, "<html></html>")));
+    Assert.assertFalse(retryPolicy.isRetryable(new UploadResponse(400, "")));
+    Assert.assertFalse(retryPolicy.isRetryable(new UploadResponse(200, "{\"id\":1}")));
+  }
+
+  @Test
+  public void testErrorCodeClassification() {
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setRetryableErrorCodes(Collections.singleton(1009));
+    retryPolicy.setFatalErrorCodes(Collections.singleton(1018));
+
+    Assert.assertTrue(retryPolicy.isRetryable(
+        new UploadResponse(400, "{\"errorCode\":1009,\"errorMessage\":\"busy\"}")));
+    Assert.assertFalse(retryPolicy.isRetryable(
+        new UploadResponse(503, "{\"errorCode\":1018,\"errorMessage\":\"invalid\"}")));
+  }
+
+  @Test
+  public void testBackoffGrowsAndIsBounded() {
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setInitialBackoffMillis(100);
+    retryPolicy.setMaxBackoffMillis(1000);
+
+    for (int i = 0; i < 100; i++) {
+      long first = retryPolicy.getBackoffMillis(1, null);
+      long third = retryPolicy.getBackoffMillis(3, null);
+      long tenth = retryPolicy.getBackoffMillis(10, null);
+
+      Assert.assertTrue(first >= 50 && first <= 100);
+      Assert.assertTrue(third >= 200 && third <= 400);
+      Assert.assertTrue(tenth >= 500 && tenth <= 1000);
+    }
+  }
+
+  @Test
+  public void testRetryAfterIsRespected() {
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setInitialBackoffMillis(10);
+
+    UploadResponse response = new UploadResponse(429, "",
+        Collections.singletonMap("retry-after", "3"), 1);
+
+    Assert.assertEquals(3000, RetryPolicy.getRetryAfterMillis(response));
+    Assert.assertEquals(3000, retryPolicy.getBackoffMillis(1, response));
+  }
+
+  @Test
+  public void testRateLimitedUploadIsRetried() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    server.handle("/", exchange -> {
+      StubHttpServer.readBody(exchange);
+      boolean rateLimited = requests.incrementAndGet() < 3;
+      if (rateLimited) {
+        exchange.getResponseHeaders().add("Retry-After", "0");
+      }
+      StubHttpServer.respond(exchange, rateLimited ? 429 : 200, rateLimited
+          ? "{\"errorCode\":429,\"errorMessage\":\"Too many requests\"}"
+          : "{\"id\":7}");
+    });
+
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setInitialBackoffMillis(10);
+
+    UploadResponse response = new UploadEngine(64 * 1024, 3, retryPolicy)
+        .upload(server.createTwitchClient(), getUri(), "{}", createFile(), "addon.zip");
+
+    Assert.assertEquals(200, response.getStatusCode());
+    Assert.assertEquals(3, response.getAttempts());
+  }
+
+  @Test
+  public void testAttemptsAreLimited() throws Exception {
+    server.handle("/", exchange -> {
+      StubHttpServer.readBody(exchange);
+      StubHttpServer.respond(exchange, 503, "");
+    });
+
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setInitialBackoffMillis(10);
+    retryPolicy.setMaxAttempts(2);
+
+    UploadResponse response = new UploadEngine(64 * 1024, 3, retryPolicy)
+        .upload(server.createTwitchClient(), getUri(), "{}", createFile(), "addon.zip");
+
+    Assert.assertEquals(503, response.getStatusCode());
+    Assert.assertEquals(2, response.getAttempts());
+  }
+
+  private URI getUri() {
+    return server.getUri("/api/projects/111111/upload-file");
+  }
+
+  private File createFile() throws Exception {
+    return TestFixtures.createFile(temporaryFolder.getRoot(), "addon.zip", 4096);
+  }
+}
@@ -0,0 +1,125 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.cassette.Cassette;
+import com.ragedunicorn.tools.maven.http.HttpClientRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.rules.ExternalResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Http server on a random local port standing in for the Twitch Api and the other destinations.
+ * Requests are handled concurrently. The shared connection pool is shut down after every test so
+ * that no connection to a stopped server is reused.
+ */
+public class StubHttpServer extends ExternalResource {
+  public static final String PROJECT_ID = "111111";
+
+  private HttpServer server;
+
+  private ExecutorService executor;
+
+  private boolean stopped;
+
+  @Override
+  protected void before() throws IOException {
+    HttpClientRegistry.getInstance().shutdown();
+    executor = Executors.newCachedThreadPool();
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  @Override
+  protected void after() {
+    HttpClientRegistry.getInstance().shutdown();
+    stop();
+    executor.shutdownNow();
+  }
+
+  /**
+   * Stop the server before the end of the test to simulate an unavailable Api.
+   */
+  public void stop() {
+    if (!stopped) {
+      stopped = true;
+      server.stop(0);
+    }
+  }
+
+  public void handle(String path, HttpHandler handler) {
+    server.createContext(path, handler);
+  }
+
+  public String getBaseUri() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  public URI getUri(String path) {
+    return URI.create(getBaseUri() + path);
+  }
+
+  public TwitchClient createTwitchClient() {
+    return createTwitchClient(PROJECT_ID);
+  }
+
+  public TwitchClient createTwitchClient(String projectId) {
+    return createTwitchClient(projectId, null);
+  }
+
+  public TwitchClient createTwitchClient(String projectId, Cassette cassette) {
+    return new TwitchClient(getBaseUri(), "wow", projectId, "test-token", cassette);
+  }
+
+  /**
+   * Read the complete request body.
+   *
+   * @param exchange The exchange of the request
+   * @return The request body
+   * @throws IOException If the body cannot be read
+   */
+  public static byte[] readBody(HttpExchange exchange) throws IOException {
+    try (InputStream inputStream = exchange.getRequestBody()) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        outputStream.write(buffer, 0, read);
+      }
+
+      return outputStream.toByteArray();
+    }
+  }
+
+  /**
+   * Send a response. An empty body is sent without content.
+   *
+   * @param exchange The exchange of the request
+   * @param status   The http status
+   * @param body     The response body
+   * @throws IOException If the response cannot be sent
+   */
+  public static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] response = body.getBytes(StandardCharsets.UTF_8);
+    if (response.length == 0) {
+      exchange.sendResponseHeaders(status, -1);
+      exchange.close();
+      return;
+    }
+
+    exchange.sendResponseHeaders(status, response.length);
+    try (OutputStream outputStream = exchange.getResponseBody()) {
+      outputStream.write(response);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.model.Metadata;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Releases, files and archives shared by the tests.
+ */
+public final class TestFixtures {
+  private TestFixtures() {
+    // utility class
+  }
+
+  public static Metadata createMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.setChangelog("changelog");
+    metadata.setChangelogType("text");
+    metadata.setDisplayName("addon");
+    metadata.setGameVersions(new int[] {7668});
+    metadata.setReleaseType("release");
+
+    return metadata;
+  }
+
+  /**
+   * Write a file with random but reproducible content. An existing file is overwritten with the
+   * same content.
+   *
+   * @param directory The directory of the file
+   * @param name      The name of the file
+   * @param size      The size of the file in bytes
+   * @return The written file
+   * @throws IOException If the file cannot be written
+   */
+  public static File createFile(File directory, String name, int size) throws IOException {
+    File file = new File(directory, name);
+    byte[] content = new byte[size];
+    new Random(42).nextBytes(content);
+    Files.write(file.toPath(), content);
+
+    return file;
+  }
+
+  /**
+   * Write an addon archive with a single entry.
+   *
+   * @param directory The directory of the archive
+   * @param name      The name of the archive
+   * @return The written archive
+   * @throws IOException If the archive cannot be written
+   */
+  public static File createArchive(File directory, String name) throws IOException {
+    File archive = new File(directory, name);
+
+    try (ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(archive))) {
+      outputStream.putNextEntry(new ZipEntry("Addon/Addon.lua"));
+      outputStream.write(("-- " + name).getBytes(StandardCharsets.UTF_8));
+      outputStream.closeEntry();
+    }
+
+    return archive;
+  }
+}
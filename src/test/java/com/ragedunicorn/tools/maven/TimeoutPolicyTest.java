@@ -0,0 +1,56 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TimeoutPolicyTest {
+  private static final long MEGABYTE = 1024 * 1024;
+
+  @Test
+  public void testSocketTimeoutIsSizedFromLengthAndThroughput() {
+    TimeoutPolicy timeoutPolicy = new TimeoutPolicy();
+
+    // small files and requests without a body use the minimum
+    Assert.assertEquals(TimeoutPolicy.DEFAULT_MIN_SOCKET_TIMEOUT_MILLIS,
+        timeoutPolicy.getSocketTimeoutMillis(0));
+
+    // 1 MB/s measured: a 100 MB file takes 100s and may take four times as long
+    timeoutPolicy.recordThroughput(10 * MEGABYTE, TimeUnit.SECONDS.toNanos(10));
+    Assert.assertEquals(MEGABYTE, timeoutPolicy.getThroughput());
+    Assert.assertEquals(400_000, timeoutPolicy.getSocketTimeoutMillis(100 * MEGABYTE));
+
+    // huge files are bounded by the maximum
+    Assert.assertEquals(TimeoutPolicy.DEFAULT_MAX_SOCKET_TIMEOUT_MILLIS,
+        timeoutPolicy.getSocketTimeoutMillis(10_000 * MEGABYTE));
+  }
+
+  @Test
+  public void testThroughputIsSmoothed() {
+    TimeoutPolicy timeoutPolicy = new TimeoutPolicy();
+    Assert.assertEquals(TimeoutPolicy.DEFAULT_THROUGHPUT, timeoutPolicy.getThroughput());
+
+    timeoutPolicy.recordThroughput(MEGABYTE, TimeUnit.SECONDS.toNanos(1));
+    timeoutPolicy.recordThroughput(0, TimeUnit.SECONDS.toNanos(1));
+    timeoutPolicy.recordThroughput(2 * MEGABYTE, TimeUnit.SECONDS.toNanos(1));
+
+    // a single slow or fast transmission only moves the throughput partially
+    Assert.assertEquals((long) (1.3 * MEGABYTE), timeoutPolicy.getThroughput());
+  }
+
+  @Test
+  public void testDeadlinesAreMonotonic() {
+    TimeoutPolicy timeoutPolicy = new TimeoutPolicy();
+    timeoutPolicy.setReleaseDeadlineMillis(Long.MAX_VALUE);
+    long unbounded = timeoutPolicy.createDeadline();
+    long soon = TimeoutPolicy.deadlineAfter(1000);
+
+    // far away deadlines are capped instead of overflowing
+    Assert.assertFalse(TimeoutPolicy.isExpired(unbounded));
+    Assert.assertEquals(soon, TimeoutPolicy.earliest(unbounded, soon));
+    Assert.assertTrue(TimeoutPolicy.remainingMillis(soon) <= 1000);
+    Assert.assertTrue(TimeoutPolicy.isExpired(TimeoutPolicy.deadlineAfter(0)));
+  }
+}
@@ -0,0 +1,174 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.outbox.OutboxEntry;
+import com.ragedunicorn.tools.maven.outbox.ReleaseOutbox;
+import com.ragedunicorn.tools.maven.service.DeferredRelease;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.Mojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.testing.MojoRule;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the flush goal against an outbox of spooled releases and the stub server.
+ */
+public class TwitchFlushMojoTest {
+  private static final String GOAL = "flush";
+
+  private static final String UNAVAILABLE_PROJECT_ID = "222222";
+
+  @Rule
+  public MojoRule rule = new MojoRule();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public StubHttpServer server = new StubHttpServer();
+
+  private final AtomicInteger uploads = new AtomicInteger();
+
+  private ReleaseOutbox outbox;
+
+  @Before
+  public void setUp() throws Exception {
+    outbox = new ReleaseOutbox(temporaryFolder.newFolder("outbox").toPath());
+    server.handle("/api/projects/" + StubHttpServer.PROJECT_ID + "/upload-file", exchange -> {
+      StubHttpServer.readBody(exchange);
+      StubHttpServer.respond(exchange, 200, "{\"id\":" + uploads.incrementAndGet() + "}");
+    });
+    server.handle("/api/projects/" + UNAVAILABLE_PROJECT_ID + "/upload-file", exchange -> {
+      StubHttpServer.readBody(exchange);
+      StubHttpServer.respond(exchange, 503, "");
+    });
+  }
+
+  @Test
+  public void testEmptyOutboxIsSkipped() throws Exception {
+    lookupMojo().execute();
+
+    Assert.assertEquals(0, uploads.get());
+  }
+
+  @Test
+  public void testSpooledReleasesAreRestored() throws Exception {
+    spool("module-0", StubHttpServer.PROJECT_ID);
+    spool("module-1", StubHttpServer.PROJECT_ID);
+
+    lookupMojo().execute();
+
+    Assert.assertEquals(2, uploads.get());
+    Assert.assertTrue(outbox.list().isEmpty());
+  }
+
+  @Test
+  public void testChangedFileIsNotSent() throws Exception {
+    File file = spool("module", StubHttpServer.PROJECT_ID);
+    Files.write(file.toPath(), "changed".getBytes(StandardCharsets.UTF_8));
+
+    try {
+      lookupMojo().execute();
+      Assert.fail("Expected the changed release to fail the flush");
+    } catch (MojoExecutionException e) {
+      Assert.assertTrue(e.getMessage().startsWith(
+          "Files of the spooled releases module changed since they were spooled"));
+    }
+
+    Assert.assertEquals(0, uploads.get());
+    Assert.assertEquals(1, outbox.list().size());
+  }
+
+  @Test
+  public void testUnavailableReleaseStaysInOutbox() throws Exception {
+    spool("available", StubHttpServer.PROJECT_ID);
+    spool("unavailable", UNAVAILABLE_PROJECT_ID);
+
+    try {
+      lookupMojo().execute();
+      Assert.fail("Expected the unavailable release to fail the flush");
+    } catch (MojoExecutionException e) {
+      Assert.assertEquals("1 spooled releases remain in the outbox because the Twitch Api is "
+          + "unavailable", e.getMessage());
+    }
+
+    List<OutboxEntry> entries = outbox.list();
+    Assert.assertEquals(1, uploads.get());
+    Assert.assertEquals(1, entries.size());
+    Assert.assertEquals(UNAVAILABLE_PROJECT_ID, entries.get(0).getProjectId());
+  }
+
+  /**
+   * Spool a release of a new archive to the outbox.
+   *
+   * @param name      The name of the release
+   * @param projectId The project the release is created in
+   * @return The archive of the release
+   * @throws Exception If the archive or the outbox cannot be written
+   */
+  private File spool(String name, String projectId) throws Exception {
+    File file = TestFixtures.createArchive(temporaryFolder.getRoot(), name + ".zip");
+    OutboxEntry entry = new DeferredRelease(name,
+        new ReleaseService(server.createTwitchClient(projectId)), TestFixtures.createMetadata(),
+        file.getPath(), null).toOutboxEntry();
+    outbox.put(entry);
+
+    return file;
+  }
+
+  /**
+   * Configure the flush goal like Maven does. Spooled releases are sent once.
+   *
+   * @return The configured mojo
+   * @throws Exception If the mojo cannot be configured
+   */
+  private Mojo lookupMojo() throws Exception {
+    Xpp3Dom configuration = new Xpp3Dom("configuration");
+    addChild(configuration, "outboxDirectory", outbox.getDirectory().toString());
+    addChild(configuration, "token", "test-token");
+    addChild(configuration, "flushThreads", "1");
+    addChild(addChild(configuration, "retry", null), "maxAttempts", "1");
+
+    Plugin plugin = new Plugin();
+    plugin.setGroupId("com.ragedunicorn.tools.maven");
+    plugin.setArtifactId("twitch-release-maven-plugin");
+    plugin.setConfiguration(configuration);
+
+    Build build = new Build();
+    build.setDirectory(temporaryFolder.getRoot().getPath());
+    build.addPlugin(plugin);
+
+    Model model = new Model();
+    model.setGroupId("com.ragedunicorn.tools.maven");
+    model.setArtifactId("flush");
+    model.setVersion("1.0.0");
+    model.setBuild(build);
+
+    MavenProject project = new MavenProject(model);
+
+    return rule.lookupConfiguredMojo(rule.newMavenSession(project),
+        rule.newMojoExecution(GOAL));
+  }
+
+  private static Xpp3Dom addChild(Xpp3Dom parent, String name, String value) {
+    Xpp3Dom child = new Xpp3Dom(name);
+    child.setValue(value);
+    parent.addChild(child);
+
+    return child;
+  }
+}
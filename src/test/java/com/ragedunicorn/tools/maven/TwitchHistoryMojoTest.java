@@ -0,0 +1,139 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.history.ReleaseHistory;
+import com.ragedunicorn.tools.maven.history.ReleaseRecord;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.Mojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.testing.MojoRule;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the history goal against a release history on disk.
+ */
+public class TwitchHistoryMojoTest {
+  private static final String GOAL = "history";
+
+  private static final long MEGABYTE = 1024 * 1024;
+
+  @Rule
+  public MojoRule rule = new MojoRule();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private ReleaseHistory history;
+
+  @Before
+  public void setUp() {
+    history = new ReleaseHistory(
+        temporaryFolder.getRoot().toPath().resolve("history/releases.bin"));
+  }
+
+  @Test
+  public void testEmptyHistoryIsSkipped() throws Exception {
+    lookupMojo(true).execute();
+  }
+
+  @Test
+  public void testStableReleasesPass() throws Exception {
+    appendRecords(0, 20, 1000);
+
+    lookupMojo(true).execute();
+  }
+
+  @Test
+  public void testRegressionFailsBuild() throws Exception {
+    appendRecords(0, 20, 1000);
+    // the network got slower
+    appendRecords(20, 5, 4000);
+
+    try {
+      lookupMojo(true).execute();
+      Assert.fail("Expected the regression to fail the build");
+    } catch (MojoExecutionException e) {
+      Assert.assertEquals("Detected 2 regression(s) of the latest 5 releases", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testRegressionIsOnlyReportedByDefault() throws Exception {
+    appendRecords(0, 20, 1000);
+    appendRecords(20, 5, 4000);
+
+    lookupMojo(false).execute();
+  }
+
+  @Test(expected = MojoExecutionException.class)
+  public void testInvalidWindowIsRejected() throws Exception {
+    Mojo mojo = lookupMojo(false);
+    rule.setVariableValueToObject(mojo, "historyWindow", 0);
+
+    mojo.execute();
+  }
+
+  private void appendRecords(long createdAt, int count, long uploadMillis) throws Exception {
+    for (int i = 0; i < count; i++) {
+      ReleaseRecord record = new ReleaseRecord();
+      record.setCreatedAt(createdAt + i);
+      record.setFileLength(MEGABYTE);
+      record.setUploadMillis(uploadMillis);
+      record.setServerProcessingMillis(200);
+      record.setDurationMillis(uploadMillis + 200);
+      record.setAttempts(1);
+      record.setStatusCode(200);
+      history.append(record);
+    }
+  }
+
+  /**
+   * Configure the history goal like Maven does. The latest five releases are compared with the
+   * baseline.
+   *
+   * @param failOnRegression Whether a regression fails the build
+   * @return The configured mojo
+   * @throws Exception If the mojo cannot be configured
+   */
+  private Mojo lookupMojo(boolean failOnRegression) throws Exception {
+    Xpp3Dom configuration = new Xpp3Dom("configuration");
+    addChild(configuration, "historyFile", history.getFile().toString());
+    addChild(configuration, "historyWindow", "5");
+    addChild(configuration, "failOnRegression", String.valueOf(failOnRegression));
+
+    Plugin plugin = new Plugin();
+    plugin.setGroupId("com.ragedunicorn.tools.maven");
+    plugin.setArtifactId("twitch-release-maven-plugin");
+    plugin.setConfiguration(configuration);
+
+    Build build = new Build();
+    build.setDirectory(temporaryFolder.getRoot().getPath());
+    build.addPlugin(plugin);
+
+    Model model = new Model();
+    model.setGroupId("com.ragedunicorn.tools.maven");
+    model.setArtifactId("history");
+    model.setVersion("1.0.0");
+    model.setBuild(build);
+
+    MavenProject project = new MavenProject(model);
+
+    return rule.lookupConfiguredMojo(rule.newMavenSession(project),
+        rule.newMojoExecution(GOAL));
+  }
+
+  private static Xpp3Dom addChild(Xpp3Dom parent, String name, String value) {
+    Xpp3Dom child = new Xpp3Dom(name);
+    child.setValue(value);
+    parent.addChild(child);
+
+    return child;
+  }
+}
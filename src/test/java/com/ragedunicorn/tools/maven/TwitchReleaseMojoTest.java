@@ -1,7 +1,10 @@
 package com.ragedunicorn.tools.maven;
 
+import com.ragedunicorn.tools.maven.model.AdditionalFile;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.testing.AbstractMojoTestCase;
 import java.io.File;
+import java.util.List;
 
 public class TwitchReleaseMojoTest extends AbstractMojoTestCase {
 
@@ -31,6 +34,38 @@ public class TwitchReleaseMojoTest extends AbstractMojoTestCase {
 
     assertNotNull(mojo);
 
+    List<AdditionalFile> additionalFiles =
+        (List<AdditionalFile>) getVariableValueFromObject(mojo, "additionalFiles");
+    assertEquals(1, additionalFiles.size());
+    assertEquals("example-module", additionalFiles.get(0).getDisplayName());
+
+    ThrottleConfiguration throttle =
+        (ThrottleConfiguration) getVariableValueFromObject(mojo, "throttle");
+    assertEquals(2, throttle.getUploadThreads());
+
     // mojo.execute(); execution requires twitch backend
   }
+
+  /**
+   * Tests that the validate goal reports all problems of the release at once.
+   *
+   * @throws Exception If failing to extract plugin configuration
+   */
+  public void testValidateReportsAllProblems() throws Exception {
+    File testPom = new File("src/test/resources/validate-config.xml");
+
+    TwitchValidateMojo mojo = (TwitchValidateMojo) configureMojo(new TwitchValidateMojo(),
+        extractPluginConfiguration("twitch-release-maven-plugin", testPom));
+
+    try {
+      mojo.execute();
+      fail("Expected validation to fail");
+    } catch (MojoExecutionException e) {
+      // neither the files nor the changelog of the test configuration exist
+      assertTrue(e.getMessage().contains("Example.zip does not exist"));
+      assertTrue(e.getMessage().contains("Example-Module.zip does not exist"));
+      assertTrue(e.getMessage().contains("release-notes-example.md does not exist"));
+      assertTrue(e.getMessage().contains("Invalid changelogType pdf"));
+    }
+  }
 }
@@ -0,0 +1,290 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.http.HttpClientRegistry;
+import com.ragedunicorn.tools.maven.service.DeferredReleaseQueue;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.Mojo;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.testing.MojoRule;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the release goal in every module of a reactor build against the stub server.
+ */
+public class TwitchReleaseReactorTest {
+  private static final String GOAL = "twitch-release";
+
+  private static final String PLUGIN_KEY =
+      "com.ragedunicorn.tools.maven:twitch-release-maven-plugin";
+
+  @Rule
+  public MojoRule rule = new MojoRule();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public StubHttpServer server = new StubHttpServer();
+
+  private final AtomicInteger uploads = new AtomicInteger();
+
+  @Before
+  public void setUp() {
+    server.handle("/api/projects/111111/upload-file", exchange -> {
+      StubHttpServer.readBody(exchange);
+      StubHttpServer.respond(exchange, 200, "{\"id\":" + uploads.incrementAndGet() + "}");
+    });
+  }
+
+  @Test
+  public void testExecutionFinishingLastCreatesDeferredReleases() throws Exception {
+    List<MavenProject> projects = createReactor(3, true);
+    MavenSession session = createSession(projects);
+
+    // the last module of the reactor finishes first
+    lookupMojo(session, projects.get(2)).execute();
+    Assert.assertEquals(0, uploads.get());
+    lookupMojo(session, projects.get(0)).execute();
+    Assert.assertEquals(0, uploads.get());
+    Assert.assertEquals(2, DeferredReleaseQueue.getInstance().size());
+
+    lookupMojo(session, projects.get(1)).execute();
+
+    Assert.assertEquals(3, uploads.get());
+    Assert.assertEquals(0, DeferredReleaseQueue.getInstance().size());
+    // the shared connection pool was shut down and its statistics were reset
+    Assert.assertEquals(0, HttpClientRegistry.getInstance().getStatistics().getRequests());
+  }
+
+  @Test
+  public void testConnectionPoolIsSharedUntilLastExecution() throws Exception {
+    List<MavenProject> projects = createReactor(2, false);
+    MavenSession session = createSession(projects);
+
+    lookupMojo(session, projects.get(1)).execute();
+    Assert.assertEquals(1, uploads.get());
+    Assert.assertEquals(1, HttpClientRegistry.getInstance().getStatistics().getRequests());
+
+    lookupMojo(session, projects.get(0)).execute();
+    Assert.assertEquals(2, uploads.get());
+    Assert.assertEquals(0, HttpClientRegistry.getInstance().getStatistics().getRequests());
+  }
+
+  @Test
+  public void testParallelExecutionsCreateDeferredReleasesOnce() throws Exception {
+    int modules = 4;
+    List<MavenProject> projects = createReactor(modules, true);
+    MavenSession session = createSession(projects);
+    List<Mojo> mojos = new ArrayList<>();
+
+    for (MavenProject project : projects) {
+      mojos.add(lookupMojo(session, project));
+    }
+
+    ExecutorService executorService = Executors.newFixedThreadPool(modules);
+    CountDownLatch started = new CountDownLatch(modules);
+    List<Future<Void>> futures = new ArrayList<>();
+
+    try {
+      for (Mojo mojo : mojos) {
+        futures.add(executorService.submit(() -> {
+          started.countDown();
+          started.await();
+          mojo.execute();
+
+          return null;
+        }));
+      }
+
+      for (Future<Void> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    Assert.assertEquals(modules, uploads.get());
+    Assert.assertEquals(0, DeferredReleaseQueue.getInstance().size());
+  }
+
+  @Test
+  public void testFailedExecutionDiscardsDeferredReleases() throws Exception {
+    List<MavenProject> projects = createReactor(3, true);
+    MavenSession session = createSession(projects);
+    Mojo failingMojo = lookupMojo(session, projects.get(1));
+    rule.setVariableValueToObject(failingMojo, "file",
+        new File(temporaryFolder.getRoot(), "missing.zip").getPath());
+
+    lookupMojo(session, projects.get(0)).execute();
+
+    try {
+      failingMojo.execute();
+      Assert.fail("Expected the release of a missing file to fail");
+    } catch (MojoExecutionException e) {
+      // the build continues with --fail-at-end
+    }
+
+    lookupMojo(session, projects.get(2)).execute();
+
+    Assert.assertEquals(0, uploads.get());
+    Assert.assertEquals(0, DeferredReleaseQueue.getInstance().size());
+  }
+
+  @Test
+  public void testInvalidExecutionFinishes() throws Exception {
+    List<MavenProject> projects = createReactor(2, true);
+    MavenSession session = createSession(projects);
+    Mojo invalidMojo = lookupMojo(session, projects.get(0));
+    rule.setVariableValueToObject(invalidMojo, "projectId", "");
+
+    try {
+      invalidMojo.execute();
+      Assert.fail("Expected the missing projectId to fail the execution");
+    } catch (MojoExecutionException e) {
+      // the build continues with --fail-at-end
+    }
+
+    lookupMojo(session, projects.get(1)).execute();
+
+    // the remaining module finished last and discarded its release
+    Assert.assertEquals(0, uploads.get());
+    Assert.assertEquals(0, DeferredReleaseQueue.getInstance().size());
+  }
+
+  @Test
+  public void testExecutionsOfPhasesThatDoNotRunAreNotCounted() throws Exception {
+    List<MavenProject> projects = createReactor(3, true);
+    projects.get(2).getPlugin(PLUGIN_KEY).getExecutions().get(0).setPhase("package");
+    MavenSession session = createSession(projects);
+    session.getRequest().setGoals(Arrays.asList("clean", "package"));
+
+    // the executions bound to deploy never run in this build
+    lookupMojo(session, projects.get(2)).execute();
+
+    Assert.assertEquals(1, uploads.get());
+    Assert.assertEquals(0, DeferredReleaseQueue.getInstance().size());
+  }
+
+  @Test
+  public void testReleasesOfAbandonedReactorAreDiscarded() throws Exception {
+    List<MavenProject> abandonedProjects = createReactor(3, true);
+    lookupMojo(createSession(abandonedProjects), abandonedProjects.get(0)).execute();
+    Assert.assertEquals(1, DeferredReleaseQueue.getInstance().size());
+
+    // the next build of the same Maven process never creates the releases of the stopped build
+    List<MavenProject> projects = createReactor(1, true);
+    lookupMojo(createSession(projects), projects.get(0)).execute();
+
+    Assert.assertEquals(1, uploads.get());
+    Assert.assertEquals(0, DeferredReleaseQueue.getInstance().size());
+  }
+
+  /**
+   * Create the modules of a reactor build that all bind the release goal to the deploy phase.
+   *
+   * @param modules      The amount of modules
+   * @param releaseAtEnd Whether the releases are deferred until the end of the build
+   * @return The projects of the modules
+   * @throws Exception If the file of a module cannot be written
+   */
+  private List<MavenProject> createReactor(int modules, boolean releaseAtEnd) throws Exception {
+    List<MavenProject> projects = new ArrayList<>();
+
+    for (int i = 0; i < modules; i++) {
+      File file = TestFixtures.createArchive(temporaryFolder.getRoot(), "module-" + i + ".zip");
+
+      Xpp3Dom configuration = new Xpp3Dom("configuration");
+      addChild(configuration, "baseUri", server.getBaseUri());
+      addChild(configuration, "projectId", StubHttpServer.PROJECT_ID);
+      addChild(configuration, "token", "test-token");
+      addChild(configuration, "file", file.getPath());
+      addChild(configuration, "changelog", "changelog");
+      addChild(addChild(configuration, "gameVersions", null), "gameVersion", "7668");
+      addChild(configuration, "releaseAtEnd", String.valueOf(releaseAtEnd));
+      addChild(configuration, "connectionWarmUp", "false");
+      addChild(configuration, "history", "false");
+      addChild(configuration, "timingReportFile", "");
+
+      PluginExecution execution = new PluginExecution();
+      execution.setId("release");
+      execution.setPhase("deploy");
+      execution.addGoal(GOAL);
+
+      Plugin plugin = new Plugin();
+      plugin.setGroupId("com.ragedunicorn.tools.maven");
+      plugin.setArtifactId("twitch-release-maven-plugin");
+      plugin.setConfiguration(configuration);
+      plugin.addExecution(execution);
+
+      Build build = new Build();
+      build.setDirectory(temporaryFolder.getRoot().getPath());
+      build.addPlugin(plugin);
+
+      Model model = new Model();
+      model.setGroupId("com.ragedunicorn.tools.maven");
+      model.setArtifactId("module-" + i);
+      model.setVersion("1.0.0");
+      model.setBuild(build);
+
+      projects.add(new MavenProject(model));
+    }
+
+    return projects;
+  }
+
+  private MavenSession createSession(List<MavenProject> projects) {
+    MavenSession session = rule.newMavenSession(projects.get(0));
+    session.setProjects(projects);
+    session.getRequest().setGoals(Collections.singletonList("deploy"));
+
+    return session;
+  }
+
+  /**
+   * Configure the mojo of a module like Maven does. Every module receives a clone of the session
+   * like in a parallel build.
+   *
+   * @param session The session of the reactor build
+   * @param project The project of the module
+   * @return The configured mojo
+   * @throws Exception If the mojo cannot be configured
+   */
+  private Mojo lookupMojo(MavenSession session, MavenProject project) throws Exception {
+    MavenSession moduleSession = session.clone();
+    moduleSession.setCurrentProject(project);
+    MojoExecution execution = rule.newMojoExecution(GOAL);
+
+    return rule.lookupConfiguredMojo(moduleSession, execution);
+  }
+
+  private static Xpp3Dom addChild(Xpp3Dom parent, String name, String value) {
+    Xpp3Dom child = new Xpp3Dom(name);
+    child.setValue(value);
+    parent.addChild(child);
+
+    return child;
+  }
+}
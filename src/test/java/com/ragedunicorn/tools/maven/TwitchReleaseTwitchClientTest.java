@@ -14,10 +14,7 @@ public class TwitchReleaseTwitchClientTest {
     final String projectId = "111111";
     final String game = "wow";
 
-    TwitchClient client = new TwitchClient();
-    client.setProjectId(projectId);
-    client.setGame(game);
-    client.setToken("test-token");
+    TwitchClient client = new TwitchClient(game, projectId, "test-token");
 
 
     try {
@@ -30,7 +27,7 @@ public class TwitchReleaseTwitchClientTest {
 
   @Test(expected = IllegalStateException.class)
   public void testPrepareEndpointUriExpectedInvalidState() {
-    TwitchClient client = new TwitchClient();
+    TwitchClient client = new TwitchClient(null, null, null);
     try {
       client.prepareEndpointUri("/some/url");
     } catch (MojoExecutionException e) {
@@ -40,7 +37,7 @@ public class TwitchReleaseTwitchClientTest {
 
   @Test(expected = IllegalStateException.class)
   public void testGetClientUriExpectedInvalidState() {
-    TwitchClient client = new TwitchClient();
+    TwitchClient client = new TwitchClient(null, null, null);
     client.getHttpClient();
   }
 }
@@ -0,0 +1,110 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.cache.UploadCache;
+import com.ragedunicorn.tools.maven.cache.UploadCacheEntry;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class UploadCacheTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testKeyDependsOnAllInputs() {
+    String key = UploadCache.createKey("digest", "111111", "{}");
+
+    Assert.assertEquals(key, UploadCache.createKey("digest", "111111", "{}"));
+    Assert.assertNotEquals(key, UploadCache.createKey("other", "111111", "{}"));
+    Assert.assertNotEquals(key, UploadCache.createKey("digest", "222222", "{}"));
+    Assert.assertNotEquals(key, UploadCache.createKey("digest", "111111", "{\"a\":1}"));
+  }
+
+  @Test
+  public void testPutAndGet() throws Exception {
+    UploadCache cache = new UploadCache(temporaryFolder.getRoot().toPath());
+
+    Assert.assertNull(cache.get("key"));
+
+    cache.put("key", createEntry(42, System.currentTimeMillis()));
+
+    Assert.assertEquals(42, cache.get("key").getFileId());
+  }
+
+  @Test
+  public void testExpiredEntryIsIgnored() throws Exception {
+    UploadCache cache = new UploadCache(temporaryFolder.getRoot().toPath(), 10, 1);
+
+    cache.put("key", createEntry(42, System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)));
+
+    Assert.assertNull(cache.get("key"));
+  }
+
+  @Test
+  public void testOldestEntriesAreEvicted() throws Exception {
+    Path directory = temporaryFolder.getRoot().toPath();
+    UploadCache cache = new UploadCache(directory, 2, 30);
+    long now = System.currentTimeMillis();
+
+    cache.put("first", createEntry(1, now));
+    Files.setLastModifiedTime(directory.resolve("first.json"), FileTime.fromMillis(now - 3000));
+    cache.put("second", createEntry(2, now));
+    Files.setLastModifiedTime(directory.resolve("second.json"), FileTime.fromMillis(now - 2000));
+    cache.put("third", createEntry(3, now));
+
+    Assert.assertNull(cache.get("first"));
+    Assert.assertEquals(2, cache.get("second").getFileId());
+    Assert.assertEquals(3, cache.get("third").getFileId());
+  }
+
+  @Test
+  public void testConcurrentWrites() throws Exception {
+    Path directory = temporaryFolder.getRoot().toPath();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+
+    for (int i = 0; i < 64; i++) {
+      final int fileId = i;
+      // separate instances share the same directory just like parallel builds do
+      futures.add(executor.submit(() -> {
+        new UploadCache(directory, 32, 30)
+            .put("key-" + fileId, createEntry(fileId, System.currentTimeMillis()));
+        return null;
+      }));
+    }
+
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    try (Stream<Path> files = Files.list(directory)) {
+      List<Path> entries = files.filter(path -> path.toString().endsWith(".json"))
+          .collect(Collectors.toList());
+      Assert.assertEquals(32, entries.size());
+    }
+  }
+
+  private static UploadCacheEntry createEntry(int fileId, long createdAt) {
+    UploadCacheEntry entry = new UploadCacheEntry();
+    entry.setFileId(fileId);
+    entry.setProjectId("111111");
+    entry.setFileName("addon.zip");
+    entry.setCreatedAt(createdAt);
+
+    return entry;
+  }
+}
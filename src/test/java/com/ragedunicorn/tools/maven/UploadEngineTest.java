@@ -0,0 +1,361 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.http.BandwidthThrottle;
+import com.ragedunicorn.tools.maven.http.DeadlineExceededException;
+import com.ragedunicorn.tools.maven.http.HttpClientRegistry;
+import com.ragedunicorn.tools.maven.http.UnconfirmedUploadException;
+import com.ragedunicorn.tools.maven.http.UploadProgress;
+import com.ragedunicorn.tools.maven.http.UploadResponse;
+import com.ragedunicorn.tools.maven.retry.RetryPolicy;
+import com.ragedunicorn.tools.maven.retry.TimeoutPolicy;
+import com.ragedunicorn.tools.maven.service.UploadEngine;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class UploadEngineTest {
+  private static final int FILE_SIZE = 8 * 1024 * 1024;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private StubServer server;
+
+  @Before
+  public void setUp() throws Exception {
+    HttpClientRegistry.getInstance().shutdown();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    BandwidthThrottle.getInstance().configure(0, false);
+    HttpClientRegistry.getInstance().shutdown();
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  @Test
+  public void testUploadIsRetransmittedAfterConnectionDrop() throws Exception {
+    server = new StubServer(2);
+    File file = createFile();
+
+    UploadResponse response = new UploadEngine(64 * 1024, 3)
+        .upload(createTwitchClient(), server.getUri(), "{}", file, "addon.zip");
+
+    Assert.assertEquals(200, response.getStatusCode());
+    Assert.assertEquals(3, server.getConnections());
+    Assert.assertTrue(server.getCompletedBodyBytes() >= FILE_SIZE);
+  }
+
+  @Test(expected = IOException.class)
+  public void testUploadFailsWhenRetransmissionsAreExhausted() throws Exception {
+    server = new StubServer(2);
+
+    new UploadEngine(64 * 1024, 1)
+        .upload(createTwitchClient(), server.getUri(), "{}", createFile(), "addon.zip");
+  }
+
+  @Test
+  public void testStalledUploadIsRetransmitted() throws Exception {
+    server = new StubServer(0, 1);
+    TimeoutPolicy timeoutPolicy = new TimeoutPolicy();
+    timeoutPolicy.setMinSocketTimeoutMillis(500);
+    timeoutPolicy.setMaxSocketTimeoutMillis(500);
+
+    UploadResponse response = new UploadEngine(64 * 1024, 3, new RetryPolicy(), timeoutPolicy)
+        .upload(createTwitchClient(), server.getUri(), "{}", createFile(), "addon.zip");
+
+    Assert.assertEquals(200, response.getStatusCode());
+    Assert.assertEquals(2, server.getConnections());
+  }
+
+  @Test
+  public void testThrottledUploadIsNotStalled() throws Exception {
+    server = new StubServer(0);
+    TimeoutPolicy timeoutPolicy = new TimeoutPolicy();
+    timeoutPolicy.setMinSocketTimeoutMillis(500);
+    timeoutPolicy.setMaxSocketTimeoutMillis(500);
+    // every chunk overdraws the bucket and waits about two seconds for the next one
+    BandwidthThrottle.getInstance().configure(64 * 1024, false);
+    File file = TestFixtures.createFile(temporaryFolder.getRoot(), "throttled.zip", 256 * 1024);
+    long start = System.nanoTime();
+
+    UploadResponse response = new UploadEngine(128 * 1024, 0, new RetryPolicy(), timeoutPolicy)
+        .upload(createTwitchClient(), server.getUri(), "{}", file, "throttled.zip");
+
+    Assert.assertEquals(200, response.getStatusCode());
+    Assert.assertEquals(1, server.getConnections());
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) > 500);
+  }
+
+  @Test
+  public void testUploadIsAbortedWhenReleaseDeadlineRunsOut() throws Exception {
+    server = new StubServer(0, Integer.MAX_VALUE);
+    TimeoutPolicy timeoutPolicy = new TimeoutPolicy();
+    timeoutPolicy.setReleaseDeadlineMillis(1000);
+    UploadEngine uploadEngine = new UploadEngine(64 * 1024, 3, new RetryPolicy(), timeoutPolicy);
+    File file = createFile();
+    long start = System.currentTimeMillis();
+
+    try {
+      uploadEngine.upload(createTwitchClient(), server.getUri(), "{}", file, "addon.zip");
+      Assert.fail("Expected the upload to be aborted");
+    } catch (DeadlineExceededException e) {
+      // the stalled transmission is aborted instead of waiting for the socket timeout
+      Assert.assertTrue(System.currentTimeMillis() - start
+          < TimeoutPolicy.DEFAULT_MIN_SOCKET_TIMEOUT_MILLIS);
+      Assert.assertEquals(1, server.getConnections());
+    }
+  }
+
+  @Test
+  public void testConnectFailureAfterUnavailableResponseIsNotUnconfirmed() throws Exception {
+    server = new StubServer(0, 0, 1);
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setMaxAttempts(3);
+    retryPolicy.setInitialBackoffMillis(10);
+    UploadEngine uploadEngine = new UploadEngine(64 * 1024, 0, retryPolicy);
+
+    try {
+      uploadEngine.upload(createTwitchClient(), server.getUri(), "{}", createFile(), "addon.zip");
+      Assert.fail("Expected the upload to fail");
+    } catch (IOException e) {
+      // the body sent in the answered attempt must not mark the refused attempt as sent
+      Assert.assertFalse(e instanceof UnconfirmedUploadException);
+      Assert.assertTrue(retryPolicy.isUnavailable(e));
+      Assert.assertEquals(1, server.getConnections());
+    }
+  }
+
+  @Test
+  public void testEmptyFileIsNotCompleteBeforeTransmission() {
+    UploadProgress progress = new UploadProgress(0);
+
+    Assert.assertFalse(progress.isComplete());
+    progress.start();
+    Assert.assertTrue(progress.isComplete());
+    progress.reset();
+    Assert.assertFalse(progress.isComplete());
+  }
+
+  private TwitchClient createTwitchClient() {
+    return new TwitchClient("wow", StubHttpServer.PROJECT_ID, "test-token");
+  }
+
+  private File createFile() throws IOException {
+    return TestFixtures.createFile(temporaryFolder.getRoot(), "addon.zip", FILE_SIZE);
+  }
+
+  /**
+   * Minimal http server that drops the first connections in the middle of the request body, stops
+   * reading the body of the following stalled connections and answers all remaining requests
+   * after reading the complete body. If unavailable connections are configured they are answered
+   * with 503 and the server stops accepting connections after the last of them.
+   */
+  private static final class StubServer implements AutoCloseable {
+    private final ServerSocket serverSocket;
+    private final int droppedConnections;
+    private final int stalledConnections;
+    private final int unavailableConnections;
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile long completedBodyBytes;
+    private final Thread acceptor;
+
+    StubServer(int droppedConnections) throws IOException {
+      this(droppedConnections, 0);
+    }
+
+    StubServer(int droppedConnections, int stalledConnections) throws IOException {
+      this(droppedConnections, stalledConnections, 0);
+    }
+
+    StubServer(int droppedConnections, int stalledConnections, int unavailableConnections)
+        throws IOException {
+      this.droppedConnections = droppedConnections;
+      this.stalledConnections = stalledConnections;
+      this.unavailableConnections = unavailableConnections;
+      this.serverSocket = new ServerSocket();
+      // a small receive buffer prevents the kernel from accepting the whole body before the drop
+      this.serverSocket.setReceiveBufferSize(64 * 1024);
+      this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 50);
+      this.acceptor = new Thread(this::accept);
+      this.acceptor.setDaemon(true);
+      this.acceptor.start();
+    }
+
+    URI getUri() {
+      return URI.create("http://localhost:" + serverSocket.getLocalPort()
+          + "/api/projects/111111/upload-file");
+    }
+
+    int getConnections() {
+      return connections.get();
+    }
+
+    long getCompletedBodyBytes() {
+      return completedBodyBytes;
+    }
+
+    private void accept() {
+      while (!serverSocket.isClosed()) {
+        try {
+          Socket socket = serverSocket.accept();
+          int connection = connections.incrementAndGet();
+          // stalled connections must not block accepting the retransmission
+          Thread handler = new Thread(() -> handle(socket, connection));
+          handler.setDaemon(true);
+          handler.start();
+        } catch (IOException e) {
+          // server closed
+        }
+      }
+    }
+
+    private void handle(Socket socket, int connection) {
+      try (Socket closeable = socket) {
+        if (connection <= droppedConnections) {
+          handle(closeable, true);
+        } else if (connection <= unavailableConnections) {
+          respond(closeable, 503, "");
+
+          if (connection == unavailableConnections) {
+            // following attempts are refused
+            serverSocket.close();
+          }
+        } else if (connection - droppedConnections <= stalledConnections) {
+          readHeaders(closeable.getInputStream());
+          // never read the body and wait for the client to give up
+          while (!serverSocket.isClosed()) {
+            Thread.sleep(50);
+          }
+        } else {
+          handle(closeable, false);
+        }
+      } catch (IOException e) {
+        // connection dropped or aborted by the client
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private void handle(Socket socket, boolean drop) throws IOException {
+      InputStream inputStream = socket.getInputStream();
+      long contentLength = readHeaders(inputStream);
+
+      if (drop) {
+        skip(inputStream, contentLength / 2);
+        // reset the connection in the middle of the body
+        socket.setSoLinger(true, 0);
+        return;
+      }
+
+      skip(inputStream, contentLength);
+      completedBodyBytes = contentLength;
+
+      respond(socket, 200, "{\"id\":1}");
+    }
+
+    private void respond(Socket socket, int status, String content) throws IOException {
+      if (status != 200) {
+        skip(socket.getInputStream(), readHeaders(socket.getInputStream()));
+      }
+
+      byte[] body = content.getBytes(StandardCharsets.UTF_8);
+      OutputStream outputStream = socket.getOutputStream();
+      outputStream.write(("HTTP/1.1 " + status + " Status\r\nContent-Type: application/json\r\n"
+          + "Connection: close\r\nContent-Length: " + body.length + "\r\n\r\n")
+          .getBytes(StandardCharsets.US_ASCII));
+      outputStream.write(body);
+      outputStream.flush();
+    }
+
+    private long readHeaders(InputStream inputStream) throws IOException {
+      BufferedReader reader = new BufferedReader(
+          new InputStreamReader(new HeaderInputStream(inputStream), StandardCharsets.US_ASCII));
+      long contentLength = 0;
+      String line;
+      while ((line = reader.readLine()) != null && !line.isEmpty()) {
+        if (line.toLowerCase().startsWith("content-length:")) {
+          contentLength = Long.parseLong(line.substring("content-length:".length()).trim());
+        }
+      }
+
+      return contentLength;
+    }
+
+    private void skip(InputStream inputStream, long bytes) throws IOException {
+      byte[] buffer = new byte[8192];
+      long remaining = bytes;
+      while (remaining > 0) {
+        int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+        if (read == -1) {
+          throw new SocketException("Unexpected end of stream");
+        }
+        remaining -= read;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      serverSocket.close();
+    }
+  }
+
+  /**
+   * Reads byte by byte until the end of the http headers so that no body bytes are consumed.
+   */
+  private static final class HeaderInputStream extends InputStream {
+    private final InputStream delegate;
+    private int matched;
+
+    HeaderInputStream(InputStream delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (matched == 4) {
+        return -1;
+      }
+      int value = delegate.read();
+      matched = (value == '\r' && matched % 2 == 0) || (value == '\n' && matched % 2 == 1)
+          ? matched + 1 : 0;
+
+      return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      int value = read();
+      if (value == -1) {
+        return -1;
+      }
+      buffer[offset] = (byte) value;
+
+      return 1;
+    }
+  }
+}